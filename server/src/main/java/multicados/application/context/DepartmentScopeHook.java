@@ -103,12 +103,19 @@ public class DepartmentScopeHook implements DomainContextHook {
 	}
 
 	private void createDepartments(List<String> departmentNames, Session session) throws Exception {
+		final List<Department> newDepartments = new ArrayList<>(departmentNames.size());
+
 		for (final String departmentName : departmentNames) {
 			final Department newDepartment = new Department();
 
 			newDepartment.setName(departmentName);
+			newDepartments.add(newDepartment);
+		}
+
+		final List<ServiceResult> results = crudService.createAll(Department.class, newDepartments, session, false);
 
-			final ServiceResult result = crudService.create(Department.class, null, newDepartment, session, false);
+		for (int i = 0; i < results.size(); i++) {
+			final ServiceResult result = results.get(i);
 
 			if (!result.isOk()) {
 				if (result.getException() != null) {
@@ -116,11 +123,11 @@ public class DepartmentScopeHook implements DomainContextHook {
 				}
 
 				throw new IllegalStateException(
-						String.format("Unable to create department %s with unknown error", departmentName));
+						String.format("Unable to create department %s with unknown error", departmentNames.get(i)));
 			}
 
 			if (logger.isDebugEnabled()) {
-				logger.debug("Creating department name {}", departmentName);
+				logger.debug("Creating department name {}", departmentNames.get(i));
 			}
 		}
 	}
@@ -5,40 +5,45 @@ package multicados.controller.controllers;
 
 import static multicados.internal.helper.Utils.declare;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
-import javax.persistence.Tuple;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
-import org.hibernate.SessionFactory;
+import org.apache.commons.lang3.ArrayUtils;
 import org.hibernate.engine.config.spi.ConfigurationService;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 
-import multicados.domain.entity.entities.User;
-import multicados.domain.entity.entities.User_;
 import multicados.domain.entity.file.UserPhoto;
 import multicados.internal.config.Settings;
-import multicados.internal.domain.repository.GenericRepository;
 import multicados.internal.file.engine.FileManagement;
+import multicados.internal.file.engine.FileResourceContentCache;
+import multicados.internal.file.engine.FileResourceContentCache.CachedContent;
 import multicados.internal.file.engine.FileResourcePersister;
 import multicados.internal.file.engine.FileResourceSessionFactory;
+import multicados.internal.file.engine.image.ImageService;
 import multicados.internal.file.engine.image.ManipulationContext;
+import multicados.internal.file.engine.image.Standard;
+import multicados.internal.file.engine.storage.Storage;
 import multicados.internal.helper.Common;
+import multicados.internal.helper.HttpHelper;
 import multicados.internal.helper.StringHelper;
+import multicados.service.domain.user.UserPhotoService;
 
 /**
  * @author Ngoc Huy
@@ -50,80 +55,163 @@ public class FileController extends AbstractController {
 
 	private static final Logger logger = LoggerFactory.getLogger(FileController.class);
 
-	private final GenericRepository genericRepository;
-	private final SessionFactoryImplementor mainSessionFactory;
+	private final UserPhotoService userPhotoService;
 
-	private final String userPhotoDirectory;
+	private final FileResourcePersister userPhotoPersister;
 	private final String publicDirectory;
 	private final ManipulationContext manipulationContext;
+	private final FileResourceContentCache contentCache;
+	private final ImageService imageService;
+	private final Storage storage;
 
 	@Autowired
 	public FileController(
 	// @formatter:off
-			SessionFactory sessionFactory,
-			GenericRepository genericRepository,
+			UserPhotoService userPhotoService,
 			FileManagement fileManagement) throws Exception {
 		// @formatter:on
-		mainSessionFactory = SessionFactoryImplementor.class.cast(sessionFactory);
-
 		final FileResourceSessionFactory fileResourceSessionFactory = fileManagement.getSessionFactory();
 
-		this.genericRepository = genericRepository;
+		this.userPhotoService = userPhotoService;
 		// @formatter:off
-		userPhotoDirectory = declare(fileResourceSessionFactory)
+		userPhotoPersister = declare(fileResourceSessionFactory)
 				.then(SessionFactoryImplementor::getMetamodel)
 				.then(metamodel -> metamodel.entityPersister(UserPhoto.class))
 				.then(FileResourcePersister.class::cast)
-				.then(FileResourcePersister::getDirectoryPath)
 				.get();
 		manipulationContext = fileResourceSessionFactory.getServiceRegistry().requireService(ManipulationContext.class);
+		contentCache = fileResourceSessionFactory.getServiceRegistry().requireService(FileResourceContentCache.class);
+		imageService = fileResourceSessionFactory.getServiceRegistry().requireService(ImageService.class);
+		storage = fileResourceSessionFactory.getServiceRegistry().requireService(Storage.class);
 		publicDirectory = (String) fileResourceSessionFactory.getServiceRegistry().requireService(ConfigurationService.class).getSettings().get(Settings.FILE_RESOURCE_PUBLIC_DIRECTORY);
 		// @formatter:on
 	}
 
 	@GetMapping("/public/{filename}")
-	@Transactional(readOnly = true)
-	public byte[] getPublicResource(@PathVariable("filename") String filename, HttpServletRequest request)
-			throws IOException {
-		return Files.readAllBytes(new File(publicDirectory + filename).toPath());
+	public ResponseEntity<?> getPublicResource(@PathVariable("filename") String filename, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		return doGetBytesDirectly(request, response, publicDirectory + filename, null);
 	}
 
 	@GetMapping("/public/user/{username}")
-	@Transactional(readOnly = true)
 	public ResponseEntity<?> getUserPhotoBytesDirectly(
 	// @formatter:off
 			@PathVariable("username") String username,
 			@RequestParam(name = "size", required = false, defaultValue = StringHelper.EMPTY_STRING) String size,
-			HttpServletRequest request) throws Exception {
+			HttpServletRequest request,
+			HttpServletResponse response) throws Exception {
 		// @formatter:on
-		final Optional<Tuple> optionalTuple = genericRepository.findById(User.class, username,
-				(root, query, builder) -> List.of(root.get(User_.photo).alias(User_.PHOTO)),
-				mainSessionFactory.getCurrentSession());
+		final Optional<String> optionalPhoto = userPhotoService.locatePhoto(username);
 
-		if (optionalTuple.isEmpty()) {
+		if (optionalPhoto.isEmpty()) {
 			return sendNotFound(List.of(Common.user(username)), request);
 		}
-		// @formatter:off
-		return declare(optionalTuple.get())
-				.then(tuple -> tuple.get(User_.PHOTO, String.class))
-					.prepend(userPhotoDirectory)
-				.then((directory, filename) -> directory + (size.isEmpty() ? filename : manipulationContext.resolveCompressionName(filename, size)))
-					.prepend(request)
-				.then(this::doGetBytesDirectly)
-				.get();
-		// @formatter:on
+
+		final String filename = optionalPhoto.get();
+
+		if (size.isEmpty()) {
+			return doGetUserPhotoBytesDirectly(request, response, filename);
+		}
+
+		final Standard standard = manipulationContext.locateStandard(filename);
+		final int index = standard == null ? -1 : ArrayUtils.indexOf(standard.getCompressionPrefixes(), size);
+
+		if (index < 0) {
+			return sendNotFound(List.of(Common.file(size)), request);
+		}
+
+		final String primaryFilename = manipulationContext.resolveCompressionName(filename,
+				standard.getCompressionPrefixes()[0]);
+
+		if (imageService.isPropagating(filename)) {
+			// serve the primary variant until every other one is written, it must not be
+			// stored in place of the requested one
+			response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noStore().getHeaderValue());
+
+			return doGetUserPhotoBytesDirectly(request, response, primaryFilename);
+		}
+
+		final String variantFilename = manipulationContext.resolveCompressionName(filename, size);
+
+		if (index > 0 && !imageService.renderVariant(userPhotoPersister.resolvePath(primaryFilename),
+				userPhotoPersister.resolvePath(variantFilename), standard, index)) {
+			return sendNotFound(List.of(Common.file(variantFilename)), request);
+		}
+
+		return doGetUserPhotoBytesDirectly(request, response, variantFilename);
 	}
 
-	private ResponseEntity<?> doGetBytesDirectly(HttpServletRequest request, String path) throws IOException {
-		final File file = new File(path);
+	private ResponseEntity<?> doGetUserPhotoBytesDirectly(HttpServletRequest request, HttpServletResponse response,
+			String filename) throws IOException {
+		final String path = userPhotoPersister.resolvePath(filename);
+		final String flatPath = userPhotoPersister.getDirectoryPath() + filename;
+		// files of a flat directory which are yet to be migrated to its layout
+		return doGetBytesDirectly(request, response, path, path.equals(flatPath) ? null : flatPath);
+	}
+
+	/**
+	 * Report whether every variant of the user photo has been produced
+	 */
+	@GetMapping("/public/user/{username}/status")
+	public ResponseEntity<?> getUserPhotoStatus(@PathVariable("username") String username,
+			HttpServletRequest request) throws Exception {
+		final Optional<String> optionalPhoto = userPhotoService.locatePhoto(username);
+
+		if (optionalPhoto.isEmpty()) {
+			return sendNotFound(List.of(Common.user(username)), request);
+		}
+
+		return sendOk(Map.of("ready", !imageService.isPropagating(optionalPhoto.get())), request);
+	}
+
+	/**
+	 * Serve hot files from the content cache, stream the others without reading
+	 * them onto the heap
+	 *
+	 * @param fallbackPath looked up when the file is missing, nullable
+	 */
+	private ResponseEntity<?> doGetBytesDirectly(HttpServletRequest request, HttpServletResponse response,
+			String path, String fallbackPath) throws IOException {
+		final boolean isRanged = request.getHeader(HttpHeaders.RANGE) != null;
+
+		if (!isRanged) {
+			final CachedContent cachedContent = contentCache.get(path);
+
+			if (cachedContent != null) {
+				return sendCachedContent(cachedContent, path, request, response);
+			}
+		}
+
+		final Path filePath = storage.locate(path);
+
+		if (filePath == null) {
+			if (fallbackPath != null) {
+				return doGetBytesDirectly(request, response, fallbackPath, null);
+			}
+
+			return sendNotFound(List.of(Common.file(path)), request);
+		}
 
-		if (file.exists() && file.isFile()) {
-			logger.debug("Directly reading file {}", path);
+		if (!isRanged) {
+			final CachedContent loadedContent = contentCache.load(path, filePath);
 
-			return sendOk(Files.readAllBytes(file.toPath()), request);
+			if (loadedContent != null) {
+				return sendCachedContent(loadedContent, path, request, response);
+			}
 		}
 
-		return sendNotFound(List.of(Common.file(path)), request);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Directly serving file {}", path);
+		}
+
+		return HttpHelper.sendFile(filePath, request, response);
+	}
+
+	private ResponseEntity<?> sendCachedContent(CachedContent cachedContent, String path, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		HttpHelper.sendContent(cachedContent.getContent(), cachedContent.getLastModified(), path, request, response);
+		// the response has been completed
+		return null;
 	}
 
 }
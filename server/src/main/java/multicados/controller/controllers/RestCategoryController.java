@@ -4,12 +4,13 @@
 package multicados.controller.controllers;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
-import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -18,11 +19,16 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import multicados.controller.query.CategoryQuery;
 import multicados.domain.entity.entities.Category;
+import multicados.internal.helper.HttpHelper;
 import multicados.internal.helper.SpringHelper;
 import multicados.internal.security.FixedAnonymousAuthenticationToken;
 import multicados.internal.service.crud.GenericCRUDServiceImpl;
+import multicados.internal.service.crud.rest.ComposedRestQuery;
+import multicados.internal.service.crud.rest.RestResponseCache;
 
 /**
  * @author Ngoc Huy
@@ -35,24 +41,40 @@ public class RestCategoryController extends AbstractController {
 	private final GenericCRUDServiceImpl crudService;
 	private final SessionFactory sessionFactory;
 
+	private final RestResponseCache responseCache;
+
 	private final FixedAnonymousAuthenticationToken anonymousToken;
+	private final ObjectMapper objectMapper;
 
 	@Autowired
 	public RestCategoryController(GenericCRUDServiceImpl crudService, SessionFactory sessionFactory,
-			FixedAnonymousAuthenticationToken anonymousToken) {
+			RestResponseCache responseCache, FixedAnonymousAuthenticationToken anonymousToken,
+			ObjectMapper objectMapper) {
 		this.crudService = crudService;
 		this.sessionFactory = sessionFactory;
+		this.responseCache = responseCache;
 		this.anonymousToken = anonymousToken;
+		this.objectMapper = objectMapper;
 	}
 
 	@GetMapping
-	@Transactional(readOnly = true)
 	public ResponseEntity<?> getCategories(CategoryQuery query, Authentication authentication) throws Exception {
-		final Session session = sessionFactory.getCurrentSession();
+		final GrantedAuthority credential = SpringHelper
+				.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority();
+		final ComposedRestQuery<Category> composedQuery = crudService.compose(query, credential);
 
-		return ResponseEntity.ok(crudService.readAll(query,
-				SpringHelper.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority(),
-				session));
+		return responseCache.readAll(composedQuery, credential,
+				() -> crudService.readAll(composedQuery, credential, sessionFactory.getCurrentSession()));
+	}
+
+	@GetMapping("/stream")
+	@Transactional(readOnly = true)
+	public void streamCategories(CategoryQuery query, Authentication authentication, HttpServletResponse response)
+			throws Exception {
+		HttpHelper.streamJson(response, objectMapper,
+				consumer -> crudService.stream(query,
+						SpringHelper.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority(),
+						sessionFactory.getCurrentSession(), consumer));
 	}
 
 	@PostMapping
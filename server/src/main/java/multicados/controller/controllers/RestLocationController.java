@@ -3,20 +3,30 @@
  */
 package multicados.controller.controllers;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.hibernate.HibernateException;
 import org.hibernate.SessionFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import multicados.controller.query.DistrictQuery;
 import multicados.controller.query.ProvinceQuery;
+import multicados.domain.entity.entities.District;
+import multicados.domain.entity.entities.Province;
+import multicados.internal.helper.HttpHelper;
 import multicados.internal.helper.SpringHelper;
 import multicados.internal.security.FixedAnonymousAuthenticationToken;
 import multicados.internal.service.crud.GenericCRUDServiceImpl;
+import multicados.internal.service.crud.rest.ComposedRestQuery;
+import multicados.internal.service.crud.rest.RestResponseCache;
 
 /**
  * @author Ngoc Huy
@@ -28,32 +38,61 @@ public class RestLocationController extends AbstractController {
 
 	private final SessionFactory sessionFactory;
 	private final GenericCRUDServiceImpl crudService;
+	private final RestResponseCache responseCache;
 
 	private final FixedAnonymousAuthenticationToken anonymousToken;
+	private final ObjectMapper objectMapper;
 
 	public RestLocationController(SessionFactory sessionFactory, GenericCRUDServiceImpl crudService,
-			FixedAnonymousAuthenticationToken anonymousToken) {
+			RestResponseCache responseCache, FixedAnonymousAuthenticationToken anonymousToken,
+			ObjectMapper objectMapper) {
 		this.sessionFactory = sessionFactory;
 		this.crudService = crudService;
+		this.responseCache = responseCache;
 		this.anonymousToken = anonymousToken;
+		this.objectMapper = objectMapper;
 	}
 
 	@GetMapping("/district")
-	@Transactional(readOnly = true)
 	public ResponseEntity<?> getDistricts(DistrictQuery districtQuery, Authentication authentication)
 			throws HibernateException, Exception {
-		return ResponseEntity.ok(crudService.readAll(districtQuery,
-				SpringHelper.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority(),
-				sessionFactory.getCurrentSession()));
+		final GrantedAuthority credential = SpringHelper
+				.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority();
+		final ComposedRestQuery<District> composedQuery = crudService.compose(districtQuery, credential);
+
+		return responseCache.readAll(composedQuery, credential,
+				() -> crudService.readAll(composedQuery, credential, sessionFactory.getCurrentSession()));
 	}
 
-	@GetMapping("/province")
+	@GetMapping("/district/stream")
 	@Transactional(readOnly = true)
+	public void streamDistricts(DistrictQuery districtQuery, Authentication authentication,
+			HttpServletResponse response) throws Exception {
+		HttpHelper.streamJson(response, objectMapper,
+				consumer -> crudService.stream(districtQuery,
+						SpringHelper.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority(),
+						sessionFactory.getCurrentSession(), consumer));
+	}
+
+	@GetMapping("/province")
 	public ResponseEntity<?> getProvices(ProvinceQuery provinceQuery, Authentication authentication)
 			throws HibernateException, Exception {
-		return ResponseEntity.ok(crudService.readAll(provinceQuery,
-				SpringHelper.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority(),
-				sessionFactory.getCurrentSession()));
+		final GrantedAuthority credential = SpringHelper
+				.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority();
+		final ComposedRestQuery<Province> composedQuery = crudService.compose(provinceQuery, credential);
+
+		return responseCache.readAll(composedQuery, credential,
+				() -> crudService.readAll(composedQuery, credential, sessionFactory.getCurrentSession()));
+	}
+
+	@GetMapping("/province/stream")
+	@Transactional(readOnly = true)
+	public void streamProvinces(ProvinceQuery provinceQuery, Authentication authentication,
+			HttpServletResponse response) throws Exception {
+		HttpHelper.streamJson(response, objectMapper,
+				consumer -> crudService.stream(provinceQuery,
+						SpringHelper.getUserDetails(authentication, anonymousToken.getPrincipal()).getCRUDAuthority(),
+						sessionFactory.getCurrentSession(), consumer));
 	}
 
 }
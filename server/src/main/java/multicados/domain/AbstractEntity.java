@@ -6,6 +6,7 @@ package multicados.domain;
 import java.io.Serializable;
 
 import multicados.internal.domain.Entity;
+import multicados.internal.helper.Base32;
 
 /**
  * @author Ngoc Huy
@@ -13,8 +14,18 @@ import multicados.internal.domain.Entity;
  */
 public abstract class AbstractEntity<T extends Serializable> implements Entity<T> {
 
-	public static final String SHARED_TABLE_GENERATOR = "shared_table_generator";
 	public static final String SHARED_TABLE_GENERATOR_TABLENAME = "id_generators";
+	/**
+	 * Identifiers are reserved in blocks, one segment per entity type, in the
+	 * {@link #SHARED_TABLE_GENERATOR_TABLENAME} table. The pooled-lo optimizer
+	 * stores the lowest value of the next block so that every node reserves
+	 * distinct blocks
+	 */
+	public static final String POOLED_TABLE_GENERATOR_STRATEGY = "org.hibernate.id.enhanced.TableGenerator";
+	public static final String POOLED_TABLE_GENERATOR_OPTIMIZER = "pooled-lo";
+	public static final String POOLED_TABLE_GENERATOR_ALLOCATION_SIZE = "50";
+	// codes of encrypted identifiers are at least 3 characters long
+	public static final String ENCRYPTED_IDENTIFIER_INITIAL_VALUE = "" + Base32.CROCKFORD_10A;
 
 	public static final String MYSQL_UUID_COLUMN_DEFINITION = "BINARY(16)";
 	public static final String MYSQL_BCRYPT_COLUMN_DEFINITION = "VARCHAR(60)";
@@ -5,13 +5,18 @@ package multicados.domain.entity.entities;
 
 import java.math.BigInteger;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.Table;
-import javax.persistence.TableGenerator;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.TableGenerator;
 
 import multicados.domain.AbstractEntity;
 import multicados.domain.entity.PermanentEntity;
@@ -19,21 +24,35 @@ import multicados.domain.validator.CategoryValidator;
 import multicados.internal.domain.EncryptedIdentifierResource;
 import multicados.internal.domain.NamedResource;
 import multicados.internal.domain.annotation.Name;
-import multicados.internal.helper.Base32;
 
 /**
  * @author Ngoc Huy
  *
  */
 @Entity
-@Table(name = "categories")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = Category.TABLE_NAME)
 public class Category extends PermanentEntity<BigInteger>
 		implements NamedResource, EncryptedIdentifierResource<BigInteger> {
 
+	public static final String TABLE_NAME = "categories";
+	public static final String ID_GENERATOR = "category_id_generator";
+
 	@Id
-	@GeneratedValue(strategy = GenerationType.TABLE, generator = AbstractEntity.SHARED_TABLE_GENERATOR)
-	@TableGenerator(name = AbstractEntity.SHARED_TABLE_GENERATOR, initialValue = Base32.CROCKFORD_10A
-			- 1, allocationSize = 1, table = AbstractEntity.SHARED_TABLE_GENERATOR_TABLENAME)
+	@GeneratedValue(generator = Category.ID_GENERATOR)
+	// @formatter:off
+	@GenericGenerator(
+		name = Category.ID_GENERATOR,
+		strategy = AbstractEntity.POOLED_TABLE_GENERATOR_STRATEGY,
+		parameters = {
+			@Parameter(name = TableGenerator.TABLE_PARAM, value = AbstractEntity.SHARED_TABLE_GENERATOR_TABLENAME),
+			@Parameter(name = TableGenerator.SEGMENT_VALUE_PARAM, value = Category.TABLE_NAME),
+			@Parameter(name = TableGenerator.INITIAL_PARAM, value = AbstractEntity.ENCRYPTED_IDENTIFIER_INITIAL_VALUE),
+			@Parameter(name = TableGenerator.INCREMENT_PARAM, value = AbstractEntity.POOLED_TABLE_GENERATOR_ALLOCATION_SIZE),
+			@Parameter(name = TableGenerator.OPT_PARAM, value = AbstractEntity.POOLED_TABLE_GENERATOR_OPTIMIZER)
+		})
+	// @formatter:on
 	@Column(updatable = false, columnDefinition = "BIGINT")
 	private BigInteger id;
 
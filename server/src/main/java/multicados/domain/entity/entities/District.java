@@ -3,6 +3,7 @@
  */
 package multicados.domain.entity.entities;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -14,6 +15,9 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import multicados.domain.entity.PermanentEntity;
 import multicados.internal.domain.NamedResource;
 import multicados.internal.domain.annotation.Name;
@@ -23,6 +27,8 @@ import multicados.internal.domain.annotation.Name;
  *
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "districts", indexes = @Index(columnList = District.$index))
 public class District extends PermanentEntity<Integer> implements NamedResource {
 
@@ -5,6 +5,7 @@ package multicados.domain.entity.entities;
 
 import java.util.List;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
@@ -14,6 +15,9 @@ import javax.persistence.Index;
 import javax.persistence.OneToMany;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 import multicados.domain.entity.PermanentEntity;
 import multicados.internal.domain.NamedResource;
 import multicados.internal.domain.annotation.Name;
@@ -23,6 +27,8 @@ import multicados.internal.domain.annotation.Name;
  *
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "provinces", indexes = @Index(columnList = Province.$index))
 public class Province extends PermanentEntity<Integer> implements NamedResource {
 
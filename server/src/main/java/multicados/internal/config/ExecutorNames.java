@@ -14,6 +14,8 @@ public class ExecutorNames {
 	}
 
 	public static final String IMAGE_SERVICE_EXECUTOR = "img-manipulation-";
+	public static final String IMAGE_PROPAGATION_EXECUTOR = "img-propagation-";
+	public static final String FILE_UPLOAD_EXECUTOR = "file-upload-";
 	public static final String CREDENTIAL_RESET_EXECUTOR = "credential_reset_mailer";
 
 }
@@ -4,15 +4,19 @@
 package multicados.internal.config;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
 import java.util.Properties;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import javax.persistence.SharedCacheMode;
 import javax.sql.DataSource;
 
 import org.hibernate.FlushMode;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cache.jcache.ConfigSettings;
 import org.hibernate.cfg.AvailableSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -30,19 +34,30 @@ import org.springframework.http.converter.json.MappingJackson2HttpMessageConvert
 import org.springframework.http.converter.xml.MappingJackson2XmlHttpMessageConverter;
 import org.springframework.orm.hibernate5.HibernateTransactionManager;
 import org.springframework.orm.hibernate5.LocalSessionFactoryBean;
+import org.springframework.orm.hibernate5.LocalSessionFactoryBuilder;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionManager;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.hibernate5.Hibernate5Module;
 
+import multicados.internal.domain.DomainResourceContext;
+import multicados.internal.domain.cache.ResourceCache;
+import multicados.internal.domain.cache.ResourceCacheRegionFactory;
+import multicados.internal.domain.repository.TableGeneratorSeeder;
 import multicados.internal.helper.SpringHelper;
+import multicados.internal.invalidation.InvalidationBus;
+import multicados.internal.invalidation.JdbcPollingInvalidationBus;
+import multicados.internal.invalidation.LocalInvalidationBus;
+import multicados.internal.service.crud.rest.RestResponseCache;
 
 /**
  * @author Ngoc Huy
@@ -65,7 +80,14 @@ public class InternalWebConfiguration implements WebMvcConfigurer {
 	public FactoryBean<SessionFactory> sessionFactory(DataSource dataSource, Environment env) throws Exception {
 		logger.info("Creating {} bean", LocalSessionFactoryBean.class.getName());
 
-		final LocalSessionFactoryBean sessionFactory = new LocalSessionFactoryBean();
+		final LocalSessionFactoryBean sessionFactory = new LocalSessionFactoryBean() {
+			@Override
+			protected SessionFactory buildSessionFactory(LocalSessionFactoryBuilder sfb) {
+				// segments left behind by former generators are moved past the identifiers in use
+				sfb.setSessionFactoryObserver(new TableGeneratorSeeder());
+				return super.buildSessionFactory(sfb);
+			}
+		};
 
 		sessionFactory.setDataSource(dataSource);
 		sessionFactory.setPackagesToScan(env.getProperty(Settings.SCANNED_ENTITY_PACKAGES));
@@ -85,11 +107,56 @@ public class InternalWebConfiguration implements WebMvcConfigurer {
 		properties.put(Settings.HBM_FLUSH_MODE,
 				SpringHelper.getOrDefault(env, Settings.HBM_FLUSH_MODE, FlushMode::valueOf, FlushMode.MANUAL));
 
+		if (SpringHelper.getOrDefault(env, Settings.SECOND_LEVEL_CACHE, Boolean::valueOf, Boolean.TRUE)) {
+			configureSecondLevelCache(properties, env);
+		}
+
 		sessionFactory.setHibernateProperties(properties);
 
 		return sessionFactory;
 	}
 
+	/**
+	 * Only entities annotated as cacheable are cached, in regions created by a
+	 * {@link ResourceCacheRegionFactory}
+	 */
+	private void configureSecondLevelCache(Properties properties, Environment env) throws Exception {
+		logger.info("Using {} for the second level cache", ResourceCacheRegionFactory.class.getName());
+		// @formatter:off
+		properties.put(AvailableSettings.CACHE_REGION_FACTORY, new ResourceCacheRegionFactory(
+				SpringHelper.getOrDefault(env, Settings.SECOND_LEVEL_CACHE_REGION_SIZE, Long::valueOf,
+						ResourceCacheRegionFactory.DEFAULT_MAX_SIZE),
+				SpringHelper.getOrDefault(env, Settings.SECOND_LEVEL_CACHE_REGION_EXPIRATION,
+						millis -> Duration.ofMillis(Long.parseLong(millis)),
+						ResourceCacheRegionFactory.DEFAULT_EXPIRATION)));
+		// @formatter:on
+		properties.put(ConfigSettings.PROVIDER, ResourceCacheRegionFactory.PROVIDER);
+		properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+		properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+		properties.put(AvailableSettings.JPA_SHARED_CACHE_MODE, SharedCacheMode.ENABLE_SELECTIVE);
+		properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+	}
+
+	@Bean
+	public ResourceCache resourceCache(SessionFactory sessionFactory, DomainResourceContext resourceContext,
+			InvalidationBus invalidationBus) {
+		return new ResourceCache(sessionFactory, resourceContext, invalidationBus);
+	}
+
+	@Bean
+	public RestResponseCache restResponseCache(SessionFactory sessionFactory, TransactionManager transactionManager,
+			ObjectMapper objectMapper, InvalidationBus invalidationBus, Environment env) throws Exception {
+		// @formatter:off
+		return new RestResponseCache(
+				sessionFactory,
+				(PlatformTransactionManager) transactionManager,
+				objectMapper,
+				invalidationBus,
+				SpringHelper.getOrDefault(env, Settings.CRUD_RESPONSE_CACHE_SIZE, Long::valueOf, RestResponseCache.DEFAULT_MAX_BYTES),
+				SpringHelper.getOrDefault(env, Settings.CRUD_RESPONSE_CACHE_ENTRY_SIZE, Long::valueOf, RestResponseCache.DEFAULT_MAX_ENTRY_BYTES));
+		// @formatter:on
+	}
+
 	@Bean
 	public TransactionManager transactionManager(SessionFactory sessionFactory) {
 		return new HibernateTransactionManager(sessionFactory);
@@ -112,6 +179,36 @@ public class InternalWebConfiguration implements WebMvcConfigurer {
 		executor.setMaxPoolSize(10);
 		executor.setQueueCapacity(50);
 		executor.setThreadNamePrefix(ExecutorNames.IMAGE_SERVICE_EXECUTOR);
+		// encodings are submitted by propagations, never drop one
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+		return executor;
+	}
+
+	@Bean(name = ExecutorNames.IMAGE_PROPAGATION_EXECUTOR)
+	public Executor imagePropagationExecutor() {
+		final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		// every queued propagation holds an adjusted raster, keep the queue short
+		// and let the uploading thread do the work once it is full
+		executor.setCorePoolSize(2);
+		executor.setMaxPoolSize(4);
+		executor.setQueueCapacity(16);
+		executor.setThreadNamePrefix(ExecutorNames.IMAGE_PROPAGATION_EXECUTOR);
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+
+		return executor;
+	}
+
+	@Bean(name = ExecutorNames.FILE_UPLOAD_EXECUTOR)
+	public Executor fileUploadExecutor() {
+		final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		// parts in flight are bounded by each upload, the queue only absorbs
+		// concurrent uploads
+		executor.setCorePoolSize(4);
+		executor.setMaxPoolSize(8);
+		executor.setQueueCapacity(32);
+		executor.setThreadNamePrefix(ExecutorNames.FILE_UPLOAD_EXECUTOR);
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
 
 		return executor;
 	}
@@ -128,6 +225,26 @@ public class InternalWebConfiguration implements WebMvcConfigurer {
 		return executor;
 	}
 
+	@Bean
+	public InvalidationBus invalidationBus(DataSource dataSource, Environment env) throws Exception {
+		if (!Settings.INVALIDATION_BUS_JDBC.equals(env.getProperty(Settings.INVALIDATION_BUS))) {
+			logger.info("Using {}", LocalInvalidationBus.class.getName());
+			return new LocalInvalidationBus();
+		}
+
+		logger.info("Using {}", JdbcPollingInvalidationBus.class.getName());
+		// @formatter:off
+		return new JdbcPollingInvalidationBus(
+				dataSource,
+				SpringHelper.getOrDefault(env, Settings.INVALIDATION_BUS_POLL_INTERVAL,
+						millis -> Duration.ofMillis(Long.parseLong(millis)),
+						JdbcPollingInvalidationBus.DEFAULT_POLL_INTERVAL),
+				SpringHelper.getOrDefault(env, Settings.INVALIDATION_BUS_RETENTION,
+						millis -> Duration.ofMillis(Long.parseLong(millis)),
+						JdbcPollingInvalidationBus.DEFAULT_RETENTION));
+		// @formatter:on
+	}
+
 	@Bean
 	public PasswordEncoder passwordEncoder() {
 		return new BCryptPasswordEncoder();
@@ -21,6 +21,10 @@ public interface Settings {
 	public static final String SCANNED_FILE_RESOURCE_PACKAGE = "multicados.scanned-packages.file";
 
 	public static final String READ_FAILURE_EXCEPTION_THROWING_STRATEGY = "multicados.crud.security.read.failurestrategy";
+	public static final String CRUD_QUERY_PLAN_CACHE_SIZE = "multicados.crud.query.plan.cache.size";
+	public static final String CRUD_STREAM_FETCH_SIZE = "multicados.crud.stream.fetch-size";
+	public static final String CRUD_RESPONSE_CACHE_SIZE = "multicados.crud.response.cache.size";
+	public static final String CRUD_RESPONSE_CACHE_ENTRY_SIZE = "multicados.crud.response.cache.entry-size";
 
 	public static final String DUMMY_DATABASE_MODE = "multicados.dummy-database.initializer";
 	public static final String DUMMY_DATABASE_PATH = "multicados.dummy-database.path";
@@ -34,15 +38,45 @@ public interface Settings {
 	public static final String SECURITY_JWT_COOKIE_NAME = "multicados.security.jwt.cookiename";
 	public static final String SECURITY_JWT_SECRET = "multicados.security.jwt.secret";
 	public static final String SECURITY_JWT_EXPIRATION_DURATION = "multicados.security.jwt.expiration";
+	public static final String SECURITY_JWT_VERIFICATION_CACHE_SIZE = "multicados.security.jwt.verification.cache.size";
 	public static final String SECURITY_DEV_CLIENT_PORTS = "multicados.security.dev.client.ports";
 	public static final String SECURITY_RSA_PRIVATE_KEY_PATH = "multicados.security.rsa.private";
 	public static final String SECURITY_RSA_PUBLIC_KEY_PATH = "multicados.security.rsa.public";
+	public static final String SECURITY_USER_DETAILS_CACHE_SIZE = "multicados.security.user-details.cache.size";
+
+	public static final String INVALIDATION_BUS = "multicados.invalidation.bus";
+	public static final String INVALIDATION_BUS_JDBC = "jdbc";
+	public static final String INVALIDATION_BUS_POLL_INTERVAL = "multicados.invalidation.poll-interval";
+	public static final String INVALIDATION_BUS_RETENTION = "multicados.invalidation.retention";
+
+	public static final String SECOND_LEVEL_CACHE = "multicados.cache.enabled";
+	public static final String SECOND_LEVEL_CACHE_REGION_SIZE = "multicados.cache.region.size";
+	public static final String SECOND_LEVEL_CACHE_REGION_EXPIRATION = "multicados.cache.region.expiration";
+	public static final String CACHE_STATISTICS_INTERVAL = "multicados.cache.statistics.interval";
 	
 	public static final String FILE_RESOURCE_IDENTIFIER_LENGTH = "multicados.file.id.length";
 	public static final String FILE_RESOURCE_IDENTIFIER_DELIMITER = "multicados.file.id.delimiter";
 	public static final String FILE_RESOURCE_IMAGE_STANDARD = "multicados.file.image.standard";
+	public static final String FILE_RESOURCE_IMAGE_LAZY_VARIANTS = "multicados.file.image.lazy-variants";
 	public static final String FILE_RESOURCE_ROOT_DIRECTORY = "multicados.file.directory";
 	public static final String FILE_RESOURCE_PUBLIC_DIRECTORY = "multicados.file.directory.public";
+	public static final String FILE_RESOURCE_DIRECTORY_LAYOUT = "multicados.file.directory.layout";
+	public static final String FILE_RESOURCE_DIRECTORY_LAYOUT_MIGRATION = "multicados.file.directory.layout.migrate";
+	public static final String FILE_RESOURCE_CONTENT_CACHE_SIZE = "multicados.file.cache.size";
+	public static final String FILE_RESOURCE_CONTENT_CACHE_ENTRY_SIZE = "multicados.file.cache.entry-size";
+	public static final String FILE_RESOURCE_WRITE_DURABILITY = "multicados.file.write.durability";
+	public static final String FILE_RESOURCE_STORAGE = "multicados.file.storage";
+	public static final String FILE_RESOURCE_STORAGE_LOCAL = "local";
+	public static final String FILE_RESOURCE_STORAGE_S3 = "s3";
+	public static final String FILE_RESOURCE_STORAGE_S3_ENDPOINT = "multicados.file.storage.s3.endpoint";
+	public static final String FILE_RESOURCE_STORAGE_S3_BUCKET = "multicados.file.storage.s3.bucket";
+	public static final String FILE_RESOURCE_STORAGE_S3_REGION = "multicados.file.storage.s3.region";
+	public static final String FILE_RESOURCE_STORAGE_S3_ACCESS_KEY = "multicados.file.storage.s3.access-key";
+	public static final String FILE_RESOURCE_STORAGE_S3_SECRET_KEY = "multicados.file.storage.s3.secret-key";
+	public static final String FILE_RESOURCE_STORAGE_S3_PART_SIZE = "multicados.file.storage.s3.part-size";
+	public static final String FILE_RESOURCE_STORAGE_S3_UPLOAD_CONCURRENCY = "multicados.file.storage.s3.upload-concurrency";
+	public static final String FILE_RESOURCE_STORAGE_CACHE_DIRECTORY = "multicados.file.storage.cache.directory";
+	public static final String FILE_RESOURCE_STORAGE_CACHE_SIZE = "multicados.file.storage.cache.size";
 
 	public static final String DOMAIN_NAMED_RESOURCE_ACCEPTED_CHARS = "multicados.domain.resource.named.chars";
 	public static final String DOMAIN_NAMED_RESOURCE_MAX_LENGTH = "multicados.domain.resource.named.max";
@@ -58,6 +92,7 @@ public interface Settings {
 	public static final String CUSTOMER_CREDENTIAL_RESET_HOTP_LENGTH = "multicados.customer.password.reset.hotp.length";
 	
 	public static final String USER_DEFAULT_PHOTO_FILENAME = "multicados.user.photo";
+	public static final String USER_PHOTO_CACHE_SIZE = "multicados.user.photo.cache.size";
 
 	public static final String DEFAULT_PRODUCTION_PROFILE = "PROD";
 
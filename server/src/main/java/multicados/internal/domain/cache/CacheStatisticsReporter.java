@@ -0,0 +1,49 @@
+/**
+ *
+ */
+package multicados.internal.domain.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import multicados.internal.config.Settings;
+import multicados.internal.service.crud.GenericCRUDServiceImpl;
+
+/**
+ * Logs the metrics of the query plan cache and of the second level cache
+ * regions, the interval is configured through
+ * {@link Settings#CACHE_STATISTICS_INTERVAL} in milliseconds
+ *
+ * @author Ngoc Huy
+ *
+ */
+@Component
+public class CacheStatisticsReporter {
+
+	private static final Logger logger = LoggerFactory.getLogger(CacheStatisticsReporter.class);
+
+	private final GenericCRUDServiceImpl crudService;
+	private final ResourceCache resourceCache;
+
+	public CacheStatisticsReporter(GenericCRUDServiceImpl crudService, ResourceCache resourceCache) {
+		this.crudService = crudService;
+		this.resourceCache = resourceCache;
+	}
+
+	@Scheduled(initialDelayString = "${" + Settings.CACHE_STATISTICS_INTERVAL + ":300000}",
+			fixedDelayString = "${" + Settings.CACHE_STATISTICS_INTERVAL + ":300000}")
+	public void report() {
+		if (!logger.isInfoEnabled()) {
+			return;
+		}
+
+		logger.info("{}", crudService.getPlanCacheStatistics());
+
+		for (final ResourceCache.Statistics statistics : resourceCache.getStatistics()) {
+			logger.info("{}", statistics);
+		}
+	}
+
+}
@@ -0,0 +1,247 @@
+/**
+ *
+ */
+package multicados.internal.domain.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import multicados.internal.domain.DomainResource;
+import multicados.internal.domain.DomainResourceContext;
+import multicados.internal.domain.metadata.CachedResourceMetadata;
+import multicados.internal.invalidation.InvalidationBus;
+
+/**
+ * Keeps the second level cache of every node consistent. Hibernate only
+ * invalidates the regions of the node which writes, committed writes of a
+ * cached resource are therefore broadcast so that other nodes drop the
+ * resource type and the cached query results.
+ *
+ * Cached resources are described by their {@link CachedResourceMetadata}.
+ * Queries are only cached when every resource they read is cached, results of
+ * a query joining other resources would not be invalidated on other nodes
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class ResourceCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResourceCache.class);
+
+	public static final String INVALIDATION_REGION = "resource-cache";
+	public static final String QUERY_REGION = "resource-query";
+
+	private final SessionFactoryImplementor sessionFactory;
+	private final DomainResourceContext resourceContext;
+	private final InvalidationBus invalidationBus;
+
+	public ResourceCache(SessionFactory sessionFactory, DomainResourceContext resourceContext,
+			InvalidationBus invalidationBus) {
+		this.sessionFactory = sessionFactory.unwrap(SessionFactoryImplementor.class);
+		this.resourceContext = resourceContext;
+		this.invalidationBus = invalidationBus;
+
+		if (!this.sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled()) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Second level cache is disabled");
+			}
+
+			return;
+		}
+
+		invalidationBus.subscribe(INVALIDATION_REGION, this::evict);
+
+		final EventListenerRegistry listenerRegistry = this.sessionFactory.getServiceRegistry()
+				.requireService(EventListenerRegistry.class);
+		final ResourceModificationListener listener = new ResourceModificationListener();
+
+		listenerRegistry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+		listenerRegistry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+		listenerRegistry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+	}
+
+	public <D extends DomainResource> boolean isCached(Class<D> resourceType) {
+		@SuppressWarnings("unchecked")
+		final CachedResourceMetadata<D> metadata = resourceContext.getMetadata(resourceType)
+				.unwrap(CachedResourceMetadata.class);
+
+		return metadata.isCached();
+	}
+
+	/**
+	 * Writes of cached resources are rare, the whole type is dropped instead of
+	 * parsing identifiers back
+	 */
+	private void evict(String entityName) {
+		final CacheImplementor cache = sessionFactory.getCache();
+
+		cache.evictEntityData(entityName);
+		cache.evictQueryRegion(QUERY_REGION);
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Evicted cached entities of type [{}] and cached queries", entityName);
+		}
+	}
+
+	/**
+	 * @return a snapshot of the cached entity regions and the query region
+	 */
+	public List<Statistics> getStatistics() {
+		final org.hibernate.stat.Statistics statistics = sessionFactory.getStatistics();
+		final List<Statistics> snapshots = new ArrayList<>();
+		// subclasses share the region of their root
+		final Set<String> regionNames = new LinkedHashSet<>();
+
+		for (final EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+			if (!DomainResource.class.isAssignableFrom(persister.getMappedClass())) {
+				continue;
+			}
+
+			@SuppressWarnings("unchecked")
+			final CachedResourceMetadata<?> metadata = resourceContext
+					.getMetadata((Class<? extends DomainResource>) persister.getMappedClass())
+					.unwrap(CachedResourceMetadata.class);
+
+			if (metadata.isCached()) {
+				regionNames.add(metadata.getRegionName());
+			}
+		}
+
+		for (final String regionName : regionNames) {
+			snapshots.add(snapshot(statistics.getDomainDataRegionStatistics(regionName)));
+		}
+
+		if (sessionFactory.getSessionFactoryOptions().isQueryCacheEnabled()) {
+			snapshots.add(snapshot(statistics.getQueryRegionStatistics(QUERY_REGION)));
+		}
+
+		snapshots.removeIf(snapshot -> snapshot == null);
+
+		return snapshots;
+	}
+
+	private Statistics snapshot(CacheRegionStatistics regionStatistics) {
+		if (regionStatistics == null) {
+			return null;
+		}
+
+		// JCache regions do not report their sizes
+		return new Statistics(regionStatistics.getRegionName(), regionStatistics.getHitCount(),
+				regionStatistics.getMissCount(), regionStatistics.getPutCount());
+	}
+
+	private class ResourceModificationListener
+			implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean requiresPostCommitHandling(EntityPersister persister) {
+			return persister.canWriteToCache();
+		}
+
+		// still abstract in Hibernate 5
+		@Override
+		@Deprecated
+		public boolean requiresPostCommitHanding(EntityPersister persister) {
+			return requiresPostCommitHandling(persister);
+		}
+
+		private void publish(EntityPersister persister) {
+			if (requiresPostCommitHandling(persister)) {
+				invalidationBus.publish(INVALIDATION_REGION, persister.getEntityName());
+			}
+		}
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			publish(event.getPersister());
+		}
+
+		@Override
+		public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			publish(event.getPersister());
+		}
+
+		@Override
+		public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+		@Override
+		public void onPostDelete(PostDeleteEvent event) {
+			publish(event.getPersister());
+		}
+
+		@Override
+		public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+	}
+
+	/**
+	 * A snapshot of a region metrics
+	 */
+	public static class Statistics {
+
+		private final String regionName;
+		private final long hitCount;
+		private final long missCount;
+		private final long putCount;
+
+		public Statistics(String regionName, long hitCount, long missCount, long putCount) {
+			this.regionName = regionName;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.putCount = putCount;
+		}
+
+		public String getRegionName() {
+			return regionName;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getPutCount() {
+			return putCount;
+		}
+
+		public double getHitRatio() {
+			final long requestCount = hitCount + missCount;
+
+			return requestCount == 0 ? 1d : (double) hitCount / requestCount;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s(region=%s, hit=%d, miss=%d, hit-ratio=%.3f, put=%d)",
+					Statistics.class.getSimpleName(), regionName, hitCount, missCount, getHitRatio(), putCount);
+		}
+
+	}
+
+}
@@ -0,0 +1,67 @@
+/**
+ *
+ */
+package multicados.internal.domain.cache;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import javax.cache.Cache;
+
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+
+/**
+ * Creates every second level cache region as a bounded, in-process Caffeine
+ * cache, which keeps regions from growing with the tables. The update
+ * timestamps are never bounded, dropping one would let stale query results be
+ * read
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class ResourceCacheRegionFactory extends JCacheRegionFactory {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(ResourceCacheRegionFactory.class);
+
+	public static final String PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+	public static final long DEFAULT_MAX_SIZE = 10_000;
+	public static final Duration DEFAULT_EXPIRATION = Duration.ofHours(1);
+
+	private final long maxSize;
+	private final Duration expiration;
+
+	public ResourceCacheRegionFactory(long maxSize, Duration expiration) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Max size must be positive");
+		}
+
+		this.maxSize = maxSize;
+		this.expiration = expiration;
+	}
+
+	@Override
+	protected Cache<Object, Object> createCache(String regionName) {
+		final CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+
+		if (!regionName.endsWith(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME)) {
+			configuration.setMaximumSize(OptionalLong.of(maxSize));
+			configuration.setExpireAfterWrite(OptionalLong.of(expiration.toNanos()));
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Creating cache region [{}] with {}", regionName,
+					configuration.getMaximumSize().isPresent()
+							? String.format("%d entries for %s", maxSize, expiration)
+							: "no bound");
+		}
+
+		return getCacheManager().createCache(regionName, configuration);
+	}
+
+}
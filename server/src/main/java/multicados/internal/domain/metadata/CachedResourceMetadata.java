@@ -0,0 +1,24 @@
+/**
+ * 
+ */
+package multicados.internal.domain.metadata;
+
+import multicados.internal.domain.DomainResource;
+
+/**
+ * Second level cache of an entity, described for every resource which is
+ * mapped by Hibernate
+ * 
+ * @author Ngoc Huy
+ *
+ */
+public interface CachedResourceMetadata<D extends DomainResource> extends DomainResourceMetadata<D> {
+
+	boolean isCached();
+
+	/**
+	 * @return the region which holds the entities, null if they are not cached
+	 */
+	String getRegionName();
+
+}
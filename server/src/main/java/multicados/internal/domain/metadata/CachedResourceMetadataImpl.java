@@ -0,0 +1,32 @@
+/**
+ * 
+ */
+package multicados.internal.domain.metadata;
+
+import multicados.internal.domain.DomainResource;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class CachedResourceMetadataImpl<D extends DomainResource> extends AbstractDomainResourceMetadata<D>
+		implements CachedResourceMetadata<D> {
+
+	private final String regionName;
+
+	public CachedResourceMetadataImpl(Class<D> resourceType, String regionName) {
+		super(resourceType);
+		this.regionName = regionName;
+	}
+
+	@Override
+	public boolean isCached() {
+		return regionName != null;
+	}
+
+	@Override
+	public String getRegionName() {
+		return regionName;
+	}
+
+}
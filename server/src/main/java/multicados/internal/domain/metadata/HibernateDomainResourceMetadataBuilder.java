@@ -424,7 +424,8 @@ public class HibernateDomainResourceMetadataBuilder implements DomainResourceMet
 		private final List<HandledBiFunction<Class, EntityPersister, BiDeclaration<Class, DomainResourceMetadata>, Exception>> metadataContributors = List
 				.of(
 						this::resolveIdentifiableResourceLogics,
-						this::resolveNamedResourceLogics);
+						this::resolveNamedResourceLogics,
+						this::resolveCachedResourceLogics);
 		// @formatter:on
 		@SuppressWarnings("unchecked")
 		public <D extends DomainResource> Map<Class<? extends DomainResourceMetadata<D>>, DomainResourceMetadata<D>> getDecorations(
@@ -472,6 +473,18 @@ public class HibernateDomainResourceMetadataBuilder implements DomainResourceMet
 			// @formatter:on
 		}
 
+		@SuppressWarnings("unchecked")
+		private BiDeclaration<Class, DomainResourceMetadata> resolveCachedResourceLogics(Class resourceType,
+				EntityPersister persister) {
+			// @formatter:off
+			return declare(
+					CachedResourceMetadata.class,
+					new CachedResourceMetadataImpl<>(
+							resourceType,
+							persister.canReadFromCache() ? persister.getCacheAccessStrategy().getRegion().getName() : null));
+			// @formatter:on
+		}
+
 		@SuppressWarnings("unchecked")
 		private BiDeclaration<Class, DomainResourceMetadata> resolveIdentifiableResourceLogics(Class resourceType,
 				EntityPersister persister) {
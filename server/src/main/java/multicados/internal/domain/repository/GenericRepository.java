@@ -11,7 +11,9 @@ import javax.persistence.LockModeType;
 import javax.persistence.Tuple;
 
 import org.hibernate.SharedSessionContract;
+import org.hibernate.query.Query;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 
 import multicados.internal.context.ContextBuilder;
@@ -47,6 +49,19 @@ public interface GenericRepository extends ContextBuilder {
 	<D extends DomainResource> List<Tuple> findAll(Class<D> type, Selector<D, Tuple> selector, Specification<D> spec,
 			Pageable pageable, LockModeType lockMode, SharedSessionContract session) throws Exception;
 
+	/**
+	 * Create the query without executing it, paging and locking are left to the
+	 * caller
+	 */
+	<D extends DomainResource> Query<Tuple> createQuery(Class<D> type, Selector<D, Tuple> selector,
+			Specification<D> spec, Sort sort, SharedSessionContract session) throws Exception;
+
+	/**
+	 * @see #createQuery(Class, Selector, Specification, Sort, SharedSessionContract)
+	 */
+	<D extends DomainResource> Query<Tuple> createQuery(Class<D> type, Selector<D, Tuple> selector,
+			Specification<D> spec, Orderer<D> orderer, SharedSessionContract session) throws Exception;
+
 	/* ==================== */
 	<D extends DomainResource> List<D> findAll(Class<D> type, SharedSessionContract session) throws Exception;
 
@@ -189,8 +189,13 @@ public class GenericRepositoryImpl extends ContextBuilder.AbstractContextBuilder
 
 	private <D extends DomainResource, E> CriteriaQuery<E> doOrder(CriteriaQuery<E> cq, Root<D> root, Pageable pageable)
 			throws Exception {
+		return doSort(cq, root, pageable.getSort());
+	}
+
+	private <D extends DomainResource, E> CriteriaQuery<E> doSort(CriteriaQuery<E> cq, Root<D> root, Sort sort)
+			throws Exception {
 		// @formatter:off
-		return declare(pageable.getSort())
+		return declare(sort)
 				.then(Sort::get)
 				.then(stream -> stream.map(order -> toOrder(root, order)))
 				.then(Stream::toList)
@@ -213,6 +218,10 @@ public class GenericRepositoryImpl extends ContextBuilder.AbstractContextBuilder
 	}
 
 	private <E> Query<E> doPaging(Query<E> hql, Pageable pageable) {
+		if (pageable.isUnpaged()) {
+			return hql;
+		}
+
 		return hql.setMaxResults(pageable.getPageSize())
 				.setFirstResult(pageable.getPageSize() * pageable.getPageNumber());
 	}
@@ -264,6 +273,47 @@ public class GenericRepositoryImpl extends ContextBuilder.AbstractContextBuilder
 		// @formatter:on
 	}
 
+	@Override
+	public <D extends DomainResource> Query<Tuple> createQuery(Class<D> type, Selector<D, Tuple> selector,
+			Specification<D> specification, Sort sort, SharedSessionContract session) throws Exception {
+		// @formatter:off
+		return declare(criteriaBuilder.createTupleQuery())
+				.second(cq -> cq.from(type))
+				.third(selector)
+			.consume(this::doSelect)
+				.third(specification)
+			.consume(this::doFilter)
+				.third(sort)
+			.then(this::doSort)
+				.second(session)
+			.then(this::createHQL)
+			.get();
+		// @formatter:on
+	}
+
+	@Override
+	public <D extends DomainResource> Query<Tuple> createQuery(Class<D> type, Selector<D, Tuple> selector,
+			Specification<D> specification, Orderer<D> orderer, SharedSessionContract session) throws Exception {
+		// @formatter:off
+		return declare(criteriaBuilder.createTupleQuery())
+				.second(cq -> cq.from(type))
+				.third(selector)
+			.consume(this::doSelect)
+				.third(specification)
+			.consume(this::doFilter)
+				.third(orderer)
+			.then(this::doOrder)
+				.second(session)
+			.then(this::createHQL)
+			.get();
+		// @formatter:on
+	}
+
+	private <D extends DomainResource, E> CriteriaQuery<E> doOrder(CriteriaQuery<E> cq, Root<D> root,
+			Orderer<D> orderer) throws Exception {
+		return cq.orderBy(orderer.order(root, cq, criteriaBuilder));
+	}
+
 	@SuppressWarnings("unchecked")
 	private <D extends DomainResource, E> CriteriaQuery<E> doFilter(CriteriaQuery<E> cq, Root<D> root,
 			Specification<D> requestedSpecication) {
@@ -0,0 +1,151 @@
+/**
+ *
+ */
+package multicados.internal.domain.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Predicate;
+
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Sort;
+
+import multicados.internal.helper.StringHelper;
+
+/**
+ * Opaque cursor of keyset (seek) pagination. A cursor holds the sort-key
+ * values of the last row of a page followed by its identifier, the next page
+ * is then located by seeking past those values instead of skipping an offset
+ *
+ * @author Ngoc Huy
+ *
+ */
+public final class KeysetCursor {
+
+	private static final String DELIMITER = ".";
+	private static final String DELIMITER_PATTERN = "\\.";
+	private static final String NULL = "~";
+	private static final String PARSE_METHOD_NAME = "parse";
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private KeysetCursor() {}
+
+	/**
+	 * @return the requested orders followed by the identifier, which makes the
+	 *         ordering total
+	 */
+	public static List<Sort.Order> resolveKeys(Sort sort, String identifierName) {
+		final List<Sort.Order> keys = new ArrayList<>(sort.toList());
+
+		if (sort.getOrderFor(identifierName) == null) {
+			keys.add(Sort.Order.asc(identifierName));
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Encode the key values found in the tuple elements from (inclusive) to
+	 * (exclusive)
+	 */
+	public static String encode(Tuple tuple, int from, int to) {
+		final List<String> segments = new ArrayList<>(to - from);
+
+		for (int i = from; i < to; i++) {
+			final Object value = tuple.get(i);
+
+			segments.add(value == null ? NULL
+					: ENCODER.encodeToString(value.toString().getBytes(StandardCharsets.UTF_8)));
+		}
+
+		return StringHelper.join(DELIMITER, segments);
+	}
+
+	/**
+	 * Decode the cursor into key values of the given types
+	 *
+	 * @throws IllegalArgumentException when the cursor was not produced for the
+	 *                                  given keys
+	 */
+	public static Object[] decode(String cursor, Class<?>[] types) {
+		final String[] segments = cursor.split(DELIMITER_PATTERN);
+
+		if (segments.length != types.length) {
+			throw new IllegalArgumentException("Invalid cursor");
+		}
+
+		final Object[] values = new Object[segments.length];
+
+		for (int i = 0; i < segments.length; i++) {
+			if (NULL.equals(segments[i])) {
+				continue;
+			}
+
+			values[i] = convert(new String(DECODER.decode(segments[i]), StandardCharsets.UTF_8), types[i]);
+		}
+
+		return values;
+	}
+
+	private static Object convert(String value, Class<?> type) {
+		final ConversionService conversionService = DefaultConversionService.getSharedInstance();
+
+		if (conversionService.canConvert(String.class, type)) {
+			return conversionService.convert(value, type);
+		}
+		// java.time values are encoded with their ISO representations
+		try {
+			return type.getMethod(PARSE_METHOD_NAME, CharSequence.class).invoke(null, value);
+		} catch (ReflectiveOperationException any) {
+			throw new IllegalArgumentException(String.format("Unable to decode a cursor value of type [%s]", type),
+					any);
+		}
+	}
+
+	/**
+	 * Produce the row value comparison (k1, k2, id) > (v1, v2, v3), expanded as
+	 * k1 > v1 or (k1 = v1 and (k2 > v2 or (k2 = v2 and id > v3))) since JPA has
+	 * no row value constructor. Descending keys are compared with less than.
+	 *
+	 * A comparison with null is unknown, nullable keys are therefore given
+	 * explicit null branches in which null is the lowest value, the way MySQL
+	 * orders them: nulls come first in ascending orders, last in descending ones
+	 *
+	 * @param nullable whether each key may be null
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	public static Predicate toPredicate(CriteriaBuilder builder, List<Sort.Order> keys,
+			List<? extends Expression<?>> paths, List<? extends Expression<?>> values, boolean[] nullable) {
+		Predicate predicate = null;
+
+		for (int i = keys.size() - 1; i >= 0; i--) {
+			final Expression path = paths.get(i);
+			final Expression value = values.get(i);
+			final boolean isAscending = keys.get(i).isAscending();
+			Predicate seek = isAscending ? builder.greaterThan(path, value) : builder.lessThan(path, value);
+			Predicate tie = builder.equal(path, value);
+
+			if (nullable[i]) {
+				// past a null in ascending orders is any value, past a value in descending
+				// ones is null
+				seek = builder.or(seek, isAscending ? builder.and(builder.isNull(value), builder.isNotNull(path))
+						: builder.and(builder.isNotNull(value), builder.isNull(path)));
+				tie = builder.or(tie, builder.and(builder.isNull(value), builder.isNull(path)));
+			}
+
+			predicate = predicate == null ? seek : builder.or(seek, builder.and(tie, predicate));
+		}
+
+		return predicate;
+	}
+
+}
@@ -0,0 +1,27 @@
+/**
+ *
+ */
+package multicados.internal.domain.repository;
+
+import java.util.List;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Root;
+
+import multicados.internal.domain.DomainResource;
+
+/**
+ * Orders a query on any of its paths, a {@link org.springframework.data.domain.Sort}
+ * only reaches the attributes of the root
+ *
+ * @author Ngoc Huy
+ *
+ */
+@FunctionalInterface
+public interface Orderer<T extends DomainResource> {
+
+	List<Order> order(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder builder) throws Exception;
+
+}
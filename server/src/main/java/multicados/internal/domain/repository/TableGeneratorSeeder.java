@@ -0,0 +1,131 @@
+/**
+ *
+ */
+package multicados.internal.domain.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.SessionFactoryObserver;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Seeds the segments of table generated identifiers from the identifiers which
+ * are already in use. A segment which is missing, ie. the entity used to be
+ * generated from another segment, would otherwise start from its initial value
+ * and hand out blocks colliding with the existing rows.
+ *
+ * Segments are only ever moved forward, past the greatest identifier of their
+ * tables. Runs once the schema is updated.
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class TableGeneratorSeeder implements SessionFactoryObserver {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(TableGeneratorSeeder.class);
+
+	@Override
+	public void sessionFactoryCreated(SessionFactory factory) {
+		final SessionFactoryImplementor sessionFactory = factory.unwrap(SessionFactoryImplementor.class);
+
+		try (Session session = sessionFactory.openSession()) {
+			final Transaction transaction = session.beginTransaction();
+
+			try {
+				for (final EntityPersister persister : sessionFactory.getMetamodel().entityPersisters().values()) {
+					// subclasses share the generator of their root
+					if (!persister.getEntityName().equals(persister.getRootEntityName())
+							|| !(persister.getIdentifierGenerator() instanceof TableGenerator)
+							|| !(persister instanceof AbstractEntityPersister)) {
+						continue;
+					}
+
+					final AbstractEntityPersister entityPersister = (AbstractEntityPersister) persister;
+					final TableGenerator generator = (TableGenerator) persister.getIdentifierGenerator();
+
+					session.doWork(connection -> seed(connection, generator, entityPersister.getTableName(),
+							entityPersister.getIdentifierColumnNames()[0]));
+				}
+
+				transaction.commit();
+			} catch (RuntimeException any) {
+				transaction.rollback();
+				throw any;
+			}
+		}
+	}
+
+	private void seed(Connection connection, TableGenerator generator, String tableName, String identifierColumnName)
+			throws SQLException {
+		final long maxIdentifier;
+
+		try (PreparedStatement statement = connection
+				.prepareStatement(String.format("SELECT MAX(%s) FROM %s", identifierColumnName, tableName));
+				ResultSet resultSet = statement.executeQuery()) {
+			resultSet.next();
+			maxIdentifier = resultSet.getLong(1);
+
+			if (resultSet.wasNull()) {
+				return;
+			}
+		}
+
+		// pooled optimizers hand out the block ending at the stored value
+		final long nextValue = Math.max(maxIdentifier + generator.getIncrementSize(), generator.getInitialValue());
+		// @formatter:off
+		try (PreparedStatement statement = connection.prepareStatement(String.format(
+				"UPDATE %s SET %s = ? WHERE %s = ? AND %s < ?",
+				generator.getTableName(), generator.getValueColumnName(), generator.getSegmentColumnName(), generator.getValueColumnName()))) {
+			// @formatter:on
+			statement.setLong(1, nextValue);
+			statement.setString(2, generator.getSegmentValue());
+			statement.setLong(3, nextValue);
+
+			if (statement.executeUpdate() > 0) {
+				log(generator, nextValue);
+				return;
+			}
+		}
+
+		try (PreparedStatement statement = connection.prepareStatement(String.format("SELECT COUNT(*) FROM %s WHERE %s = ?",
+				generator.getTableName(), generator.getSegmentColumnName()))) {
+			statement.setString(1, generator.getSegmentValue());
+
+			try (ResultSet resultSet = statement.executeQuery()) {
+				resultSet.next();
+				// the segment is already past the identifiers
+				if (resultSet.getLong(1) > 0) {
+					return;
+				}
+			}
+		}
+
+		try (PreparedStatement statement = connection.prepareStatement(String.format("INSERT INTO %s (%s, %s) VALUES (?, ?)",
+				generator.getTableName(), generator.getSegmentColumnName(), generator.getValueColumnName()))) {
+			statement.setString(1, generator.getSegmentValue());
+			statement.setLong(2, nextValue);
+			statement.executeUpdate();
+			log(generator, nextValue);
+		}
+	}
+
+	private void log(TableGenerator generator, long nextValue) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Seeded segment [{}] of [{}] with {}", generator.getSegmentValue(), generator.getTableName(),
+					nextValue);
+		}
+	}
+
+}
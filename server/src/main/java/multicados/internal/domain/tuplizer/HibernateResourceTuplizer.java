@@ -51,7 +51,7 @@ public class HibernateResourceTuplizer<I extends Serializable, E extends Entity<
 			Utils.TriConsummer<Class<?>, String, Accessor> accessorEntryConsumer)
 			throws Exception {
 		super(metadata.getResourceType());
-		this.accessors = declare(resolveRootAccessors(sfi.getMetamodel().entityPersister(metadata.getResourceType()),
+		this.accessors = (Map<String, Accessor>) declare(resolveRootAccessors(sfi.getMetamodel().entityPersister(metadata.getResourceType()),
 				metadata.unwrap(DomainResourceAttributesMetadata.class).getComponentPaths(), cachedAccessorProvider,
 				accessorEntryConsumer))
 			.<Map<String, Accessor>>then(Collections::unmodifiableMap)
@@ -4,6 +4,7 @@
 package multicados.internal.domain.validation;
 
 import java.io.Serializable;
+import java.util.List;
 
 import javax.persistence.EntityManager;
 
@@ -41,6 +42,19 @@ public abstract class AbstractDomainResourceValidator<T extends DomainResource>
 					.and(left.isSatisfiedBy(entityManager, id, resource));
 		}
 
+		@Override
+		public List<Validation> areSatisfiedBy(EntityManager entityManager, List<? extends Serializable> ids,
+				List<? extends E> resources) throws Exception {
+			final List<Validation> validations = right.areSatisfiedBy(entityManager, ids, resources);
+			final List<Validation> leftValidations = left.areSatisfiedBy(entityManager, ids, resources);
+
+			for (int i = 0; i < validations.size(); i++) {
+				validations.get(i).and(leftValidations.get(i));
+			}
+
+			return validations;
+		}
+
 		@Override
 		public String getLoggableName() {
 			return String.format("[%s, %s]", left.getLoggableName(), right.getLoggableName());
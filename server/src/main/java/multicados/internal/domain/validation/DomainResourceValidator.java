@@ -4,6 +4,8 @@
 package multicados.internal.domain.validation;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.persistence.EntityManager;
 
@@ -20,6 +22,24 @@ public interface DomainResourceValidator<T extends DomainResource> extends Graph
 
 	Validation isSatisfiedBy(EntityManager entityManager, Serializable id, T resource) throws Exception;
 
+	/**
+	 * Validate a batch of resources, by default one by one. Validators which query
+	 * the database should check the whole batch at once
+	 *
+	 * @param ids the identifier of each resource, may contain null
+	 * @return a {@link Validation} for each resource, in order
+	 */
+	default List<Validation> areSatisfiedBy(EntityManager entityManager, List<? extends Serializable> ids,
+			List<? extends T> resources) throws Exception {
+		final List<Validation> validations = new ArrayList<>(resources.size());
+
+		for (int i = 0; i < resources.size(); i++) {
+			validations.add(isSatisfiedBy(entityManager, ids.get(i), resources.get(i)));
+		}
+
+		return validations;
+	}
+
 	<E extends T> DomainResourceValidator<E> and(DomainResourceValidator<E> next);
 
 	@Override
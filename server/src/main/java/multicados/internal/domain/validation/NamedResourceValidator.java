@@ -4,11 +4,22 @@
 package multicados.internal.domain.validation;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.regex.Pattern;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Tuple;
 import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Selection;
 
+import org.hibernate.FlushMode;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.persister.entity.EntityPersister;
@@ -83,6 +94,96 @@ class NamedResourceValidator extends AbstractDomainResourceValidator<NamedResour
 		// @formatter:on
 	}
 
+	/**
+	 * Names of the batch are checked with one query per resource type, a name
+	 * repeated within the batch is a duplicate as well
+	 */
+	@Override
+	public List<Validation> areSatisfiedBy(EntityManager entityManager, List<? extends Serializable> ids,
+			List<? extends NamedResource> resources) throws Exception {
+		final SharedSessionContractImplementor session = (SharedSessionContractImplementor) entityManager;
+		final List<Validation> validations = new ArrayList<>(resources.size());
+		final Set<String> batchedNames = new HashSet<>(resources.size());
+		// resource type -> indices of the resources
+		final Map<Class<? extends NamedResource>, List<Integer>> indicesByType = new LinkedHashMap<>();
+
+		for (int i = 0; i < resources.size(); i++) {
+			final NamedResource resource = resources.get(i);
+			final Validation validation = Validation.success();
+
+			validations.add(validation);
+
+			if (resource.getName() == null || !pattern.matcher(resource.getName()).matches()) {
+				validation.bad(nameFieldName, errorMessage);
+			}
+
+			if (resource.getName() == null) {
+				continue;
+			}
+
+			if (!batchedNames.add(resource.getName())) {
+				validation.bad(nameFieldName, String.format("Duplicate name '%s'", resource.getName()));
+				continue;
+			}
+
+			indicesByType.computeIfAbsent(resource.getClass(), key -> new ArrayList<>()).add(i);
+		}
+
+		for (final Map.Entry<Class<? extends NamedResource>, List<Integer>> entry : indicesByType.entrySet()) {
+			checkDuplicates(entry.getKey(), entry.getValue(), resources, validations, session);
+		}
+
+		return validations;
+	}
+
+	private void checkDuplicates(Class<? extends NamedResource> resourceType, List<Integer> indices,
+			List<? extends NamedResource> resources, List<Validation> validations,
+			SharedSessionContractImplementor session) throws Exception {
+		final EntityPersister persister = session.getFactory().unwrap(SessionFactoryImplementor.class).getMetamodel()
+				.entityPersister(resourceType);
+		final List<String> names = indices.stream().map(index -> resources.get(index).getName()).toList();
+		final FlushMode flushMode = session.getHibernateFlushMode();
+		final List<Tuple> existingTuples;
+		// resources of the batch which turn out invalid must not be auto-flushed
+		session.setHibernateFlushMode(FlushMode.COMMIT);
+
+		try {
+			// @formatter:off
+			existingTuples = genericRepository.findAll(resourceType,
+					(root, cq, builder) -> List.<Selection<?>>of(
+							root.get(persister.getIdentifierPropertyName()),
+							root.get(nameFieldName)),
+					(root, cq, builder) -> root.get(nameFieldName).in(names),
+					session);
+			// @formatter:on
+		} finally {
+			session.setHibernateFlushMode(flushMode);
+		}
+		// name -> identifiers of the resources having it
+		final Map<Object, List<Object>> existingIdentifiers = new HashMap<>(existingTuples.size());
+
+		for (final Tuple tuple : existingTuples) {
+			existingIdentifiers.computeIfAbsent(tuple.get(1), key -> new ArrayList<>(1)).add(tuple.get(0));
+		}
+
+		for (final Integer index : indices) {
+			final NamedResource resource = resources.get(index);
+			final List<Object> identifiers = existingIdentifiers.get(resource.getName());
+
+			if (identifiers == null) {
+				continue;
+			}
+
+			final Serializable identifier = persister.getIdentifier(resource, session);
+			// but not this resource
+			if (identifiers.stream().allMatch(existingIdentifier -> Objects.equals(existingIdentifier, identifier))) {
+				continue;
+			}
+
+			validations.get(index).bad(nameFieldName, String.format("Duplicate name '%s'", resource.getName()));
+		}
+	}
+
 	@Override
 	public Validation isSatisfiedBy(EntityManager entityManager, NamedResource resource) throws Exception {
 		return isSatisfiedBy(entityManager, null, resource);
@@ -5,6 +5,7 @@ package multicados.internal.file.domain;
 
 import javax.persistence.Id;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Transient;
 
 /**
  * @author Ngoc Huy
@@ -16,7 +17,8 @@ public abstract class AbstractFileResource implements FileResource {
 	@Id
 	private String id;
 
-	private byte[] content;
+	@Transient
+	private FileContent content;
 
 	private String extension;
 
@@ -31,12 +33,12 @@ public abstract class AbstractFileResource implements FileResource {
 	}
 
 	@Override
-	public byte[] getContent() {
+	public FileContent getContent() {
 		return content;
 	}
 
 	@Override
-	public void setContent(byte[] content) {
+	public void setContent(FileContent content) {
 		this.content = content;
 	}
 
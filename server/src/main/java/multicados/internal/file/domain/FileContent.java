@@ -0,0 +1,99 @@
+/**
+ *
+ */
+package multicados.internal.file.domain;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import org.springframework.web.multipart.MultipartFile;
+
+/**
+ * Content of a {@link FileResource}, which may be read any amount of times.
+ * Contents backed by a file are streamed instead of being loaded onto the heap
+ *
+ * @author Ngoc Huy
+ *
+ */
+public interface FileContent {
+
+	InputStream openStream() throws IOException;
+
+	long getLength() throws IOException;
+
+	/**
+	 * Copy the content to the target, replacing it
+	 */
+	default void transferTo(Path target) throws IOException {
+		try (InputStream stream = openStream()) {
+			Files.copy(stream, target, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	static FileContent of(byte[] content) {
+		return new FileContent() {
+
+			@Override
+			public InputStream openStream() {
+				return new ByteArrayInputStream(content);
+			}
+
+			@Override
+			public long getLength() {
+				return content.length;
+			}
+
+			@Override
+			public void transferTo(Path target) throws IOException {
+				Files.write(target, content);
+			}
+
+		};
+	}
+
+	static FileContent of(Path path) {
+		return new FileContent() {
+
+			@Override
+			public InputStream openStream() throws IOException {
+				return Files.newInputStream(path);
+			}
+
+			@Override
+			public long getLength() throws IOException {
+				return Files.size(path);
+			}
+
+			@Override
+			public void transferTo(Path target) throws IOException {
+				Files.copy(path, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+
+		};
+	}
+
+	/**
+	 * Large parts are kept in the temporary file of the container, they are
+	 * copied from there without going through the heap
+	 */
+	static FileContent of(MultipartFile multipartFile) {
+		return new FileContent() {
+
+			@Override
+			public InputStream openStream() throws IOException {
+				return multipartFile.getInputStream();
+			}
+
+			@Override
+			public long getLength() {
+				return multipartFile.getSize();
+			}
+
+		};
+	}
+
+}
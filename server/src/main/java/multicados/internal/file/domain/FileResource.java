@@ -11,9 +11,13 @@ import multicados.internal.domain.IdentifiableResource;
  */
 public interface FileResource extends IdentifiableResource<String> {
 
-	byte[] getContent();
+	FileContent getContent();
 
-	void setContent(byte[] content);
+	void setContent(FileContent content);
+
+	default void setContent(byte[] content) {
+		setContent(FileContent.of(content));
+	}
 
 	String getExtension();
 
@@ -6,23 +6,19 @@ package multicados.internal.file.engine;
 import static multicados.internal.helper.Utils.declare;
 
 import java.io.File;
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.nio.file.Paths;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
 
 import multicados.internal.file.domain.FileResource;
+import multicados.internal.file.engine.FileResourceWriter.Batch;
 
 public class DefaultSaveStrategy implements SaveStrategy {
 
-	private static final Logger logger = LoggerFactory.getLogger(DefaultSaveStrategy.class);
+	private final FileResourceWriter writer;
 
-	private void logInsert(Path path, byte[] content) {
-		if (logger.isDebugEnabled()) {
-			logger.debug("Writing file [{}] with content length {}", path, content.length);
-		}
+	public DefaultSaveStrategy(FileResourceWriter writer) {
+		this.writer = writer;
 	}
 
 	@Override
@@ -35,10 +31,25 @@ public class DefaultSaveStrategy implements SaveStrategy {
 			.then(File::getPath)
 			.then(Paths::get)
 				.second(file.getContent())
-			.consume(this::logInsert)
-			.consume(Files::write);
+			.consume(openBatch(session)::write);
 		// @formatter:on
 		return id;
 	}
 
-}
\ No newline at end of file
+	/**
+	 * @return a {@link Batch} whose files are deleted if the transaction of the
+	 *         session fails
+	 */
+	protected Batch openBatch(FileResourceSession session) {
+		final Batch batch = writer.openBatch();
+
+		session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, any) -> {
+			if (!success) {
+				batch.rollback();
+			}
+		});
+
+		return batch;
+	}
+
+}
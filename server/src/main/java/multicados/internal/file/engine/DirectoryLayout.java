@@ -0,0 +1,104 @@
+/**
+ *
+ */
+package multicados.internal.file.engine;
+
+import java.io.File;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Layouts of the files under the directory of a {@link FileResourcePersister}.
+ * Shards are derived from the file name alone so that locating a file never
+ * touches the file system. Variants of an identifier are named by prefixing it,
+ * shards are therefore derived from the trailing segments of the name to keep
+ * variants next to their identifier
+ *
+ * @author Ngoc Huy
+ *
+ */
+public enum DirectoryLayout {
+
+	/**
+	 * Every file directly under the directory
+	 */
+	FLAT {
+
+		@Override
+		public String locateShard(String filename, String delimiter) {
+			return EMPTY_SHARD;
+		}
+
+	},
+	/**
+	 * Two levels of 256 shards each, by the hash of the random segment of the
+	 * identifier
+	 */
+	HASH {
+
+		@Override
+		public String locateShard(String filename, String delimiter) {
+			final int hash = filename.substring(filename.lastIndexOf(delimiter) + delimiter.length()).hashCode();
+			final int spread = hash ^ (hash >>> 16);
+
+			return new StringBuilder(6).append(HEX[(spread >>> 12) & 0xF]).append(HEX[(spread >>> 8) & 0xF])
+					.append(File.separatorChar).append(HEX[(spread >>> 4) & 0xF]).append(HEX[spread & 0xF])
+					.append(File.separatorChar).toString();
+		}
+
+	},
+	/**
+	 * Year then month, by the creation timestamp embedded in the identifier.
+	 * Names without such timestamp stay directly under the directory
+	 */
+	TIMESTAMP {
+
+		@Override
+		public String locateShard(String filename, String delimiter) {
+			// the timestamp is the segment preceding the random one
+			final int end = filename.lastIndexOf(delimiter);
+
+			if (end <= 0) {
+				return EMPTY_SHARD;
+			}
+
+			final int previous = filename.lastIndexOf(delimiter, end - delimiter.length());
+			final int from = previous < 0 ? 0 : previous + delimiter.length();
+
+			if (end - from <= 0 || end - from > MAX_TIMESTAMP_LENGTH) {
+				return EMPTY_SHARD;
+			}
+
+			long timestamp = 0;
+
+			for (int i = from; i < end; i++) {
+				final char digit = filename.charAt(i);
+
+				if (digit < '0' || digit > '9') {
+					return EMPTY_SHARD;
+				}
+
+				timestamp = timestamp * 10 + (digit - '0');
+			}
+
+			final LocalDate date = LocalDate.ofEpochDay(timestamp / TimeUnit.DAYS.toMillis(1));
+
+			return new StringBuilder(9).append(date.getYear()).append(File.separatorChar)
+					.append(date.getMonthValue() < 10 ? "0" : "").append(date.getMonthValue())
+					.append(File.separatorChar).toString();
+		}
+
+	};
+
+	private static final String EMPTY_SHARD = "";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+	// epoch millis stay below 13 digits for the foreseeable future
+	private static final int MAX_TIMESTAMP_LENGTH = 13;
+
+	/**
+	 * @return the path of the shard relative to the directory, ending with a
+	 *         separator unless it is empty
+	 */
+	public abstract String locateShard(String filename, String delimiter);
+
+}
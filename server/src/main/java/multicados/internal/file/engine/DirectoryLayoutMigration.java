@@ -0,0 +1,89 @@
+/**
+ *
+ */
+package multicados.internal.file.engine;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import multicados.internal.file.engine.storage.LocalStorage;
+
+/**
+ * Moves the files lying directly under a directory into their shards of a
+ * {@link DirectoryLayout}, meant to run in the background after the layout of
+ * a populated flat directory was changed. Files are moved atomically one by one
+ * so that the migration can be interrupted and resumed at any time
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class DirectoryLayoutMigration implements Runnable {
+
+	private static final Logger logger = LoggerFactory.getLogger(DirectoryLayoutMigration.class);
+
+	private final String directoryPath;
+	private final DirectoryLayout layout;
+	private final String delimiter;
+	private final FileResourceContentCache contentCache;
+
+	public DirectoryLayoutMigration(String directoryPath, DirectoryLayout layout, String delimiter,
+			FileResourceContentCache contentCache) {
+		this.directoryPath = directoryPath;
+		this.layout = layout;
+		this.delimiter = delimiter;
+		this.contentCache = contentCache;
+	}
+
+	@Override
+	public void run() {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Migrating directory [{}] to layout {}", directoryPath, layout);
+		}
+
+		long movedCount = 0;
+		long failedCount = 0;
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directoryPath),
+				file -> Files.isRegularFile(file) && // left by interrupted writes
+				!file.getFileName().toString().endsWith(LocalStorage.TEMPORARY_SUFFIX))) {
+			for (final Path file : files) {
+				if (Thread.currentThread().isInterrupted()) {
+					logger.info("Migration of directory [{}] was interrupted", directoryPath);
+					break;
+				}
+
+				final String filename = file.getFileName().toString();
+				final String shard = layout.locateShard(filename, delimiter);
+
+				if (shard.isEmpty()) {
+					continue;
+				}
+
+				try {
+					final Path target = Paths.get(directoryPath + shard + filename);
+
+					Files.createDirectories(target.getParent());
+					Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+					contentCache.invalidate(directoryPath, filename);
+					movedCount++;
+				} catch (IOException any) {
+					failedCount++;
+					logger.warn("Unable to migrate file [{}]: {}", file, any.getMessage());
+				}
+			}
+		} catch (IOException any) {
+			logger.error(String.format("Unable to migrate directory %s", directoryPath), any);
+		}
+
+		logger.info("Migrated {} file(s) of directory [{}] to layout {}, {} failure(s)", movedCount, directoryPath,
+				layout, failedCount);
+	}
+
+}
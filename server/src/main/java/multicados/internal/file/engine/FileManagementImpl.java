@@ -5,14 +5,17 @@ package multicados.internal.file.engine;
 
 import static multicados.internal.helper.Utils.declare;
 
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
 import javax.persistence.SharedCacheMode;
+import javax.sql.DataSource;
 
 import org.hibernate.MultiTenancyStrategy;
 import org.hibernate.annotations.common.reflection.ReflectionManager;
@@ -81,11 +84,16 @@ import org.springframework.context.annotation.ClassPathScanningCandidateComponen
 import org.springframework.core.env.Environment;
 import org.springframework.core.type.filter.AssignableTypeFilter;
 
+import multicados.internal.config.ExecutorNames;
 import multicados.internal.config.Settings;
 import multicados.internal.context.ContextBuilder;
 import multicados.internal.file.domain.FileResource;
 import multicados.internal.file.engine.image.ImageService;
 import multicados.internal.file.engine.image.ManipulationContextImpl;
+import multicados.internal.file.engine.storage.LocalStorage;
+import multicados.internal.file.engine.storage.ReadThroughStorage;
+import multicados.internal.file.engine.storage.S3Storage;
+import multicados.internal.file.engine.storage.Storage;
 import multicados.internal.helper.SpringHelper;
 import multicados.internal.helper.StringHelper;
 import multicados.internal.helper.Utils.HandledFunction;
@@ -251,6 +259,8 @@ public class FileManagementImpl extends ContextBuilder.AbstractContextBuilder im
 								Settings.FILE_RESOURCE_PUBLIC_DIRECTORY, rootDirectory + SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_PUBLIC_DIRECTORY, HandledFunction.identity(), "public\\"),
 								Settings.FILE_RESOURCE_IDENTIFIER_DELIMITER, identifierDelimiter,
 								Settings.FILE_RESOURCE_IDENTIFIER_LENGTH, SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_IDENTIFIER_LENGTH, Integer::valueOf, 30))))
+						.consume(self -> self.put(Settings.FILE_RESOURCE_DIRECTORY_LAYOUT, SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_DIRECTORY_LAYOUT, value -> DirectoryLayout.valueOf(value.toUpperCase()), DirectoryLayout.FLAT)))
+						.consume(self -> self.put(Settings.FILE_RESOURCE_DIRECTORY_LAYOUT_MIGRATION, SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_DIRECTORY_LAYOUT_MIGRATION, Boolean::valueOf, Boolean.FALSE)))
 						.get())));
 			providedServiceCandidates.add(new ProvidedService<>(ProxyFactoryFactory.class, serviceRegistry.requireService(ProxyFactoryFactory.class)));
 			providedServiceCandidates.add(new ProvidedService<>(CfgXmlAccessService.class, serviceRegistry.requireService(CfgXmlAccessService.class)));
@@ -280,17 +290,54 @@ public class FileManagementImpl extends ContextBuilder.AbstractContextBuilder im
 			}));
 
 			final ManipulationContextImpl manipulationContext = new ManipulationContextImpl(env, identifierDelimiter);
-			final ImageService imageService = new ImageService(applicationContext);
-
-			providedServiceCandidates.add(new ProvidedService<>(SaveStrategyResolver.class, new SaveStrategyResolver(imageService, manipulationContext)));
+			final Storage storage = createStorage(applicationContext, env);
+			final FileResourceWriter writer = new FileResourceWriterImpl(storage);
+			final ImageService imageService = new ImageService(applicationContext, storage);
+
+			providedServiceCandidates.add(new ProvidedService<>(Storage.class, storage));
+			providedServiceCandidates.add(new ProvidedService<>(FileResourceWriter.class, writer));
+			providedServiceCandidates.add(new ProvidedService<>(FileResourceContentIndex.class, new JdbcFileResourceContentIndex(applicationContext.getBean(DataSource.class))));
+			providedServiceCandidates.add(new ProvidedService<>(SaveStrategyResolver.class, new SaveStrategyResolver(writer, imageService, manipulationContext)));
 			providedServiceCandidates.add(new ProvidedService<>(ManipulationContextImpl.class, manipulationContext));
 			providedServiceCandidates.add(new ProvidedService<>(ImageService.class, imageService));
 			providedServiceCandidates.add(new ProvidedService<>(ZoneContext.class, applicationContext.getBean(ZoneContext.class)));
 			providedServiceCandidates.add(new ProvidedService<>(MutableIdentifierGeneratorFactory.class, serviceRegistry.requireService(MutableIdentifierGeneratorFactory.class)));
 			providedServiceCandidates.add(new ProvidedService<>(DirectoryInitializer.class, new DirectoryInitializerImpl()));
+			providedServiceCandidates.add(new ProvidedService<>(FileResourceContentCache.class, new FileResourceContentCacheImpl(
+					SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_CONTENT_CACHE_SIZE, Long::valueOf, FileResourceContentCacheImpl.DEFAULT_MAX_BYTES),
+					SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_CONTENT_CACHE_ENTRY_SIZE, Long::valueOf, FileResourceContentCacheImpl.DEFAULT_MAX_ENTRY_BYTES))));
 			
 			this.providedServices = Collections.unmodifiableList(providedServiceCandidates);
 		}
+
+		private Storage createStorage(ApplicationContext applicationContext, Environment env) throws Exception {
+			final String storage = SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_STORAGE, HandledFunction.identity(), Settings.FILE_RESOURCE_STORAGE_LOCAL);
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Using {} storage", storage);
+			}
+
+			if (Settings.FILE_RESOURCE_STORAGE_LOCAL.equals(storage)) {
+				return new LocalStorage(SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_WRITE_DURABILITY, value -> LocalStorage.Durability.valueOf(value.toUpperCase()), LocalStorage.DEFAULT_DURABILITY));
+			}
+
+			if (!Settings.FILE_RESOURCE_STORAGE_S3.equals(storage)) {
+				throw new IllegalArgumentException(String.format("Unknown storage %s", storage));
+			}
+
+			return new ReadThroughStorage(
+					new S3Storage(
+							env.getRequiredProperty(Settings.FILE_RESOURCE_STORAGE_S3_ENDPOINT),
+							env.getRequiredProperty(Settings.FILE_RESOURCE_STORAGE_S3_BUCKET),
+							SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_STORAGE_S3_REGION, HandledFunction.identity(), S3Storage.DEFAULT_REGION),
+							env.getRequiredProperty(Settings.FILE_RESOURCE_STORAGE_S3_ACCESS_KEY),
+							env.getRequiredProperty(Settings.FILE_RESOURCE_STORAGE_S3_SECRET_KEY),
+							SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_STORAGE_S3_PART_SIZE, Integer::valueOf, S3Storage.DEFAULT_PART_SIZE),
+							SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_STORAGE_S3_UPLOAD_CONCURRENCY, Integer::valueOf, S3Storage.DEFAULT_UPLOAD_CONCURRENCY),
+							applicationContext.getBean(ExecutorNames.FILE_UPLOAD_EXECUTOR, Executor.class)),
+					Paths.get(SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_STORAGE_CACHE_DIRECTORY, HandledFunction.identity(), ReadThroughStorage.DEFAULT_CACHE_DIRECTORY)),
+					SpringHelper.getOrDefault(env, Settings.FILE_RESOURCE_STORAGE_CACHE_SIZE, Long::valueOf, ReadThroughStorage.DEFAULT_MAX_BYTES));
+		}
 		// @formatter:on
 	}
 
@@ -0,0 +1,54 @@
+/**
+ *
+ */
+package multicados.internal.file.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+import org.hibernate.service.Service;
+
+/**
+ * Byte-budgeted cache of file contents, meant for small and hot files such as
+ * user photo variants
+ *
+ * @author Ngoc Huy
+ *
+ */
+public interface FileResourceContentCache extends Service {
+
+	/**
+	 * @return the cached content or null
+	 */
+	CachedContent get(String path);
+
+	/**
+	 * @param path the path under which the content is cached
+	 * @param file the readable file of the path, see
+	 *             {@link multicados.internal.file.engine.storage.Storage#locate(String)}
+	 * @return the cached content, read from the file on a miss, or null if the
+	 *         file is too large to be cached
+	 */
+	CachedContent load(String path, Path file) throws IOException;
+
+	/**
+	 * Invalidate the file of the identifier under the directory together with
+	 * every of its variants, ie. the compressed images
+	 */
+	void invalidate(String directoryPath, String id);
+
+	interface CachedContent {
+
+		/**
+		 * @return a read-only view of the content, positioned at 0
+		 */
+		ByteBuffer getContent();
+
+		long getLength();
+
+		long getLastModified();
+
+	}
+
+}
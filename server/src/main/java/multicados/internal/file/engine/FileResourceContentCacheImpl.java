@@ -0,0 +1,232 @@
+/**
+ *
+ */
+package multicados.internal.file.engine;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Least-recently-used {@link FileResourceContentCache} bounded by the total
+ * amount of cached bytes. Contents are kept in direct buffers so that they
+ * neither occupy nor get copied through the heap
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class FileResourceContentCacheImpl implements FileResourceContentCache {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(FileResourceContentCacheImpl.class);
+
+	public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+	public static final long DEFAULT_MAX_ENTRY_BYTES = 1024L * 1024;
+
+	private final long maxBytes;
+	private final long maxEntryBytes;
+
+	private final transient Map<String, CachedContentImpl> contents = new LinkedHashMap<>(16, .75f, true);
+	private long usedBytes = 0;
+	// the generation of each load in flight, invalidation drops it so that the
+	// load does not cache what it read before the invalidation
+	private final transient Map<String, Long> loadingGenerations = new HashMap<>();
+	private long generation = 0;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	public FileResourceContentCacheImpl(long maxBytes, long maxEntryBytes) {
+		this.maxBytes = maxBytes;
+		this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Caching up to {} byte(s), {} byte(s) per file", maxBytes, this.maxEntryBytes);
+		}
+	}
+
+	@Override
+	public CachedContent get(String path) {
+		final CachedContent content;
+
+		synchronized (contents) {
+			content = contents.get(path);
+		}
+
+		if (content == null) {
+			missCount.increment();
+			return null;
+		}
+
+		hitCount.increment();
+		return content;
+	}
+
+	@Override
+	public CachedContent load(String key, Path path) throws IOException {
+		final long loadingGeneration;
+
+		synchronized (contents) {
+			// the caller has already missed on get
+			final CachedContent cachedContent = contents.get(key);
+
+			if (cachedContent != null) {
+				return cachedContent;
+			}
+
+			loadingGeneration = ++generation;
+			loadingGenerations.put(key, loadingGeneration);
+		}
+
+		CachedContentImpl content = null;
+
+		try {
+			content = read(path);
+		} finally {
+			synchronized (contents) {
+				// invalidated while loading otherwise
+				if (loadingGenerations.remove(key, loadingGeneration) && content != null) {
+					put(key, content);
+				}
+			}
+		}
+
+		return content;
+	}
+
+	/**
+	 * @return the content or null if the file is too large to be cached
+	 */
+	private CachedContentImpl read(Path path) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+		if (attributes.size() > maxEntryBytes) {
+			return null;
+		}
+
+		return new CachedContentImpl(read(path, attributes.size()), attributes.lastModifiedTime().toMillis());
+	}
+
+	private ByteBuffer read(Path path, long size) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.allocateDirect(Math.toIntExact(size));
+
+		try (final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			while (buffer.hasRemaining() && channel.read(buffer) != -1) {}
+		}
+
+		return buffer.flip();
+	}
+
+	private void put(String key, CachedContentImpl content) {
+		synchronized (contents) {
+			final CachedContentImpl replaced = contents.put(key, content);
+
+			usedBytes += content.getLength() - (replaced == null ? 0 : replaced.getLength());
+
+			final Iterator<CachedContentImpl> iterator = contents.values().iterator();
+
+			while (usedBytes > maxBytes && iterator.hasNext()) {
+				final CachedContentImpl eldest = iterator.next();
+
+				if (eldest == content) {
+					continue;
+				}
+
+				iterator.remove();
+				usedBytes -= eldest.getLength();
+				evictionCount.increment();
+			}
+		}
+	}
+
+	private boolean isInvalidated(String path, String directoryPath, String id) {
+		// variants are named by prefixing the identifier
+		return path.startsWith(directoryPath) && path.endsWith(id);
+	}
+
+	@Override
+	public void invalidate(String directoryPath, String id) {
+		synchronized (contents) {
+			final Iterator<Map.Entry<String, CachedContentImpl>> iterator = contents.entrySet().iterator();
+
+			while (iterator.hasNext()) {
+				final Map.Entry<String, CachedContentImpl> entry = iterator.next();
+				final String path = entry.getKey();
+
+				if (isInvalidated(path, directoryPath, id)) {
+					iterator.remove();
+					usedBytes -= entry.getValue().getLength();
+
+					if (logger.isTraceEnabled()) {
+						logger.trace("Invalidated [{}]", path);
+					}
+				}
+			}
+
+			loadingGenerations.keySet().removeIf(path -> isInvalidated(path, directoryPath, id));
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		synchronized (contents) {
+			return String.format("%s(size=%d, bytes=%d/%d, hit=%d, miss=%d, eviction=%d)",
+					FileResourceContentCache.class.getSimpleName(), contents.size(), usedBytes, maxBytes,
+					getHitCount(), getMissCount(), getEvictionCount());
+		}
+	}
+
+	private static class CachedContentImpl implements CachedContent {
+
+		private final ByteBuffer content;
+		private final long lastModified;
+
+		public CachedContentImpl(ByteBuffer content, long lastModified) {
+			this.content = content.asReadOnlyBuffer();
+			this.lastModified = lastModified;
+		}
+
+		@Override
+		public ByteBuffer getContent() {
+			// each reader gets its own position
+			return content.duplicate();
+		}
+
+		@Override
+		public long getLength() {
+			return content.capacity();
+		}
+
+		@Override
+		public long getLastModified() {
+			return lastModified;
+		}
+
+	}
+
+}
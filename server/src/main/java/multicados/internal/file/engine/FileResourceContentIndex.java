@@ -0,0 +1,48 @@
+/**
+ *
+ */
+package multicados.internal.file.engine;
+
+import java.io.IOException;
+
+import org.hibernate.service.Service;
+
+import multicados.internal.file.domain.FileContent;
+
+/**
+ * Content-addressed index of stored files. Every stored file is recorded
+ * under the digest of its content together with the amount of resources
+ * referring to it, identical contents are then linked to the stored file
+ * instead of being written again
+ *
+ * @author Ngoc Huy
+ *
+ */
+public interface FileResourceContentIndex extends Service {
+
+	/**
+	 * @return the hexadecimal SHA-256 digest of the content, which is streamed
+	 */
+	String digest(FileContent content) throws IOException;
+
+	/**
+	 * Acquire a reference to a stored file of the digest
+	 *
+	 * @return the identifier of the stored file or null if there is none
+	 */
+	String link(String directoryPath, String digest);
+
+	/**
+	 * Record a newly stored file with a single reference
+	 */
+	void register(String directoryPath, String digest, String id);
+
+	/**
+	 * Release a reference to the stored file
+	 *
+	 * @return whether the file is no longer referenced and may be reclaimed, files
+	 *         which were never registered are never reclaimed
+	 */
+	boolean unlink(String directoryPath, String id);
+
+}
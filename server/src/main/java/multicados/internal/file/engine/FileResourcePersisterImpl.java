@@ -5,12 +5,16 @@ package multicados.internal.file.engine;
 
 import static multicados.internal.helper.Utils.declare;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.nio.file.Paths;
+import java.util.Map;
 
 import org.hibernate.Hibernate;
 import org.hibernate.HibernateException;
 import org.hibernate.LockOptions;
 import org.hibernate.SessionFactory;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
 import org.hibernate.cache.spi.access.EntityDataAccess;
 import org.hibernate.cache.spi.access.NaturalIdDataAccess;
 import org.hibernate.engine.config.spi.ConfigurationService;
@@ -20,25 +24,40 @@ import org.hibernate.mapping.PersistentClass;
 import org.hibernate.persister.entity.SingleTableEntityPersister;
 import org.hibernate.persister.spi.PersisterCreationContext;
 import org.hibernate.proxy.HibernateProxy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import multicados.internal.config.Settings;
 import multicados.internal.file.domain.Directory;
 import multicados.internal.file.domain.FileResource;
+import multicados.internal.file.engine.storage.LocalStorage;
+import multicados.internal.file.engine.storage.Storage;
 
 /**
+ * Stores each distinct content once per directory: an insertion whose content
+ * is already stored is linked to the stored file, which is only reclaimed once
+ * its last reference is deleted
+ *
  * @author Ngoc Huy
  *
  */
 public class FileResourcePersisterImpl extends SingleTableEntityPersister implements FileResourcePersister {
 
 	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(FileResourcePersisterImpl.class);
 
 	private static final String MESSAGE = String.format("Insertions on %s must always contain every property values",
 			FileResource.class.getSimpleName());
 
 	private final String directoryPath;
+	private final DirectoryLayout layout;
+	private final String identifierDelimiter;
+	private final boolean layoutMigrationEnabled;
 
 	private final SaveStrategy saveStrategy;
+	private final FileResourceContentCache contentCache;
+	private final FileResourceContentIndex contentIndex;
+	private final Storage storage;
 
 	@SuppressWarnings("unchecked")
 	public FileResourcePersisterImpl(
@@ -66,13 +85,58 @@ public class FileResourcePersisterImpl extends SingleTableEntityPersister implem
 					.then(Directory::value)
 					.get());
 		// @formatter:on
+		final Map<?, ?> settings = sfi.getServiceRegistry().requireService(ConfigurationService.class).getSettings();
+
+		layout = DirectoryLayout.valueOf(settings.get(Settings.FILE_RESOURCE_DIRECTORY_LAYOUT).toString());
+		identifierDelimiter = settings.get(Settings.FILE_RESOURCE_IDENTIFIER_DELIMITER).toString();
+		layoutMigrationEnabled = Boolean.parseBoolean(settings.get(Settings.FILE_RESOURCE_DIRECTORY_LAYOUT_MIGRATION).toString());
 		saveStrategy = sfi.getServiceRegistry().requireService(SaveStrategyResolver.class)
 				.getSaveStrategy(getMappedClass());
+		contentCache = sfi.getServiceRegistry().requireService(FileResourceContentCache.class);
+		contentIndex = sfi.getServiceRegistry().requireService(FileResourceContentIndex.class);
+		storage = sfi.getServiceRegistry().requireService(Storage.class);
 	}
 
 	@Override
 	public void delete(Serializable id, Object version, Object object, SharedSessionContractImplementor session)
-			throws HibernateException {}
+			throws HibernateException {
+		final String identifier = id.toString();
+
+		FileResourceSession.class.cast(session).getActionQueue()
+				.registerProcess((AfterTransactionCompletionProcess) (success, any) -> {
+					if (success) {
+						release(identifier);
+					}
+				});
+	}
+
+	/**
+	 * Release a reference to the stored file, reclaim it together with its
+	 * variants once it is no longer referenced
+	 */
+	private void release(String id) {
+		if (!contentIndex.unlink(directoryPath, id)) {
+			return;
+		}
+
+		contentCache.invalidate(directoryPath, id);
+		// variants are named by prefixing the identifier, they share its shard
+		try {
+			for (final String file : storage.list(Paths.get(resolvePath(id)).getParent().toString())) {
+				if (!file.endsWith(id)) {
+					continue;
+				}
+
+				if (logger.isDebugEnabled()) {
+					logger.debug("Reclaiming file [{}]", file);
+				}
+
+				storage.delete(file);
+			}
+		} catch (IOException any) {
+			logger.error(String.format("Unable to reclaim file %s", id), any);
+		}
+	}
 
 	@Override
 	public void delete(Serializable id, Object version, int j, Object object, String sql,
@@ -112,9 +176,22 @@ public class FileResourcePersisterImpl extends SingleTableEntityPersister implem
 				Hibernate.initialize(object);
 			}
 
-			final String manipulatedIdentifier = saveStrategy.save(this, id.toString(), FileResource.class.cast(object), FileResourceSession.class.cast(session));
+			final FileResource resource = FileResource.class.cast(object);
+			final String digest = contentIndex.digest(resource.getContent());
+			final String linkedIdentifier = contentIndex.link(directoryPath, digest);
+
+			if (linkedIdentifier != null) {
+				setIdentifier(object, linkedIdentifier, session);
+				releaseOnFailure(linkedIdentifier, session);
+				return;
+			}
+
+			final String manipulatedIdentifier = saveStrategy.save(this, id.toString(), resource, FileResourceSession.class.cast(session));
 
 			setIdentifier(object, manipulatedIdentifier, session);
+			contentCache.invalidate(directoryPath, manipulatedIdentifier);
+			contentIndex.register(directoryPath, digest, manipulatedIdentifier);
+			releaseOnFailure(manipulatedIdentifier, session);
 		} catch (Exception any) {
 			any.printStackTrace();
 			throw new HibernateException(any);
@@ -122,9 +199,18 @@ public class FileResourcePersisterImpl extends SingleTableEntityPersister implem
 		// @formatter:on
 	}
 
+	private void releaseOnFailure(String id, SharedSessionContractImplementor session) {
+		FileResourceSession.class.cast(session).getActionQueue()
+				.registerProcess((AfterTransactionCompletionProcess) (success, any) -> {
+					if (!success) {
+						release(id);
+					}
+				});
+	}
+
 	@Override
 	public String resolvePath(String id) {
-		return directoryPath + id;
+		return directoryPath + layout.locateShard(id, identifierDelimiter) + id;
 	}
 
 	@Override
@@ -134,8 +220,22 @@ public class FileResourcePersisterImpl extends SingleTableEntityPersister implem
 		}
 
 		final SessionFactoryImplementor sfi = (SessionFactoryImplementor) factory;
+		// remote storages have no directories, neither can their files be moved
+		if (!(storage instanceof LocalStorage)) {
+			return;
+		}
 
 		sfi.getServiceRegistry().requireService(DirectoryInitializer.class).createDirectory(directoryPath);
+
+		if (layout == DirectoryLayout.FLAT || !layoutMigrationEnabled) {
+			return;
+		}
+
+		final Thread migration = new Thread(new DirectoryLayoutMigration(directoryPath, layout, identifierDelimiter,
+				contentCache), String.format("file-layout-migration-%s", getMappedClass().getSimpleName()));
+
+		migration.setDaemon(true);
+		migration.start();
 	}
 
 	@Override
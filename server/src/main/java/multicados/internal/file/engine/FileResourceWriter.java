@@ -0,0 +1,54 @@
+/**
+ *
+ */
+package multicados.internal.file.engine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.hibernate.service.Service;
+
+import multicados.internal.file.domain.FileContent;
+import multicados.internal.file.engine.storage.Storage;
+
+/**
+ * Writes files so that readers never observe a partially written one, the files
+ * are kept by the {@link Storage} of the engine
+ *
+ * @author Ngoc Huy
+ *
+ */
+public interface FileResourceWriter extends Service {
+
+	void write(Path path, byte[] content) throws IOException;
+
+	/**
+	 * Stream the content to the path, the content is never loaded as a whole
+	 */
+	void write(Path path, FileContent content) throws IOException;
+
+	/**
+	 * @return a group of writes which may be rolled back together
+	 */
+	Batch openBatch();
+
+	interface Batch {
+
+		/**
+		 * Thread-safe, writes arriving after a rollback are discarded
+		 */
+		void write(Path path, byte[] content) throws IOException;
+
+		/**
+		 * @see #write(Path, byte[])
+		 */
+		void write(Path path, FileContent content) throws IOException;
+
+		/**
+		 * Delete every file written by this batch
+		 */
+		void rollback();
+
+	}
+
+}
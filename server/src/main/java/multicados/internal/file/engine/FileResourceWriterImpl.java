@@ -0,0 +1,120 @@
+/**
+ *
+ */
+package multicados.internal.file.engine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import multicados.internal.file.domain.FileContent;
+import multicados.internal.file.engine.storage.Storage;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class FileResourceWriterImpl implements FileResourceWriter {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(FileResourceWriterImpl.class);
+
+	private final Storage storage;
+
+	public FileResourceWriterImpl(Storage storage) {
+		this.storage = storage;
+	}
+
+	@Override
+	public void write(Path path, byte[] content) throws IOException {
+		storage.write(path.toString(), content);
+	}
+
+	@Override
+	public void write(Path path, FileContent content) throws IOException {
+		storage.write(path.toString(), content);
+	}
+
+	@Override
+	public Batch openBatch() {
+		return new BatchImpl();
+	}
+
+	private class BatchImpl implements Batch {
+
+		private final List<Path> writtenPaths = new ArrayList<>();
+		private boolean rolledBack = false;
+
+		@Override
+		public void write(Path path, byte[] content) throws IOException {
+			write(path, () -> FileResourceWriterImpl.this.write(path, content));
+		}
+
+		@Override
+		public void write(Path path, FileContent content) throws IOException {
+			write(path, () -> FileResourceWriterImpl.this.write(path, content));
+		}
+
+		private void write(Path path, Writing writing) throws IOException {
+			synchronized (this) {
+				if (rolledBack) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Discarding file [{}] of a rolled back batch", path);
+					}
+
+					return;
+				}
+			}
+			// independent files are written concurrently
+			writing.write();
+
+			synchronized (this) {
+				writtenPaths.add(path);
+
+				if (!rolledBack) {
+					return;
+				}
+			}
+			// rolled back while we were writing
+			delete(path);
+		}
+
+		@Override
+		public void rollback() {
+			final List<Path> toBeDeleted;
+
+			synchronized (this) {
+				rolledBack = true;
+				toBeDeleted = new ArrayList<>(writtenPaths);
+			}
+
+			for (final Path path : toBeDeleted) {
+				delete(path);
+			}
+		}
+
+		private void delete(Path path) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Rolling back file [{}]", path);
+			}
+
+			try {
+				storage.delete(path.toString());
+			} catch (IOException any) {
+				logger.error(String.format("Unable to roll back file %s", path), any);
+			}
+		}
+
+	}
+
+	private interface Writing {
+
+		void write() throws IOException;
+
+	}
+
+}
@@ -0,0 +1,142 @@
+/**
+ *
+ */
+package multicados.internal.file.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import multicados.internal.file.domain.FileContent;
+
+/**
+ * {@link FileResourceContentIndex} backed by a table shared by every node.
+ * Statements are auto-committed instead of joining the ongoing transaction,
+ * the file session compensates them once its own transaction fails.
+ * <p>
+ * A reference is only acquired on a positive count and a file is only reclaimed
+ * by the release bringing its count to zero, therefore a link racing with a
+ * reclamation either keeps the file alive or misses it and stores a new copy
+ * </p>
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class JdbcFileResourceContentIndex implements FileResourceContentIndex {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(JdbcFileResourceContentIndex.class);
+
+	public static final String TABLE_NAME = "file_resource_contents";
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException(nsae);
+		}
+	});
+	// @formatter:off
+	private static final String CREATE_TABLE = String.format(
+			"CREATE TABLE IF NOT EXISTS %s ("
+				+ "directory VARCHAR(255) NOT NULL, "
+				+ "id VARCHAR(255) NOT NULL, "
+				+ "digest CHAR(64) NOT NULL, "
+				+ "reference_count INT NOT NULL, "
+				+ "PRIMARY KEY (directory, id), "
+				+ "INDEX idx_%s_digest (directory, digest))", TABLE_NAME, TABLE_NAME);
+	private static final String SELECT_BY_DIGEST = String.format(
+			"SELECT id FROM %s WHERE directory = ? AND digest = ? AND reference_count > 0 LIMIT 1", TABLE_NAME);
+	private static final String ACQUIRE = String.format(
+			"UPDATE %s SET reference_count = reference_count + 1 WHERE directory = ? AND id = ? AND reference_count > 0", TABLE_NAME);
+	private static final String INSERT = String.format(
+			"INSERT INTO %s (directory, id, digest, reference_count) VALUES (?, ?, ?, 1)", TABLE_NAME);
+	private static final String RELEASE = String.format(
+			"UPDATE %s SET reference_count = reference_count - 1 WHERE directory = ? AND id = ? AND reference_count > 0", TABLE_NAME);
+	private static final String DELETE_UNREFERENCED = String.format(
+			"DELETE FROM %s WHERE directory = ? AND id = ? AND reference_count = 0", TABLE_NAME);
+	// @formatter:on
+	private static final int BUFFER_SIZE = 8192;
+	// a stored file may be reclaimed between the look-up and the acquisition
+	private static final int MAX_LINK_ATTEMPTS = 3;
+
+	private final transient JdbcTemplate jdbcTemplate;
+
+	public JdbcFileResourceContentIndex(DataSource dataSource) {
+		// a distinct key keeps the template away from connections bound to ongoing
+		// transactions
+		jdbcTemplate = new JdbcTemplate(new DelegatingDataSource(dataSource));
+		jdbcTemplate.execute(CREATE_TABLE);
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Using table {}", TABLE_NAME);
+		}
+	}
+
+	@Override
+	public String digest(FileContent content) throws IOException {
+		final MessageDigest digest = DIGESTS.get();
+		final byte[] buffer = new byte[BUFFER_SIZE];
+
+		digest.reset();
+
+		try (InputStream stream = content.openStream()) {
+			int read;
+
+			while ((read = stream.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		}
+
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	@Override
+	public String link(String directoryPath, String digest) {
+		for (int i = 0; i < MAX_LINK_ATTEMPTS; i++) {
+			final List<String> ids = jdbcTemplate.queryForList(SELECT_BY_DIGEST, String.class, directoryPath, digest);
+
+			if (ids.isEmpty()) {
+				return null;
+			}
+
+			final String id = ids.get(0);
+
+			if (jdbcTemplate.update(ACQUIRE, directoryPath, id) == 1) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Linked [{}] to stored file [{}]", digest, id);
+				}
+
+				return id;
+			}
+		}
+
+		return null;
+	}
+
+	@Override
+	public void register(String directoryPath, String digest, String id) {
+		jdbcTemplate.update(INSERT, directoryPath, id, digest);
+	}
+
+	@Override
+	public boolean unlink(String directoryPath, String id) {
+		if (jdbcTemplate.update(RELEASE, directoryPath, id) == 0) {
+			return false;
+		}
+
+		return jdbcTemplate.update(DELETE_UNREFERENCED, directoryPath, id) == 1;
+	}
+
+}
@@ -26,15 +26,16 @@ public class SaveStrategyResolver implements Service {
 
 	private final Map<Class<? extends FileResource>, SaveStrategy> saveStrategies;
 
-	public SaveStrategyResolver(ImageService imageService, ManipulationContext manipulationContext) {
+	public SaveStrategyResolver(FileResourceWriter writer, ImageService imageService,
+			ManipulationContext manipulationContext) {
 		final Logger logger = LoggerFactory.getLogger(SaveStrategyResolver.class);
 
 		if (logger.isTraceEnabled()) {
 			logger.trace("Instantiating {}", SaveStrategyResolver.class.getName());
 		}
 
-		saveStrategies = Map.of(FileResource.class, new DefaultSaveStrategy(), Image.class,
-				new ImageSaveStrategy(imageService, manipulationContext));
+		saveStrategies = Map.of(FileResource.class, new DefaultSaveStrategy(writer), Image.class,
+				new ImageSaveStrategy(writer, imageService, manipulationContext));
 
 		if (logger.isDebugEnabled()) {
 			logger.debug("Configured {} are:\n\t{}", SaveStrategyResolver.class.getName(),
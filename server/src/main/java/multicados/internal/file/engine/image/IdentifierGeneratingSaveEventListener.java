@@ -5,10 +5,15 @@ package multicados.internal.file.engine.image;
 
 import static multicados.internal.helper.Utils.declare;
 
-import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
 
 import org.apache.commons.lang3.RandomStringUtils;
 import org.hibernate.HibernateException;
@@ -53,14 +58,8 @@ public class IdentifierGeneratingSaveEventListener implements SaveOrUpdateEventL
 		try {
 			if (Image.class.isAssignableFrom(resource.getClass())) {
 				Image image = (Image) resource;
-				// @formatter:off
-				declare(image.getContent())
-					.then(ByteArrayInputStream::new)
-					.then(ImageIO::read)
-					.consume(image::setBufferedImage)
-					.then(manipulationContext::resolveStandard)
-					.consume(image::setStandard);
-				// @formatter:on
+
+				decode(image);
 				resource.setId(generateForImageResource(image));
 				return;
 			}
@@ -73,6 +72,40 @@ public class IdentifierGeneratingSaveEventListener implements SaveOrUpdateEventL
 		}
 	}
 
+	/**
+	 * Decode the content from its stream and resolve its {@link Standard} from the
+	 * dimensions alone. Oversized sources are subsampled while being decoded, the
+	 * decoded width stays under twice the width of the {@link Standard} whatever
+	 * the size of the source
+	 */
+	private void decode(Image image) throws IOException {
+		try (InputStream stream = image.getContent().openStream();
+				ImageInputStream imageStream = ImageIO.createImageInputStream(stream)) {
+			final Iterator<ImageReader> readers = ImageIO.getImageReaders(imageStream);
+
+			if (!readers.hasNext()) {
+				throw new IllegalArgumentException("Unable to read the image");
+			}
+
+			final ImageReader reader = readers.next();
+
+			try {
+				reader.setInput(imageStream, true, true);
+
+				final int width = reader.getWidth(0);
+				final Standard standard = manipulationContext.resolveStandard(width, reader.getHeight(0));
+				final ImageReadParam param = reader.getDefaultReadParam();
+				final int subsampling = Math.max(1, width / standard.getOriginalWidth());
+
+				param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+				image.setBufferedImage(reader.read(0, param));
+				image.setStandard(standard);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
 	private String generateForImageResource(FileResource resource) {
 		Image image = (Image) resource;
 
@@ -3,22 +3,35 @@
  */
 package multicados.internal.file.engine.image;
 
-import static multicados.internal.helper.Utils.declare;
+import java.nio.file.Paths;
 
 import multicados.internal.file.domain.FileResource;
 import multicados.internal.file.domain.Image;
 import multicados.internal.file.engine.DefaultSaveStrategy;
 import multicados.internal.file.engine.FileResourcePersister;
 import multicados.internal.file.engine.FileResourceSession;
+import multicados.internal.file.engine.FileResourceWriter;
+import multicados.internal.file.engine.FileResourceWriter.Batch;
 import multicados.internal.file.engine.SaveStrategy;
-import multicados.internal.helper.Utils.BiDeclaration;
+import multicados.internal.file.engine.image.ImageService.Adjustment;
 
+/**
+ * Saves the primary variant of an {@link Image} before returning, the other
+ * variants are written by the {@link ImageService} propagation once they are
+ * produced, or on their first request when variants are lazy. A failed upload
+ * rolls every variant back, a failed propagation only the propagated ones
+ *
+ * @author Ngoc Huy
+ *
+ */
 public class ImageSaveStrategy extends DefaultSaveStrategy implements SaveStrategy {
 
 	private final ImageService imageService;
 	private final ManipulationContext manipulationContext;
 
-	public ImageSaveStrategy(ImageService imageService, ManipulationContext manipulationContext) {
+	public ImageSaveStrategy(FileResourceWriter writer, ImageService imageService,
+			ManipulationContext manipulationContext) {
+		super(writer);
 		this.imageService = imageService;
 		this.manipulationContext = manipulationContext;
 	}
@@ -27,47 +40,25 @@ public class ImageSaveStrategy extends DefaultSaveStrategy implements SaveStrate
 	public <T extends FileResource> String save(FileResourcePersister persister, String id, T object,
 			FileResourceSession session) throws Exception {
 		Image image = (Image) object;
-		BiDeclaration<Standard, byte[][]> manipulation = imageService.adjustAndPropagate(image);
-		Standard standard = manipulation.getFirst();
-		byte[][] contentArray = manipulation.getSecond();
-		String[] compressionPrefixes = standard.getCompressionPrefixes();
+		Adjustment adjustment = imageService.adjust(image);
+		String[] compressionPrefixes = adjustment.getStandard().getCompressionPrefixes();
+		Batch batch = openBatch(session);
 
-		doSave(session, persister, image, manipulationContext.resolveCompressionName(id, compressionPrefixes[0]),
-				contentArray[0]);
+		batch.write(Paths.get(persister.resolvePath(manipulationContext.resolveCompressionName(id, compressionPrefixes[0]))),
+				adjustment.getPrimaryContent());
 
-		int batchSize = standard.getBatchSize();
-
-		for (int i = 1; i < batchSize; i++) {
-			// @formatter:off
-			doSave(
-					session,
-					persister,
-					image,
-					manipulationContext.resolveCompressionName(id, compressionPrefixes[i]),
-					contentArray[i]);
-			// @formatter:on
+		if (imageService.isLazyVariants()) {
+			return id;
 		}
+		// the propagation may fail after the commit, only its own variants are
+		// rolled back then and they get rendered on their first request
+		Batch variantBatch = openBatch(session);
+		// the session is not to be touched outside of the calling thread
+		imageService.propagate(id, adjustment, (index, content) -> variantBatch.write(
+				Paths.get(persister.resolvePath(manipulationContext.resolveCompressionName(id, compressionPrefixes[index]))),
+				content), variantBatch::rollback);
 
 		return id;
 	}
 
-	private String doSave(FileResourceSession session, FileResourcePersister persister, Image originalImage, String id,
-			byte[] content) throws Exception {
-		// @formatter:off
-		return super.save(
-				persister,
-				id,
-				declare(originalImage)
-					.then(persister::getPropertyValues)
-						.prepend(declare(id, session)
-									.then(persister::instantiate)
-									.then(Image.class::cast))
-					.consume(persister::setPropertyValues)
-					.useFirst()
-					.consume(actualImage -> actualImage.setContent(content))
-					.get(),
-				session);
-		// @formatter:on
-	}
-
-}
\ No newline at end of file
+}
@@ -3,29 +3,49 @@
  */
 package multicados.internal.file.engine.image;
 
-import static multicados.internal.helper.Utils.declare;
-
 import java.awt.Dimension;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 import javax.imageio.ImageIO;
 
 import org.hibernate.service.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.support.BeanDefinitionRegistry;
-import org.springframework.beans.factory.support.GenericBeanDefinition;
 import org.springframework.context.ApplicationContext;
-import org.springframework.scheduling.annotation.Async;
 
 import multicados.internal.config.ExecutorNames;
+import multicados.internal.config.Settings;
 import multicados.internal.file.domain.Image;
+import multicados.internal.file.engine.storage.Storage;
 import multicados.internal.helper.AwtImageUtils;
-import multicados.internal.helper.Utils.BiDeclaration;
+import multicados.internal.helper.SingleFlight;
+import multicados.internal.helper.SpringHelper;
+import multicados.internal.helper.StringHelper;
+import multicados.internal.helper.Utils.HandledBiConsumer;
 
 /**
+ * Produces every variant of an {@link Image} from its single decoded raster.
+ * The primary variant is adjusted and encoded on the calling thread, the
+ * smaller ones are propagated in the background: scaled progressively, each one
+ * from the previous (larger) one, then encoded in parallel on the image
+ * executor. The first reduction from the upload uses nearest neighbor since the
+ * raster may be huge, the following ones are cheap enough for bilinear
+ * interpolation.
+ *
+ * The propagation executor is bounded and runs rejected propagations on the
+ * submitting thread, which slows uploads down instead of queuing rasters
+ * without limit.
+ *
+ * With lazy variants, uploads only store the primary variant, the others are
+ * rendered from it on their first request then persisted
+ *
  * @author Ngoc Huy
  *
  */
@@ -35,126 +55,268 @@ public class ImageService implements Service {
 
 	private static final Logger logger = LoggerFactory.getLogger(ImageService.class);
 
-	private final transient PropagationWorker worker;
+	private final transient Executor encodingExecutor;
+	private final transient Executor propagationExecutor;
+	// identifier -> propagation in progress
+	private final transient Map<String, CompletableFuture<Void>> propagations = new ConcurrentHashMap<>();
+	// variant path -> rendering in progress
+	private final transient SingleFlight<String, Boolean> renderings = new SingleFlight<>();
+
+	private final boolean lazyVariants;
+	private final Storage storage;
+
+	public ImageService(ApplicationContext applicationContext, Storage storage) throws Exception {
+		this(applicationContext.getBean(ExecutorNames.IMAGE_SERVICE_EXECUTOR, Executor.class),
+				applicationContext.getBean(ExecutorNames.IMAGE_PROPAGATION_EXECUTOR, Executor.class),
+				SpringHelper.getOrDefault(applicationContext.getEnvironment(),
+						Settings.FILE_RESOURCE_IMAGE_LAZY_VARIANTS, Boolean::valueOf, Boolean.FALSE),
+				storage);
+	}
 
-	public ImageService(ApplicationContext applicationContext) throws Exception {
+	public ImageService(Executor encodingExecutor, Executor propagationExecutor, boolean lazyVariants,
+			Storage storage) {
 		if (logger.isTraceEnabled()) {
 			logger.trace("Instantiating {}", ImageService.class.getName());
 		}
 
-		worker = instantiatePropagationWorker(applicationContext);
+		this.encodingExecutor = encodingExecutor;
+		this.propagationExecutor = propagationExecutor;
+		this.lazyVariants = lazyVariants;
+		this.storage = storage;
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Lazy variants: {}", lazyVariants);
+		}
 	}
 
-	private PropagationWorker instantiatePropagationWorker(ApplicationContext applicationContext) throws Exception {
-		if (logger.isTraceEnabled()) {
-			logger.trace("Registering {} as a Spring Bean", PropagationWorker.class.getName());
+	/**
+	 * Adjust the image to its {@link Standard} and encode the primary variant on
+	 * the calling thread
+	 */
+	public Adjustment adjust(Image image) throws Exception {
+		final Standard standard = image.getStandard();
+		final Dimension refinedDimension = refineDimension(image.getBufferedImage(), standard);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Refined request dimension: {}", refinedDimension);
 		}
-		// @formatter:off
-		return declare(applicationContext, PropagationWorker.class, new GenericBeanDefinition())
-				.consume((appContext, type, bean) -> bean.setLazyInit(false))
-				.consume((appContext, type, bean) -> bean.setBeanClass(type))
-				.consume((appContext, type, bean) -> BeanDefinitionRegistry.class.cast(appContext.getAutowireCapableBeanFactory()).registerBeanDefinition(type.getName(), bean))
-			.useSecond()
-			.then(applicationContext::getBean)
-			.get();
-		// @formatter:on
+		// the raster decoded while generating the identifier
+		final BufferedImage adjustedImage = scale(image.getBufferedImage(), (int) refinedDimension.getWidth(),
+				(int) refinedDimension.getHeight(), RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+
+		return new Adjustment(standard, image.getExtension(), adjustedImage,
+				AwtImageUtils.encode(adjustedImage, image.getExtension(), standard.getCompressionQualities()[0]));
+	}
+
+	/**
+	 * Produce the remaining variants of an {@link Adjustment} in the background,
+	 * each one is handed to the writer with its index in the {@link Standard}
+	 * batch as soon as it is encoded
+	 *
+	 * @param id       the identifier under which the propagation is reported
+	 * @param rollback removes the variants written so far when the propagation
+	 *                 fails, it runs while the identifier is still reported as
+	 *                 propagating so that no reader picks a partial variant up
+	 * @return completes once every variant has been written
+	 */
+	public CompletableFuture<Void> propagate(String id, Adjustment adjustment,
+			HandledBiConsumer<Integer, byte[], Exception> writer, Runnable rollback) {
+		final CompletableFuture<Void> propagation = new CompletableFuture<>();
+
+		propagations.put(id, propagation);
+		propagation.whenComplete((nothing, failure) -> {
+			propagations.remove(id, propagation);
+
+			if (failure != null) {
+				logger.error(String.format("Unable to propagate image %s", id), failure);
+				return;
+			}
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Propagated image {}", id);
+			}
+		});
+		propagationExecutor.execute(() -> {
+			try {
+				doPropagate(adjustment, writer).whenComplete((nothing, failure) -> {
+					if (failure != null) {
+						fail(propagation, failure, rollback);
+						return;
+					}
+
+					propagation.complete(null);
+				});
+			} catch (Throwable any) {
+				fail(propagation, any, rollback);
+			}
+		});
+
+		return propagation;
 	}
 
-	public BiDeclaration<Standard, byte[][]> adjustAndPropagate(Image image) throws Exception {
-		return new AdjustmentAndPropagation(image).doWork();
+	private void fail(CompletableFuture<Void> propagation, Throwable failure, Runnable rollback) {
+		try {
+			rollback.run();
+		} catch (Throwable any) {
+			failure.addSuppressed(any);
+		}
+
+		propagation.completeExceptionally(failure);
 	}
 
-	private class AdjustmentAndPropagation {
+	private CompletableFuture<Void> doPropagate(Adjustment adjustment,
+			HandledBiConsumer<Integer, byte[], Exception> writer) {
+		final Standard standard = adjustment.getStandard();
+		final int batchSize = standard.getBatchSize();
+		final float[] compressionFactors = standard.getCompressionFactors();
+		final float[] compressionQualities = standard.getCompressionQualities();
+		@SuppressWarnings("unchecked")
+		final CompletableFuture<Void>[] encodings = new CompletableFuture[batchSize - 1];
+		final int adjustedWidth = adjustment.adjustedImage.getWidth();
+		BufferedImage variant = adjustment.adjustedImage;
+
+		for (int i = 1; i < batchSize; i++) {
+			final int index = i;
+			final int nextWidth = Math.max(1, (int) (adjustedWidth * compressionFactors[i]));
+			final BufferedImage scaledVariant = scale(variant, nextWidth,
+					Math.max(1, standard.maintainHeight(nextWidth)), RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+
+			encodings[i - 1] = CompletableFuture.runAsync(() -> {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Encoding variant with: width:{}, height:{}, quality factor:{}",
+							scaledVariant.getWidth(), scaledVariant.getHeight(), compressionQualities[index]);
+				}
+
+				try {
+					writer.accept(index, AwtImageUtils.encode(scaledVariant, adjustment.getExtension(),
+							compressionQualities[index]));
+				} catch (Exception any) {
+					throw new CompletionException(any);
+				}
+			}, encodingExecutor);
+			variant = scaledVariant;
+		}
 
-		private final Image image;
-		private final Standard standard;
+		return CompletableFuture.allOf(encodings);
+	}
 
-		private final byte[][] products;
+	/**
+	 * @return whether variants of the identifier are still being produced
+	 */
+	public boolean isPropagating(String id) {
+		return propagations.containsKey(id);
+	}
+
+	/**
+	 * @return whether uploads should only store their primary variant
+	 */
+	public boolean isLazyVariants() {
+		return lazyVariants;
+	}
 
-		public AdjustmentAndPropagation(Image image) {
-			this.image = image;
-			standard = image.getStandard();
-			products = new byte[standard.getBatchSize()][];
+	/**
+	 * Render the variant of the batch index from the primary variant then persist
+	 * it, unless it already exists. Concurrent requests of the same variant
+	 * render it once
+	 *
+	 * @return whether the variant exists, false when the primary variant is
+	 *         missing
+	 */
+	public boolean renderVariant(String primaryPath, String variantPath, Standard standard, int index)
+			throws Exception {
+		if (storage.exists(variantPath)) {
+			return true;
 		}
 
-		private BiDeclaration<Standard, byte[][]> doWork() throws Exception {
-			Dimension refinedDimension = refineDimension();
+		return renderings.execute(variantPath, () -> {
+			// rendered by the flight we have just missed
+			if (storage.exists(variantPath)) {
+				return true;
+			}
+
+			final Path primaryFile = storage.locate(primaryPath);
+
+			if (primaryFile == null) {
+				return false;
+			}
 
 			if (logger.isDebugEnabled()) {
-				logger.debug("Refined request dimension: {}", refinedDimension);
+				logger.debug("Rendering variant [{}] from [{}]", variantPath, primaryPath);
 			}
-			// @formatter:off
-			BufferedImage adjustedImage =
-					declare(AwtImageUtils.adjustResolution(image.getBufferedImage(), image.getExtension(), (int) refinedDimension.getWidth(), (int) refinedDimension.getHeight(), (image, extension) -> image))
-							.second(image.getExtension())
-							.third(standard.getCompressionFactors()[0])
-						.then((image, extension, factor) -> AwtImageUtils.downGradeQuality(image, extension, factor, (bytes, any) -> bytes))
-						.consume(bytes -> products[0] = bytes)
-						.then(ByteArrayInputStream::new)
-						.then(ImageIO::read)
-						.get();
-			// @formatter:on
-			propagate(adjustedImage);
-
-			return declare(standard, products);
-		}
 
-		private Dimension refineDimension() {
-			int requestedWidth = image.getBufferedImage().getWidth();
+			final BufferedImage primaryImage = ImageIO.read(primaryFile.toFile());
+			final String filename = primaryFile.getFileName().toString();
+			final byte[] content = AwtImageUtils.encode(scaleVariant(primaryImage, standard, index),
+					filename.substring(filename.lastIndexOf(StringHelper.DOT) + 1),
+					standard.getCompressionQualities()[index]);
 
-			if (requestedWidth > standard.getOriginalWidth()) {
-				return new Dimension(standard.getOriginalWidth(), standard.getOriginalHeight());
-			}
+			storage.write(variantPath, content);
 
-			return new Dimension(requestedWidth, standard.maintainHeight(requestedWidth));
+			return true;
+		});
+	}
+
+	/**
+	 * Scale through every variant preceding the index, which yields the same
+	 * raster as a propagation
+	 */
+	private BufferedImage scaleVariant(BufferedImage primaryImage, Standard standard, int index) {
+		final float[] compressionFactors = standard.getCompressionFactors();
+		final int adjustedWidth = primaryImage.getWidth();
+		BufferedImage variant = primaryImage;
+
+		for (int i = 1; i <= index; i++) {
+			final int nextWidth = Math.max(1, (int) (adjustedWidth * compressionFactors[i]));
+
+			variant = scale(variant, nextWidth, Math.max(1, standard.maintainHeight(nextWidth)),
+					RenderingHints.VALUE_INTERPOLATION_BILINEAR);
 		}
 
-		@Async
-		private void propagate(BufferedImage toBePropagatedImage) throws Exception {
-			int propagationBatchSize = standard.getBatchSize() - 1;
-			@SuppressWarnings("unchecked")
-			CompletableFuture<byte[]>[] futures = new CompletableFuture[propagationBatchSize];
-			int originalWidth = toBePropagatedImage.getWidth();
+		return variant;
+	}
 
-			for (int i = 0, j = i + 1; i < propagationBatchSize; i++, j++) {
-				int nextWidth = (int) (originalWidth * standard.getCompressionFactors()[j]);
-				int nextHeight = standard.maintainHeight(nextWidth);
+	private Dimension refineDimension(BufferedImage bufferedImage, Standard standard) {
+		int requestedWidth = bufferedImage.getWidth();
 
-				futures[i] = worker.propagate(toBePropagatedImage, image.getExtension(), nextWidth, nextHeight,
-						standard.getCompressionQualities()[j]);
-			}
+		if (requestedWidth > standard.getOriginalWidth()) {
+			return new Dimension(standard.getOriginalWidth(), standard.getOriginalHeight());
+		}
 
-			CompletableFuture.allOf(futures).join();
+		return new Dimension(requestedWidth, standard.maintainHeight(requestedWidth));
+	}
 
-			for (int i = 0; i < propagationBatchSize; i++) {
-				products[i + 1] = futures[i].get();
-			}
+	private BufferedImage scale(BufferedImage source, int width, int height, Object interpolation) {
+		if (source.getWidth() == width && source.getHeight() == height) {
+			return source;
 		}
+
+		return AwtImageUtils.scale(source, width, height, interpolation);
 	}
 
-	// has to be static
-	public static class PropagationWorker {
+	public static class Adjustment {
 
-		@Async(ExecutorNames.IMAGE_SERVICE_EXECUTOR)
-		public CompletableFuture<byte[]> propagate(BufferedImage originalImage, String extension, int nextWidth,
-				int nextHeight, float qualityFactor) throws Exception {
-			if (logger.isDebugEnabled()) {
-				logger.debug("Executing propagation with: width:{}, height:{}, quality factor:{}", nextWidth,
-						nextHeight, qualityFactor);
-			}
-			// @formatter:off
-			return CompletableFuture.completedFuture(
-					AwtImageUtils.downGradeQuality(
-						AwtImageUtils.adjustResolution(
-							originalImage,
-							extension,
-							nextWidth,
-							nextHeight,
-							(image, any) -> image),
-						extension,
-						qualityFactor,
-						(bytes, any) -> bytes));
-			// @formatter:on
+		private final Standard standard;
+		private final String extension;
+		private final BufferedImage adjustedImage;
+		private final byte[] primaryContent;
+
+		private Adjustment(Standard standard, String extension, BufferedImage adjustedImage, byte[] primaryContent) {
+			this.standard = standard;
+			this.extension = extension;
+			this.adjustedImage = adjustedImage;
+			this.primaryContent = primaryContent;
+		}
+
+		public Standard getStandard() {
+			return standard;
+		}
+
+		public String getExtension() {
+			return extension;
+		}
+
+		public byte[] getPrimaryContent() {
+			return primaryContent;
 		}
 
 	}
@@ -18,6 +18,8 @@ public interface ManipulationContext extends Service {
 
 	Standard resolveStandard(BufferedImage bufferedImage);
 
+	Standard resolveStandard(int width, int height);
+
 	List<Standard> getStandards();
 
 	String resolveCompressionName(String filename, String prefix);
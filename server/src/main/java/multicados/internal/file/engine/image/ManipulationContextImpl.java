@@ -105,9 +105,13 @@ public class ManipulationContextImpl implements ManipulationContext {
 
 	@Override
 	public Standard resolveStandard(BufferedImage bufferedImage) {
+		return resolveStandard(bufferedImage.getWidth(), bufferedImage.getHeight());
+	}
+
+	@Override
+	public Standard resolveStandard(int width, int height) {
 		final int size = standardsMap.size();
-		final float ratio = Double.valueOf((bufferedImage.getWidth() * 1.0) / (bufferedImage.getHeight() * 1.0))
-				.floatValue();
+		final float ratio = Double.valueOf((width * 1.0) / (height * 1.0)).floatValue();
 
 		if (standardsArray[0].greaterThan(ratio) || standardsArray[0].equalsTo(ratio)) {
 			return standardsArray[0];
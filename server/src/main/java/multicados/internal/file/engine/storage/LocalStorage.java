@@ -0,0 +1,186 @@
+/**
+ *
+ */
+package multicados.internal.file.engine.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import multicados.internal.file.domain.FileContent;
+import multicados.internal.helper.Utils.HandledConsumer;
+
+/**
+ * {@link Storage} on the local file system, keys are the paths themselves.
+ * Contents go to a temporary file in the target directory, are synced
+ * according to the {@link Durability} then atomically moved in place
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class LocalStorage implements Storage {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(LocalStorage.class);
+
+	public static final Durability DEFAULT_DURABILITY = Durability.FILE;
+
+	public static final String TEMPORARY_SUFFIX = ".tmp";
+
+	private final Durability durability;
+	// some platforms, ie. Windows, refuse to open a directory as a channel
+	private volatile boolean directorySyncSupported = true;
+
+	public LocalStorage(Durability durability) {
+		this.durability = durability;
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Using durability {}", durability);
+		}
+	}
+
+	@Override
+	public void write(String key, byte[] content) throws IOException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Writing file [{}] with content length {}", key, content.length);
+		}
+
+		write(Paths.get(key), channel -> {
+			final ByteBuffer buffer = ByteBuffer.wrap(content);
+
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		});
+	}
+
+	@Override
+	public void write(String key, FileContent content) throws IOException {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Streaming file [{}] with content length {}", key, content.getLength());
+		}
+
+		write(Paths.get(key), channel -> {
+			try (InputStream stream = content.openStream()) {
+				// a bounded buffer, whatever the size of the content
+				stream.transferTo(Channels.newOutputStream(channel));
+			}
+		});
+	}
+
+	/**
+	 * Atomically replace the file with what the filler writes
+	 */
+	public void write(Path path, HandledConsumer<FileChannel, IOException> filler) throws IOException {
+		final Path directory = path.toAbsolutePath().getParent();
+		final Path temporaryPath = createTemporaryFile(directory, path.getFileName().toString());
+
+		try {
+			try (final FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.WRITE)) {
+				filler.accept(channel);
+
+				if (durability != Durability.NONE) {
+					channel.force(false);
+				}
+			}
+
+			Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+
+		if (durability == Durability.DIRECTORY) {
+			syncDirectory(directory);
+		}
+	}
+
+	private Path createTemporaryFile(Path directory, String filename) throws IOException {
+		try {
+			return Files.createTempFile(directory, filename, TEMPORARY_SUFFIX);
+		} catch (NoSuchFileException nsfe) {
+			// the first file of a shard
+			Files.createDirectories(directory);
+
+			return Files.createTempFile(directory, filename, TEMPORARY_SUFFIX);
+		}
+	}
+
+	private void syncDirectory(Path directory) {
+		if (!directorySyncSupported) {
+			return;
+		}
+
+		try (final FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException any) {
+			directorySyncSupported = false;
+			logger.warn("Unable to sync directory [{}], directory syncs are disabled: {}", directory,
+					any.getMessage());
+		}
+	}
+
+	@Override
+	public Path locate(String key) {
+		final Path path = Paths.get(key);
+
+		return Files.isRegularFile(path) ? path : null;
+	}
+
+	@Override
+	public boolean exists(String key) {
+		return Files.isRegularFile(Paths.get(key));
+	}
+
+	@Override
+	public void delete(String key) throws IOException {
+		Files.deleteIfExists(Paths.get(key));
+	}
+
+	@Override
+	public List<String> list(String directory) throws IOException {
+		final List<String> keys = new ArrayList<>();
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(Paths.get(directory), Files::isRegularFile)) {
+			for (final Path file : files) {
+				keys.add(file.toString());
+			}
+		} catch (NoSuchFileException nsfe) {
+			return keys;
+		}
+
+		return keys;
+	}
+
+	public enum Durability {
+
+		/**
+		 * Leave flushing to the operating system, a crash may lose recent files
+		 */
+		NONE,
+		/**
+		 * Sync the file content before it is moved in place
+		 */
+		FILE,
+		/**
+		 * Additionally sync the directory once the file is moved in place, which
+		 * makes the move itself survive a crash
+		 */
+		DIRECTORY
+
+	}
+
+}
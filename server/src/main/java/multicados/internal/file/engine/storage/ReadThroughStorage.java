@@ -0,0 +1,273 @@
+/**
+ *
+ */
+package multicados.internal.file.engine.storage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import multicados.internal.file.domain.FileContent;
+import multicados.internal.helper.SingleFlight;
+
+/**
+ * Serves a {@link RemoteStorage} through a bounded cache on the local disk.
+ * Files are downloaded on their first read, concurrent reads of the same key
+ * download it once, then kept until the least recently read files are evicted
+ * to make room. Writes and deletions go to the remote storage and drop the
+ * local copy.
+ *
+ * Other nodes keep their copies until evicted, which is fine as long as keys
+ * are never rewritten with a different content, identifiers of file resources
+ * are never reused
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class ReadThroughStorage implements Storage {
+
+	private static final long serialVersionUID = 1L;
+	private static final Logger logger = LoggerFactory.getLogger(ReadThroughStorage.class);
+
+	public static final long DEFAULT_MAX_BYTES = 1024L * 1024 * 1024;
+	public static final String DEFAULT_CACHE_DIRECTORY = "files-cache";
+
+	private final transient RemoteStorage remote;
+	private final transient Path cacheDirectory;
+	private final long maxBytes;
+	// local copy -> size, in access order
+	private final transient Map<Path, Long> copies = new LinkedHashMap<>(16, .75f, true);
+	private final transient SingleFlight<Path, Path> downloads = new SingleFlight<>();
+	private long totalBytes = 0;
+
+	public ReadThroughStorage(RemoteStorage remote, Path cacheDirectory, long maxBytes) throws IOException {
+		if (maxBytes <= 0) {
+			throw new IllegalArgumentException("Max bytes must be positive");
+		}
+
+		this.remote = remote;
+		this.cacheDirectory = cacheDirectory.toAbsolutePath();
+		this.maxBytes = maxBytes;
+
+		Files.createDirectories(this.cacheDirectory);
+		recover();
+	}
+
+	/**
+	 * Account copies left by a previous run, the least recently modified ones
+	 * first so that they are evicted first
+	 */
+	private void recover() throws IOException {
+		final List<Path> files = new ArrayList<>();
+
+		try (Stream<Path> walk = Files.walk(cacheDirectory)) {
+			walk.filter(Files::isRegularFile).forEach(files::add);
+		}
+
+		final Map<Path, BasicFileAttributes> attributes = new LinkedHashMap<>();
+
+		for (final Path file : files) {
+			if (file.getFileName().toString().endsWith(LocalStorage.TEMPORARY_SUFFIX)) {
+				// an interrupted download
+				Files.deleteIfExists(file);
+				continue;
+			}
+
+			attributes.put(file, Files.readAttributes(file, BasicFileAttributes.class));
+		}
+
+		synchronized (copies) {
+			attributes.entrySet().stream()
+					.sorted(Comparator.comparing(entry -> entry.getValue().lastModifiedTime()))
+					.forEach(entry -> copies.put(entry.getKey(), entry.getValue().size()));
+			totalBytes = copies.values().stream().mapToLong(Long::longValue).sum();
+		}
+
+		evict(null);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Recovered {} cached file(s), {} byte(s) in [{}]", copies.size(), totalBytes,
+					cacheDirectory);
+		}
+	}
+
+	private Path locateCopy(String key) {
+		final String relativeKey = key.replace('\\', '/');
+
+		return cacheDirectory.resolve(relativeKey.startsWith("/") ? relativeKey.substring(1) : relativeKey);
+	}
+
+	@Override
+	public Path locate(String key) throws IOException {
+		final Path copy = locateCopy(key);
+
+		synchronized (copies) {
+			// touches the copy
+			if (copies.get(copy) != null) {
+				return copy;
+			}
+		}
+
+		try {
+			return downloads.execute(copy, () -> download(key, copy));
+		} catch (IOException | RuntimeException any) {
+			throw any;
+		} catch (Exception any) {
+			throw new IOException(any);
+		}
+	}
+
+	private Path download(String key, Path copy) throws IOException {
+		synchronized (copies) {
+			// downloaded by the flight we have just missed
+			if (copies.containsKey(copy)) {
+				return copy;
+			}
+		}
+
+		final Path directory = copy.getParent();
+
+		Files.createDirectories(directory);
+
+		final Path temporaryPath = Files.createTempFile(directory, copy.getFileName().toString(),
+				LocalStorage.TEMPORARY_SUFFIX);
+
+		try {
+			if (!remote.download(key, temporaryPath)) {
+				return null;
+			}
+
+			final long size = Files.size(temporaryPath);
+
+			Files.move(temporaryPath, copy, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+			synchronized (copies) {
+				final Long replacedSize = copies.put(copy, size);
+
+				totalBytes += size - (replacedSize == null ? 0 : replacedSize);
+			}
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cached [{}] with {} byte(s)", key, size);
+			}
+		} finally {
+			Files.deleteIfExists(temporaryPath);
+		}
+
+		evict(copy);
+
+		return copy;
+	}
+
+	/**
+	 * Delete the least recently read copies until the cache fits
+	 *
+	 * @param retained the copy which was just downloaded, never evicted
+	 */
+	private void evict(Path retained) {
+		final List<Path> evicted = new ArrayList<>();
+
+		synchronized (copies) {
+			final Iterator<Map.Entry<Path, Long>> iterator = copies.entrySet().iterator();
+
+			while (totalBytes > maxBytes && iterator.hasNext()) {
+				final Map.Entry<Path, Long> eldest = iterator.next();
+
+				if (eldest.getKey().equals(retained)) {
+					continue;
+				}
+
+				iterator.remove();
+				totalBytes -= eldest.getValue();
+				evicted.add(eldest.getKey());
+			}
+		}
+		// readers streaming an evicted copy keep reading it on POSIX file systems
+		for (final Path copy : evicted) {
+			deleteCopy(copy);
+		}
+	}
+
+	private void invalidate(String key) {
+		final Path copy = locateCopy(key);
+
+		synchronized (copies) {
+			final Long size = copies.remove(copy);
+
+			if (size == null) {
+				return;
+			}
+
+			totalBytes -= size;
+		}
+
+		deleteCopy(copy);
+	}
+
+	private void deleteCopy(Path copy) {
+		try {
+			Files.deleteIfExists(copy);
+
+			if (logger.isTraceEnabled()) {
+				logger.trace("Deleted cached file [{}]", copy);
+			}
+		} catch (IOException any) {
+			logger.warn("Unable to delete cached file [{}]: {}", copy, any.getMessage());
+		}
+	}
+
+	@Override
+	public void write(String key, byte[] content) throws IOException {
+		write(key, FileContent.of(content));
+	}
+
+	@Override
+	public void write(String key, FileContent content) throws IOException {
+		remote.write(key, content);
+		invalidate(key);
+	}
+
+	@Override
+	public boolean exists(String key) throws IOException {
+		synchronized (copies) {
+			if (copies.containsKey(locateCopy(key))) {
+				return true;
+			}
+		}
+
+		return remote.exists(key);
+	}
+
+	@Override
+	public void delete(String key) throws IOException {
+		remote.delete(key);
+		invalidate(key);
+	}
+
+	@Override
+	public List<String> list(String directory) throws IOException {
+		return remote.list(directory);
+	}
+
+	/**
+	 * @return bytes held by the local copies
+	 */
+	public long getTotalBytes() {
+		synchronized (copies) {
+			return totalBytes;
+		}
+	}
+
+}
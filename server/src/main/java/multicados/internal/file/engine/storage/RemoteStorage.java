@@ -0,0 +1,40 @@
+/**
+ *
+ */
+package multicados.internal.file.engine.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import multicados.internal.file.domain.FileContent;
+
+/**
+ * A store which is not on the local file system, ie. an object store. Remote
+ * files are read by downloading them, which is why a {@link RemoteStorage} is
+ * served through a {@link ReadThroughStorage}
+ *
+ * @author Ngoc Huy
+ *
+ */
+public interface RemoteStorage {
+
+	void write(String key, FileContent content) throws IOException;
+
+	/**
+	 * Replace the target with the content of the key
+	 *
+	 * @return false if there is no such key, the target is then left untouched
+	 */
+	boolean download(String key, Path target) throws IOException;
+
+	boolean exists(String key) throws IOException;
+
+	void delete(String key) throws IOException;
+
+	/**
+	 * @see Storage#list(String)
+	 */
+	List<String> list(String directory) throws IOException;
+
+}
@@ -0,0 +1,141 @@
+/**
+ *
+ */
+package multicados.internal.file.engine.storage;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Signs requests with the AWS Signature Version 4, which every S3-compatible
+ * server accepts. Payloads are not hashed, uploads are streamed as they are
+ * read
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class S3RequestSigner {
+
+	public static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+	public static final String DATE_HEADER = "x-amz-date";
+	public static final String CONTENT_HASH_HEADER = "x-amz-content-sha256";
+	public static final String AUTHORIZATION_HEADER = "Authorization";
+
+	private static final String ALGORITHM = "AWS4-HMAC-SHA256";
+	private static final String SERVICE = "s3";
+	private static final String TERMINATOR = "aws4_request";
+	private static final String HMAC_ALGORITHM = "HmacSHA256";
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+
+	private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+	private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd");
+	private static final HexFormat HEX = HexFormat.of();
+
+	private final String region;
+	private final String accessKey;
+	private final String secretKey;
+
+	public S3RequestSigner(String region, String accessKey, String secretKey) {
+		this.region = region;
+		this.accessKey = accessKey;
+		this.secretKey = secretKey;
+	}
+
+	/**
+	 * @param headers lower-cased names of every header to be signed, the host and
+	 *                date headers are added
+	 * @return the signed headers, including the Authorization one
+	 */
+	public SortedMap<String, String> sign(String method, URI uri, Map<String, String> headers, String payloadHash,
+			ZonedDateTime now) throws GeneralSecurityException {
+		final ZonedDateTime utc = now.withZoneSameInstant(ZoneOffset.UTC);
+		final String dateTime = DATE_TIME_FORMATTER.format(utc);
+		final String date = DATE_FORMATTER.format(utc);
+		final SortedMap<String, String> signedHeaders = new TreeMap<>(headers);
+
+		signedHeaders.put("host", uri.getRawAuthority());
+		signedHeaders.put(DATE_HEADER, dateTime);
+		signedHeaders.put(CONTENT_HASH_HEADER, payloadHash);
+
+		final String signedHeaderNames = String.join(";", signedHeaders.keySet());
+		// @formatter:off
+		final String canonicalRequest = String.join("\n",
+				method,
+				uri.getRawPath().isEmpty() ? "/" : uri.getRawPath(),
+				canonicalizeQuery(uri.getRawQuery()),
+				signedHeaders.entrySet().stream()
+					.map(header -> header.getKey() + ':' + header.getValue().strip() + '\n')
+					.collect(Collectors.joining()),
+				signedHeaderNames,
+				payloadHash);
+		final String scope = String.join("/", date, region, SERVICE, TERMINATOR);
+		final String stringToSign = String.join("\n",
+				ALGORITHM,
+				dateTime,
+				scope,
+				hash(canonicalRequest));
+		// @formatter:on
+		final byte[] signingKey = hmac(hmac(hmac(hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), date),
+				region), SERVICE), TERMINATOR);
+		final String signature = HEX.formatHex(hmac(signingKey, stringToSign));
+
+		signedHeaders.put(AUTHORIZATION_HEADER, String.format("%s Credential=%s/%s, SignedHeaders=%s, Signature=%s",
+				ALGORITHM, accessKey, scope, signedHeaderNames, signature));
+		// the client sets it from the URI
+		signedHeaders.remove("host");
+
+		return signedHeaders;
+	}
+
+	/**
+	 * Query parameters are expected to be encoded already, they are only sorted.
+	 * Parameters without a value, ie. ?uploads, are signed with an empty one
+	 */
+	private String canonicalizeQuery(String rawQuery) {
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return "";
+		}
+
+		final SortedMap<String, String> parameters = new TreeMap<>();
+
+		for (final String parameter : rawQuery.split("&")) {
+			final int delimiterIndex = parameter.indexOf('=');
+
+			if (delimiterIndex == -1) {
+				parameters.put(parameter, "");
+				continue;
+			}
+
+			parameters.put(parameter.substring(0, delimiterIndex), parameter.substring(delimiterIndex + 1));
+		}
+
+		return parameters.entrySet().stream().map(parameter -> parameter.getKey() + '=' + parameter.getValue())
+				.collect(Collectors.joining("&"));
+	}
+
+	private String hash(String value) throws GeneralSecurityException {
+		return HEX.formatHex(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(value.getBytes(StandardCharsets.UTF_8)));
+	}
+
+	private byte[] hmac(byte[] key, String value) throws GeneralSecurityException {
+		final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+
+		mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+
+		return mac.doFinal(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
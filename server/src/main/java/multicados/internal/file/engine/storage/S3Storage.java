@@ -0,0 +1,394 @@
+/**
+ *
+ */
+package multicados.internal.file.engine.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+
+import javax.xml.XMLConstants;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import multicados.internal.file.domain.FileContent;
+
+/**
+ * {@link RemoteStorage} on an S3-compatible object store, addressed path-style
+ * ({endpoint}/{bucket}/{object key}) so that self-hosted stores work without
+ * DNS setup. Keys are mapped onto object keys by replacing the path separators
+ * with slashes.
+ *
+ * Contents larger than a part are sent as a multipart upload: parts are read
+ * sequentially and uploaded in parallel on the upload executor, at most
+ * {@code uploadConcurrency} parts are held in memory at once. A failed upload
+ * is aborted so that the store discards the parts already sent
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class S3Storage implements RemoteStorage {
+
+	private static final Logger logger = LoggerFactory.getLogger(S3Storage.class);
+
+	// below which stores reject every part but the last one
+	public static final int MINIMUM_PART_SIZE = 5 * 1024 * 1024;
+	public static final int DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+	public static final int DEFAULT_UPLOAD_CONCURRENCY = 4;
+	public static final String DEFAULT_REGION = "us-east-1";
+
+	private static final String DELIMITER = "/";
+	private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+	private static final int NOT_FOUND = 404;
+
+	private final HttpClient client;
+	private final URI endpoint;
+	private final String bucket;
+	private final S3RequestSigner signer;
+
+	private final int partSize;
+	private final int uploadConcurrency;
+	private final Executor uploadExecutor;
+
+	public S3Storage(String endpoint, String bucket, String region, String accessKey, String secretKey, int partSize,
+			int uploadConcurrency, Executor uploadExecutor) {
+		if (partSize < MINIMUM_PART_SIZE) {
+			throw new IllegalArgumentException(String.format("Part size must be at least %d", MINIMUM_PART_SIZE));
+		}
+
+		if (uploadConcurrency <= 0) {
+			throw new IllegalArgumentException("Upload concurrency must be positive");
+		}
+
+		this.endpoint = URI.create(endpoint.endsWith(DELIMITER) ? endpoint.substring(0, endpoint.length() - 1)
+				: endpoint);
+		this.bucket = bucket;
+		this.signer = new S3RequestSigner(region, accessKey, secretKey);
+		this.partSize = partSize;
+		this.uploadConcurrency = uploadConcurrency;
+		this.uploadExecutor = uploadExecutor;
+		// @formatter:off
+		client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.connectTimeout(CONNECT_TIMEOUT)
+				.build();
+		// @formatter:on
+		if (logger.isDebugEnabled()) {
+			logger.debug("Using bucket [{}] at [{}], part size {}, upload concurrency {}", bucket, this.endpoint,
+					partSize, uploadConcurrency);
+		}
+	}
+
+	@Override
+	public void write(String key, FileContent content) throws IOException {
+		final String objectKey = locateObject(key);
+		final long length = content.getLength();
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Uploading object [{}] with content length {}", objectKey, length);
+		}
+
+		if (length <= partSize) {
+			// @formatter:off
+			expectSuccess(send("PUT", objectKey, null, BodyPublishers.fromPublisher(
+					BodyPublishers.ofInputStream(() -> {
+						try {
+							return content.openStream();
+						} catch (IOException ioe) {
+							throw new UncheckedIOException(ioe);
+						}
+					}), length), BodyHandlers.ofString()));
+			// @formatter:on
+			return;
+		}
+
+		uploadMultipart(objectKey, content);
+	}
+
+	private void uploadMultipart(String objectKey, FileContent content) throws IOException {
+		final String uploadId = readElements(expectSuccess(send("POST", objectKey, "uploads",
+				BodyPublishers.noBody(), BodyHandlers.ofString())).body(), "UploadId").get(0);
+		final String uploadQuery = "uploadId=" + encode(uploadId);
+
+		try {
+			final Semaphore permits = new Semaphore(uploadConcurrency);
+			final List<CompletableFuture<String>> parts = new ArrayList<>();
+
+			try (InputStream stream = content.openStream()) {
+				for (int partNumber = 1;; partNumber++) {
+					// a permit is held for every part on the heap
+					acquire(permits);
+
+					if (parts.stream().anyMatch(CompletableFuture::isCompletedExceptionally)) {
+						permits.release();
+						break;
+					}
+
+					final byte[] part = stream.readNBytes(partSize);
+
+					if (part.length == 0 && partNumber > 1) {
+						permits.release();
+						break;
+					}
+
+					final String partQuery = String.format("partNumber=%d&%s", partNumber, uploadQuery);
+					final CompletableFuture<String> upload = CompletableFuture.supplyAsync(() -> {
+						try {
+							return expectSuccess(send("PUT", objectKey, partQuery, BodyPublishers.ofByteArray(part),
+									BodyHandlers.ofString())).headers().firstValue("ETag")
+									.orElseThrow(() -> new IOException("Missing part ETag"));
+						} catch (IOException ioe) {
+							throw new CompletionException(ioe);
+						}
+					}, uploadExecutor);
+
+					upload.whenComplete((etag, failure) -> permits.release());
+					parts.add(upload);
+
+					if (part.length < partSize) {
+						break;
+					}
+				}
+			}
+
+			final StringBuilder completion = new StringBuilder("<CompleteMultipartUpload>");
+
+			for (int i = 0; i < parts.size(); i++) {
+				completion.append(String.format("<Part><PartNumber>%d</PartNumber><ETag>%s</ETag></Part>", i + 1,
+						join(parts.get(i))));
+			}
+
+			completion.append("</CompleteMultipartUpload>");
+			// the store may report a failure after having answered 200
+			final String result = expectSuccess(send("POST", objectKey, uploadQuery,
+					BodyPublishers.ofString(completion.toString()), BodyHandlers.ofString())).body();
+
+			if (!readElements(result, "Code").isEmpty()) {
+				throw new IOException(String.format("Unable to complete upload of %s: %s", objectKey, result));
+			}
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Uploaded object [{}] in {} part(s)", objectKey, parts.size());
+			}
+		} catch (IOException | RuntimeException any) {
+			abort(objectKey, uploadQuery);
+			throw any;
+		}
+	}
+
+	private void acquire(Semaphore permits) throws IOException {
+		try {
+			permits.acquire();
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting for a part upload");
+		}
+	}
+
+	private String join(CompletableFuture<String> part) throws IOException {
+		try {
+			return part.join();
+		} catch (CompletionException ce) {
+			if (ce.getCause() instanceof IOException ioe) {
+				throw ioe;
+			}
+
+			throw ce;
+		}
+	}
+
+	private void abort(String objectKey, String uploadQuery) {
+		try {
+			send("DELETE", objectKey, uploadQuery, BodyPublishers.noBody(), BodyHandlers.discarding());
+		} catch (IOException any) {
+			logger.error(String.format("Unable to abort upload of %s", objectKey), any);
+		}
+	}
+
+	@Override
+	public boolean download(String key, Path target) throws IOException {
+		final HttpResponse<InputStream> response = send("GET", locateObject(key), null, BodyPublishers.noBody(),
+				BodyHandlers.ofInputStream());
+
+		try (InputStream body = response.body()) {
+			if (response.statusCode() == NOT_FOUND) {
+				return false;
+			}
+
+			if (!isSuccessful(response)) {
+				throw new IOException(String.format("Unable to download %s: status %d, %s", key,
+						response.statusCode(), new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+			}
+
+			Files.copy(body, target, StandardCopyOption.REPLACE_EXISTING);
+
+			return true;
+		}
+	}
+
+	@Override
+	public boolean exists(String key) throws IOException {
+		final HttpResponse<Void> response = send("HEAD", locateObject(key), null, BodyPublishers.noBody(),
+				BodyHandlers.discarding());
+
+		if (response.statusCode() == NOT_FOUND) {
+			return false;
+		}
+
+		expectSuccess(response);
+
+		return true;
+	}
+
+	@Override
+	public void delete(String key) throws IOException {
+		// deleting a missing object succeeds
+		expectSuccess(send("DELETE", locateObject(key), null, BodyPublishers.noBody(), BodyHandlers.ofString()));
+	}
+
+	@Override
+	public List<String> list(String directory) throws IOException {
+		final String directoryObjectKey = locateObject(directory);
+		final String prefix = directoryObjectKey.isEmpty() || directoryObjectKey.endsWith(DELIMITER)
+				? directoryObjectKey
+				: directoryObjectKey + DELIMITER;
+		final List<String> keys = new ArrayList<>();
+		String continuationToken = null;
+
+		do {
+			final String query = String.format("list-type=2&prefix=%s&delimiter=%s%s", encode(prefix),
+					encode(DELIMITER),
+					continuationToken == null ? "" : "&continuation-token=" + encode(continuationToken));
+			final String result = expectSuccess(
+					send("GET", null, query, BodyPublishers.noBody(), BodyHandlers.ofString())).body();
+			// common prefixes carry <Prefix> elements only
+			for (final String objectKey : readElements(result, "Key")) {
+				keys.add(Paths.get(directory, objectKey.substring(prefix.length())).toString());
+			}
+
+			final List<String> nextTokens = readElements(result, "NextContinuationToken");
+
+			continuationToken = nextTokens.isEmpty() ? null : nextTokens.get(0);
+		} while (continuationToken != null);
+
+		return keys;
+	}
+
+	private String locateObject(String key) {
+		final String objectKey = key.replace('\\', '/').replace(File.separatorChar, '/');
+
+		if (objectKey.startsWith("./")) {
+			return objectKey.substring(2);
+		}
+
+		return objectKey.startsWith(DELIMITER) ? objectKey.substring(1) : objectKey;
+	}
+
+	/**
+	 * @param objectKey null for requests on the bucket
+	 * @param query     encoded query
+	 */
+	private <T> HttpResponse<T> send(String method, String objectKey, String query, BodyPublisher body,
+			BodyHandler<T> bodyHandler) throws IOException {
+		// @formatter:off
+		final String path = objectKey == null ? "" : DELIMITER + Arrays.stream(objectKey.split(DELIMITER, -1))
+				.map(this::encode)
+				.collect(Collectors.joining(DELIMITER));
+		// @formatter:on
+		final URI uri = URI.create(String.format("%s/%s%s%s", endpoint, encode(bucket), path,
+				query == null ? "" : "?" + query));
+		final HttpRequest.Builder request = HttpRequest.newBuilder(uri).method(method, body);
+
+		try {
+			for (final Map.Entry<String, String> header : signer.sign(method, uri, Map.of(),
+					S3RequestSigner.UNSIGNED_PAYLOAD, ZonedDateTime.now(ZoneOffset.UTC)).entrySet()) {
+				request.header(header.getKey(), header.getValue());
+			}
+
+			return client.send(request.build(), bodyHandler);
+		} catch (GeneralSecurityException gse) {
+			throw new IOException(gse);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException(String.format("Interrupted while sending %s %s", method, uri));
+		}
+	}
+
+	private boolean isSuccessful(HttpResponse<?> response) {
+		return response.statusCode() / 100 == 2;
+	}
+
+	private <T> HttpResponse<T> expectSuccess(HttpResponse<T> response) throws IOException {
+		if (isSuccessful(response)) {
+			return response;
+		}
+
+		throw new IOException(String.format("%s %s failed with status %d: %s", response.request().method(),
+				response.request().uri(), response.statusCode(), response.body()));
+	}
+
+	/**
+	 * RFC 3986 encoding, as expected by the signature
+	 */
+	private String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8).replace("+", "%20").replace("*", "%2A")
+				.replace("%7E", "~");
+	}
+
+	private List<String> readElements(String xml, String elementName) throws IOException {
+		try {
+			final DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+
+			factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+			factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+
+			final Document document = factory.newDocumentBuilder()
+					.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+			final NodeList elements = document.getElementsByTagName(elementName);
+			final List<String> values = new ArrayList<>(elements.getLength());
+
+			for (int i = 0; i < elements.getLength(); i++) {
+				values.add(elements.item(i).getTextContent());
+			}
+
+			return values;
+		} catch (Exception any) {
+			throw new IOException(String.format("Unable to read %s from %s", elementName, xml), any);
+		}
+	}
+
+}
@@ -0,0 +1,44 @@
+/**
+ *
+ */
+package multicados.internal.file.engine.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.hibernate.service.Service;
+
+import multicados.internal.file.domain.FileContent;
+
+/**
+ * Where the files of the engine are kept. Files are addressed by keys, which
+ * are the paths resolved by the persisters, every backend maps them onto its
+ * own namespace. Writes are atomic: a reader sees either the former file or the
+ * whole new one
+ *
+ * @author Ngoc Huy
+ *
+ */
+public interface Storage extends Service {
+
+	void write(String key, byte[] content) throws IOException;
+
+	void write(String key, FileContent content) throws IOException;
+
+	/**
+	 * @return a readable local file holding the content of the key, or null if
+	 *         there is no such file
+	 */
+	Path locate(String key) throws IOException;
+
+	boolean exists(String key) throws IOException;
+
+	void delete(String key) throws IOException;
+
+	/**
+	 * @return keys of the files directly under the directory
+	 */
+	List<String> list(String directory) throws IOException;
+
+}
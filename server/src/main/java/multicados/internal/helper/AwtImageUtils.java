@@ -4,10 +4,12 @@
 package multicados.internal.helper;
 
 import java.awt.Graphics2D;
+import java.awt.RenderingHints;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.imageio.IIOImage;
 import javax.imageio.ImageIO;
@@ -16,10 +18,12 @@ import javax.imageio.ImageWriter;
 import javax.imageio.stream.ImageOutputStream;
 import javax.imageio.stream.MemoryCacheImageOutputStream;
 
-import multicados.internal.helper.Utils.HandledBiFunction;
-
 public class AwtImageUtils {
 
+	// writers are costly to look up and instantiate, each thread keeps one per
+	// format
+	private static final ThreadLocal<Map<String, ImageWriter>> WRITERS = ThreadLocal.withInitial(HashMap::new);
+
 	private AwtImageUtils() {
 		throw new UnsupportedOperationException();
 	}
@@ -33,53 +37,51 @@ public class AwtImageUtils {
 		return baos.toByteArray();
 	}
 
-	public static <T> T adjustResolution(
-	// @formatter:off
-			BufferedImage original,
-			String extension,
-			int nextWidth,
-			int nextHeight,
-			HandledBiFunction<BufferedImage, String, T, Exception> producer) throws Exception {
-		// @formatter:on
-		final BufferedImage resized = new BufferedImage(nextWidth, nextHeight, original.getType());
-		final Graphics2D graphics = resized.createGraphics();
+	/**
+	 * @param interpolation one of the {@link RenderingHints} interpolation values
+	 */
+	public static BufferedImage scale(BufferedImage original, int nextWidth, int nextHeight, Object interpolation) {
+		final int type = original.getType() != BufferedImage.TYPE_CUSTOM ? original.getType()
+				: original.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+		final BufferedImage scaled = new BufferedImage(nextWidth, nextHeight, type);
+		final Graphics2D graphics = scaled.createGraphics();
 
-		graphics.drawImage(original, 0, 0, nextWidth, nextHeight, null);
-		graphics.dispose();
+		try {
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+			graphics.drawImage(original, 0, 0, nextWidth, nextHeight, null);
+		} finally {
+			graphics.dispose();
+		}
 
-		return producer.apply(resized, extension);
+		return scaled;
 	}
 
-	public static <T> T downGradeQuality(BufferedImage toBeDownGraded, String extension, float factor,
-			HandledBiFunction<byte[], String, T, Exception> producer) throws Exception {
-		final ImageWriter writer = ImageWriter.class.cast(ImageIO.getImageWritersByFormatName(extension).next());
+	/**
+	 * Encode with the given compression quality using the writer of the current
+	 * thread
+	 */
+	public static byte[] encode(BufferedImage image, String extension, float quality) throws IOException {
+		final ImageWriter writer = WRITERS.get().computeIfAbsent(extension,
+				format -> ImageIO.getImageWritersByFormatName(format).next());
 		final ImageWriteParam param = writer.getDefaultWriteParam();
-		final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-		final ImageOutputStream ios = new MemoryCacheImageOutputStream(baos);
+		// compressed images are usually way smaller than the raster
+		final ByteArrayOutputStream baos = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
 
-		try {
+		try (final ImageOutputStream ios = new MemoryCacheImageOutputStream(baos)) {
 			writer.setOutput(ios);
-			param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
-			param.setCompressionQuality(factor); // Change the quality value you prefer
-			writer.write(null, new IIOImage(toBeDownGraded, null, null), param);
 
-			return producer.apply(baos.toByteArray(), extension);
+			if (param.canWriteCompressed()) {
+				param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+				param.setCompressionQuality(quality);
+			}
+
+			writer.write(null, new IIOImage(image, null, null), param);
 		} finally {
-			ios.close();
-			baos.close();
-			writer.dispose();
+			// keeps the writer reusable
+			writer.reset();
 		}
-	}
 
-	public static byte[] adjustAndDownGrade(byte[] originalBytes, String extension, int nextWidth, int nextHeight)
-			throws Exception {
-		// @formatter:off
-		return downGradeQuality(
-				adjustResolution(ImageIO.read(new ByteArrayInputStream(originalBytes)), extension, nextWidth, nextHeight, (image, any) -> image),
-				extension,
-				nextHeight,
-				(bytes, any) -> bytes);
-		// @formatter:on
+		return baos.toByteArray();
 	}
 
-}
\ No newline at end of file
+}
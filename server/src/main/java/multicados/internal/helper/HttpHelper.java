@@ -5,6 +5,12 @@ package multicados.internal.helper;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -15,12 +21,22 @@ import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import multicados.internal.helper.Utils.HandledConsumer;
 import multicados.internal.helper.Utils.HandledSupplier;
 
 /**
@@ -29,6 +45,17 @@ import multicados.internal.helper.Utils.HandledSupplier;
  */
 public interface HttpHelper {
 
+	public static final String NEXT_CURSOR = "X-Next-Cursor";
+
+	public static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+	public static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+	public static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+	public static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+	// smaller files are cheaper to copy than to hand over, same as Tomcat's
+	// DefaultServlet
+	public static final long SENDFILE_THRESHOLD = 48 * 1024;
+	public static final String BYTES_RANGE_UNIT = "bytes";
+
 	public static boolean tryJson(HttpServletRequest request, HttpServletResponse response, ObjectMapper mapper,
 			Object body, boolean doCloseWriter) throws IOException {
 		// @formatter:off
@@ -42,6 +69,21 @@ public interface HttpHelper {
 		// @formatter:on
 	}
 
+	/**
+	 * Write every produced element into a JSON array directly on the response
+	 * output stream, nothing is buffered beyond the generator
+	 */
+	public static <T> void streamJson(HttpServletResponse response, ObjectMapper mapper,
+			HandledConsumer<HandledConsumer<T, Exception>, Exception> producer) throws Exception {
+		json(response);
+
+		try (final JsonGenerator generator = mapper.getFactory().createGenerator(response.getOutputStream())) {
+			generator.writeStartArray();
+			producer.accept(generator::writeObject);
+			generator.writeEndArray();
+		}
+	}
+
 	public static boolean tryText(HttpServletRequest request, HttpServletResponse response, String body,
 			boolean doCloseWriter) throws IOException {
 		// @formatter:off
@@ -168,4 +210,131 @@ public interface HttpHelper {
 		return cookie;
 	}
 
+	/**
+	 * Serve a file with Content-Length, ETag and Last-Modified, answering
+	 * conditional requests with 304 and Range requests with 206. The content is
+	 * never loaded onto the heap: when the container supports sendfile the file
+	 * is handed over to the kernel, otherwise the message converters stream it
+	 * (or its regions) through a fixed buffer
+	 *
+	 * @return the response or null if it has been completed, ie. not modified
+	 */
+	public static ResponseEntity<Resource> sendFile(Path path, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+		final long length = attributes.size();
+		final long lastModified = attributes.lastModifiedTime().toMillis();
+		// also sets both headers on the response
+		if (new ServletWebRequest(request, response).checkNotModified(createETag(length, lastModified),
+				lastModified)) {
+			return null;
+		}
+
+		final Resource resource = new FileSystemResource(path);
+		final MediaType mediaType = MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM);
+
+		if (length < SENDFILE_THRESHOLD || !Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+			// Range requests are resolved into resource regions by the converters
+			return ResponseEntity.ok().contentType(mediaType).body(resource);
+		}
+
+		final String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+
+		if (rangeHeader == null) {
+			return sendFile(path, request, HttpStatus.OK, mediaType, 0, length - 1, length);
+		}
+
+		final List<HttpRange> ranges;
+
+		try {
+			ranges = HttpRange.parseRanges(rangeHeader);
+		} catch (IllegalArgumentException iae) {
+			return sendUnsatisfiableRange(length);
+		}
+
+		if (ranges.size() != 1) {
+			// multipart/byteranges are left to the converters
+			return ResponseEntity.ok().contentType(mediaType).body(resource);
+		}
+
+		final long start;
+		final long end;
+
+		try {
+			start = ranges.get(0).getRangeStart(length);
+			end = ranges.get(0).getRangeEnd(length);
+		} catch (IllegalArgumentException iae) {
+			return sendUnsatisfiableRange(length);
+		}
+
+		if (start >= length || start > end) {
+			return sendUnsatisfiableRange(length);
+		}
+
+		return sendFile(path, request, HttpStatus.PARTIAL_CONTENT, mediaType, start, end, length);
+	}
+
+	/**
+	 * Write an in-memory content with Content-Length, ETag and Last-Modified,
+	 * answering conditional requests with 304. Range requests are not supported,
+	 * callers are expected to use {@link #sendFile} for those
+	 */
+	public static void sendContent(ByteBuffer content, long lastModified, String filename,
+			HttpServletRequest request, HttpServletResponse response) throws IOException {
+		final long length = content.remaining();
+
+		if (new ServletWebRequest(request, response).checkNotModified(createETag(length, lastModified),
+				lastModified)) {
+			return;
+		}
+
+		response.setContentType(
+				MediaTypeFactory.getMediaType(filename).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+		response.setContentLengthLong(length);
+
+		if (HttpMethod.HEAD.matches(request.getMethod())) {
+			return;
+		}
+
+		final WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+
+		while (content.hasRemaining()) {
+			channel.write(content);
+		}
+	}
+
+	private static ResponseEntity<Resource> sendFile(Path path, HttpServletRequest request, HttpStatus status,
+			MediaType mediaType, long start, long end, long length) throws IOException {
+		if (!HttpMethod.HEAD.matches(request.getMethod())) {
+			// the container writes the file once the headers are committed
+			request.setAttribute(SENDFILE_FILENAME, path.toFile().getCanonicalPath());
+			request.setAttribute(SENDFILE_START, start);
+			request.setAttribute(SENDFILE_END, end + 1);
+		}
+		// @formatter:off
+		final ResponseEntity.BodyBuilder builder = ResponseEntity.status(status)
+				.header(HttpHeaders.ACCEPT_RANGES, BYTES_RANGE_UNIT)
+				.contentType(mediaType)
+				.contentLength(end - start + 1);
+		// @formatter:on
+		if (status == HttpStatus.PARTIAL_CONTENT) {
+			builder.header(HttpHeaders.CONTENT_RANGE, String.format("%s %d-%d/%d", BYTES_RANGE_UNIT, start, end, length));
+		}
+
+		return builder.build();
+	}
+
+	private static ResponseEntity<Resource> sendUnsatisfiableRange(long length) {
+		return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+				.header(HttpHeaders.CONTENT_RANGE, String.format("%s */%d", BYTES_RANGE_UNIT, length)).build();
+	}
+
+	/**
+	 * A weak validator derived from the file size and modification time, the
+	 * content is never hashed
+	 */
+	public static String createETag(long length, long lastModified) {
+		return String.format("W/\"%x-%x\"", length, lastModified);
+	}
+
 }
@@ -0,0 +1,72 @@
+/**
+ *
+ */
+package multicados.internal.helper;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import multicados.internal.helper.Utils.HandledSupplier;
+
+/**
+ * Coalesces concurrent loads of the same key, the first caller executes the
+ * load while the others wait for and share its outcome, exceptions included.
+ * Nothing is retained once the load completes
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class SingleFlight<K, V> {
+
+	private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+
+	public V execute(K key, HandledSupplier<V, ? extends Exception> loader) throws Exception {
+		final CompletableFuture<V> flight = new CompletableFuture<>();
+		final CompletableFuture<V> ongoingFlight = flights.putIfAbsent(key, flight);
+
+		if (ongoingFlight != null) {
+			return await(ongoingFlight);
+		}
+
+		try {
+			final V value = loader.get();
+
+			flight.complete(value);
+
+			return value;
+		} catch (Exception | Error any) {
+			flight.completeExceptionally(any);
+			throw any;
+		} finally {
+			flights.remove(key, flight);
+		}
+	}
+
+	private V await(CompletableFuture<V> flight) throws Exception {
+		try {
+			return flight.join();
+		} catch (CompletionException any) {
+			final Throwable cause = any.getCause();
+
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+
+			throw any;
+		}
+	}
+
+	/**
+	 * @return the amount of loads in progress
+	 */
+	public int size() {
+		return flights.size();
+	}
+
+}
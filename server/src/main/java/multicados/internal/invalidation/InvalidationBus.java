@@ -0,0 +1,24 @@
+/**
+ *
+ */
+package multicados.internal.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts invalidations of cached entries to every node of the cluster. An
+ * invalidation is identified by its region (the cache) and the key of the
+ * stale entry, subscribers of the region receive the key on every node,
+ * including the publishing one. Invalidations published within a transaction
+ * are only delivered once it commits
+ *
+ * @author Ngoc Huy
+ *
+ */
+public interface InvalidationBus {
+
+	void publish(String region, String key);
+
+	void subscribe(String region, Consumer<String> listener);
+
+}
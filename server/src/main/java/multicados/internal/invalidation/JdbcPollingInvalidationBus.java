@@ -0,0 +1,180 @@
+/**
+ *
+ */
+package multicados.internal.invalidation;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link InvalidationBus} backed by an outbox table shared by every node.
+ * Publishing inserts a row once the ongoing transaction, if any, commits so that
+ * no node evicts before the change it describes is visible. The row is inserted
+ * by the poller thread, outside of the committed transaction whose connection
+ * may still be bound to the publishing thread. Each node polls the rows written
+ * by the others.
+ * <p>
+ * Auto-increment identifiers may be committed out of order, therefore every
+ * poll re-reads the rows created within the look-back window instead of
+ * seeking past the last seen identifier, rows already dispatched are skipped.
+ * Invalidations are idempotent so a row dispatched twice is harmless
+ * </p>
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class JdbcPollingInvalidationBus extends LocalInvalidationBus implements AutoCloseable {
+
+	private static final Logger logger = LoggerFactory.getLogger(JdbcPollingInvalidationBus.class);
+
+	public static final String TABLE_NAME = "invalidation_events";
+
+	public static final Duration DEFAULT_POLL_INTERVAL = Duration.ofSeconds(1);
+	public static final Duration DEFAULT_RETENTION = Duration.ofHours(1);
+	// how many polls between two clean-ups of the expired rows
+	private static final int CLEAN_UP_PERIOD = 60;
+	// @formatter:off
+	private static final String CREATE_TABLE = String.format(
+			"CREATE TABLE IF NOT EXISTS %s ("
+				+ "id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, "
+				+ "origin VARCHAR(36) NOT NULL, "
+				+ "region VARCHAR(64) NOT NULL, "
+				+ "entry_key VARCHAR(255) NOT NULL, "
+				+ "created_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), "
+				+ "INDEX idx_%s_created_at (created_at))", TABLE_NAME, TABLE_NAME);
+	private static final String INSERT = String.format(
+			"INSERT INTO %s (origin, region, entry_key) VALUES (?, ?, ?)", TABLE_NAME);
+	private static final String SELECT_RECENT = String.format(
+			"SELECT id, origin, region, entry_key FROM %s "
+				+ "WHERE created_at >= DATE_SUB(CURRENT_TIMESTAMP(3), INTERVAL ? MICROSECOND) "
+				+ "ORDER BY id", TABLE_NAME);
+	private static final String DELETE_EXPIRED = String.format(
+			"DELETE FROM %s WHERE created_at < DATE_SUB(CURRENT_TIMESTAMP(3), INTERVAL ? MICROSECOND)", TABLE_NAME);
+	// @formatter:on
+	private final JdbcTemplate jdbcTemplate;
+	private final String origin = UUID.randomUUID().toString();
+	private final long lookBackMicros;
+	private final long retentionMicros;
+	private final ScheduledExecutorService poller;
+
+	// only touched by the poller thread
+	private Set<Long> dispatchedIds = new HashSet<>();
+	private long pollCount = 0;
+
+	public JdbcPollingInvalidationBus(DataSource dataSource, Duration pollInterval, Duration retention) {
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		// a row committed late is still caught as long as its transaction lasted
+		// less than the window
+		lookBackMicros = TimeUnit.MILLISECONDS.toMicros(pollInterval.toMillis() * 10);
+		retentionMicros = TimeUnit.MILLISECONDS.toMicros(Math.max(retention.toMillis(), pollInterval.toMillis() * 10));
+
+		jdbcTemplate.execute(CREATE_TABLE);
+
+		poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			final Thread thread = new Thread(runnable, JdbcPollingInvalidationBus.class.getSimpleName());
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+		poller.scheduleWithFixedDelay(this::poll, pollInterval.toMillis(), pollInterval.toMillis(),
+				TimeUnit.MILLISECONDS);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Polling table [{}] every {} as node [{}]", TABLE_NAME, pollInterval, origin);
+		}
+	}
+
+	@Override
+	public void publish(String region, String key) {
+		afterCommit(() -> {
+			poller.execute(() -> insert(region, key));
+			dispatch(region, key);
+		});
+	}
+
+	private void insert(String region, String key) {
+		try {
+			jdbcTemplate.update(INSERT, origin, region, key);
+		} catch (RuntimeException any) {
+			// the other nodes keep the entry until it expires
+			if (logger.isErrorEnabled()) {
+				logger.error("Error while publishing invalidation of [{}] in region [{}]: {}", key, region,
+						any.getMessage());
+			}
+		}
+	}
+
+	private void poll() {
+		try {
+			final Set<Long> recentIds = new HashSet<>(dispatchedIds.size());
+			final List<Event> events = jdbcTemplate.query(SELECT_RECENT,
+					(resultSet, index) -> new Event(resultSet.getLong(1), resultSet.getString(2),
+							resultSet.getString(3), resultSet.getString(4)),
+					lookBackMicros);
+
+			for (final Event event : events) {
+				recentIds.add(event.id);
+
+				if (dispatchedIds.contains(event.id) || origin.equals(event.origin)) {
+					continue;
+				}
+
+				dispatch(event.region, event.key);
+			}
+			// ids which fell out of the window will never be read again
+			dispatchedIds = recentIds;
+
+			if (++pollCount % CLEAN_UP_PERIOD == 0) {
+				cleanUp();
+			}
+		} catch (RuntimeException any) {
+			// keep polling, the rows stay in the window for the next attempts
+			if (logger.isErrorEnabled()) {
+				logger.error("Error while polling invalidations: {}", any.getMessage());
+			}
+		}
+	}
+
+	private void cleanUp() {
+		final int rowMod = jdbcTemplate.update(DELETE_EXPIRED, retentionMicros);
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Deleted {} expired invalidation(s)", rowMod);
+		}
+	}
+
+	@Override
+	public void close() {
+		poller.shutdownNow();
+	}
+
+	private static class Event {
+
+		final long id;
+		final String origin;
+		final String region;
+		final String key;
+
+		public Event(long id, String origin, String region, String key) {
+			this.id = id;
+			this.origin = origin;
+			this.region = region;
+			this.key = key;
+		}
+
+	}
+
+}
@@ -0,0 +1,86 @@
+/**
+ *
+ */
+package multicados.internal.invalidation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * In-JVM {@link InvalidationBus}, invalidations are dispatched synchronously to
+ * the subscribers of this node only. An invalidation published within a
+ * transaction is dispatched once the transaction commits, otherwise a
+ * concurrent reader could re-cache the uncommitted state before it becomes
+ * visible. Invalidations of a rolled back transaction are dropped
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class LocalInvalidationBus implements InvalidationBus {
+
+	private static final Logger logger = LoggerFactory.getLogger(LocalInvalidationBus.class);
+
+	private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+	@Override
+	public void publish(String region, String key) {
+		afterCommit(() -> dispatch(region, key));
+	}
+
+	/**
+	 * Runs the action once the ongoing transaction commits, right away if there is
+	 * none
+	 */
+	protected void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+
+		});
+	}
+
+	@Override
+	public void subscribe(String region, Consumer<String> listener) {
+		listeners.computeIfAbsent(region, any -> new CopyOnWriteArrayList<>()).add(listener);
+	}
+
+	protected void dispatch(String region, String key) {
+		final List<Consumer<String>> regionListeners = listeners.get(region);
+
+		if (regionListeners == null) {
+			return;
+		}
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Invalidating [{}] in region [{}]", key, region);
+		}
+
+		for (final Consumer<String> listener : regionListeners) {
+			try {
+				listener.accept(key);
+			} catch (RuntimeException any) {
+				// one failing listener must not keep the others stale
+				if (logger.isErrorEnabled()) {
+					logger.error("Error while invalidating [{}] in region [{}]: {}", key, region, any.getMessage());
+				}
+			}
+		}
+	}
+
+}
@@ -35,9 +35,11 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import multicados.internal.config.Settings;
 import multicados.internal.helper.DNSUtils;
+import multicados.internal.helper.HttpHelper;
 import multicados.internal.helper.SpringHelper;
 import multicados.internal.helper.StringHelper;
 import multicados.internal.helper.Utils.HandledFunction;
+import multicados.internal.invalidation.InvalidationBus;
 import multicados.internal.locale.ZoneContext;
 import multicados.internal.security.jwt.HeaderBasedJwtAdvisor;
 import multicados.internal.security.jwt.JwtAdvisor;
@@ -72,11 +74,15 @@ public class InternalSecurityConfiguration {
 	private final JwtRequestFilter jwtRequestFilter;
 
 	public InternalSecurityConfiguration(Environment env, ZoneContext zoneContext, ObjectMapper objectMapper,
-			UserDetailsService userDetailsService) throws Exception {
+			UserDetailsService userDetailsService, InvalidationBus invalidationBus) throws Exception {
 		this.env = env;
 		this.objectMapper = objectMapper;
-		onMemoryUserDetailsContext = new OnMemoryUserDetailsContextImpl();
 		jwtSecurityContext = new JwtSecurityContextImpl(env, zoneContext);
+		// cached details are refreshed at least once per token lifetime
+		onMemoryUserDetailsContext = new OnMemoryUserDetailsContextImpl(
+				SpringHelper.getOrDefault(env, Settings.SECURITY_USER_DETAILS_CACHE_SIZE, Integer::valueOf,
+						OnMemoryUserDetailsContextImpl.DEFAULT_MAX_SIZE),
+				jwtSecurityContext.getExpirationDuration(), invalidationBus);
 		authenticationFailureHandler = new AuthenticationFailureHandlerImpl(objectMapper);
 		this.userDetailsService = userDetailsService;
 
@@ -266,6 +272,8 @@ public class InternalSecurityConfiguration {
 						HttpHeaders.AUTHORIZATION, HttpHeaders.CONTENT_TYPE,
 						HttpHeaders.ACCESS_CONTROL_ALLOW_CREDENTIALS))
 				.consume(configuration::setAllowedHeaders);
+			declare(Arrays.asList(HttpHelper.NEXT_CURSOR))
+				.consume(configuration::setExposedHeaders);
 			// @formatter:on
 			UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
 
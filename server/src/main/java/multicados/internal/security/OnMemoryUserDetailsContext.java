@@ -18,5 +18,61 @@ public interface OnMemoryUserDetailsContext {
 	UserDetails get(String username);
 
 	void remove(String username);
-	
+
+	Statistics getStatistics();
+
+	/**
+	 * A snapshot of the context metrics
+	 */
+	public static class Statistics {
+
+		private final long size;
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+		private final long expirationCount;
+
+		public Statistics(long size, long hitCount, long missCount, long evictionCount, long expirationCount) {
+			this.size = size;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+			this.expirationCount = expirationCount;
+		}
+
+		public long getSize() {
+			return size;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		public long getExpirationCount() {
+			return expirationCount;
+		}
+
+		public double getHitRatio() {
+			final long requestCount = hitCount + missCount;
+
+			return requestCount == 0 ? 1d : (double) hitCount / requestCount;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s(size=%d, hit=%d, miss=%d, hit-ratio=%.3f, eviction=%d, expiration=%d)",
+					Statistics.class.getSimpleName(), size, hitCount, missCount, getHitRatio(), evictionCount,
+					expirationCount);
+		}
+
+	}
+
 }
@@ -3,13 +3,32 @@
  */
 package multicados.internal.security;
 
+import java.time.Duration;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.core.userdetails.UserDetails;
 
+import multicados.internal.invalidation.InvalidationBus;
+
 /**
+ * Lock-striped cache of {@link UserDetails}. Usernames are spread over
+ * segments by their hashes, each segment is an access-ordered
+ * {@link LinkedHashMap} guarded by its own lock which evicts its least recently
+ * used entry once full. Entries expire after the configured time-to-live, which
+ * is expected to be the JWT expiration. Removals are broadcast through the
+ * {@link InvalidationBus} so that every node drops the entry.
+ * <p>
+ * User details are read without locking, a request which read the user before
+ * an invalidation committed may put the stale details after the eviction. Puts
+ * of a username are therefore refused for a short grace period following its
+ * eviction
+ * </p>
+ *
  * @author Ngoc Huy
  *
  */
@@ -17,81 +36,201 @@ public class OnMemoryUserDetailsContextImpl implements OnMemoryUserDetailsContex
 
 	private static final Logger logger = LoggerFactory.getLogger(OnMemoryUserDetailsContextImpl.class);
 
-	private final MutexMap mutecies = new MutexMap();
+	public static final int DEFAULT_MAX_SIZE = 1000;
+	public static final String INVALIDATION_REGION = "user-details";
+	// longer than a request takes from loading the user to putting it
+	public static final Duration INVALIDATION_GRACE = Duration.ofSeconds(1);
+	private static final int SEGMENTS_AMOUNT = 16;
+
+	private final Segment[] segments;
+	private final long timeToLiveNanos;
+	private final InvalidationBus invalidationBus;
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+	private final LongAdder expirationCount = new LongAdder();
+
+	public OnMemoryUserDetailsContextImpl(int maxSize, Duration timeToLive, InvalidationBus invalidationBus) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Max size must be positive");
+		}
+
+		final int segmentsAmount = Math.min(SEGMENTS_AMOUNT, maxSize);
+		final int segmentCapacity = (maxSize + segmentsAmount - 1) / segmentsAmount;
+
+		segments = new Segment[segmentsAmount];
+
+		for (int i = 0; i < segmentsAmount; i++) {
+			segments[i] = new Segment(segmentCapacity);
+		}
+
+		timeToLiveNanos = timeToLive.toNanos();
+		this.invalidationBus = invalidationBus;
+		invalidationBus.subscribe(INVALIDATION_REGION, this::evict);
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Using {} segment(s) of {} entries, time-to-live {}", segmentsAmount, segmentCapacity,
+					timeToLive);
+		}
+	}
+
+	private Segment locateSegment(String username) {
+		final int hash = username.hashCode();
+		// spread the higher bits since the amount of segments is small
+		return segments[Math.floorMod(hash ^ (hash >>> 16), segments.length)];
+	}
 
 	@Override
 	public boolean contains(String username) {
-		return mutecies.containsKey(username);
+		return locateSegment(username).get(username, System.nanoTime()) != null;
 	}
 
 	@Override
 	public void put(UserDetails userDetails) {
-		String username = userDetails.getUsername();
+		final String username = userDetails.getUsername();
 
-		if (mutecies.containsKey(username)) {
+		if (!locateSegment(username).putIfAbsent(username, userDetails, System.nanoTime() + timeToLiveNanos)) {
 			return;
 		}
 
-		Object lock = new Object();
-
-		synchronized (lock) {
-			mutecies.put(username, new Mutex(userDetails, lock));
-
-			if (logger.isDebugEnabled()) {
-				logger.debug("Entry: {}", username);
-			}
+		if (logger.isDebugEnabled()) {
+			logger.debug("Entry: {}", username);
 		}
 	}
 
 	@Override
 	public UserDetails get(String username) {
-		if (!mutecies.containsKey(username)) {
+		final UserDetails userDetails = locateSegment(username).get(username, System.nanoTime());
+
+		if (userDetails == null) {
+			missCount.increment();
 			return null;
 		}
 
-		return mutecies.get(username).userDetails;
+		hitCount.increment();
+		return userDetails;
 	}
 
 	@Override
 	public void remove(String username) {
-		if (!mutecies.containsKey(username)) {
+		// the local entry is evicted by our own subscription
+		invalidationBus.publish(INVALIDATION_REGION, username);
+	}
+
+	private void evict(String username) {
+		final UserDetails userDetails = locateSegment(username).remove(username,
+				System.nanoTime() + INVALIDATION_GRACE.toNanos());
+
+		if (userDetails == null) {
 			return;
 		}
 
-		synchronized (mutecies.get(username).lock) {
-			final Mutex mutex = mutecies.remove(username);
+		if (logger.isDebugEnabled()) {
+			logger.debug("Exit: {}", userDetails.getUsername());
+		}
+	}
 
-			if (logger.isDebugEnabled()) {
-				logger.debug("Exit: {}", mutex.userDetails.getUsername());
-			}
+	@Override
+	public Statistics getStatistics() {
+		long size = 0;
+
+		for (final Segment segment : segments) {
+			size += segment.size();
 		}
+
+		return new Statistics(size, hitCount.sum(), missCount.sum(), evictionCount.sum(), expirationCount.sum());
 	}
 
-	private class MutexMap extends LinkedHashMap<String, Mutex> {
+	private class Segment {
+
+		private final Map<String, Entry> entries;
+		// usernames whose puts are refused until the given time
+		private final Map<String, Long> invalidations = new HashMap<>();
+
+		public Segment(int capacity) {
+			entries = new LinkedHashMap<>(capacity, .75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+					if (size() <= capacity) {
+						return false;
+					}
+
+					evictionCount.increment();
+					return true;
+				}
+
+			};
+		}
+
+		public synchronized UserDetails get(String username, long now) {
+			final Entry entry = entries.get(username);
+
+			if (entry == null) {
+				return null;
+			}
+
+			if (entry.expiration - now <= 0) {
+				entries.remove(username);
+				expirationCount.increment();
+				return null;
+			}
+
+			return entry.userDetails;
+		}
+
+		/**
+		 * @return whether the entry was put, an expired entry is considered absent
+		 */
+		public synchronized boolean putIfAbsent(String username, UserDetails userDetails, long expiration) {
+			final Long invalidation = invalidations.get(username);
+
+			if (invalidation != null) {
+				if (invalidation - System.nanoTime() > 0) {
+					return false;
+				}
+
+				invalidations.remove(username);
+			}
+
+			final Entry entry = entries.get(username);
+
+			if (entry != null && entry.expiration - System.nanoTime() > 0) {
+				return false;
+			}
+
+			entries.put(username, new Entry(userDetails, expiration));
+			return true;
+		}
 
-		private static final long serialVersionUID = 1L;
+		public synchronized UserDetails remove(String username, long graceEnd) {
+			final long now = System.nanoTime();
+			// usernames which were not put again since their grace ended
+			invalidations.values().removeIf(end -> end - now <= 0);
+			invalidations.put(username, graceEnd);
 
-		private static final int MAX_SIZE = 1000;
+			final Entry entry = entries.remove(username);
 
-		public MutexMap() {
-			super(MAX_SIZE, 1.5f);
+			return entry == null ? null : entry.userDetails;
 		}
 
-		@Override
-		protected synchronized boolean removeEldestEntry(java.util.Map.Entry<String, Mutex> eldest) {
-			return size() == MAX_SIZE;
+		public synchronized int size() {
+			return entries.size();
 		}
 
 	}
 
-	private class Mutex {
+	private static class Entry {
 
 		final UserDetails userDetails;
-		final Object lock;
+		final long expiration;
 
-		public Mutex(UserDetails userDetails, Object lock) {
+		public Entry(UserDetails userDetails, long expiration) {
 			this.userDetails = userDetails;
-			this.lock = lock;
+			this.expiration = expiration;
 		}
 
 	}
@@ -31,14 +31,16 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.jsonwebtoken.Claims;
+import multicados.internal.config.Settings;
 import multicados.internal.helper.Common;
 import multicados.internal.helper.HttpHelper;
+import multicados.internal.helper.SpringHelper;
 import multicados.internal.helper.StringHelper;
-import multicados.internal.helper.Utils.HandledFunction;
 import multicados.internal.helper.Utils.TriDeclaration;
 import multicados.internal.security.DomainUserDetails;
 import multicados.internal.security.OnMemoryUserDetailsContext;
 import multicados.internal.security.jwt.JwtAdvisor.JwtAdvice;
+import multicados.internal.security.jwt.VerifiedTokenCache.VerifiedToken;
 
 /**
  * @author Ngoc Huy
@@ -55,6 +57,8 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 	private final OnMemoryUserDetailsContext onMemoryUserDetailsContext;
 	private final JwtSecurityContext jwtSecurityContext;
 	private final JwtStrategy jwtStrategy;
+	// null when disabled
+	private final VerifiedTokenCache verifiedTokenCache;
 
 	private final JwtAdvisor jwtAdvisor;
 	private final ObjectMapper objectMapper;
@@ -74,6 +78,15 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 		jwtStrategy = jwtSecurityContext.getStrategy();
 		this.jwtAdvisor = jwtAdvisor;
 		this.objectMapper = objectMapper;
+
+		final int verifiedTokenCacheSize = SpringHelper.getOrDefault(env,
+				Settings.SECURITY_JWT_VERIFICATION_CACHE_SIZE, Integer::valueOf, VerifiedTokenCache.DEFAULT_MAX_SIZE);
+
+		verifiedTokenCache = verifiedTokenCacheSize > 0 ? new VerifiedTokenCache(verifiedTokenCacheSize) : null;
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Verified token cache size {}", verifiedTokenCacheSize);
+		}
 	}
 
 	@Override
@@ -218,59 +231,76 @@ public class JwtRequestFilter extends OncePerRequestFilter {
 		return;
 	}
 
-	private class Candidate {
+	/**
+	 * Verify the token signature and parse its claims, unless the same token was
+	 * verified before and has not expired
+	 */
+	private VerifiedToken verify(String token) {
+		if (verifiedTokenCache == null) {
+			return doVerify(token);
+		}
 
-		private final Claims claims;
-		private final LocalDateTime version;
-		private final LocalDateTime expiration;
+		final String digest = verifiedTokenCache.digest(token);
+		final VerifiedToken cachedToken = verifiedTokenCache.get(digest, System.currentTimeMillis());
 
-		private final HttpServletRequest request;
-		private final HttpServletResponse response;
+		if (cachedToken != null) {
+			if (logger.isTraceEnabled()) {
+				logger.trace("Found verified token of {}", cachedToken.getSubject());
+			}
 
-		public Candidate(Cookie cookie, HttpServletRequest request, HttpServletResponse response) {
-			claims = jwtStrategy.extractAllClaims(cookie.getValue());
-			version = locateVersion(claims);
-			expiration = locateExpiration(claims);
-			this.request = request;
-			this.response = response;
+			return cachedToken;
 		}
 
-		private <T> T locateClaim(Claims claims, String claimKey, HandledFunction<String, T, Exception> claimProducer)
-				throws Exception {
-			String claimString = Optional.ofNullable(claims.get(claimKey)).map(Object::toString)
-					.orElse(StringHelper.EMPTY_STRING);
+		final VerifiedToken verifiedToken = doVerify(token);
 
-			return claimProducer.apply(claimString);
-		}
+		verifiedTokenCache.put(digest, verifiedToken);
 
-		private LocalDateTime locateVersion(Claims claims) {
-			try {
-				return locateClaim(claims, jwtSecurityContext.getVersionKey(),
-						(versionString) -> jwtStrategy.parseTimestamp(versionString));
-			} catch (Exception any) {
-				return null;
-			}
+		return verifiedToken;
+	}
+
+	private VerifiedToken doVerify(String token) {
+		final Claims claims = jwtStrategy.extractAllClaims(token);
+		// @formatter:off
+		return new VerifiedToken(
+				claims.getSubject(),
+				locateTimestamp(claims, jwtSecurityContext.getVersionKey()),
+				locateTimestamp(claims, jwtSecurityContext.getExpirationKey()),
+				claims.getExpiration() == null ? Long.MAX_VALUE : claims.getExpiration().getTime());
+		// @formatter:on
+	}
+
+	private LocalDateTime locateTimestamp(Claims claims, String claimKey) {
+		try {
+			return jwtStrategy.parseTimestamp(Optional.ofNullable(claims.get(claimKey)).map(Object::toString)
+					.orElse(StringHelper.EMPTY_STRING));
+		} catch (Exception any) {
+			return null;
 		}
+	}
 
-		private LocalDateTime locateExpiration(Claims claims) {
-			try {
-				return locateClaim(claims, jwtSecurityContext.getExpirationKey(),
-						(expirationString) -> jwtStrategy.parseTimestamp(expirationString));
-			} catch (Exception any) {
-				return null;
-			}
+	private class Candidate {
+
+		private final VerifiedToken token;
+
+		private final HttpServletRequest request;
+		private final HttpServletResponse response;
+
+		public Candidate(Cookie cookie, HttpServletRequest request, HttpServletResponse response) {
+			token = verify(cookie.getValue());
+			this.request = request;
+			this.response = response;
 		}
 
 		public String getUsername() {
-			return claims.getSubject();
+			return token.getSubject();
 		}
 
 		public LocalDateTime getExpiration() {
-			return expiration;
+			return token.getExpiration();
 		}
 
 		public LocalDateTime getVersion() {
-			return version;
+			return token.getVersion();
 		}
 
 		public HttpServletRequest getRequest() {
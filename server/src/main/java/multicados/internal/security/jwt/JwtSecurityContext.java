@@ -3,6 +3,8 @@
  */
 package multicados.internal.security.jwt;
 
+import java.time.Duration;
+
 /**
  * @author Ngoc Huy
  *
@@ -31,4 +33,6 @@ public interface JwtSecurityContext {
 
 	boolean isCookieSecured();
 
+	Duration getExpirationDuration();
+
 }
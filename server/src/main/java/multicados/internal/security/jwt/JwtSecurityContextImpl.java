@@ -91,6 +91,11 @@ public class JwtSecurityContextImpl implements JwtSecurityContext {
 		return strategy;
 	}
 
+	@Override
+	public Duration getExpirationDuration() {
+		return strategy.getExpirationDuration();
+	}
+
 	@Override
 	public String getCookieName() {
 		return cookieName;
@@ -0,0 +1,137 @@
+/**
+ *
+ */
+package multicados.internal.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of tokens whose signatures were verified, keyed by the SHA-256
+ * digest of the token so that no bearer token is retained. A cached entry
+ * holds the parsed subject, version and expiration and is dropped once the
+ * token's exp claim passes, from then on the token goes through the full
+ * verification again, which rejects it as before
+ *
+ * @author Ngoc Huy
+ *
+ */
+class VerifiedTokenCache {
+
+	public static final int DEFAULT_MAX_SIZE = 10000;
+	private static final int SEGMENTS_AMOUNT = 16;
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	private static final Base64.Encoder ENCODER = Base64.getEncoder().withoutPadding();
+	private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(() -> {
+		try {
+			return MessageDigest.getInstance(DIGEST_ALGORITHM);
+		} catch (NoSuchAlgorithmException nsae) {
+			throw new IllegalStateException(nsae);
+		}
+	});
+
+	private final Map<String, VerifiedToken>[] segments;
+
+	@SuppressWarnings("unchecked")
+	VerifiedTokenCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Max size must be positive");
+		}
+
+		final int segmentsAmount = Math.min(SEGMENTS_AMOUNT, maxSize);
+		final int segmentCapacity = (maxSize + segmentsAmount - 1) / segmentsAmount;
+
+		segments = new Map[segmentsAmount];
+
+		for (int i = 0; i < segmentsAmount; i++) {
+			segments[i] = new LinkedHashMap<>(segmentCapacity, .75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, VerifiedToken> eldest) {
+					return size() > segmentCapacity;
+				}
+
+			};
+		}
+	}
+
+	String digest(String token) {
+		return ENCODER.encodeToString(DIGESTS.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	private Map<String, VerifiedToken> locateSegment(String digest) {
+		return segments[Math.floorMod(digest.hashCode(), segments.length)];
+	}
+
+	/**
+	 * @return the verified token or null if it is unknown or has expired
+	 */
+	VerifiedToken get(String digest, long nowMillis) {
+		final Map<String, VerifiedToken> segment = locateSegment(digest);
+
+		synchronized (segment) {
+			final VerifiedToken token = segment.get(digest);
+
+			if (token == null) {
+				return null;
+			}
+
+			if (token.getExpiresAtMillis() <= nowMillis) {
+				segment.remove(digest);
+				return null;
+			}
+
+			return token;
+		}
+	}
+
+	void put(String digest, VerifiedToken token) {
+		final Map<String, VerifiedToken> segment = locateSegment(digest);
+
+		synchronized (segment) {
+			segment.put(digest, token);
+		}
+	}
+
+	static class VerifiedToken {
+
+		private final String subject;
+		private final LocalDateTime version;
+		private final LocalDateTime expiration;
+		// the exp claim
+		private final long expiresAtMillis;
+
+		VerifiedToken(String subject, LocalDateTime version, LocalDateTime expiration, long expiresAtMillis) {
+			this.subject = subject;
+			this.version = version;
+			this.expiration = expiration;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+
+		String getSubject() {
+			return subject;
+		}
+
+		LocalDateTime getVersion() {
+			return version;
+		}
+
+		LocalDateTime getExpiration() {
+			return expiration;
+		}
+
+		long getExpiresAtMillis() {
+			return expiresAtMillis;
+		}
+
+	}
+
+}
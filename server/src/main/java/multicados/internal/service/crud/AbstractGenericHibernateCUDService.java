@@ -4,14 +4,23 @@
 package multicados.internal.service.crud;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.Inheritance;
 import javax.persistence.InheritanceType;
 import javax.persistence.PersistenceException;
+import javax.persistence.criteria.Selection;
 
 import org.hibernate.Session;
 import org.hibernate.SharedSessionContract;
@@ -100,6 +109,193 @@ public abstract class AbstractGenericHibernateCUDService<TUPLE> extends ContextB
 		}
 	}
 
+	/**
+	 * Builders run per model, the existence of assigned identifiers and the
+	 * validations are checked for the whole batch. Insertions are left in the
+	 * action queue so that the flush sends them as JDBC batches of
+	 * {@link org.hibernate.cfg.AvailableSettings#STATEMENT_BATCH_SIZE}, resources
+	 * with identity generated identifiers are still inserted one by one
+	 */
+	@Override
+	public <S extends Serializable, T extends IdentifiableResource<S>> List<ServiceResult> createAll(Class<T> type,
+			List<T> models, Session session, boolean flushOnFinish) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Creating {} resource(s) of type {}", models.size(), type.getName());
+		}
+
+		final ServiceResult[] results = new ServiceResult[models.size()];
+		final List<T> savedModels = new ArrayList<>(models.size());
+
+		try {
+			checkIdentities(type, models, results, session);
+
+			final DomainResourceBuilder<T> resourceBuilder = builderFactory.getBuilder(type);
+			final List<Integer> builtIndices = new ArrayList<>(models.size());
+
+			for (int i = 0; i < models.size(); i++) {
+				if (results[i] != null) {
+					continue;
+				}
+
+				try {
+					resourceBuilder.buildInsertion(models.get(i), session);
+					builtIndices.add(i);
+				} catch (Exception any) {
+					results[i] = ServiceResult.failed(any);
+				}
+			}
+
+			final List<Integer> validIndices = validate(type, builtIndices,
+					builtIndices.stream().map(index -> models.get(index)).toList(),
+					builtIndices.stream().<Serializable>map(index -> models.get(index).getId()).toList(), results,
+					session);
+
+			for (final Integer index : validIndices) {
+				final T model = models.get(index);
+
+				savedModels.add(model);
+				session.save(model);
+				eventListenerGroups.firePostPersist(type, model);
+				results[index] = ServiceResult.success();
+			}
+
+			return finishAll(session, results, validIndices, flushOnFinish);
+		} catch (PersistenceException any) {
+			return failAll(results, new PersistenceException(any), savedModels, session);
+		} catch (Exception any) {
+			return failAll(results, any, savedModels, session);
+		}
+	}
+
+	/**
+	 * One existence query for the assigned identifiers of the batch, see
+	 * {@link #checkIdentity(Serializable, DomainResource, SharedSessionContract)}
+	 */
+	private <S extends Serializable, T extends IdentifiableResource<S>> void checkIdentities(Class<T> type,
+			List<T> models, ServiceResult[] results, Session session) throws Exception {
+		if (resourceContext.getMetadata(type).unwrap(IdentifiableResourceMetadata.class)
+				.isIdentifierAutoGenerated()) {
+			return;
+		}
+
+		final Set<Serializable> batchedIds = new HashSet<>(models.size());
+
+		for (int i = 0; i < models.size(); i++) {
+			final S id = models.get(i).getId();
+			// a null identifier is left to the builders and the save
+			if (id != null && !batchedIds.add(id)) {
+				results[i] = existed(id);
+			}
+		}
+
+		if (batchedIds.isEmpty()) {
+			return;
+		}
+
+		final String idPropertyName = HibernateHelper.locateIdPropertyName(type, session);
+		// @formatter:off
+		final Set<Object> existingIds = genericRepository.findAll(type,
+						(root, cq, builder) -> List.<Selection<?>>of(root.get(idPropertyName)),
+						(root, cq, builder) -> root.get(idPropertyName).in(batchedIds),
+						session)
+				.stream()
+				.map(tuple -> tuple.get(0))
+				.collect(Collectors.toSet());
+		// @formatter:on
+		for (int i = 0; i < models.size(); i++) {
+			if (results[i] == null && existingIds.contains(models.get(i).getId())) {
+				results[i] = existed(models.get(i).getId());
+			}
+		}
+	}
+
+	private static ServiceResult existed(Serializable id) {
+		return ServiceResult
+				.failed(new PersistenceException(new EntityExistsException(Common.existed(List.of(id.toString())))));
+	}
+
+	/**
+	 * @return indices of the resources which passed the validation, the others
+	 *         are given a bad result
+	 */
+	private <T extends DomainResource> List<Integer> validate(Class<T> type, List<Integer> indices,
+			List<T> resources, List<? extends Serializable> ids, ServiceResult[] results, Session session) throws Exception {
+		if (indices.isEmpty()) {
+			return indices;
+		}
+
+		final List<Validation> validations = validatorFactory.getValidator(type).areSatisfiedBy(session, ids,
+				resources);
+		final List<Integer> validIndices = new ArrayList<>(indices.size());
+
+		for (int i = 0; i < indices.size(); i++) {
+			if (!validations.get(i).isOk()) {
+				results[indices.get(i)] = ServiceResult.bad(validations.get(i));
+				continue;
+			}
+
+			validIndices.add(indices.get(i));
+		}
+
+		return validIndices;
+	}
+
+	/**
+	 * A failed flush can not be traced back to a model of the batch, every
+	 * written model is then failed
+	 */
+	private List<ServiceResult> finishAll(Session session, ServiceResult[] results, List<Integer> writtenIndices,
+			boolean flushOnFinish) {
+		if (flushOnFinish && !writtenIndices.isEmpty()) {
+			try {
+				session.flush();
+			} catch (PersistenceException any) {
+				final ServiceResult failure = ServiceResult.failed(new PersistenceException(any));
+
+				for (final Integer index : writtenIndices) {
+					results[index] = failure;
+				}
+			} catch (Exception any) {
+				final ServiceResult failure = ServiceResult.failed(any);
+
+				for (final Integer index : writtenIndices) {
+					results[index] = failure;
+				}
+			}
+		}
+
+		return Arrays.asList(results);
+	}
+
+	/**
+	 * Every model of the batch is failed, the models which were already saved are
+	 * evicted so that their insertions are not flushed. Resources with identity
+	 * generated identifiers are inserted by the save itself, only a rollback of the
+	 * transaction undoes them
+	 */
+	private List<ServiceResult> failAll(ServiceResult[] results, Exception exception, List<?> savedModels,
+			Session session) {
+		for (final Object model : savedModels) {
+			if (session.contains(model)) {
+				session.evict(model);
+			}
+		}
+
+		return failAll(results, exception);
+	}
+
+	private List<ServiceResult> failAll(ServiceResult[] results, Exception exception) {
+		final ServiceResult failure = ServiceResult.failed(exception);
+
+		for (int i = 0; i < results.length; i++) {
+			if (results[i] == null || results[i].isOk()) {
+				results[i] = failure;
+			}
+		}
+
+		return Arrays.asList(results);
+	}
+
 	/**
 	 * Do an existence check for any non-auto-generated-identifier
 	 * {@link DomainResource}.
@@ -163,6 +359,80 @@ public abstract class AbstractGenericHibernateCUDService<TUPLE> extends ContextB
 		}
 	}
 
+	/**
+	 * Persistences of the batch are loaded with one query, then built and
+	 * validated like {@link #createAll(Class, List, Session, boolean)} does. The
+	 * persistences which fail are evicted so that the flush leaves their rows
+	 * untouched
+	 */
+	@Override
+	public <S extends Serializable, T extends IdentifiableResource<S>> List<ServiceResult> updateAll(Class<T> type,
+			List<T> models, Session session, boolean flushOnFinish) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Updating {} resource(s) of type {}", models.size(), type.getName());
+		}
+
+		final ServiceResult[] results = new ServiceResult[models.size()];
+
+		try {
+			final List<S> ids = models.stream().map(IdentifiableResource::getId).toList();
+			final List<S> nonNullIds = ids.stream().filter(Objects::nonNull).toList();
+			final List<T> persistences = nonNullIds.isEmpty() ? List.of()
+					: session.byMultipleIds(type).multiLoad(nonNullIds);
+			// identifier -> persistence
+			final Map<Object, T> persistencesById = new HashMap<>(persistences.size());
+
+			for (final T persistence : persistences) {
+				if (persistence != null) {
+					persistencesById.put(persistence.getId(), persistence);
+				}
+			}
+
+			final DomainResourceBuilder<T> resourceBuilder = builderFactory.getBuilder(type);
+			final List<Integer> builtIndices = new ArrayList<>(models.size());
+
+			for (int i = 0; i < models.size(); i++) {
+				final S id = ids.get(i);
+				final T persistence = id == null ? null : persistencesById.get(id);
+
+				if (persistence == null) {
+					results[i] = ServiceResult.failed(new PersistenceException(new EntityNotFoundException(
+							id == null ? Common.notFound() : Common.notFound(List.of(id.toString())))));
+					continue;
+				}
+
+				try {
+					resourceBuilder.buildUpdate(models.get(i), persistence, session);
+					builtIndices.add(i);
+				} catch (Exception any) {
+					// a partially built persistence must not be flushed
+					session.evict(persistence);
+					results[i] = ServiceResult.failed(any);
+				}
+			}
+
+			final List<Integer> validIndices = validate(type, builtIndices,
+					builtIndices.stream().map(index -> persistencesById.get(ids.get(index))).toList(),
+					builtIndices.stream().<Serializable>map(ids::get).toList(), results, session);
+
+			for (final Integer index : builtIndices) {
+				final T persistence = persistencesById.get(ids.get(index));
+				// invalid persistences stay dirty otherwise
+				if (results[index] != null) {
+					session.evict(persistence);
+					continue;
+				}
+
+				session.merge(persistence);
+				results[index] = ServiceResult.success();
+			}
+
+			return finishAll(session, results, validIndices, flushOnFinish);
+		} catch (Exception any) {
+			return failAll(results, any);
+		}
+	}
+
 	@Override
 	public void summary() {
 		if (logger.isDebugEnabled()) {
@@ -40,6 +40,25 @@ public interface GenericCRUDService<TUPLE, EM extends EntityManager> extends Dom
 	<S extends Serializable, E extends IdentifiableResource<S>> ServiceResult update(Class<E> type, Serializable id,
 			E model, EM entityManager, boolean flushOnFinish);
 
+	/**
+	 * Create the models as a batch, uniqueness is validated for the whole batch
+	 * and the insertions are flushed together
+	 *
+	 * @return a {@link ServiceResult} for each model, in order. Failed models are
+	 *         not saved, the others are
+	 */
+	<S extends Serializable, E extends IdentifiableResource<S>> List<ServiceResult> createAll(Class<E> type,
+			List<E> models, EM entityManager, boolean flushOnFinish);
+
+	/**
+	 * Update the models, identified by their identifiers, as a batch
+	 *
+	 * @return a {@link ServiceResult} for each model, in order
+	 * @see #createAll(Class, List, EntityManager, boolean)
+	 */
+	<S extends Serializable, E extends IdentifiableResource<S>> List<ServiceResult> updateAll(Class<E> type,
+			List<E> models, EM entityManager, boolean flushOnFinish);
+
 	/* ==================== */
 	<S extends Serializable, E extends IdentifiableResource<S>> List<TUPLE> readAll(Class<E> type,
 			Collection<String> properties, Pageable pageable, GrantedAuthority credential, EM entityManager)
@@ -7,58 +7,81 @@ import static multicados.internal.helper.Utils.declare;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.function.BiFunction;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import javax.persistence.Tuple;
-import javax.persistence.TupleElement;
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.From;
 import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.ParameterExpression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import javax.persistence.criteria.Selection;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
+import javax.persistence.metamodel.SingularAttribute;
 
 import org.hibernate.Session;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.util.ClassUtils;
 
+import multicados.internal.config.Settings;
 import multicados.internal.domain.DomainResource;
 import multicados.internal.domain.DomainResourceContext;
 import multicados.internal.domain.IdentifiableResource;
+import multicados.internal.domain.PermanentResource;
+import multicados.internal.domain.cache.ResourceCache;
 import multicados.internal.domain.builder.DomainResourceBuilderFactory;
 import multicados.internal.domain.repository.GenericRepository;
+import multicados.internal.domain.repository.KeysetCursor;
+import multicados.internal.domain.repository.Orderer;
 import multicados.internal.domain.repository.Selector;
 import multicados.internal.domain.validation.DomainResourceValidatorFactory;
-import multicados.internal.helper.CollectionHelper;
 import multicados.internal.helper.HibernateHelper;
+import multicados.internal.helper.SpringHelper;
 import multicados.internal.helper.StringHelper;
 import multicados.internal.helper.Utils;
-import multicados.internal.helper.Utils.BiDeclaration;
 import multicados.internal.helper.Utils.Entry;
+import multicados.internal.helper.Utils.HandledConsumer;
 import multicados.internal.helper.Utils.HandledFunction;
+import multicados.internal.helper.Utils.HandledSupplier;
 import multicados.internal.helper.Utils.LazySupplier;
 import multicados.internal.service.crud.rest.ComposedNonBatchingRestQuery;
 import multicados.internal.service.crud.rest.ComposedRestQuery;
+import multicados.internal.service.crud.rest.DelegatedPageable;
 import multicados.internal.service.crud.rest.RestQuery;
 import multicados.internal.service.crud.rest.RestQueryComposer;
 import multicados.internal.service.crud.rest.RestQueryComposerImpl;
+import multicados.internal.service.crud.rest.RestQueryPlan;
+import multicados.internal.service.crud.rest.RestQueryPlanCache;
 import multicados.internal.service.crud.rest.filter.Filter;
+import multicados.internal.service.crud.rest.filter.Filter.Operator;
 import multicados.internal.service.crud.security.read.ReadSecurityManager;
 
 /**
@@ -76,25 +99,37 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 	private final ReadSecurityManager readSecurityManager;
 	private final RestQueryComposer restQueryComposer;
 	private final SelectionProducersProvider selectionProducersProvider;
+	private final RestQueryPlanCache planCache;
+	private final ResourceCache resourceCache;
+	private final int streamFetchSize;
 
 	private static final Pageable DEFAULT_PAGEABLE = Pageable.ofSize(10);
+	private static final Pageable SINGLE_ROW_PAGEABLE = Pageable.ofSize(1);
+	private static final int DEFAULT_STREAM_FETCH_SIZE = 500;
 
 	@Autowired
 	public GenericCRUDServiceImpl(
 	// @formatter:off
 			SessionFactoryImplementor sfi,
+			Environment env,
 			DomainResourceContext resourceContext,
 			DomainResourceBuilderFactory builderFactory,
 			DomainResourceValidatorFactory validatorFactory,
 			ReadSecurityManager readSecurityManager,
-			GenericRepository genericRepository) throws Exception {
+			GenericRepository genericRepository,
+			ResourceCache resourceCache) throws Exception {
 		// @formatter:on
 		super(resourceContext, builderFactory, validatorFactory, genericRepository);
 		this.readSecurityManager = readSecurityManager;
 		this.genericRepository = genericRepository;
+		this.resourceCache = resourceCache;
 
 		restQueryComposer = new RestQueryComposerImpl(resourceContext, readSecurityManager);
 		selectionProducersProvider = new SelectionProducersProvider(resourceContext);
+		planCache = new RestQueryPlanCache(SpringHelper.getOrDefault(env, Settings.CRUD_QUERY_PLAN_CACHE_SIZE,
+				Integer::valueOf, RestQueryPlanCache.DEFAULT_MAX_SIZE));
+		streamFetchSize = SpringHelper.getOrDefault(env, Settings.CRUD_STREAM_FETCH_SIZE, Integer::valueOf,
+				DEFAULT_STREAM_FETCH_SIZE);
 
 		criteriaBuilder = sfi.getCriteriaBuilder();
 	}
@@ -103,13 +138,20 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 			List<String> checkedProperties, int offset) {
 		final Map<String, String> translatedAttributes = readSecurityManager.translate(type, checkedProperties);
 		final int span = checkedProperties.size();
-		// @formatter:off
-		return tuples.stream()
-				.map(tuple -> IntStream.range(offset, span + offset)
-					.mapToObj(j -> Utils.Entry.entry(translatedAttributes.get(checkedProperties.get(j)), tuple.get(j)))
-					.collect(CollectionHelper.toMap()))
-				.collect(Collectors.toList());
-		// @formatter:on
+		final String[] aliases = new String[span];
+
+		for (int i = 0; i < span; i++) {
+			aliases[i] = translatedAttributes.get(checkedProperties.get(i));
+		}
+
+		final RowShape shape = new RowShape(aliases, offset, new String[0], new RowShape[0], 0);
+		final List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+
+		for (final Tuple tuple : tuples) {
+			rows.add(shape.materialize(tuple));
+		}
+
+		return rows;
 	}
 
 	private <E extends DomainResource> List<Map<String, Object>> resolveRows(Class<E> type, List<Tuple> tuples,
@@ -163,12 +205,52 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 			Session session) throws Exception {
 		// @formatter:on
 		final List<String> checkedProperties = readSecurityManager.check(type, properties, credential);
-		final List<Tuple> tuples = genericRepository.findAll(type, toSelector(checkedProperties), specification,
-				pageable, session);
+		// @formatter:off
+		final Query<Tuple> hql = genericRepository.createQuery(
+				type,
+				toSelector(checkedProperties),
+				secure(type, specification, credential),
+				pageable.getSort(),
+				session);
+		// @formatter:on
+		final List<Tuple> tuples = page(bindRowFilter(hql, type, credential), pageable).list();
 
 		return resolveRows(type, tuples, checkedProperties);
 	}
 
+	/**
+	 * Chain the row filter of the credential before the requested specification,
+	 * the {@link GenericRepository} then chains both after its fixed
+	 * specifications
+	 */
+	private <D extends DomainResource> Specification<D> secure(Class<D> type, Specification<D> specification,
+			GrantedAuthority credential) {
+		final Specification<D> rowFilter = readSecurityManager.getRowFilter(type, credential);
+
+		return rowFilter == null ? specification : rowFilter.and(specification);
+	}
+
+	/**
+	 * Bind the values of the row filter chained by
+	 * {@link #secure(Class, Specification, GrantedAuthority)} for the current
+	 * request
+	 */
+	private <D extends DomainResource> Query<Tuple> bindRowFilter(Query<Tuple> hql, Class<D> type,
+			GrantedAuthority credential) {
+		readSecurityManager.getRowFilterArguments(type, credential).forEach(hql::setParameter);
+
+		return hql;
+	}
+
+	private static <T> Query<T> page(Query<T> hql, Pageable pageable) {
+		if (pageable.isUnpaged()) {
+			return hql;
+		}
+
+		return hql.setMaxResults(pageable.getPageSize())
+				.setFirstResult(pageable.getPageSize() * pageable.getPageNumber());
+	}
+
 	@Override
 	public <S extends Serializable, E extends IdentifiableResource<S>> Map<String, Object> readById(
 	// @formatter:off
@@ -191,26 +273,51 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 			Session session) throws Exception {
 		// @formatter:on
 		final List<String> checkedProperties = readSecurityManager.check(type, properties, credential);
-		final Optional<Tuple> optionalTuple = genericRepository.findOne(type, toSelector(checkedProperties),
-				specification, session);
+		// @formatter:off
+		final Query<Tuple> hql = genericRepository.createQuery(
+				type,
+				toSelector(checkedProperties),
+				secure(type, specification, credential),
+				Sort.unsorted(),
+				session);
+		// @formatter:on
+		final List<Tuple> tuples = page(bindRowFilter(hql, type, credential), SINGLE_ROW_PAGEABLE).list();
 
-		if (optionalTuple.isEmpty()) {
+		if (tuples.isEmpty()) {
 			return null;
 		}
 
-		return resolveRows(type, List.of(optionalTuple.get()), checkedProperties).get(0);
+		return resolveRows(type, tuples, checkedProperties).get(0);
 	}
 
 	@Override
 	public <D extends DomainResource> List<Map<String, Object>> readAll(RestQuery<D> restQuery,
 			GrantedAuthority credential, Session entityManager) throws Exception {
-		return readAll(restQueryComposer.compose(restQuery, credential, true), credential, entityManager);
+		return readAll(compose(restQuery, credential), credential, entityManager);
+	}
+
+	/**
+	 * Compose the query the way {@link #readAll(RestQuery, GrantedAuthority, Session)}
+	 * does, without reading anything
+	 */
+	public <D extends DomainResource> ComposedRestQuery<D> compose(RestQuery<D> restQuery,
+			GrantedAuthority credential) throws Exception {
+		if (restQuery.getPage() == null) {
+			// so that the next cursor can be handed back
+			restQuery.setPage(new DelegatedPageable());
+		}
+
+		return restQueryComposer.compose(restQuery, credential, true);
 	}
 
 	private static <D extends DomainResource, E> Selector<D, E> toSelector(Collection<String> attributes) {
 		return (root, query, builder) -> attributes.stream().map(root::get).collect(Collectors.toList());
 	}
 
+	public RestQueryPlanCache.Statistics getPlanCacheStatistics() {
+		return planCache.getStatistics();
+	}
+
 	private <D extends DomainResource> RestQueryProcessingUnit<D> createProcessingUnit(
 			ComposedRestQuery<D> composedQuery, GrantedAuthority credential) {
 		return new RestQueryProcessingUnit<>(composedQuery, credential);
@@ -232,6 +339,17 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 		return createProcessingUnit(composedQuery, credential).doRead(session);
 	}
 
+	@Override
+	public <D extends DomainResource> void stream(RestQuery<D> restQuery, GrantedAuthority credential,
+			Session entityManager, HandledConsumer<? super Map<String, Object>, Exception> consumer) throws Exception {
+		stream(restQueryComposer.compose(restQuery, credential, true), credential, entityManager, consumer);
+	}
+
+	public <D extends DomainResource> void stream(ComposedRestQuery<D> composedQuery, GrantedAuthority credential,
+			Session session, HandledConsumer<? super Map<String, Object>, Exception> consumer) throws Exception {
+		createProcessingUnit(composedQuery, credential).doStream(session, consumer);
+	}
+
 	private class RestQueryProcessingUnit<D extends DomainResource> {
 
 		private final ComposedRestQuery<D> query;
@@ -241,18 +359,47 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 		private final List<ComposedNonBatchingRestQuery<?>> nonBatchingQueries;
 		private final List<ComposedRestQuery<?>> batchingQueries;
 		private final LazySupplier<Map<String, String>> translatedAttributesLoader;
+		private final LazySupplier<RowShape> rowShapeLoader;
 		private final Pageable pageable;
 		private final GrantedAuthority credential;
+		// null if the credential reads every row
+		private final Specification<D> rowFilter;
+		// whether the root or any joined association is filtered
+		private final boolean filtered;
+		// values of every row filter in the query for the current request
+		private final Map<String, Object> rowFilterArguments;
+		// whether every resource read by the query is cached and no rows are filtered
+		private final boolean cacheable;
 
 		private final Map<String, From<?, ?>> fromsCache = new HashMap<>();
 
 		private static final String ROOT_KEY_IN_CACHE = "<ROOT>";
+		private static final String PARAMETER_PREFIX = "p";
+		private static final int UNRESOLVED_POSITION = -1;
+		// position of the identifier in the tuple, only selected when there are batching queries
+		private int identifierPosition = UNRESOLVED_POSITION;
+		// position of the owner identifier in the tuple, only selected when this query is batched
+		private int ownerIdentifierPosition = UNRESOLVED_POSITION;
+		// position of the first keyset key in the tuple, only selected when reading pages
+		private int keysetPosition = UNRESOLVED_POSITION;
+		// names of the parameters registered while compiling, in visiting order
+		private final List<String> parameterNames = new ArrayList<>();
+		// the sort keys followed by the identifier, only resolved when reading pages
+		private List<Sort.Order> keys;
+		// the query being compiled, joined associations are filtered through its
+		// subqueries
+		private CriteriaQuery<?> criteria;
 
 		public RestQueryProcessingUnit(ComposedRestQuery<D> query, GrantedAuthority credential) {
 			this.query = query;
 			this.credential = credential;
 
 			rootResourceType = query.getResourceType();
+			rowFilter = readSecurityManager.getRowFilter(rootResourceType, credential);
+			rowFilterArguments = new HashMap<>(readSecurityManager.getRowFilterArguments(rootResourceType, credential));
+			filtered = collectJoinedRowFilters(query, rowFilterArguments) || rowFilter != null;
+			// cached results are shared by every principal of the credential
+			cacheable = !filtered && isCacheable(query);
 
 			if (logger.isDebugEnabled()) {
 				logger.debug("Processing {}<{}>", ComposedRestQuery.class.getSimpleName(),
@@ -263,13 +410,42 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 			nonBatchingQueries = query.getNonBatchingAssociationQueries();
 			batchingQueries = query.getBatchingAssociationQueries();
 			translatedAttributesLoader = new LazySupplier<>(() -> translateAttributes(query, credential));
+			rowShapeLoader = new LazySupplier<>(() -> resolveRowShape(query, translatedAttributesLoader.get(), 0));
 
 			pageable = Optional.<Pageable>ofNullable(query.getPage()).orElse(DEFAULT_PAGEABLE);
 		}
 
-		private Selector<D, Tuple> resolveSelector() {
+		/**
+		 * @return whether any joined association of the query is filtered, collecting
+		 *         the values of their row filters
+		 */
+		private boolean collectJoinedRowFilters(ComposedRestQuery<?> composedQuery, Map<String, Object> arguments) {
+			boolean filtered = false;
+
+			for (final ComposedRestQuery<?> nonBatchingQuery : composedQuery.getNonBatchingAssociationQueries()) {
+				if (readSecurityManager.getRowFilter(nonBatchingQuery.getResourceType(), credential) != null) {
+					filtered = true;
+					arguments.putAll(readSecurityManager.getRowFilterArguments(nonBatchingQuery.getResourceType(),
+							credential));
+				}
+
+				filtered |= collectJoinedRowFilters(nonBatchingQuery, arguments);
+			}
+
+			return filtered;
+		}
+
+		private Selector<D, Tuple> resolveSelector(Session session) {
+			return (root, cq, builder) -> {
+				criteria = cq;
+
+				return resolveSelections(root, session);
+			};
+		}
+
+		private List<Selection<?>> resolveSelections(From<?, ?> from, Session session) throws Exception {
 			// @formatter:off
-			return (root, cq, builder) -> declare(root)
+			final List<Selection<?>> selections = declare(from)
 					.second(ROOT_KEY_IN_CACHE)
 				.consume(this::cache)
 					.second(selectionProducersProvider.getSelectionProducers(rootResourceType))
@@ -277,27 +453,52 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 				.then(this::addAssociationSelections)
 				.get();
 			// @formatter:on
+			final String identifierName = HibernateHelper.locateIdPropertyName(rootResourceType, session);
+			// appended last so that the positions resolved by the RestQueryComposer stay
+			// untouched
+			if (keys != null) {
+				keysetPosition = selections.size();
+
+				for (final Sort.Order key : keys) {
+					if (key.getProperty().equals(identifierName)) {
+						identifierPosition = selections.size();
+					}
+
+					selections.add(from.get(key.getProperty()));
+				}
+
+				return selections;
+			}
+
+			if (batchingQueries.isEmpty()) {
+				return selections;
+			}
+
+			identifierPosition = selections.size();
+			selections.add(from.get(identifierName));
+
+			return selections;
 		}
 
-		private <T extends DomainResource> List<Selection<?>> produceBasicSelections(Root<T> root,
+		private List<Selection<?>> produceBasicSelections(From<?, ?> from,
 				Map<String, Function<Path<?>, Path<?>>> selectionProducers) {
 			// @formatter:off
 			return basicAttributes
 					.stream()
 					.map(selectionProducers::get)
-					.map(producer -> producer.apply(root))
+					.map(producer -> producer.apply(from))
 					.collect(Collectors.toList());
 			// @formatter:on
 		}
 
 		// @formatter:off
-		private <T extends DomainResource> List<Selection<?>> addAssociationSelections(
-				Root<T> root,
+		private List<Selection<?>> addAssociationSelections(
+				From<?, ?> root,
 				Map<String, Function<Path<?>, Path<?>>> selectionProducers,
 				List<Selection<?>> basicSelections) throws Exception {
 			for (final ComposedRestQuery<?> nonBatchingQuery : nonBatchingQueries) {
 				declare(nonBatchingQuery.getAssociationName())
-						.flat(joinName -> (Join<?, ?>) selectionProducers.get(joinName).apply(root), HandledFunction.identity())
+						.flat(joinName -> filter((Join<?, ?>) selectionProducers.get(joinName).apply(root)), HandledFunction.identity())
 					.consume(this::cache)
 						.third(nonBatchingQuery)
 					.then(this::resolveJoinedSelections)
@@ -311,6 +512,27 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 			fromsCache.put(key, from);
 		}
 
+		/**
+		 * Filter a joined association in its join condition, so that the rows which
+		 * the credential may not read are read as absent. Required associations are
+		 * inner joined, their owners are hidden along with them
+		 */
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		private Join<?, ?> filter(Join<?, ?> join) {
+			final Class type = join.getJavaType();
+			final Specification joinedRowFilter = readSecurityManager.getRowFilter(type, credential);
+
+			if (joinedRowFilter == null) {
+				return join;
+			}
+			// a specification only applies on a root
+			final Subquery filteredRows = criteria.subquery(type);
+			final Root filteredRoot = filteredRows.from(type);
+
+			return join.on(join.in(filteredRows.select(filteredRoot)
+					.where(joinedRowFilter.toPredicate(filteredRoot, criteria, criteriaBuilder))));
+		}
+
 		// @formatter:off
 		private List<Selection<?>> resolveJoinedSelections(
 				Join<?, ?> join,
@@ -353,7 +575,7 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 			for (final ComposedRestQuery<?> nonBatchingAssociationQuery : joinedNonBatchingQueries) {
 				declare(nonBatchingAssociationQuery.getAssociationName())
 					.flat(
-						associationName -> joinEntry.getKey().join(associationName),
+						associationName -> filter(joinEntry.getKey().join(associationName)),
 						associationName -> resolveJoinRole(joinEntry.getValue(), associationName))
 					.consume(this::cache)
 						.third(nonBatchingAssociationQuery)
@@ -369,15 +591,49 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 					: nextJoinName;
 		}
 
-		private Specification<D> resolveSpecification() {
+		/**
+		 * Seek past the keys of the requested cursor, every key value is bound as a
+		 * parameter following the filter operands
+		 */
+		private Specification<D> resolveSeekSpecification() {
 			return (root, cq, builder) -> {
+				final List<Expression<?>> paths = new ArrayList<>(keys.size());
+				final List<Expression<?>> parameters = new ArrayList<>(keys.size());
+				final boolean[] nullable = new boolean[keys.size()];
+
+				for (int i = 0; i < nullable.length; i++) {
+					final Sort.Order key = keys.get(i);
+					final Path<?> path = root.get(key.getProperty());
+					final Attribute<? super D, ?> attribute = root.getModel().getAttribute(key.getProperty());
+
+					paths.add(path);
+					parameters.add(registerParameter(ClassUtils.resolvePrimitiveIfNecessary(path.getJavaType())));
+					nullable[i] = !(attribute instanceof SingularAttribute)
+							|| ((SingularAttribute<? super D, ?>) attribute).isOptional();
+				}
+
+				return KeysetCursor.toPredicate(builder, keys, paths, parameters, nullable);
+			};
+		}
+
+		private Class<?>[] resolveKeyTypes(Session session) {
+			final EntityType<D> metamodel = session.getMetamodel().entity(rootResourceType);
+
+			return keys.stream().map(key -> metamodel.getAttribute(key.getProperty()).getJavaType())
+					.toArray(Class[]::new);
+		}
+
+		private Specification<D> resolveSpecification() {
+			final Specification<D> specification = (root, cq, builder) -> {
 				try {
 					return Optional.ofNullable(resolvePredicates(root, null, query)).orElse(builder.conjunction());
 				} catch (Exception any) {
-					any.printStackTrace();
-					return null;
+					// a null specification would lift every restriction
+					throw new IllegalStateException(any);
 				}
 			};
+
+			return rowFilter == null ? specification : rowFilter.and(specification);
 		}
 
 		// @formatter:off
@@ -455,98 +711,475 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 				String attributeName,
 				Filter<?> filter) {
 			// @formatter:on
-			final List<BiFunction<Path<?>, CriteriaBuilder, Predicate>> expressionProducers = filter
-					.getExpressionProducers();
 			// @formatter:off
 			final Path<?> attributePath = selectionProducersProvider
 					.getSelectionProducers(resourceType)
 					.get(attributeName)
 					.apply(from);
 			// @formatter:on
-			final int size = expressionProducers.size();
+			Predicate predicate = null;
 
-			Predicate predicate = expressionProducers.get(0).apply(attributePath, criteriaBuilder);
+			for (final Filter.Operation operation : filter.getOperations()) {
+				final Operator operator = operation.getOperator();
+				final Expression<?>[] operands = new Expression<?>[operator.getArity()];
+
+				for (int i = 0; i < operands.length; i++) {
+					operands[i] = registerParameter(operator.getOperandType(attributePath));
+				}
 
-			for (int i = 1; i < size; i++) {
-				predicate = criteriaBuilder.or(predicate,
-						expressionProducers.get(i).apply(attributePath, criteriaBuilder));
+				final Predicate operationPredicate = operator.toPredicate(attributePath, criteriaBuilder, operands);
+
+				predicate = predicate == null ? operationPredicate : criteriaBuilder.or(predicate, operationPredicate);
 			}
 
 			return predicate;
 		}
 
-		private List<Map<String, Object>> doReadAll(Session session) throws Exception {
+		private ParameterExpression<?> registerParameter(Class<?> type) {
+			final String name = PARAMETER_PREFIX + parameterNames.size();
+
+			parameterNames.add(name);
+
+			return criteriaBuilder.parameter(type, name);
+		}
+
+		/**
+		 * Collect the filter operands, visiting them in the same order their
+		 * parameters are registered by {@link #resolvePredicates}
+		 */
+		private List<Object> collectArguments(ComposedRestQuery<?> composedQuery, List<Object> arguments) {
+			for (final Filter<?> filter : composedQuery.getFilters().values()) {
+				for (final Filter.Operation operation : filter.getOperations()) {
+					Collections.addAll(arguments, operation.getOperands());
+				}
+			}
+
+			for (final ComposedRestQuery<?> nonBatchingQuery : composedQuery.getNonBatchingAssociationQueries()) {
+				collectArguments(nonBatchingQuery, arguments);
+			}
+
+			return arguments;
+		}
+
+		/**
+		 * Describe everything that affects the rendered query: selections, joins,
+		 * filtered attributes and their operators. Operands are left out since they
+		 * are bound as parameters
+		 */
+		private StringBuilder appendShape(StringBuilder builder, ComposedRestQuery<?> composedQuery) {
+			builder.append(composedQuery.getResourceType().getName()).append(composedQuery.getAttributes());
+
+			for (final Map.Entry<String, Filter<?>> filterEntry : composedQuery.getFilters().entrySet()) {
+				builder.append(filterEntry.getKey());
+
+				for (final Filter.Operation operation : filterEntry.getValue().getOperations()) {
+					builder.append(':').append(operation.getOperator());
+				}
+			}
+
+			for (final ComposedRestQuery<?> nonBatchingQuery : composedQuery.getNonBatchingAssociationQueries()) {
+				appendShape(builder.append('{').append(nonBatchingQuery.getAssociationName()).append('='),
+						nonBatchingQuery).append('}');
+			}
+
+			return builder;
+		}
+
+		private String resolvePlanKey(StringBuilder prefix, Sort sort) {
+			// the identifier is only selected when there are batching queries
+			appendShape(prefix, query).append(sort).append(batchingQueries.isEmpty() ? "" : "#id");
+			// row filters depend on the credential, their values for the request are
+			// bound on every execution
+			return (filtered ? prefix.append('@').append(credential.getAuthority()) : prefix).toString();
+		}
+
+		private RestQueryPlan locatePlan(String key, HandledSupplier<Query<Tuple>, Exception> compiler)
+				throws Exception {
+			final RestQueryPlan cachedPlan = planCache.get(key);
+
+			if (cachedPlan != null) {
+				identifierPosition = cachedPlan.getIdentifierPosition();
+				ownerIdentifierPosition = cachedPlan.getOwnerIdentifierPosition();
+				keysetPosition = cachedPlan.getKeysetPosition();
+
+				return cachedPlan;
+			}
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Compiling plan [{}]", key);
+			}
+			// a unit may compile more than one plan, eg. when streaming
+			parameterNames.clear();
+
+			final RestQueryPlan plan = new RestQueryPlan(compiler.get(), parameterNames, identifierPosition,
+					ownerIdentifierPosition, keysetPosition);
+
+			planCache.put(key, plan);
+
+			return plan;
+		}
+
+		private boolean isCacheable(ComposedRestQuery<?> composedQuery) {
+			if (!resourceCache.isCached(composedQuery.getResourceType())) {
+				return false;
+			}
+
+			for (final ComposedRestQuery<?> nonBatchingQuery : composedQuery.getNonBatchingAssociationQueries()) {
+				if (!isCacheable(nonBatchingQuery)) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private List<Tuple> execute(RestQueryPlan plan, List<Object> arguments, Pageable pageable, Session session) {
+			return cache(prepare(plan, arguments, pageable, session), cacheable).list();
+		}
+
+		/**
+		 * Results are cached along with the bound arguments and the page, streamed
+		 * queries are never cached
+		 */
+		private Query<Tuple> cache(Query<Tuple> hql, boolean cacheable) {
+			if (!cacheable) {
+				return hql;
+			}
+
+			return hql.setCacheable(true).setCacheRegion(ResourceCache.QUERY_REGION);
+		}
+
+		private Query<Tuple> prepare(RestQueryPlan plan, List<Object> arguments, Pageable pageable,
+				Session session) {
+			final Query<Tuple> hql = plan.bind(session.createQuery(plan.getQueryString(), Tuple.class), arguments);
+
+			rowFilterArguments.forEach(hql::setParameter);
+
+			if (logger.isDebugEnabled()) {
+				logger.debug(plan.getQueryString());
+			}
+
+			return page(hql, pageable);
+		}
+
+		/**
+		 * Read in keyset chunks of the fetch size. Every chunk is a bounded query
+		 * whose results are closed before the batching associations of the chunk are
+		 * loaded, so that the memory footprint stays the same regardless of the result
+		 * size and of whether the driver buffers results. Rows written behind the last
+		 * read keys while streaming are not read
+		 */
+		private void doStream(Session session, HandledConsumer<? super Map<String, Object>, Exception> consumer)
+				throws Exception {
+			keys = KeysetCursor.resolveKeys(pageable.getSort(),
+					HibernateHelper.locateIdPropertyName(rootResourceType, session));
+			// an explicitly requested page is read at once
+			if (query.getPage() != null) {
+				flush(seek(decodeCursor(session), pageable, false, session), consumer, session);
+				return;
+			}
+
+			final Pageable chunkPageable = Pageable.ofSize(streamFetchSize);
+			Object[] lastKeys = null;
+
+			do {
+				final List<Tuple> chunk = seek(lastKeys, chunkPageable, false, session);
+				// a short chunk is the last one
+				lastKeys = chunk.size() < streamFetchSize ? null
+						: Arrays.copyOfRange(chunk.get(chunk.size() - 1).toArray(), keysetPosition,
+								keysetPosition + keys.size());
+
+				flush(chunk, consumer, session);
+			} while (lastKeys != null);
+		}
+
+		private void flush(List<Tuple> chunk, HandledConsumer<? super Map<String, Object>, Exception> consumer,
+				Session session) throws Exception {
+			if (chunk.isEmpty()) {
+				return;
+			}
+
+			final List<Map<String, Object>> records = transformRows(chunk);
+
+			loadBatchingAssociations(chunk, records, session);
+
+			for (final Map<String, Object> record : records) {
+				consumer.accept(record);
+			}
+		}
+
+		private Object[] decodeCursor(Session session) {
+			final String cursor = query.getPage() == null ? null : query.getPage().getAfter();
+
+			return cursor == null ? null : KeysetCursor.decode(cursor, resolveKeyTypes(session));
+		}
+
+		/**
+		 * Read the page following the given keys, from the first row if there are
+		 * none
+		 */
+		private List<Tuple> seek(Object[] lastKeys, Pageable pageable, boolean cached, Session session)
+				throws Exception {
 			// @formatter:off
-			final List<Tuple> tuples = genericRepository.findAll(
-					rootResourceType,
-					resolveSelector(),
-					resolveSpecification(),
-					pageable,
-					session);
+			final RestQueryPlan plan = locatePlan(
+					resolvePlanKey(new StringBuilder(lastKeys == null ? "all>" : "seek>"), pageable.getSort()),
+					() -> genericRepository.createQuery(
+							rootResourceType,
+							resolveSelector(session),
+							lastKeys == null ? resolveSpecification() : resolveSpecification().and(resolveSeekSpecification()),
+							Sort.by(keys),
+							session));
 			// @formatter:on
+			final List<Object> arguments = collectArguments(query, new ArrayList<>());
+
+			if (lastKeys != null) {
+				Collections.addAll(arguments, lastKeys);
+			}
+			// seeking never skips rows
+			return cache(prepare(plan, arguments,
+					lastKeys == null ? pageable : Pageable.ofSize(pageable.getPageSize()), session), cached).list();
+		}
+
+		private List<Map<String, Object>> doReadAll(Session session) throws Exception {
+			keys = KeysetCursor.resolveKeys(pageable.getSort(),
+					HibernateHelper.locateIdPropertyName(rootResourceType, session));
+
+			final List<Tuple> tuples = seek(decodeCursor(session), pageable, cacheable, session);
+
 			if (tuples.isEmpty()) {
 				return Collections.emptyList();
 			}
 
-			return transformRows(tuples);
+			if (query.getPage() != null) {
+				// a short page is the last one
+				query.getPage().setNextCursor(tuples.size() < pageable.getPageSize() ? null
+						: KeysetCursor.encode(tuples.get(tuples.size() - 1), keysetPosition, keysetPosition + keys.size()));
+			}
+
+			final List<Map<String, Object>> records = transformRows(tuples);
+
+			loadBatchingAssociations(tuples, records, session);
+
+			return records;
 		}
 
 		private Map<String, Object> doRead(Session session) throws Exception {
 			// @formatter:off
-			final Optional<Tuple> optionalTuple = genericRepository.findOne(
-					rootResourceType,
-					resolveSelector(),
-					resolveSpecification(),
-					session);
+			final RestQueryPlan plan = locatePlan(
+					resolvePlanKey(new StringBuilder("one>"), Sort.unsorted()),
+					() -> genericRepository.createQuery(
+							rootResourceType,
+							resolveSelector(session),
+							resolveSpecification(),
+							Sort.unsorted(),
+							session));
 			// @formatter:on
-			if (optionalTuple.isEmpty()) {
+			final List<Tuple> tuples = execute(plan, collectArguments(query, new ArrayList<>()), SINGLE_ROW_PAGEABLE,
+					session);
+
+			if (tuples.isEmpty()) {
 				return null;
 			}
 
-			final Map<String, Object> record = transformRow(optionalTuple.get());
+			final Map<String, Object> record = transformRow(tuples.get(0));
+
+			loadBatchingAssociations(tuples, List.of(record), session);
+
+			return record;
+		}
+
+		/**
+		 * Load every batching association of the given records, issuing a single
+		 * query per association regardless of how many records there are, then
+		 * stitch the results back into each owning record
+		 */
+		private void loadBatchingAssociations(List<Tuple> tuples, List<Map<String, Object>> records,
+				Session session) throws Exception {
+			if (batchingQueries.isEmpty()) {
+				return;
+			}
+
+			final Set<Object> identifiers = new LinkedHashSet<>(tuples.size());
+
+			for (final Tuple tuple : tuples) {
+				final Object identifier = tuple.get(identifierPosition);
+
+				if (identifier == null) {
+					continue;
+				}
+
+				identifiers.add(identifier);
+			}
+
 			final Map<String, String> translatedAttributes = translatedAttributesLoader.get();
+			final int size = tuples.size();
 
 			for (final ComposedRestQuery<?> batchingQuery : batchingQueries) {
-				record.put(translatedAttributes.get(batchingQuery.getAssociationName()),
-						readAll(batchingQuery, credential, session));
+				final Map<Object, List<Map<String, Object>>> associationRecords = identifiers.isEmpty()
+						? Collections.emptyMap()
+						: createProcessingUnit(batchingQuery, credential).doReadBatch(rootResourceType,
+								batchingQuery.getAssociationName(), identifiers, session);
+				final String associationAlias = translatedAttributes.get(batchingQuery.getAssociationName());
+
+				for (int i = 0; i < size; i++) {
+					records.get(i).put(associationAlias,
+							associationRecords.getOrDefault(tuples.get(i).get(identifierPosition), new ArrayList<>()));
+				}
 			}
+		}
 
-			return record;
+		/**
+		 * Read this query as the plural association of an owning
+		 * {@link DomainResource} for all of the given owner identifiers in one single
+		 * query
+		 *
+		 * @return records grouped by their owner identifiers
+		 */
+		private <O extends DomainResource> Map<Object, List<Map<String, Object>>> doReadBatch(Class<O> ownerType,
+				String associationName, Collection<Object> ownerIdentifiers, Session session) throws Exception {
+			final String ownerIdentifierName = HibernateHelper.locateIdPropertyName(ownerType, session);
+			final Selector<O, Tuple> selector = (root, cq, builder) -> {
+				criteria = cq;
+
+				final List<Selection<?>> selections = resolveSelections(root.join(associationName), session);
+
+				ownerIdentifierPosition = selections.size();
+				selections.add(root.get(ownerIdentifierName));
+
+				return selections;
+			};
+			final Specification<O> specification = (root, cq, builder) -> {
+				final From<?, ?> join = fromsCache.get(ROOT_KEY_IN_CACHE);
+				final List<Predicate> predicates = new ArrayList<>(3);
+
+				predicates.add(root.get(ownerIdentifierName).in(registerParameter(Collection.class)));
+				// fixed specifications are only applied on the query root by the
+				// GenericRepository
+				if (PermanentResource.class.isAssignableFrom(rootResourceType)) {
+					predicates.add(builder.equal(join.get(PermanentResource.ACTIVE), Boolean.TRUE));
+				}
+				// a specification only applies on a root, the joined rows are filtered through one
+				if (rowFilter != null) {
+					final Subquery<D> filteredRows = cq.subquery(rootResourceType);
+					final Root<D> filteredRoot = filteredRows.from(rootResourceType);
+
+					predicates.add(join.in(filteredRows.select(filteredRoot)
+							.where(rowFilter.toPredicate(filteredRoot, cq, builder))));
+				}
+
+				try {
+					Optional.ofNullable(resolvePredicates(join, null, query)).ifPresent(predicates::add);
+				} catch (Exception any) {
+					// a null specification would lift the owner restriction along with the row filter
+					throw new IllegalStateException(any);
+				}
+
+				return builder.and(predicates.toArray(Predicate[]::new));
+			};
+			final Sort sort = query.getPage() == null ? Sort.unsorted() : query.getPage().getSort();
+			final List<Sort.Order> associationKeys = KeysetCursor.resolveKeys(sort,
+					HibernateHelper.locateIdPropertyName(rootResourceType, session));
+			// records of an owner are contiguous and in the requested order, so that the cap is deterministic
+			final Orderer<O> orderer = (root, cq, builder) -> {
+				final From<?, ?> join = fromsCache.get(ROOT_KEY_IN_CACHE);
+				final List<Order> orders = new ArrayList<>(associationKeys.size() + 1);
+
+				orders.add(builder.asc(root.get(ownerIdentifierName)));
+
+				for (final Sort.Order key : associationKeys) {
+					orders.add(key.isAscending() ? builder.asc(join.get(key.getProperty()))
+							: builder.desc(join.get(key.getProperty())));
+				}
+
+				return orders;
+			};
+			// @formatter:off
+			final RestQueryPlan plan = locatePlan(
+					resolvePlanKey(new StringBuilder(ownerType.getName()).append('.').append(associationName).append('>'), sort),
+					() -> genericRepository.createQuery(
+							ownerType,
+							selector,
+							specification,
+							orderer,
+							session));
+			// @formatter:on
+			final List<Object> arguments = new ArrayList<>();
+			// the owner identifiers take the first slot
+			arguments.add(ownerIdentifiers);
+
+			// the owners are joined
+			final List<Tuple> tuples = cache(
+					prepare(plan, collectArguments(query, arguments), Pageable.unpaged(), session),
+					cacheable && resourceCache.isCached(ownerType)).list();
+			if (tuples.isEmpty()) {
+				return Collections.emptyMap();
+			}
+
+			final List<Map<String, Object>> records = transformRows(tuples);
+
+			loadBatchingAssociations(tuples, records, session);
+			// the page of a batched query caps the amount of records per owner, every
+			// record of the owners is still loaded since the cap is not pushed down to SQL
+			final int maxSize = query.getPage() == null ? Integer.MAX_VALUE : query.getPage().getPageSize();
+			final Map<Object, List<Map<String, Object>>> groupedRecords = new HashMap<>(ownerIdentifiers.size());
+			final int size = tuples.size();
+
+			for (int i = 0; i < size; i++) {
+				final List<Map<String, Object>> group = groupedRecords
+						.computeIfAbsent(tuples.get(i).get(ownerIdentifierPosition), key -> new ArrayList<>());
+
+				if (group.size() >= maxSize) {
+					continue;
+				}
+
+				group.add(records.get(i));
+			}
+
+			return groupedRecords;
 		}
 
 		private List<Map<String, Object>> transformRows(List<Tuple> tuples) throws Exception {
-			return tuples.stream().map(this::transformRow).collect(Collectors.toList());
+			final RowShape shape = rowShapeLoader.get();
+			final List<Map<String, Object>> records = new ArrayList<>(tuples.size());
+
+			for (final Tuple tuple : tuples) {
+				records.add(shape.materialize(tuple));
+			}
+
+			return records;
 		}
 
 		private Map<String, Object> transformRow(Tuple tuple) {
-			return transformRow(query, credential, basicAttributes, translatedAttributesLoader.get(), tuple);
+			return rowShapeLoader.get().materialize(tuple);
 		}
 
-		private Map<String, Object> transformRow(
-		// @formatter:off
-				ComposedRestQuery<?> composedQuery,
-				GrantedAuthority credential,
-				List<String> attributes,
-				Map<String, String> translatedAttributes,
-				Tuple tuple) {
-			// @formatter:on
-			// @formatter:off
-			final Map<String, Object> record = IntStream.range(0, attributes.size())
-					.mapToObj(index -> declare(translatedAttributes.get(attributes.get(index)), tuple.get(index)))
-					.collect(Collectors.toMap(BiDeclaration::getFirst, BiDeclaration::getSecond));
-			
-			for (final ComposedNonBatchingRestQuery<?> composedNonBatchingRestQuery : composedQuery
-					.getNonBatchingAssociationQueries()) {
-				record.put(translatedAttributes.get(composedNonBatchingRestQuery.getAssociationName()),
-						transformRow(
-								composedNonBatchingRestQuery,
-								credential,
-								composedNonBatchingRestQuery.getAttributes(),
-								translateAttributes(composedNonBatchingRestQuery, credential),
-								new AssociationTuple(composedNonBatchingRestQuery, tuple)));
+		/**
+		 * Resolve the {@link RowShape} of the given query once, nested shapes are
+		 * offset by the positions of their associations in the owning tuple
+		 */
+		private RowShape resolveRowShape(ComposedRestQuery<?> composedQuery, Map<String, String> translatedAttributes,
+				int offset) {
+			final List<String> attributes = composedQuery.getAttributes();
+			final List<ComposedNonBatchingRestQuery<?>> associationQueries = composedQuery
+					.getNonBatchingAssociationQueries();
+			final String[] aliases = new String[attributes.size()];
+			final String[] associationAliases = new String[associationQueries.size()];
+			final RowShape[] associationShapes = new RowShape[associationQueries.size()];
+
+			for (int i = 0; i < aliases.length; i++) {
+				aliases[i] = translatedAttributes.get(attributes.get(i));
 			}
-			// @formatter:on
-			return record;
+
+			for (int i = 0; i < associationShapes.length; i++) {
+				final ComposedNonBatchingRestQuery<?> associationQuery = associationQueries.get(i);
+
+				associationAliases[i] = translatedAttributes.get(associationQuery.getAssociationName());
+				associationShapes[i] = resolveRowShape(associationQuery, translateAttributes(associationQuery, credential),
+						offset + associationQuery.getAssociatedPosition());
+			}
+			// batching associations are put into the record afterwards
+			return new RowShape(aliases, offset, associationAliases, associationShapes,
+					composedQuery.getBatchingAssociationQueries().size());
 		}
 
 		private Map<String, String> translateAttributes(ComposedRestQuery<?> composedQuery,
@@ -574,58 +1207,47 @@ public class GenericCRUDServiceImpl extends AbstractGenericHibernateCUDService<M
 
 	}
 
-	private class AssociationTuple implements Tuple {
-
-		private final ComposedNonBatchingRestQuery<?> composedQuery;
-		private final Tuple owningTuple;
-
-		public AssociationTuple(ComposedNonBatchingRestQuery<?> composedQuery, Tuple owningTuple) {
-			this.composedQuery = composedQuery;
-			this.owningTuple = owningTuple;
-		}
-
-		@Override
-		public <X> X get(TupleElement<X> tupleElement) {
-			return owningTuple.get(tupleElement);
+	/**
+	 * Precomputed layout of the records produced from the {@link Tuple}s of a
+	 * query: the tuple columns of each alias and the shapes of the nested
+	 * associations
+	 *
+	 * @author Ngoc Huy
+	 *
+	 */
+	private static class RowShape {
+
+		private final String[] aliases;
+		// position of the first column in the tuple
+		private final int offset;
+		private final String[] associationAliases;
+		private final RowShape[] associationShapes;
+		// so that records never rehash
+		private final int capacity;
+
+		public RowShape(String[] aliases, int offset, String[] associationAliases, RowShape[] associationShapes,
+				int extraEntries) {
+			this.aliases = aliases;
+			this.offset = offset;
+			this.associationAliases = associationAliases;
+			this.associationShapes = associationShapes;
+			capacity = (int) Math.ceil((aliases.length + associationAliases.length + extraEntries) / .75f);
 		}
 
-		@Override
-		public <X> X get(String alias, Class<X> type) {
-			return owningTuple.get(alias, type);
-		}
-
-		@Override
-		public Object get(String alias) {
-			return owningTuple.get(alias);
-		}
-
-		private int getActualIndex(int i) {
-			return composedQuery.getAssociatedPosition() + i;
-		}
-
-		@Override
-		public <X> X get(int i, Class<X> type) {
-			return owningTuple.get(getActualIndex(i), type);
-		}
+		public Map<String, Object> materialize(Tuple tuple) {
+			final Map<String, Object> record = new LinkedHashMap<>(capacity);
 
-		@Override
-		public Object get(int i) {
-			return owningTuple.get(getActualIndex(i));
-		}
-
-		@Override
-		public Object[] toArray() {
-			return IntStream.range(composedQuery.getAssociatedPosition(), composedQuery.getPropertySpan())
-					.mapToObj(index -> owningTuple.get(index)).toArray();
-		}
+			for (int i = 0; i < aliases.length; i++) {
+				record.put(aliases[i], tuple.get(offset + i));
+			}
 
-		@Override
-		public List<TupleElement<?>> getElements() {
-			final List<TupleElement<?>> elements = owningTuple.getElements();
+			for (int i = 0; i < associationShapes.length; i++) {
+				record.put(associationAliases[i], associationShapes[i].materialize(tuple));
+			}
 
-			return IntStream.range(composedQuery.getAssociatedPosition(), composedQuery.getPropertySpan())
-					.mapToObj(index -> elements.get(index)).collect(Collectors.toList());
+			return record;
 		}
 
 	}
+
 }
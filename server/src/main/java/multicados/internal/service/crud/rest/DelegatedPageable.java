@@ -14,6 +14,10 @@ import org.springframework.data.domain.Sort;
 public class DelegatedPageable implements Pageable {
 
 	private Pageable delegatedPageable;
+	// keyset cursor of the last row of the previous page
+	private String after;
+	// keyset cursor of the last row of this page, resolved by the read
+	private String nextCursor;
 
 	public DelegatedPageable() {
 		delegatedPageable = PageRequest.of(0, 10);
@@ -31,6 +35,26 @@ public class DelegatedPageable implements Pageable {
 		delegatedPageable = PageRequest.of(page, delegatedPageable.getPageSize());
 	}
 
+	public String getAfter() {
+		return after;
+	}
+
+	/**
+	 * Seek past the row the cursor was produced from instead of skipping
+	 * {@link #getOffset()} rows, the page number is then ignored
+	 */
+	public void setAfter(String after) {
+		this.after = after;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+
 	@Override
 	public int getPageNumber() {
 		return delegatedPageable.getPageNumber();
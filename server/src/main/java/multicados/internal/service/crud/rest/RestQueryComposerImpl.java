@@ -17,6 +17,7 @@ import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -277,7 +278,7 @@ public class RestQueryComposerImpl implements RestQueryComposer {
 			RestQuery<D> owningQuery, GrantedAuthority credential, boolean isBatching) throws Exception {
 		// @formatter:off
 		final TriDeclaration<List<String>, List<RestQuery<?>>, List<RestQuery<?>>> checkedResult = declare(owningQuery)
-				.second(locateAssociationQueries(owningQuery, isBatching))
+				.second(locateAssociationQueries(owningQuery))
 				.third(credential)
 			.then(this::check)
 			.consume(internal -> owningQuery.setAttributes(internal.getFirst()))
@@ -343,22 +344,23 @@ public class RestQueryComposerImpl implements RestQueryComposer {
 			index += composedNonBatchingQuery.getPropertySpan();
 		}
 
-		if (isBatching) {
-			return declare(composedNonBatchingQueries, Collections.emptyList());
-		}
-
 		final List<RestQuery<?>> rawBatchingQueries = associationQueries.get(BATCHING_COLLECTION_INDEX);
 		final List<ComposedRestQuery<?>> composedBatchingQueries = new ArrayList<>(rawBatchingQueries.size());
 
 		for (final RestQuery<?> rawBatchingQuery : rawBatchingQueries) {
 			// @formatter:off
 			declare(compose(
-					index,
+					// batched associations are loaded by a separate query, they take no position in the owning tuple
+					isBatching ? null : index,
 					rawBatchingQuery,
 					credential,
 					determineBatching(resourceMetadata, rawBatchingQuery.getAssociationName(), isBatching)))
 				.consume(composedBatchingQueries::add);
 			// @formatter:on
+			if (isBatching) {
+				continue;
+			}
+
 			index++;
 		}
 
@@ -453,16 +455,11 @@ public class RestQueryComposerImpl implements RestQueryComposer {
 		return collidedAttributes;
 	}
 
-	private <D extends DomainResource> List<List<RestQuery<?>>> locateAssociationQueries(RestQuery<D> restQuery,
-			boolean isBatching) throws Exception {
+	private <D extends DomainResource> List<List<RestQuery<?>>> locateAssociationQueries(RestQuery<D> restQuery)
+			throws Exception {
 		final QueryMetadata queryMetadata = queryMetadatasMap.get(restQuery.getResourceType());
 		final List<RestQuery<?>> nonBatchingQueries = locateQueries(restQuery,
 				queryMetadata.getNonBatchingQueriesAccessors());
-
-		if (isBatching) {
-			return List.of(nonBatchingQueries, Collections.emptyList());
-		}
-
 		final List<RestQuery<?>> batchingQueries = locateQueries(restQuery,
 				queryMetadata.getBatchingQueriesAccessors());
 
@@ -488,14 +485,16 @@ public class RestQueryComposerImpl implements RestQueryComposer {
 	}
 
 	private <D extends DomainResource> Map<String, Filter<?>> resolveFilters(RestQuery<D> restQuery) throws Exception {
-		final Map<String, Filter<?>> filters = new HashMap<>();
+		// sorted so that equally shaped queries always visit their filters in the same
+		// order
+		final Map<String, Filter<?>> filters = new TreeMap<>();
 
 		for (final Entry<String, Accessor> accessorEntry : filtersAccessors.get(restQuery.getResourceType())
 				.entrySet()) {
 			final Filter<?> filter = Optional.ofNullable(accessorEntry.getValue().get(restQuery))
 					.map(Filter.class::cast).orElse(null);
 
-			if (filter == null || filter.getExpressionProducers().isEmpty()) {
+			if (filter == null || filter.getOperations().isEmpty()) {
 				continue;
 			}
 
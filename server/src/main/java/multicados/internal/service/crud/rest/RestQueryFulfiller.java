@@ -10,6 +10,7 @@ import javax.persistence.EntityManager;
 import org.springframework.security.core.GrantedAuthority;
 
 import multicados.internal.domain.DomainResource;
+import multicados.internal.helper.Utils.HandledConsumer;
 
 /**
  * @author Ngoc Huy
@@ -23,4 +24,11 @@ public interface RestQueryFulfiller<TUPLE, EM extends EntityManager> {
 	<D extends DomainResource> TUPLE read(RestQuery<D> restQuery, GrantedAuthority credential, EM entityManager)
 			throws Exception;
 
+	/**
+	 * Hand every record to the consumer as soon as it is read instead of
+	 * collecting them. The query is unpaged unless a page was requested
+	 */
+	<D extends DomainResource> void stream(RestQuery<D> restQuery, GrantedAuthority credential, EM entityManager,
+			HandledConsumer<? super TUPLE, Exception> consumer) throws Exception;
+
 }
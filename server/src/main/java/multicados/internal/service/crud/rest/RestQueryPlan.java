@@ -0,0 +1,101 @@
+/**
+ *
+ */
+package multicados.internal.service.crud.rest;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.query.Query;
+
+/**
+ * A pre-rendered query of a {@link ComposedRestQuery} shape. The query string
+ * is rendered once with every filter operand expressed as a named parameter,
+ * later executions only bind the requested operands into their slots
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class RestQueryPlan {
+
+	private final String queryString;
+	// slot index -> parameter name, in the order the operands are visited
+	private final String[] slots;
+	// parameters rendered from literals, ie. the fixed specifications. Those left
+	// unbound, ie. the parameters of the row filters, are bound by the caller on
+	// every execution
+	private final Map<String, Object> constants;
+
+	private final int identifierPosition;
+	private final int ownerIdentifierPosition;
+	private final int keysetPosition;
+
+	public RestQueryPlan(Query<?> compiledQuery, List<String> slots, int identifierPosition,
+			int ownerIdentifierPosition, int keysetPosition) {
+		// criteria queries are wrapped, the wrapper hides parameters implicitly
+		// rendered from literals
+		final Query<?> renderedQuery = compiledQuery.unwrap(Query.class);
+		final Map<String, Object> constants = new HashMap<>(0);
+
+		for (final String parameterName : renderedQuery.getParameterMetadata().getNamedParameterNames()) {
+			if (slots.contains(parameterName)
+					|| !renderedQuery.isBound(renderedQuery.getParameter(parameterName))) {
+				continue;
+			}
+
+			constants.put(parameterName, renderedQuery.getParameterValue(parameterName));
+		}
+
+		this.queryString = renderedQuery.getQueryString();
+		this.slots = slots.toArray(String[]::new);
+		this.constants = Collections.unmodifiableMap(constants);
+		this.identifierPosition = identifierPosition;
+		this.ownerIdentifierPosition = ownerIdentifierPosition;
+		this.keysetPosition = keysetPosition;
+	}
+
+	@SuppressWarnings("rawtypes")
+	public <E> Query<E> bind(Query<E> query, List<Object> arguments) {
+		if (arguments.size() != slots.length) {
+			throw new IllegalArgumentException(String.format("Expect %d argument(s), got %d", slots.length,
+					arguments.size()));
+		}
+
+		for (int i = 0; i < slots.length; i++) {
+			final Object argument = arguments.get(i);
+
+			if (argument instanceof Collection) {
+				query.setParameterList(slots[i], (Collection) argument);
+				continue;
+			}
+
+			query.setParameter(slots[i], argument);
+		}
+
+		for (final Map.Entry<String, Object> constant : constants.entrySet()) {
+			query.setParameter(constant.getKey(), constant.getValue());
+		}
+
+		return query;
+	}
+
+	public String getQueryString() {
+		return queryString;
+	}
+
+	public int getIdentifierPosition() {
+		return identifierPosition;
+	}
+
+	public int getOwnerIdentifierPosition() {
+		return ownerIdentifierPosition;
+	}
+
+	public int getKeysetPosition() {
+		return keysetPosition;
+	}
+
+}
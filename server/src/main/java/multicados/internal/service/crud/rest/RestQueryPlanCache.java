@@ -0,0 +1,155 @@
+/**
+ *
+ */
+package multicados.internal.service.crud.rest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded, least-recently-used cache of {@link RestQueryPlan}s keyed by the
+ * shape of their {@link ComposedRestQuery}
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class RestQueryPlanCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(RestQueryPlanCache.class);
+
+	public static final int DEFAULT_MAX_SIZE = 256;
+
+	private final int maxSize;
+	private final Map<String, RestQueryPlan> plans;
+
+	private final AtomicLong hitCount = new AtomicLong();
+	private final AtomicLong missCount = new AtomicLong();
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	public RestQueryPlanCache(int maxSize) {
+		if (maxSize <= 0) {
+			throw new IllegalArgumentException("Max size must be positive");
+		}
+
+		this.maxSize = maxSize;
+		plans = new LinkedHashMap<>(16, .75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, RestQueryPlan> eldest) {
+				if (size() <= RestQueryPlanCache.this.maxSize) {
+					return false;
+				}
+
+				evictionCount.incrementAndGet();
+
+				if (logger.isTraceEnabled()) {
+					logger.trace("Evicting plan [{}]", eldest.getKey());
+				}
+
+				return true;
+			}
+
+		};
+	}
+
+	/**
+	 * @return the cached plan or null
+	 */
+	public RestQueryPlan get(String key) {
+		final RestQueryPlan plan;
+
+		synchronized (plans) {
+			plan = plans.get(key);
+		}
+
+		if (plan == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+
+		hitCount.incrementAndGet();
+		return plan;
+	}
+
+	public void put(String key, RestQueryPlan plan) {
+		synchronized (plans) {
+			plans.putIfAbsent(key, plan);
+		}
+	}
+
+	public int size() {
+		synchronized (plans) {
+			return plans.size();
+		}
+	}
+
+	public Statistics getStatistics() {
+		return new Statistics(size(), maxSize, hitCount.get(), missCount.get(), evictionCount.get());
+	}
+
+	@Override
+	public String toString() {
+		return getStatistics().toString();
+	}
+
+	/**
+	 * A snapshot of the cache metrics
+	 */
+	public static class Statistics {
+
+		private final int size;
+		private final int maxSize;
+		private final long hitCount;
+		private final long missCount;
+		private final long evictionCount;
+
+		public Statistics(int size, int maxSize, long hitCount, long missCount, long evictionCount) {
+			this.size = size;
+			this.maxSize = maxSize;
+			this.hitCount = hitCount;
+			this.missCount = missCount;
+			this.evictionCount = evictionCount;
+		}
+
+		public int getSize() {
+			return size;
+		}
+
+		public int getMaxSize() {
+			return maxSize;
+		}
+
+		public long getHitCount() {
+			return hitCount;
+		}
+
+		public long getMissCount() {
+			return missCount;
+		}
+
+		public long getEvictionCount() {
+			return evictionCount;
+		}
+
+		public double getHitRatio() {
+			final long requestCount = hitCount + missCount;
+
+			return requestCount == 0 ? 1d : (double) hitCount / requestCount;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%s(size=%d/%d, hit=%d, miss=%d, hit-ratio=%.3f, eviction=%d)",
+					RestQueryPlanCache.class.getSimpleName(), size, maxSize, hitCount, missCount, getHitRatio(),
+					evictionCount);
+		}
+
+	}
+
+}
@@ -0,0 +1,429 @@
+/**
+ *
+ */
+package multicados.internal.service.crud.rest;
+
+import java.lang.reflect.Array;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import multicados.internal.domain.DomainResource;
+import multicados.internal.helper.HttpHelper;
+import multicados.internal.helper.Utils.HandledSupplier;
+import multicados.internal.invalidation.InvalidationBus;
+import multicados.internal.service.crud.rest.filter.Filter;
+
+/**
+ * Least-recently-used cache of serialized REST pages, bounded by the total
+ * amount of cached bytes. Responses are keyed by the credential and everything
+ * the {@link ComposedRestQuery} was composed from: attributes, filters with
+ * their operands, the page and the association queries. Cached responses carry
+ * a strong ETag, conditional requests are then answered with 304 by Spring
+ * before any session is opened.
+ *
+ * A response is dropped once a resource it read is written: committed writes
+ * bump the generation of the written type on every node through the
+ * {@link InvalidationBus}, responses read under an older generation are stale
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class RestResponseCache {
+
+	private static final Logger logger = LoggerFactory.getLogger(RestResponseCache.class);
+
+	public static final String INVALIDATION_REGION = "rest-response";
+	public static final long DEFAULT_MAX_BYTES = 16L * 1024 * 1024;
+	public static final long DEFAULT_MAX_ENTRY_BYTES = 512L * 1024;
+
+	private static final String DIGEST_ALGORITHM = "SHA-256";
+	// 128 bits of the digest are plenty to tell pages apart
+	private static final int ETAG_BYTES = 16;
+	private static final HexFormat HEX = HexFormat.of();
+
+	private final ObjectMapper objectMapper;
+	private final TransactionTemplate transactionTemplate;
+	private final InvalidationBus invalidationBus;
+
+	private final long maxBytes;
+	private final long maxEntryBytes;
+
+	private final Map<String, CachedResponse> responses = new LinkedHashMap<>(16, .75f, true);
+	private long usedBytes = 0;
+	// resource type name -> generation
+	private final Map<String, Long> generations = new ConcurrentHashMap<>();
+
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+	private final LongAdder evictionCount = new LongAdder();
+
+	public RestResponseCache(SessionFactory sessionFactory, PlatformTransactionManager transactionManager,
+			ObjectMapper objectMapper, InvalidationBus invalidationBus, long maxBytes, long maxEntryBytes) {
+		this.objectMapper = objectMapper;
+		this.invalidationBus = invalidationBus;
+		this.maxBytes = maxBytes;
+		this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setReadOnly(true);
+
+		invalidationBus.subscribe(INVALIDATION_REGION, this::invalidate);
+
+		final EventListenerRegistry listenerRegistry = sessionFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().requireService(EventListenerRegistry.class);
+		final ResourceModificationListener listener = new ResourceModificationListener();
+
+		listenerRegistry.appendListeners(EventType.POST_COMMIT_INSERT, listener);
+		listenerRegistry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+		listenerRegistry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("Caching up to {} byte(s) of responses, {} byte(s) per response", maxBytes,
+					this.maxEntryBytes);
+		}
+	}
+
+	/**
+	 * Answer the query from the cache, on a miss the reader is run in a
+	 * read-only transaction and its rows are cached as JSON
+	 */
+	public <D extends DomainResource> ResponseEntity<byte[]> readAll(ComposedRestQuery<D> query,
+			GrantedAuthority credential, HandledSupplier<List<Map<String, Object>>, Exception> reader)
+			throws Exception {
+		final String key = resolveKey(new StringBuilder(credential.getAuthority()).append('>'), query).toString();
+		final CachedResponse cachedResponse = get(key);
+
+		if (cachedResponse != null) {
+			hitCount.increment();
+			return send(cachedResponse);
+		}
+
+		missCount.increment();
+		// taken before reading so that writes committed meanwhile make the response stale
+		final String[] resourceTypes = collectResourceTypes(query, new LinkedHashSet<>()).toArray(String[]::new);
+		final long[] readGenerations = new long[resourceTypes.length];
+
+		for (int i = 0; i < resourceTypes.length; i++) {
+			readGenerations[i] = generations.getOrDefault(resourceTypes[i], 0L);
+		}
+
+		final byte[] body = objectMapper.writeValueAsBytes(read(reader));
+		final CachedResponse response = new CachedResponse(body, createETag(body),
+				query.getPage() == null ? null : query.getPage().getNextCursor(), resourceTypes, readGenerations);
+
+		if (body.length <= maxEntryBytes) {
+			put(key, response);
+		}
+
+		return send(response);
+	}
+
+	private List<Map<String, Object>> read(HandledSupplier<List<Map<String, Object>>, Exception> reader)
+			throws Exception {
+		try {
+			return transactionTemplate.execute(status -> {
+				try {
+					return reader.get();
+				} catch (RuntimeException any) {
+					throw any;
+				} catch (Exception any) {
+					throw new ReadFailure(any);
+				}
+			});
+		} catch (ReadFailure failure) {
+			throw (Exception) failure.getCause();
+		}
+	}
+
+	private ResponseEntity<byte[]> send(CachedResponse response) {
+		final ResponseEntity.BodyBuilder builder = ResponseEntity.ok().eTag(response.eTag)
+				.contentType(MediaType.APPLICATION_JSON);
+
+		if (response.nextCursor != null) {
+			builder.header(HttpHelper.NEXT_CURSOR, response.nextCursor);
+		}
+
+		return builder.body(response.body);
+	}
+
+	private CachedResponse get(String key) {
+		synchronized (responses) {
+			final CachedResponse response = responses.get(key);
+
+			if (response == null) {
+				return null;
+			}
+
+			if (!isFresh(response)) {
+				responses.remove(key);
+				usedBytes -= response.body.length;
+				return null;
+			}
+
+			return response;
+		}
+	}
+
+	private boolean isFresh(CachedResponse response) {
+		for (int i = 0; i < response.resourceTypes.length; i++) {
+			if (generations.getOrDefault(response.resourceTypes[i], 0L) != response.generations[i]) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private void put(String key, CachedResponse response) {
+		synchronized (responses) {
+			final CachedResponse replaced = responses.put(key, response);
+
+			usedBytes += response.body.length - (replaced == null ? 0 : replaced.body.length);
+
+			final Iterator<CachedResponse> iterator = responses.values().iterator();
+
+			while (usedBytes > maxBytes && iterator.hasNext()) {
+				final CachedResponse eldest = iterator.next();
+
+				if (eldest == response) {
+					continue;
+				}
+
+				iterator.remove();
+				usedBytes -= eldest.body.length;
+				evictionCount.increment();
+			}
+		}
+	}
+
+	/**
+	 * Stale responses are left to be dropped when they are next read or evicted
+	 */
+	private void invalidate(String resourceType) {
+		generations.merge(resourceType, 1L, Long::sum);
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Invalidated responses of [{}]", resourceType);
+		}
+	}
+
+	private Set<String> collectResourceTypes(ComposedRestQuery<?> query, Set<String> resourceTypes) {
+		resourceTypes.add(query.getResourceType().getName());
+
+		for (final ComposedRestQuery<?> associationQuery : query.getNonBatchingAssociationQueries()) {
+			collectResourceTypes(associationQuery, resourceTypes);
+		}
+
+		for (final ComposedRestQuery<?> associationQuery : query.getBatchingAssociationQueries()) {
+			collectResourceTypes(associationQuery, resourceTypes);
+		}
+
+		return resourceTypes;
+	}
+
+	/**
+	 * Operands are length-prefixed so that no two queries share a key
+	 */
+	private StringBuilder resolveKey(StringBuilder builder, ComposedRestQuery<?> query) {
+		builder.append(query.getResourceType().getName()).append(query.getAttributes());
+
+		for (final Map.Entry<String, Filter<?>> filterEntry : query.getFilters().entrySet()) {
+			builder.append(filterEntry.getKey());
+
+			for (final Filter.Operation operation : filterEntry.getValue().getOperations()) {
+				builder.append(':').append(operation.getOperator());
+
+				for (final Object operand : operation.getOperands()) {
+					appendOperand(builder, operand);
+				}
+			}
+		}
+
+		final DelegatedPageable page = query.getPage();
+
+		if (page != null) {
+			builder.append('#').append(page.getPageNumber()).append(',').append(page.getPageSize()).append(',')
+					.append(page.getSort());
+			appendOperand(builder, page.getAfter());
+		}
+
+		for (final ComposedRestQuery<?> associationQuery : query.getNonBatchingAssociationQueries()) {
+			resolveKey(builder.append('{').append(associationQuery.getAssociationName()).append('='),
+					associationQuery).append('}');
+		}
+
+		for (final ComposedRestQuery<?> associationQuery : query.getBatchingAssociationQueries()) {
+			resolveKey(builder.append('[').append(associationQuery.getAssociationName()).append('='),
+					associationQuery).append(']');
+		}
+
+		return builder;
+	}
+
+	private void appendOperand(StringBuilder builder, Object operand) {
+		if (operand == null) {
+			builder.append('~');
+			return;
+		}
+
+		if (operand.getClass().isArray()) {
+			final int length = Array.getLength(operand);
+
+			builder.append('(').append(length);
+
+			for (int i = 0; i < length; i++) {
+				appendOperand(builder, Array.get(operand, i));
+			}
+
+			builder.append(')');
+			return;
+		}
+
+		final String value = operand.toString();
+
+		builder.append(value.length()).append('\'').append(value);
+	}
+
+	private String createETag(byte[] body) {
+		try {
+			return '"' + HEX.formatHex(MessageDigest.getInstance(DIGEST_ALGORITHM).digest(body), 0, ETAG_BYTES) + '"';
+		} catch (NoSuchAlgorithmException any) {
+			throw new IllegalStateException(any);
+		}
+	}
+
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.sum();
+	}
+
+	@Override
+	public String toString() {
+		synchronized (responses) {
+			return String.format("%s(size=%d, bytes=%d/%d, hit=%d, miss=%d, eviction=%d)",
+					RestResponseCache.class.getSimpleName(), responses.size(), usedBytes, maxBytes, getHitCount(),
+					getMissCount(), getEvictionCount());
+		}
+	}
+
+	private class ResourceModificationListener
+			implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean requiresPostCommitHandling(EntityPersister persister) {
+			return DomainResource.class.isAssignableFrom(persister.getMappedClass());
+		}
+
+		// still abstract in Hibernate 5
+		@Override
+		@Deprecated
+		public boolean requiresPostCommitHanding(EntityPersister persister) {
+			return requiresPostCommitHandling(persister);
+		}
+
+		/**
+		 * Queries of a parent type read the written resource as well
+		 */
+		private void publish(EntityPersister persister) {
+			for (Class<?> type = persister.getMappedClass(); type != null
+					&& DomainResource.class.isAssignableFrom(type); type = type.getSuperclass()) {
+				invalidationBus.publish(INVALIDATION_REGION, type.getName());
+			}
+		}
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			publish(event.getPersister());
+		}
+
+		@Override
+		public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			publish(event.getPersister());
+		}
+
+		@Override
+		public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+		@Override
+		public void onPostDelete(PostDeleteEvent event) {
+			publish(event.getPersister());
+		}
+
+		@Override
+		public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+	}
+
+	private static class CachedResponse {
+
+		private final byte[] body;
+		private final String eTag;
+		private final String nextCursor;
+		// the resources which were read, with their generations at the time
+		private final String[] resourceTypes;
+		private final long[] generations;
+
+		public CachedResponse(byte[] body, String eTag, String nextCursor, String[] resourceTypes,
+				long[] generations) {
+			this.body = body;
+			this.eTag = eTag;
+			this.nextCursor = nextCursor;
+			this.resourceTypes = resourceTypes;
+			this.generations = generations;
+		}
+
+	}
+
+	private static class ReadFailure extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		public ReadFailure(Exception cause) {
+			super(cause);
+		}
+
+	}
+
+}
@@ -9,6 +9,8 @@ import java.util.List;
 import javax.persistence.criteria.Path;
 
 import multicados.internal.service.crud.rest.filter.Filter.AbstractFilterImplementor;
+import multicados.internal.service.crud.rest.filter.Filter.Operation;
+import multicados.internal.service.crud.rest.filter.Filter.Operator;
 import multicados.internal.service.crud.rest.filter.Filter.Plural;
 
 /**
@@ -28,7 +30,8 @@ public abstract class AbstractPluralFilter<T> extends AbstractFilterImplementor<
 	@SuppressWarnings("unchecked")
 	public void setIn(T[] in) {
 		this.in = in;
-		expressionProducers.add((path, builder) -> builder.in((Path<Collection<?>>) path).value(List.of(in)));
+		operations.add(new Operation(Operator.IN,
+				(path, builder) -> builder.in((Path<Collection<?>>) path).value(List.of(in)), List.of(in)));
 	}
 
 	@Override
@@ -39,8 +42,9 @@ public abstract class AbstractPluralFilter<T> extends AbstractFilterImplementor<
 	@SuppressWarnings("unchecked")
 	public void setNi(T[] notIn) {
 		this.ni = notIn;
-		expressionProducers
-				.add((path, builder) -> builder.not(builder.in((Path<Collection<?>>) path).value(List.of(ni))));
+		operations.add(new Operation(Operator.NI,
+				(path, builder) -> builder.not(builder.in((Path<Collection<?>>) path).value(List.of(ni))),
+				List.of(ni)));
 	}
 
 }
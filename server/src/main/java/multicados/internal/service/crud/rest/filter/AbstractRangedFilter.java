@@ -6,6 +6,8 @@ package multicados.internal.service.crud.rest.filter;
 import javax.persistence.criteria.Expression;
 
 import multicados.internal.service.crud.rest.filter.Filter.AbstractFilterImplementor;
+import multicados.internal.service.crud.rest.filter.Filter.Operation;
+import multicados.internal.service.crud.rest.filter.Filter.Operator;
 import multicados.internal.service.crud.rest.filter.Filter.Ranged;
 
 /**
@@ -49,8 +51,8 @@ public abstract class AbstractRangedFilter<T> extends AbstractFilterImplementor<
 
 	@SuppressWarnings({ "unchecked", "rawtypes" })
 	private void addProducer() {
-		expressionProducers.add((path, builder) -> builder.between((Expression) path,
-				(Expression) builder.literal(from), (Expression) builder.literal(to)));
+		operations.add(new Operation(Operator.BETWEEN, (path, builder) -> builder.between((Expression) path,
+				(Expression) builder.literal(from), (Expression) builder.literal(to)), from, to));
 	}
 
 }
@@ -4,6 +4,8 @@
 package multicados.internal.service.crud.rest.filter;
 
 import multicados.internal.service.crud.rest.filter.Filter.AbstractFilterImplementor;
+import multicados.internal.service.crud.rest.filter.Filter.Operation;
+import multicados.internal.service.crud.rest.filter.Filter.Operator;
 import multicados.internal.service.crud.rest.filter.Filter.Singular;
 
 /**
@@ -22,7 +24,7 @@ public abstract class AbstractSingularFilter<T> extends AbstractFilterImplemento
 
 	public void setEqual(T equal) {
 		this.equal = equal;
-		expressionProducers.add((path, builder) -> builder.equal(path, this.equal));
+		operations.add(new Operation(Operator.EQUAL, (path, builder) -> builder.equal(path, this.equal), equal));
 	}
 
 	@Override
@@ -32,7 +34,7 @@ public abstract class AbstractSingularFilter<T> extends AbstractFilterImplemento
 
 	public void setNot(T not) {
 		this.not = not;
-		expressionProducers.add((path, builder) -> builder.notEqual(path, this.not));
+		operations.add(new Operation(Operator.NOT, (path, builder) -> builder.notEqual(path, this.not), not));
 	}
 
 }
@@ -4,16 +4,12 @@
 package multicados.internal.service.crud.rest.filter;
 
 import java.util.List;
-import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.Path;
-import javax.persistence.criteria.Predicate;
-
 import multicados.internal.service.crud.rest.filter.Filter.AbstractFilterImplementor;
+import multicados.internal.service.crud.rest.filter.Filter.Operation;
 
 /**
  * @author Ngoc Huy
@@ -62,11 +58,11 @@ public abstract class AbstractSingularPluralFilter<T> extends AbstractFilterImpl
 	}
 
 	@Override
-	public List<BiFunction<Path<?>, CriteriaBuilder, Predicate>> getExpressionProducers() {
+	public List<Operation> getOperations() {
 		// @formatter:off
 		return Stream.of(
-					singular.expressionProducers.stream(),
-					plural.expressionProducers.stream())
+					singular.operations.stream(),
+					plural.operations.stream())
 				.flatMap(Function.identity())
 				.collect(Collectors.toList());
 		// @formatter:on
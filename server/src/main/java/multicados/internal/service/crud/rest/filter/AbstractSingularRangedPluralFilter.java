@@ -4,14 +4,11 @@
 package multicados.internal.service.crud.rest.filter;
 
 import java.util.List;
-import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.Path;
-import javax.persistence.criteria.Predicate;
+import multicados.internal.service.crud.rest.filter.Filter.Operation;
 
 /**
  * @author Ngoc Huy
@@ -79,12 +76,12 @@ public abstract class AbstractSingularRangedPluralFilter<T>
 	}
 
 	@Override
-	public List<BiFunction<Path<?>, CriteriaBuilder, Predicate>> getExpressionProducers() {
+	public List<Operation> getOperations() {
 		// @formatter:off
 		return Stream.of(
-						singular.expressionProducers.stream(),
-						ranged.expressionProducers.stream(),
-						plural.expressionProducers.stream())
+						singular.operations.stream(),
+						ranged.operations.stream(),
+						plural.operations.stream())
 				.flatMap(Function.identity()).collect(Collectors.toList());
 		// @formatter:on
 	}
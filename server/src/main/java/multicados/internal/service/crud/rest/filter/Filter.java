@@ -4,33 +4,165 @@
 package multicados.internal.service.crud.rest.filter;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.function.BiFunction;
 
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 
+import org.springframework.util.ClassUtils;
+
 /**
  * @author Ngoc Huy
  *
  */
 public interface Filter<T> {
 
-	List<BiFunction<Path<?>, CriteriaBuilder, Predicate>> getExpressionProducers();
+	/**
+	 * @return every requested {@link Operation}, in the order they were requested
+	 */
+	List<Operation> getOperations();
+
+	default List<BiFunction<Path<?>, CriteriaBuilder, Predicate>> getExpressionProducers() {
+		return getOperations().stream().map(Operation::getExpressionProducer).toList();
+	}
 
 	public static abstract class AbstractFilterImplementor<T> implements Filter<T> {
 
-		protected final List<BiFunction<Path<?>, CriteriaBuilder, Predicate>> expressionProducers = new ArrayList<>(
-				INIT_CAPACITY);
+		protected final List<Operation> operations = new ArrayList<>(INIT_CAPACITY);
 
 		private static final int INIT_CAPACITY = 7;
 
 		@Override
-		public List<BiFunction<Path<?>, CriteriaBuilder, Predicate>> getExpressionProducers() {
-			return expressionProducers;
+		public List<Operation> getOperations() {
+			return operations;
+		}
+
+	}
+
+	/**
+	 * Describes a requested filter operation, its operands are kept so that the
+	 * operation can also be expressed with query parameters
+	 *
+	 * @author Ngoc Huy
+	 *
+	 */
+	public static class Operation {
+
+		private final Operator operator;
+		private final BiFunction<Path<?>, CriteriaBuilder, Predicate> expressionProducer;
+		private final Object[] operands;
+
+		public Operation(Operator operator, BiFunction<Path<?>, CriteriaBuilder, Predicate> expressionProducer,
+				Object... operands) {
+			this.operator = operator;
+			this.expressionProducer = expressionProducer;
+			this.operands = operands;
+		}
+
+		public Operator getOperator() {
+			return operator;
+		}
+
+		/**
+		 * @return the producer which uses the operands as literals
+		 */
+		public BiFunction<Path<?>, CriteriaBuilder, Predicate> getExpressionProducer() {
+			return expressionProducer;
 		}
 
+		public Object[] getOperands() {
+			return operands;
+		}
+
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public enum Operator {
+
+		EQUAL(1) {
+			@Override
+			public Predicate toPredicate(Path<?> path, CriteriaBuilder builder, Expression<?>... operands) {
+				return builder.equal(path, operands[0]);
+			}
+		},
+
+		NOT(1) {
+			@Override
+			public Predicate toPredicate(Path<?> path, CriteriaBuilder builder, Expression<?>... operands) {
+				return builder.notEqual(path, operands[0]);
+			}
+		},
+
+		LIKE(1) {
+			@Override
+			public Predicate toPredicate(Path<?> path, CriteriaBuilder builder, Expression<?>... operands) {
+				return builder.like((Path<String>) path, (Expression<String>) operands[0]);
+			}
+
+			@Override
+			public Class<?> getOperandType(Path<?> path) {
+				return String.class;
+			}
+		},
+
+		IN(1) {
+			@Override
+			public Predicate toPredicate(Path<?> path, CriteriaBuilder builder, Expression<?>... operands) {
+				return path.in((Expression<Collection<?>>) operands[0]);
+			}
+
+			@Override
+			public Class<?> getOperandType(Path<?> path) {
+				return Collection.class;
+			}
+		},
+
+		NI(1) {
+			@Override
+			public Predicate toPredicate(Path<?> path, CriteriaBuilder builder, Expression<?>... operands) {
+				return builder.not(path.in((Expression<Collection<?>>) operands[0]));
+			}
+
+			@Override
+			public Class<?> getOperandType(Path<?> path) {
+				return Collection.class;
+			}
+		},
+
+		BETWEEN(2) {
+			@Override
+			public Predicate toPredicate(Path<?> path, CriteriaBuilder builder, Expression<?>... operands) {
+				return builder.between((Expression) path, (Expression) operands[0], (Expression) operands[1]);
+			}
+		};
+
+		private final int arity;
+
+		private Operator(int arity) {
+			this.arity = arity;
+		}
+
+		public int getArity() {
+			return arity;
+		}
+
+		/**
+		 * @return the java type of the operands when they are expressed as parameters
+		 */
+		public Class<?> getOperandType(Path<?> path) {
+			return ClassUtils.resolvePrimitiveIfNecessary(path.getJavaType());
+		}
+
+		/**
+		 * Produce the {@link Predicate} using the given operand expressions, which are
+		 * usually parameters
+		 */
+		public abstract Predicate toPredicate(Path<?> path, CriteriaBuilder builder, Expression<?>... operands);
+
 	}
 
 	public interface Singular<T> extends Filter<T> {
@@ -10,13 +10,13 @@ import java.time.LocalTime;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.UUID;
-import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.stream.Stream;
 
-import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Path;
-import javax.persistence.criteria.Predicate;
+
+import multicados.internal.service.crud.rest.filter.Filter.Operation;
+import multicados.internal.service.crud.rest.filter.Filter.Operator;
 
 /**
  * @author Ngoc Huy
@@ -41,7 +41,8 @@ public interface Filters {
 		@SuppressWarnings("unchecked")
 		public void setLike(String like) {
 			this.like = like;
-			expressionProducers.add((path, builder) -> builder.like((Path<String>) path, getLikeValue()));
+			operations.add(new Operation(Operator.LIKE, (path, builder) -> builder.like((Path<String>) path, getLikeValue()),
+					getLikeValue()));
 		}
 
 		private String getLikeValue() {
@@ -49,12 +50,12 @@ public interface Filters {
 		}
 
 		@Override
-		public List<BiFunction<Path<?>, CriteriaBuilder, Predicate>> getExpressionProducers() {
+		public List<Operation> getOperations() {
 			// @formatter:off
 			return Stream.of(
-						singular.expressionProducers.stream(),
-						plural.expressionProducers.stream(),
-						expressionProducers.stream())
+						singular.operations.stream(),
+						plural.operations.stream(),
+						operations.stream())
 					.flatMap(Function.identity())
 					.toList();
 			// @formatter:on
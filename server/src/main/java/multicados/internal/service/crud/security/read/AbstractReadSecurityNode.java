@@ -4,80 +4,206 @@
 package multicados.internal.service.crud.security.read;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.hibernate.internal.util.collections.CollectionHelper;
 import org.springframework.security.core.GrantedAuthority;
 
 import multicados.internal.domain.DomainResource;
 import multicados.internal.domain.metadata.DomainResourceAttributesMetadata;
 import multicados.internal.domain.metadata.DomainResourceMetadata;
+import multicados.internal.helper.CollectionHelper;
 import multicados.internal.security.CredentialException;
 
 /**
+ * Attributes of the resource are compiled into dense ordinals, every credential
+ * into a bitset of the ordinals it may read, so that a check is a lookup of the
+ * requested names followed by bit tests. Successful checks of a requested
+ * attribute list are memoized per credential
+ *
  * @author Ngoc Huy
  *
  */
 public abstract class AbstractReadSecurityNode<D extends DomainResource> implements ReadSecurityNode<D> {
 
+	static final int MEMO_MAX_SIZE = 64;
+
+	private static final int WORD_SIZE = Long.SIZE;
+
 	private final DomainResourceAttributesMetadata<D> metadata;
 	private final ReadFailureExceptionHandler exceptionHandler;
 
+	// ordinal -> attribute name
+	private final String[] attributeNames;
+	private final Map<String, Integer> ordinals;
+
 	@SuppressWarnings("unchecked")
 	public AbstractReadSecurityNode(DomainResourceMetadata<D> metadata, ReadFailureExceptionHandler exceptionHandler) {
 		this.metadata = metadata.unwrap(DomainResourceAttributesMetadata.class);
 		this.exceptionHandler = exceptionHandler;
+
+		final List<String> attributeNames = this.metadata.getAttributeNames();
+		final Map<String, Integer> ordinals = new HashMap<>(attributeNames.size(), 1f);
+
+		for (int i = 0; i < attributeNames.size(); i++) {
+			ordinals.put(attributeNames.get(i), i);
+		}
+
+		this.attributeNames = attributeNames.toArray(String[]::new);
+		this.ordinals = Collections.unmodifiableMap(ordinals);
 	}
 
 	@Override
 	public List<String> check(Collection<String> requestedAttributes, GrantedAuthority credential)
 			throws CredentialException, UnknownAttributesException {
-		String credentialValue = credential.getAuthority();
-		Set<String> authorizedAttributesByCredential = getAuthorizedAttributes(credentialValue);
-		int authorizedAttributesSpan = authorizedAttributesByCredential.size();
+		final String credentialValue = credential.getAuthority();
+		final AuthorizedAttributes authorizedAttributes = getAuthorizedAttributes(credentialValue);
 
-		if (CollectionHelper.isEmpty(authorizedAttributesByCredential)) {
+		if (authorizedAttributes == null || authorizedAttributes.isEmpty()) {
 			exceptionHandler.doOnUnauthorizedCredential(metadata.getResourceType(), credentialValue);
+			return Collections.emptyList();
 		}
 
 		if (CollectionHelper.isEmpty(requestedAttributes)) {
-			requestedAttributes = giveSomeAttributes(authorizedAttributesByCredential);
+			return authorizedAttributes.defaultAttributes;
+		}
+		// other collections may iterate equal contents in different orders
+		if (!(requestedAttributes instanceof List)) {
+			return doCheck(requestedAttributes, credentialValue, authorizedAttributes);
+		}
+
+		final List<String> memoizedAttributes = authorizedAttributes.memo.get(requestedAttributes);
+
+		if (memoizedAttributes != null) {
+			return memoizedAttributes;
 		}
 
-		List<String> checkedAttributes = new ArrayList<>(authorizedAttributesSpan);
-		List<String> unauthorziedAttributes = new ArrayList<>(authorizedAttributesSpan);
+		final List<String> checkedAttributes = doCheck(requestedAttributes, credentialValue, authorizedAttributes);
 
-		for (String requestedAttribute : requestedAttributes) {
-			String actualAttributeName = getActualAttributeName(requestedAttribute);
+		authorizedAttributes.memoize(new ArrayList<>(requestedAttributes), checkedAttributes);
 
-			if (!authorizedAttributesByCredential.contains(actualAttributeName)) {
-				unauthorziedAttributes.add(requestedAttribute);
+		return checkedAttributes;
+	}
+
+	private List<String> doCheck(Collection<String> requestedAttributes, String credentialValue,
+			AuthorizedAttributes authorizedAttributes) throws UnknownAttributesException {
+		final String[] checkedAttributes = new String[requestedAttributes.size()];
+		int checkedSpan = 0;
+		List<String> unauthorizedAttributes = null;
+
+		for (final String requestedAttribute : requestedAttributes) {
+			final int ordinal = locateOrdinal(requestedAttribute);
+
+			if (ordinal < 0 || !authorizedAttributes.contains(ordinal)) {
+				if (unauthorizedAttributes == null) {
+					unauthorizedAttributes = new ArrayList<>();
+				}
+
+				unauthorizedAttributes.add(requestedAttribute);
 				continue;
 			}
 
-			checkedAttributes.add(actualAttributeName);
+			checkedAttributes[checkedSpan++] = attributeNames[ordinal];
 		}
 
-		if (!unauthorziedAttributes.isEmpty()) {
+		if (unauthorizedAttributes != null) {
 			exceptionHandler.doOnUnauthorizedAttribute(metadata.getResourceType(), credentialValue,
-					unauthorziedAttributes);
+					unauthorizedAttributes);
 		}
 
-		return checkedAttributes;
+		return Collections.unmodifiableList(Arrays.asList(checkedSpan == checkedAttributes.length ? checkedAttributes
+				: Arrays.copyOf(checkedAttributes, checkedSpan)));
 	}
 
-	private List<String> giveSomeAttributes(Set<String> authorizedAttributesByCredential) {
-		return metadata.getNonLazyAttributeNames().stream().filter(authorizedAttributesByCredential::contains).toList();
+	/**
+	 * Compile the attribute names into the attributes which a credential is
+	 * authorized to read
+	 */
+	protected AuthorizedAttributes compile(Collection<String> authorizedAttributeNames) {
+		final long[] bits = new long[(attributeNames.length + WORD_SIZE - 1) / WORD_SIZE];
+
+		for (final String attributeName : authorizedAttributeNames) {
+			final Integer ordinal = ordinals.get(attributeName);
+
+			if (ordinal == null) {
+				throw new IllegalArgumentException(String.format("Unknown attribute [%s] in type [%s]", attributeName,
+						metadata.getResourceType().getName()));
+			}
+
+			bits[ordinal / WORD_SIZE] |= 1L << (ordinal % WORD_SIZE);
+		}
+
+		final AuthorizedAttributes authorizedAttributes = new AuthorizedAttributes(bits);
+		// requests without attributes are given every non-lazy authorized attribute
+		authorizedAttributes.defaultAttributes = metadata.getNonLazyAttributeNames().stream()
+				.filter(attributeName -> authorizedAttributes.contains(ordinals.get(attributeName))).toList();
+
+		return authorizedAttributes;
+	}
+
+	/**
+	 * @return the ordinal of the attribute name, -1 if there is no such attribute
+	 */
+	protected int getOrdinal(String attributeName) {
+		final Integer ordinal = ordinals.get(attributeName);
+
+		return ordinal == null ? -1 : ordinal;
 	}
 
-	protected abstract String getActualAttributeName(String requestedName);
+	/**
+	 * @return the ordinal of the requested name, -1 if it names no attribute
+	 */
+	protected abstract int locateOrdinal(String requestedName);
 
-	protected abstract Set<String> getAuthorizedAttributes(String credentialValue);
+	/**
+	 * @return null if the credential is unknown, it is then treated like a
+	 *         credential which is not authorized to read anything
+	 */
+	protected abstract AuthorizedAttributes getAuthorizedAttributes(String credentialValue);
 
 	protected DomainResourceAttributesMetadata<D> getMetadata() {
 		return metadata;
 	}
 
+	protected static class AuthorizedAttributes {
+
+		private final long[] bits;
+		private List<String> defaultAttributes;
+		// requested attributes -> checked attributes
+		private final Map<List<String>, List<String>> memo = new ConcurrentHashMap<>(MEMO_MAX_SIZE);
+
+		private AuthorizedAttributes(long[] bits) {
+			this.bits = bits;
+		}
+
+		private boolean isEmpty() {
+			for (final long word : bits) {
+				if (word != 0) {
+					return false;
+				}
+			}
+
+			return true;
+		}
+
+		private boolean contains(int ordinal) {
+			return (bits[ordinal / WORD_SIZE] & (1L << (ordinal % WORD_SIZE))) != 0;
+		}
+
+		private void memoize(List<String> requestedAttributes, List<String> checkedAttributes) {
+			// requests are mostly shaped by the clients, a full memo is simply refilled
+			if (memo.size() >= MEMO_MAX_SIZE) {
+				memo.clear();
+			}
+
+			memo.put(requestedAttributes, checkedAttributes);
+		}
+
+	}
+
 }
@@ -4,13 +4,12 @@
 package multicados.internal.service.crud.security.read;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 import multicados.internal.domain.DomainResource;
-import multicados.internal.domain.metadata.DomainResourceAttributesMetadata;
 import multicados.internal.domain.metadata.DomainResourceMetadata;
 
 /**
@@ -19,33 +18,39 @@ import multicados.internal.domain.metadata.DomainResourceMetadata;
  */
 public class DefaultReadSecurityNode<D extends DomainResource> extends AbstractReadSecurityNode<D> {
 
-	private final Set<String> authorizedAttributes;
+	// every credential reads every attribute
+	private final AuthorizedAttributes authorizedAttributes;
+	private final Map<String, String> translatedAttributes;
 
-	@SuppressWarnings("unchecked")
 	public DefaultReadSecurityNode(DomainResourceMetadata<D> metadata, ReadFailureExceptionHandler exceptionThrower) {
 		super(metadata, exceptionThrower);
-		authorizedAttributes = new HashSet<>(
-				metadata.unwrap(DomainResourceAttributesMetadata.class).getAttributeNames());
+
+		final List<String> attributeNames = getMetadata().getAttributeNames();
+		final Map<String, String> translatedAttributes = new HashMap<>(attributeNames.size(), 1f);
+
+		for (final String attributeName : attributeNames) {
+			translatedAttributes.put(attributeName, attributeName);
+		}
+
+		this.authorizedAttributes = compile(attributeNames);
+		this.translatedAttributes = Collections.unmodifiableMap(translatedAttributes);
 	}
 
 	@Override
-	protected String getActualAttributeName(String requestedName) {
-		return requestedName;
+	protected int locateOrdinal(String requestedName) {
+		return getOrdinal(requestedName);
 	}
 
+	/**
+	 * @return every attribute mapped to itself, a superset of the attributes
+	 */
 	@Override
 	public Map<String, String> translate(Collection<String> attributes) {
-		Map<String, String> translatedAttributes = new HashMap<>(attributes.size(), 1.5f);
-
-		for (String attribute : attributes) {
-			translatedAttributes.put(attribute, attribute);
-		}
-
 		return translatedAttributes;
 	}
 
 	@Override
-	protected Set<String> getAuthorizedAttributes(String credentialValue) {
+	protected AuthorizedAttributes getAuthorizedAttributes(String credentialValue) {
 		return authorizedAttributes;
 	}
 
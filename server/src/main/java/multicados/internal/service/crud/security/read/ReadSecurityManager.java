@@ -5,7 +5,9 @@ package multicados.internal.service.crud.security.read;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.GrantedAuthority;
 
 import multicados.internal.context.ContextBuilder;
@@ -22,6 +24,21 @@ public interface ReadSecurityManager extends DomainResourceAttributeTranslator,
 	<D extends DomainResource> List<String> check(Class<D> resourceType, Collection<String> requestedAttributes,
 			GrantedAuthority credential) throws CredentialException, UnknownAttributesException;
 
+	/**
+	 * @return the rows of the type which the credential may read, chained with the
+	 *         filters contributed to its parent types, null if rows are not
+	 *         filtered for the credential
+	 */
+	<D extends DomainResource> Specification<D> getRowFilter(Class<D> resourceType, GrantedAuthority credential);
+
+	/**
+	 * @return parameter name -> value of every {@link RowFilterParameter} the row
+	 *         filter of the type declares for the credential, resolved for the
+	 *         current request
+	 */
+	<D extends DomainResource> Map<String, Object> getRowFilterArguments(Class<D> resourceType,
+			GrantedAuthority credential);
+
 	interface WithType<D extends DomainResource> {
 
 		WithCredential<D> credentials(GrantedAuthority... credentials);
@@ -40,6 +57,14 @@ public interface ReadSecurityManager extends DomainResourceAttributeTranslator,
 
 		WithCredential<D> publish();
 
+		/**
+		 * Restrict the rows which the credentials may read, filters declared more
+		 * than once are and-ed. Filters are compiled once and their literals are
+		 * cached with the query plans, values which depend on the request, eg. the
+		 * principal, must be declared as {@link RowFilterParameter}s
+		 */
+		WithCredential<D> filter(Specification<D> rowFilter, RowFilterParameter<?>... parameters);
+
 		<E extends DomainResource> WithType<E> type(Class<E> type);
 
 	}
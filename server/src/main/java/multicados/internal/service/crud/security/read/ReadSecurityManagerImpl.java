@@ -17,6 +17,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.BinaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -27,6 +28,7 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.core.env.Environment;
 import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.GrantedAuthority;
 
 import multicados.internal.config.Settings;
@@ -52,7 +54,13 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 
 	@SuppressWarnings("rawtypes")
 	private final Map<Class<? extends DomainResource>, ReadSecurityNode> securityNodes;
+	// type -> credential -> row filter
+	@SuppressWarnings("rawtypes")
+	private final Map<Class<? extends DomainResource>, Map<String, Specification>> rowFilters;
+	// type -> credential -> parameters of the row filter
+	private final Map<Class<? extends DomainResource>, Map<String, List<RowFilterParameter<?>>>> rowFilterParameters;
 
+	@SuppressWarnings("unchecked")
 	@Autowired
 	public ReadSecurityManagerImpl(Environment env, DomainResourceContext resourceContext)
 			throws IllegalAccessException, Exception {
@@ -61,10 +69,11 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 		}
 
 		final ReadFailureExceptionHandler failureHandler = resolveFailureHandler(env);
+		final CRUDSecurityManagerBuilder builder = new CRUDSecurityManagerBuilderImpl(resourceContext);
 		// @formatter:off
 		securityNodes = Utils
 			.declare(scanForContributors())
-				.second(new CRUDSecurityManagerBuilderImpl(resourceContext))
+				.second(builder)
 			.then(this::doContribute)
 				.second(resourceContext)
 				.third(failureHandler)
@@ -75,6 +84,10 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 			.then(Collections::unmodifiableMap)
 			.get();
 		// @formatter:on
+		rowFilters = Collections.unmodifiableMap(compileRowFilters(builder.getContributedRowFilters(),
+				(current, next) -> current.and(next), resourceContext));
+		rowFilterParameters = Collections.unmodifiableMap(compileRowFilters(
+				builder.getContributedRowFilterParameters(), ReadSecurityManagerImpl::concat, resourceContext));
 	}
 
 	@Override
@@ -95,6 +108,48 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 		return readSecurityNode.check(requestedAttributes, credential);
 	}
 
+	@SuppressWarnings("unchecked")
+	@Override
+	public <D extends DomainResource> Specification<D> getRowFilter(Class<D> resourceType,
+			GrantedAuthority credential) {
+		@SuppressWarnings("rawtypes")
+		final Map<String, Specification> typedFilters = rowFilters.get(resourceType);
+
+		if (typedFilters == null) {
+			return null;
+		}
+
+		return typedFilters.get(credential.getAuthority());
+	}
+
+	@Override
+	public <D extends DomainResource> Map<String, Object> getRowFilterArguments(Class<D> resourceType,
+			GrantedAuthority credential) {
+		final List<RowFilterParameter<?>> parameters = rowFilterParameters
+				.getOrDefault(resourceType, Collections.emptyMap()).get(credential.getAuthority());
+
+		if (parameters == null) {
+			return Collections.emptyMap();
+		}
+
+		final Map<String, Object> arguments = new HashMap<>(parameters.size());
+
+		for (final RowFilterParameter<?> parameter : parameters) {
+			arguments.put(parameter.getName(), parameter.resolve());
+		}
+
+		return arguments;
+	}
+
+	private static <T> List<T> concat(List<T> current, List<T> next) {
+		final List<T> concatenation = new ArrayList<>(current.size() + next.size());
+
+		concatenation.addAll(current);
+		concatenation.addAll(next);
+
+		return concatenation;
+	}
+
 	private boolean shouldConstructNode(Class<? extends DomainResource> resourceType) {
 		return !Modifier.isInterface(resourceType.getModifiers());
 	}
@@ -138,6 +193,58 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 		return securityNodes;
 	}
 
+	/**
+	 * Chain the row filters, or their parameters, contributed to every parent of a
+	 * type, once, so that reads only look the compiled filter up by their
+	 * credential
+	 */
+	private <T> Map<Class<? extends DomainResource>, Map<String, T>> compileRowFilters(
+			Map<Class<? extends DomainResource>, Map<String, T>> contributedFilters, BinaryOperator<T> chainer,
+			DomainResourceContext resourceContext) throws Exception {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Compiling row filters");
+		}
+
+		final Map<Class<? extends DomainResource>, Map<String, T>> compiledFilters = new HashMap<>();
+
+		if (contributedFilters.isEmpty()) {
+			return compiledFilters;
+		}
+
+		for (final Class<? extends DomainResource> resourceType : resourceContext.getResourceGraph()
+				.collect(DomainResourceGraphCollectors.toTypesSet())) {
+			if (!shouldConstructNode(resourceType)) {
+				continue;
+			}
+
+			final Map<String, T> typedFilters = new HashMap<>();
+
+			for (final Map.Entry<Class<? extends DomainResource>, Map<String, T>> contribution : contributedFilters
+					.entrySet()) {
+				if (!TypeHelper.isParentOf(contribution.getKey(), resourceType)) {
+					continue;
+				}
+
+				for (final Map.Entry<String, T> filter : contribution.getValue().entrySet()) {
+					typedFilters.merge(filter.getKey(), filter.getValue(), chainer);
+				}
+			}
+
+			if (typedFilters.isEmpty()) {
+				continue;
+			}
+
+			if (logger.isDebugEnabled()) {
+				logger.debug("Filtering rows of type [{}] for credential(s) {}", resourceType.getName(),
+						typedFilters.keySet());
+			}
+
+			compiledFilters.put(resourceType, Collections.unmodifiableMap(typedFilters));
+		}
+
+		return compiledFilters;
+	}
+
 	@SuppressWarnings({ "rawtypes" })
 	private Map<Class<? extends DomainResource>, ReadSecurityNode> constructEmptyNodes(
 			Map<Class<? extends DomainResource>, ReadSecurityNode> configuredNodes,
@@ -248,6 +355,18 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 		@SuppressWarnings("rawtypes")
 		Set<SecuredAttribute> getContributedAttributes();
 
+		/**
+		 * @return type -> credential -> the and-ed row filters declared on the type
+		 */
+		@SuppressWarnings("rawtypes")
+		Map<Class<? extends DomainResource>, Map<String, Specification>> getContributedRowFilters();
+
+		/**
+		 * @return type -> credential -> parameters of the row filters declared on the
+		 *         type
+		 */
+		Map<Class<? extends DomainResource>, Map<String, List<RowFilterParameter<?>>>> getContributedRowFilterParameters();
+
 	}
 
 	private class CRUDSecurityManagerBuilderImpl implements CRUDSecurityManagerBuilder {
@@ -256,6 +375,9 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 
 		@SuppressWarnings("rawtypes")
 		private final Map<Key, SecuredAttributeImpl> securedAttributes = new HashMap<>();
+		@SuppressWarnings("rawtypes")
+		private final Map<Class<? extends DomainResource>, Map<String, Specification>> rowFilters = new HashMap<>();
+		private final Map<Class<? extends DomainResource>, Map<String, List<RowFilterParameter<?>>>> rowFilterParameters = new HashMap<>();
 		private final DomainResourceContext context;
 
 		public CRUDSecurityManagerBuilderImpl(DomainResourceContext context) {
@@ -268,6 +390,17 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 			return securedAttributes.values().stream().collect(Collectors.toSet());
 		}
 
+		@SuppressWarnings("rawtypes")
+		@Override
+		public Map<Class<? extends DomainResource>, Map<String, Specification>> getContributedRowFilters() {
+			return Collections.unmodifiableMap(rowFilters);
+		}
+
+		@Override
+		public Map<Class<? extends DomainResource>, Map<String, List<RowFilterParameter<?>>>> getContributedRowFilterParameters() {
+			return Collections.unmodifiableMap(rowFilterParameters);
+		}
+
 		@Override
 		public <D extends DomainResource> WithType<D> type(Class<D> type) {
 			return new WithTypeImpl<>(type);
@@ -320,6 +453,20 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 			putProperty(key, new SecuredAttributeImpl<>(owningType, credential, name).setMasked(isMasked));
 		}
 
+		@SuppressWarnings({ "rawtypes", "unchecked" })
+		private <D extends DomainResource> void addRowFilter(Class<D> owningType, GrantedAuthority credential,
+				Specification<D> rowFilter, List<RowFilterParameter<?>> parameters) {
+			rowFilters.computeIfAbsent(owningType, key -> new HashMap<>()).merge(credential.getAuthority(), rowFilter,
+					(Specification current, Specification next) -> current.and(next));
+
+			if (parameters.isEmpty()) {
+				return;
+			}
+
+			rowFilterParameters.computeIfAbsent(owningType, key -> new HashMap<>()).merge(credential.getAuthority(),
+					parameters, ReadSecurityManagerImpl::concat);
+		}
+
 		@SuppressWarnings("rawtypes")
 		private void modifyAlias(SecuredAttributeImpl attr, String alias) {
 			if (logger.isTraceEnabled()) {
@@ -451,6 +598,21 @@ public class ReadSecurityManagerImpl extends ContextBuilder.AbstractContextBuild
 					return this;
 				}
 
+				@Override
+				public WithCredential<D> filter(Specification<D> rowFilter, RowFilterParameter<?>... parameters) {
+					requireNonNull(rowFilter);
+
+					for (GrantedAuthority credential : credentials) {
+						addRowFilter(type, credential, rowFilter, List.of(parameters));
+					}
+
+					if (logger.isTraceEnabled()) {
+						logger.trace("Filter rows");
+					}
+
+					return this;
+				}
+
 				@Override
 				public <E extends DomainResource> WithType<E> type(Class<E> type) {
 					return CRUDSecurityManagerBuilderImpl.this.type(type);
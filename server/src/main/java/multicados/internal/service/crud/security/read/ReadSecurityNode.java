@@ -21,6 +21,9 @@ public interface ReadSecurityNode<D extends DomainResource> {
 	List<String> check(Collection<String> requestedAttributes, GrantedAuthority credential)
 			throws CredentialException, UnknownAttributesException;
 
+	/**
+	 * @return the aliases of the attributes, the map may contain other attributes
+	 */
 	Map<String, String> translate(Collection<String> attributes);
 
 }
@@ -38,7 +38,8 @@ public class ReadSecurityNodeImpl<D extends DomainResource> extends AbstractRead
 
 	private final Map<String, Set<String>> authorizedAttributes;
 	private final Map<String, String> aliasesByOrigins;
-	private final Map<String, String> originsByAliases;
+	private final Map<String, Integer> ordinalsByAliases;
+	private final Map<String, AuthorizedAttributes> compiledAttributes;
 
 	private static final TA_Grid GRID;
 
@@ -77,18 +78,46 @@ public class ReadSecurityNodeImpl<D extends DomainResource> extends AbstractRead
 				.then(this::getAlias)
 				.then(Collections::unmodifiableMap)
 				.get();
-		originsByAliases = Utils
+		ordinalsByAliases = Utils
 				.declare(aliasesByOrigins)
 				.then(CollectionHelper::inverse)
+				.then(this::locateOrdinals)
+				.then(Collections::unmodifiableMap)
+				.get();
+		compiledAttributes = Utils
+				.declare(authorizedAttributes)
+				.then(this::compile)
 				.then(Collections::unmodifiableMap)
 				.get();
 		// @formatter:on
 	}
 
+	/**
+	 * @return every attribute mapped to its alias, a superset of the attributes
+	 */
 	@Override
 	public Map<String, String> translate(Collection<String> attributes) {
-		return attributes.stream().map(attr -> Map.entry(attr, aliasesByOrigins.get(attr)))
-				.collect(CollectionHelper.toMap());
+		return aliasesByOrigins;
+	}
+
+	private Map<String, Integer> locateOrdinals(Map<String, String> originsByAliases) {
+		final Map<String, Integer> ordinalsByAliases = new HashMap<>(originsByAliases.size(), 1f);
+
+		for (final Entry<String, String> entry : originsByAliases.entrySet()) {
+			ordinalsByAliases.put(entry.getKey(), getOrdinal(entry.getValue()));
+		}
+
+		return ordinalsByAliases;
+	}
+
+	private Map<String, AuthorizedAttributes> compile(Map<String, Set<String>> authorizedAttributes) {
+		final Map<String, AuthorizedAttributes> compiledAttributes = new HashMap<>(authorizedAttributes.size(), 1f);
+
+		for (final Entry<String, Set<String>> entry : authorizedAttributes.entrySet()) {
+			compiledAttributes.put(entry.getKey(), compile(entry.getValue()));
+		}
+
+		return compiledAttributes;
 	}
 
 	private Map<String, String> getAlias(List<SecuredAttribute<D>> attributes,
@@ -156,13 +185,15 @@ public class ReadSecurityNodeImpl<D extends DomainResource> extends AbstractRead
 	}
 
 	@Override
-	protected String getActualAttributeName(String requestedName) {
-		return originsByAliases.get(requestedName);
+	protected int locateOrdinal(String requestedName) {
+		final Integer ordinal = ordinalsByAliases.get(requestedName);
+
+		return ordinal == null ? -1 : ordinal;
 	}
 
 	@Override
-	protected Set<String> getAuthorizedAttributes(String credentialValue) {
-		return authorizedAttributes.get(credentialValue);
+	protected AuthorizedAttributes getAuthorizedAttributes(String credentialValue) {
+		return compiledAttributes.get(credentialValue);
 	}
 
 	@Override
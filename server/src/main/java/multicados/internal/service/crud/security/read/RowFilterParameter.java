@@ -0,0 +1,52 @@
+/**
+ *
+ */
+package multicados.internal.service.crud.security.read;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.function.Supplier;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.ParameterExpression;
+
+/**
+ * A value of a row filter which is only known per request, eg. the principal.
+ * Filters refer to it through {@link #toExpression(CriteriaBuilder)} instead
+ * of a literal, the value is resolved and bound on every execution so that the
+ * compiled queries are shared by every principal of a credential
+ *
+ * @author Ngoc Huy
+ *
+ */
+public final class RowFilterParameter<T> {
+
+	// so that the names never collide with the parameters of the requested filters
+	private static final String NAME_PREFIX = "rowFilter_";
+
+	private final String name;
+	private final Class<T> type;
+	private final Supplier<? extends T> valueSupplier;
+
+	public RowFilterParameter(String name, Class<T> type, Supplier<? extends T> valueSupplier) {
+		this.name = NAME_PREFIX + requireNonNull(name);
+		this.type = requireNonNull(type);
+		this.valueSupplier = requireNonNull(valueSupplier);
+	}
+
+	public ParameterExpression<T> toExpression(CriteriaBuilder builder) {
+		return builder.parameter(type, name);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the value for the current request
+	 */
+	public T resolve() {
+		return valueSupplier.get();
+	}
+
+}
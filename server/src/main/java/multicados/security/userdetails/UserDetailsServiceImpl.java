@@ -7,12 +7,13 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
-import javax.persistence.LockModeType;
 import javax.persistence.Tuple;
 
 import org.hibernate.SessionFactory;
 import org.hibernate.StatelessSession;
 import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -27,6 +28,7 @@ import multicados.domain.entity.entities.User;
 import multicados.domain.entity.entities.User_;
 import multicados.internal.domain.repository.GenericRepository;
 import multicados.internal.domain.repository.Selector;
+import multicados.internal.helper.SingleFlight;
 import multicados.internal.security.DomainUserDetails;
 
 /**
@@ -36,12 +38,16 @@ import multicados.internal.security.DomainUserDetails;
 @Component
 public class UserDetailsServiceImpl implements UserDetailsService {
 
+	private static final Logger logger = LoggerFactory.getLogger(UserDetailsServiceImpl.class);
+
 	/**
 	 *
 	 */
 	private static final String USER_NOT_FOUND_TEMPLATE = "User %s not found";
 	private final GenericRepository repository;
 	private final SessionFactoryImplementor sessionFactory;
+	// concurrent misses of the same username share one lookup
+	private final SingleFlight<String, UserDetails> lookups = new SingleFlight<>();
 	// @formatter:off
 	private static final Selector<User, Tuple> SELECTOR = (root, query, builder) -> List.of(
 			root.get(User_.password).alias(User_.PASSWORD),
@@ -59,9 +65,28 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
 		try {
-			final StatelessSession session = sessionFactory.openStatelessSession();
-			final Optional<Tuple> optionalUser = repository.findById(User.class, username, SELECTOR,
-					LockModeType.PESSIMISTIC_WRITE, session);
+			return lookups.execute(username, () -> doLoadUserByUsername(username));
+		} catch (UsernameNotFoundException notFound) {
+			throw notFound;
+		} catch (Exception any) {
+			throw new IllegalStateException(any);
+		}
+	}
+
+	/**
+	 * Authentication only reads the user, no lock is acquired so that logins and
+	 * token validations of the same user do not serialize on the row. A credential
+	 * update may therefore be read before it commits, the
+	 * {@link multicados.internal.security.OnMemoryUserDetailsContext} evicts the
+	 * user only after the commit and refuses the stale details put afterwards
+	 */
+	private UserDetails doLoadUserByUsername(String username) throws Exception {
+		if (logger.isTraceEnabled()) {
+			logger.trace("Loading user {}", username);
+		}
+
+		try (final StatelessSession session = sessionFactory.openStatelessSession()) {
+			final Optional<Tuple> optionalUser = repository.findById(User.class, username, SELECTOR, session);
 
 			if (optionalUser.isEmpty()) {
 				throw new UsernameNotFoundException(String.format(USER_NOT_FOUND_TEMPLATE, username));
@@ -77,8 +102,6 @@ public class UserDetailsServiceImpl implements UserDetailsService {
 					tuple.get(User_.CREDENTIAL_VERSION, LocalDateTime.class),
 					List.of(new SimpleGrantedAuthority(tuple.get(User_.ROLE, Role.class).name())));
 			// @formatter:on
-		} catch (Exception any) {
-			throw new IllegalStateException(any);
 		}
 	}
 
@@ -345,10 +345,11 @@ public class CredentialResetService {
 						ServiceResult.failed(new IllegalStateException("Unable to update credential, unknown error")),
 						0);
 			}
-			// remove user's entry from the OnMemoryUserDetailsContext
-			if (onMemUserDetailsContext.contains(username)) {
-				onMemUserDetailsContext.remove(username);
-			}
+			// remove user's entry from the OnMemoryUserDetailsContext of every node, the
+			// entry may be cached on other nodes even if this one does not hold it. The
+			// eviction waits for the commit, user details are read without locking so an
+			// earlier eviction would let a concurrent read re-cache the old credential
+			onMemUserDetailsContext.remove(username);
 
 			return new ServicePayload<>(ServiceResult.success(), 1);
 		} catch (Exception any) {
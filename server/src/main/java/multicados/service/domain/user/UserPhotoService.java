@@ -0,0 +1,197 @@
+/**
+ *
+ */
+package multicados.service.domain.user;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import javax.persistence.Tuple;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import multicados.domain.entity.entities.User;
+import multicados.domain.entity.entities.User_;
+import multicados.internal.config.Settings;
+import multicados.internal.domain.repository.GenericRepository;
+import multicados.internal.helper.SpringHelper;
+import multicados.internal.invalidation.InvalidationBus;
+
+/**
+ * Resolves the photo filename of a {@link User}, the mapping is cached so that
+ * serving a hot photo does not hit the database. Entries are invalidated across
+ * the cluster once an update or a deletion of the {@link User} commits, bulk
+ * updates do not fire those events so entries also expire
+ *
+ * @author Ngoc Huy
+ *
+ */
+@Service
+public class UserPhotoService {
+
+	private static final Logger logger = LoggerFactory.getLogger(UserPhotoService.class);
+
+	public static final String INVALIDATION_REGION = "user-photo";
+
+	private static final int DEFAULT_MAX_SIZE = 5000;
+	private static final Duration TIME_TO_LIVE = Duration.ofMinutes(10);
+
+	private final SessionFactoryImplementor sessionFactory;
+	private final GenericRepository genericRepository;
+	private final InvalidationBus invalidationBus;
+
+	private final Map<String, Entry> photos;
+
+	@Autowired
+	public UserPhotoService(
+	// @formatter:off
+			Environment env,
+			SessionFactory sessionFactory,
+			GenericRepository genericRepository,
+			InvalidationBus invalidationBus) throws Exception {
+		// @formatter:on
+		this.sessionFactory = sessionFactory.unwrap(SessionFactoryImplementor.class);
+		this.genericRepository = genericRepository;
+		this.invalidationBus = invalidationBus;
+
+		final int maxSize = SpringHelper.getOrDefault(env, Settings.USER_PHOTO_CACHE_SIZE, Integer::valueOf,
+				DEFAULT_MAX_SIZE);
+
+		photos = new LinkedHashMap<>(16, .75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				return size() > maxSize;
+			}
+
+		};
+
+		invalidationBus.subscribe(INVALIDATION_REGION, this::evict);
+
+		final EventListenerRegistry listenerRegistry = this.sessionFactory.getServiceRegistry()
+				.requireService(EventListenerRegistry.class);
+		final UserModificationListener listener = new UserModificationListener();
+
+		listenerRegistry.appendListeners(EventType.POST_COMMIT_UPDATE, listener);
+		listenerRegistry.appendListeners(EventType.POST_COMMIT_DELETE, listener);
+	}
+
+	/**
+	 * @return the photo filename or empty if the user does not exist, a session is
+	 *         only opened on a miss
+	 */
+	public Optional<String> locatePhoto(String username) throws Exception {
+		final long now = System.nanoTime();
+
+		synchronized (photos) {
+			final Entry entry = photos.get(username);
+
+			if (entry != null) {
+				if (entry.expiration - now > 0) {
+					return Optional.of(entry.photo);
+				}
+
+				photos.remove(username);
+			}
+		}
+
+		final Optional<Tuple> optionalTuple;
+
+		try (final StatelessSession session = sessionFactory.openStatelessSession()) {
+			optionalTuple = genericRepository.findById(User.class, username,
+					(root, query, builder) -> List.of(root.get(User_.photo).alias(User_.PHOTO)), session);
+		}
+
+		if (optionalTuple.isEmpty()) {
+			return Optional.empty();
+		}
+
+		final String photo = optionalTuple.get().get(User_.PHOTO, String.class);
+
+		synchronized (photos) {
+			photos.put(username, new Entry(photo, now + TIME_TO_LIVE.toNanos()));
+		}
+
+		return Optional.ofNullable(photo);
+	}
+
+	private void evict(String username) {
+		synchronized (photos) {
+			photos.remove(username);
+		}
+
+		if (logger.isTraceEnabled()) {
+			logger.trace("Evicted photo of {}", username);
+		}
+	}
+
+	private class UserModificationListener implements PostCommitUpdateEventListener, PostCommitDeleteEventListener {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public boolean requiresPostCommitHandling(EntityPersister persister) {
+			return User.class.isAssignableFrom(persister.getMappedClass());
+		}
+
+		// still abstract in Hibernate 5
+		@Override
+		@Deprecated
+		public boolean requiresPostCommitHanding(EntityPersister persister) {
+			return requiresPostCommitHandling(persister);
+		}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			if (requiresPostCommitHandling(event.getPersister())) {
+				invalidationBus.publish(INVALIDATION_REGION, event.getId().toString());
+			}
+		}
+
+		@Override
+		public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+		@Override
+		public void onPostDelete(PostDeleteEvent event) {
+			if (requiresPostCommitHandling(event.getPersister())) {
+				invalidationBus.publish(INVALIDATION_REGION, event.getId().toString());
+			}
+		}
+
+		@Override
+		public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+	}
+
+	private static class Entry {
+
+		final String photo;
+		final long expiration;
+
+		public Entry(String photo, long expiration) {
+			this.photo = photo;
+			this.expiration = expiration;
+		}
+
+	}
+
+}
@@ -0,0 +1,168 @@
+/**
+ *
+ */
+package nh.multicados.internal.domain.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.util.function.Consumer;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import multicados.internal.domain.DomainResource;
+import multicados.internal.domain.DomainResourceContext;
+import multicados.internal.domain.cache.ResourceCache;
+import multicados.internal.invalidation.InvalidationBus;
+
+/**
+ * Committed writes of cached resources are broadcast, received invalidations
+ * drop the type from the second level cache
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class ResourceCacheTests {
+
+	private SessionFactory sessionFactory;
+	private InvalidationBus invalidationBus;
+	// what the bus dispatches to on every node
+	private Consumer<String> subscriber;
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		// @formatter:off
+		sessionFactory = new Configuration()
+				.addAnnotatedClass(Province.class)
+				.addAnnotatedClass(Note.class)
+				.setProperty(AvailableSettings.URL, "jdbc:h2:mem:resource-cache;DB_CLOSE_DELAY=-1")
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true")
+				.setProperty(AvailableSettings.USE_QUERY_CACHE, "true")
+				.setProperty(AvailableSettings.CACHE_REGION_FACTORY, "jcache")
+				.setProperty("hibernate.javax.cache.missing_cache_strategy", "create")
+				.buildSessionFactory();
+		// @formatter:on
+		invalidationBus = mock(InvalidationBus.class);
+		new ResourceCache(sessionFactory, mock(DomainResourceContext.class), invalidationBus);
+
+		final ArgumentCaptor<Consumer<String>> captor = ArgumentCaptor.forClass(Consumer.class);
+
+		verify(invalidationBus).subscribe(eq(ResourceCache.INVALIDATION_REGION), captor.capture());
+		subscriber = captor.getValue();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	private void save(Object resource, boolean committing) {
+		try (Session session = sessionFactory.openSession()) {
+			final Transaction transaction = session.beginTransaction();
+
+			session.persist(resource);
+			session.flush();
+
+			if (committing) {
+				transaction.commit();
+				return;
+			}
+
+			transaction.rollback();
+		}
+	}
+
+	@Test
+	public void testCommittedWriteIsBroadcast() {
+		save(new Province(1L), true);
+
+		verify(invalidationBus).publish(ResourceCache.INVALIDATION_REGION, Province.class.getName());
+	}
+
+	@Test
+	public void testRolledBackWriteIsNotBroadcast() {
+		save(new Province(1L), false);
+
+		verify(invalidationBus, never()).publish(anyString(), anyString());
+	}
+
+	@Test
+	public void testUncachedResourceIsNotBroadcast() {
+		save(new Note(1L), true);
+
+		verify(invalidationBus, never()).publish(anyString(), anyString());
+	}
+
+	@Test
+	public void testInvalidationEvictsTheType() {
+		save(new Province(1L), true);
+
+		try (Session session = sessionFactory.openSession()) {
+			session.get(Province.class, 1L);
+		}
+
+		final org.hibernate.Cache cache = sessionFactory.getCache();
+
+		assertTrue(cache.containsEntity(Province.class, 1L));
+		// as if it had been written on another node
+		subscriber.accept(Province.class.getName());
+		assertFalse(cache.containsEntity(Province.class, 1L));
+
+		try (Session session = sessionFactory.openSession()) {
+			assertEquals(1L, session.get(Province.class, 1L).id);
+		}
+	}
+
+	@Entity(name = "Province")
+	@Cacheable
+	@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+	public static class Province implements DomainResource {
+
+		@Id
+		private Long id;
+
+		public Province() {}
+
+		public Province(Long id) {
+			this.id = id;
+		}
+
+	}
+
+	@Entity(name = "Note")
+	public static class Note implements DomainResource {
+
+		@Id
+		private Long id;
+
+		public Note() {}
+
+		public Note(Long id) {
+			this.id = id;
+		}
+
+	}
+
+}
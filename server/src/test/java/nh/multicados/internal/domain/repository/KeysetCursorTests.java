@@ -0,0 +1,203 @@
+/**
+ *
+ */
+package nh.multicados.internal.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Tuple;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Root;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import multicados.internal.domain.repository.KeysetCursor;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class KeysetCursorTests {
+
+	private static final int PAGE_SIZE = 2;
+	// id -> rank, nulls spread over the order
+	private static final Integer[] RANKS = { null, 3, 1, null, 1, 2, null, 3 };
+
+	private static SessionFactory sessionFactory;
+
+	@BeforeAll
+	public static void setUp() {
+		// @formatter:off
+		sessionFactory = new Configuration()
+				.addAnnotatedClass(RankedRow.class)
+				.setProperty(AvailableSettings.URL, "jdbc:h2:mem:keyset;DB_CLOSE_DELAY=-1")
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.buildSessionFactory();
+		// @formatter:on
+		try (Session session = sessionFactory.openSession()) {
+			session.beginTransaction();
+
+			for (int i = 0; i < RANKS.length; i++) {
+				session.persist(new RankedRow(i, RANKS[i]));
+			}
+
+			session.getTransaction().commit();
+		}
+	}
+
+	@AfterAll
+	public static void tearDown() {
+		sessionFactory.close();
+	}
+
+	@Test
+	public void testEncodedValuesAreDecoded() {
+		final Tuple tuple = mock(Tuple.class);
+		final LocalDate date = LocalDate.of(2022, 10, 1);
+
+		when(tuple.get(0)).thenReturn("ignored");
+		when(tuple.get(1)).thenReturn("with.dots~and/slashes");
+		when(tuple.get(2)).thenReturn(null);
+		when(tuple.get(3)).thenReturn(date);
+		when(tuple.get(4)).thenReturn(42L);
+
+		final String cursor = KeysetCursor.encode(tuple, 1, 5);
+
+		assertArrayEquals(new Object[] { "with.dots~and/slashes", null, date, 42L },
+				KeysetCursor.decode(cursor, new Class<?>[] { String.class, Integer.class, LocalDate.class, Long.class }));
+	}
+
+	@Test
+	public void testCursorOfOtherKeysIsRejected() {
+		final Tuple tuple = mock(Tuple.class);
+
+		when(tuple.get(0)).thenReturn(1);
+
+		final String cursor = KeysetCursor.encode(tuple, 0, 1);
+
+		assertThrows(IllegalArgumentException.class,
+				() -> KeysetCursor.decode(cursor, new Class<?>[] { Integer.class, Integer.class }));
+	}
+
+	@Test
+	public void testIdentifierCompletesTheKeys() {
+		assertEquals(List.of(Sort.Order.desc("rank"), Sort.Order.asc("id")),
+				KeysetCursor.resolveKeys(Sort.by(Sort.Order.desc("rank")), "id"));
+		assertEquals(List.of(Sort.Order.desc("id")), KeysetCursor.resolveKeys(Sort.by(Sort.Order.desc("id")), "id"));
+	}
+
+	@Test
+	public void testAscendingSeekOverNullableKey() {
+		final List<Sort.Order> keys = List.of(Sort.Order.asc("rank"), Sort.Order.asc("id"));
+
+		assertEquals(readOrdered(keys), readSeeking(keys));
+	}
+
+	@Test
+	public void testDescendingSeekOverNullableKey() {
+		final List<Sort.Order> keys = List.of(Sort.Order.desc("rank"), Sort.Order.asc("id"));
+
+		assertEquals(readOrdered(keys), readSeeking(keys));
+	}
+
+	private List<Integer> readOrdered(List<Sort.Order> keys) {
+		try (Session session = sessionFactory.openSession()) {
+			return createQuery(session, keys, false).list().stream().map(tuple -> (Integer) tuple.get(0)).toList();
+		}
+	}
+
+	/**
+	 * Walk every page by seeking past the cursor of the previous page
+	 */
+	private List<Integer> readSeeking(List<Sort.Order> keys) {
+		final List<Integer> ids = new ArrayList<>();
+
+		try (Session session = sessionFactory.openSession()) {
+			String cursor = null;
+
+			while (true) {
+				final Query<Tuple> query = createQuery(session, keys, cursor != null).setMaxResults(PAGE_SIZE);
+
+				if (cursor != null) {
+					final Object[] values = KeysetCursor.decode(cursor, new Class<?>[] { Integer.class, Integer.class });
+
+					query.setParameter("rank", values[0]).setParameter("id", values[1]);
+				}
+
+				final List<Tuple> tuples = query.list();
+
+				tuples.stream().map(tuple -> (Integer) tuple.get(0)).forEach(ids::add);
+
+				if (tuples.size() < PAGE_SIZE) {
+					return ids;
+				}
+
+				cursor = KeysetCursor.encode(tuples.get(tuples.size() - 1), 1, 3);
+			}
+		}
+	}
+
+	private Query<Tuple> createQuery(Session session, List<Sort.Order> keys, boolean isSeeking) {
+		final CriteriaBuilder builder = session.getCriteriaBuilder();
+		final CriteriaQuery<Tuple> cq = builder.createTupleQuery();
+		final Root<RankedRow> root = cq.from(RankedRow.class);
+		final List<Order> orders = new ArrayList<>();
+
+		for (final Sort.Order key : keys) {
+			orders.add(key.isAscending() ? builder.asc(root.get(key.getProperty()))
+					: builder.desc(root.get(key.getProperty())));
+		}
+
+		cq.multiselect(root.get("id"), root.get("rank"), root.get("id")).orderBy(orders);
+
+		if (isSeeking) {
+			final List<Expression<?>> paths = List.of(root.get("rank"), root.get("id"));
+			final List<ParameterExpression<Integer>> parameters = List.of(builder.parameter(Integer.class, "rank"),
+					builder.parameter(Integer.class, "id"));
+
+			cq.where(KeysetCursor.toPredicate(builder, keys, paths, parameters, new boolean[] { true, false }));
+		}
+
+		return session.createQuery(cq);
+	}
+
+	@Entity(name = "RankedRow")
+	public static class RankedRow {
+
+		@Id
+		private Integer id;
+
+		private Integer rank;
+
+		public RankedRow() {}
+
+		public RankedRow(Integer id, Integer rank) {
+			this.id = id;
+			this.rank = rank;
+		}
+
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ *
+ */
+package nh.multicados.internal.domain.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.junit.jupiter.api.Test;
+
+import multicados.internal.domain.repository.TableGeneratorSeeder;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class TableGeneratorSeederTests {
+
+	private static final String URL = "jdbc:h2:mem:seeder;DB_CLOSE_DELAY=-1";
+	private static final long EXISTING_MAX_ID = 1000;
+
+	private SessionFactory build(String hbm2ddl, boolean seeded) {
+		// @formatter:off
+		final Configuration configuration = new Configuration()
+				.addAnnotatedClass(SeededRow.class)
+				.setProperty(AvailableSettings.URL, URL)
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, hbm2ddl);
+		// @formatter:on
+		if (seeded) {
+			configuration.setSessionFactoryObserver(new TableGeneratorSeeder());
+		}
+
+		return configuration.buildSessionFactory();
+	}
+
+	private void execute(SessionFactory sessionFactory, String sql) {
+		try (Session session = sessionFactory.openSession()) {
+			session.beginTransaction();
+			session.createNativeQuery(sql).executeUpdate();
+			session.getTransaction().commit();
+		}
+	}
+
+	private Long persist(SessionFactory sessionFactory) {
+		try (Session session = sessionFactory.openSession()) {
+			session.beginTransaction();
+
+			final SeededRow row = new SeededRow();
+
+			session.persist(row);
+			session.getTransaction().commit();
+
+			return row.id;
+		}
+	}
+
+	@Test
+	public void testMissingSegmentIsSeededPastExistingIdentifiers() {
+		try (SessionFactory legacy = build("create", false)) {
+			// rows which were generated from another segment
+			execute(legacy, String.format("INSERT INTO seeded_row (id) VALUES (%d), (%d)", EXISTING_MAX_ID - 1,
+					EXISTING_MAX_ID));
+			execute(legacy, "DELETE FROM seeded_row_generator");
+		}
+
+		try (SessionFactory seeded = build("none", true)) {
+			final Long first = persist(seeded);
+
+			assertTrue(first > EXISTING_MAX_ID);
+			assertEquals(first + 1, persist(seeded));
+		}
+
+		try (SessionFactory reseeded = build("none", true)) {
+			// a segment which is already past the identifiers is left alone
+			assertTrue(persist(reseeded) > EXISTING_MAX_ID + 1);
+		}
+
+		try (SessionFactory cleanup = build("none", false)) {
+			execute(cleanup, "DROP ALL OBJECTS");
+		}
+	}
+
+	@Entity(name = "SeededRow")
+	@javax.persistence.Table(name = "seeded_row")
+	public static class SeededRow {
+
+		@Id
+		@GeneratedValue(generator = "seeded_row_generator")
+		// @formatter:off
+		@GenericGenerator(
+			name = "seeded_row_generator",
+			strategy = "org.hibernate.id.enhanced.TableGenerator",
+			parameters = {
+				@Parameter(name = TableGenerator.TABLE_PARAM, value = "seeded_row_generator"),
+				@Parameter(name = TableGenerator.SEGMENT_VALUE_PARAM, value = "seeded_row"),
+				@Parameter(name = TableGenerator.INCREMENT_PARAM, value = "10"),
+				@Parameter(name = TableGenerator.OPT_PARAM, value = "pooled")
+			})
+		// @formatter:on
+		private Long id;
+
+	}
+
+}
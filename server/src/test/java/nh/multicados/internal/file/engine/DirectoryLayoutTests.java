@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package nh.multicados.internal.file.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+
+import multicados.internal.file.engine.DirectoryLayout;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class DirectoryLayoutTests {
+
+	private static final String DELIMITER = "_";
+	private static final String SEPARATOR = Pattern.quote(File.separator);
+	private static final Pattern HASH_SHARD = Pattern
+			.compile(String.format("[0-9a-f]{2}%s[0-9a-f]{2}%s", SEPARATOR, SEPARATOR));
+
+	private static String shard(String... segments) {
+		return String.join(File.separator, segments) + File.separator;
+	}
+
+	@Test
+	public void testFlatLayoutHasNoShard() {
+		assertEquals("", DirectoryLayout.FLAT.locateShard("1704067200000_a1b2c3.jpg", DELIMITER));
+	}
+
+	@Test
+	public void testHashShardKeepsVariantsTogether() {
+		final String shard = DirectoryLayout.HASH.locateShard("1704067200000_a1b2c3.jpg", DELIMITER);
+
+		assertTrue(HASH_SHARD.matcher(shard).matches(), shard);
+		assertEquals(shard, DirectoryLayout.HASH.locateShard("L_1704067200000_a1b2c3.jpg", DELIMITER));
+		assertEquals(shard, DirectoryLayout.HASH.locateShard("XS_1704067200000_a1b2c3.jpg", DELIMITER));
+	}
+
+	@Test
+	public void testHashShardSpreadsIdentifiers() {
+		final Set<String> firstLevels = new HashSet<>();
+
+		for (int i = 0; i < 4096; i++) {
+			firstLevels.add(DirectoryLayout.HASH.locateShard(String.format("1704067200000_%08x.jpg", i), DELIMITER)
+					.substring(0, 2));
+		}
+		// out of 256
+		assertTrue(firstLevels.size() > 200, String.valueOf(firstLevels.size()));
+	}
+
+	@Test
+	public void testTimestampShardIsYearThenMonth() {
+		// 2024-01-01T00:00:00Z
+		assertEquals(shard("2024", "01"), DirectoryLayout.TIMESTAMP.locateShard("1704067200000_a1b2c3.jpg", DELIMITER));
+		// 2023-10-18T00:00:00Z
+		assertEquals(shard("2023", "10"),
+				DirectoryLayout.TIMESTAMP.locateShard("L_1697587200000_a1b2c3.jpg", DELIMITER));
+	}
+
+	@Test
+	public void testNamesWithoutTimestampAreNotSharded() {
+		assertEquals("", DirectoryLayout.TIMESTAMP.locateShard("photo.jpg", DELIMITER));
+		assertEquals("", DirectoryLayout.TIMESTAMP.locateShard("L_photo_a1b2c3.jpg", DELIMITER));
+		assertEquals("", DirectoryLayout.TIMESTAMP.locateShard("_a1b2c3.jpg", DELIMITER));
+		assertEquals("", DirectoryLayout.TIMESTAMP.locateShard("17040672000000000_a1b2c3.jpg", DELIMITER));
+	}
+
+}
@@ -0,0 +1,115 @@
+/**
+ *
+ */
+package nh.multicados.internal.file.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.spi.FileSystemProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import multicados.internal.file.engine.FileResourceContentCache.CachedContent;
+import multicados.internal.file.engine.FileResourceContentCacheImpl;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class FileResourceContentCacheImplTests {
+
+	private static final String DIRECTORY = "/user/";
+	private static final String ID = "photo.jpg";
+	private static final String PATH = DIRECTORY + ID;
+
+	@TempDir
+	Path directory;
+
+	private Path write(String content) throws IOException {
+		return Files.writeString(directory.resolve(ID), content);
+	}
+
+	@Test
+	public void testLoadCountsNoMiss() throws IOException {
+		final FileResourceContentCacheImpl cache = new FileResourceContentCacheImpl(1024, 1024);
+		final Path file = write("content");
+
+		assertNull(cache.get(PATH));
+		assertNotNull(cache.load(PATH, file));
+		assertEquals(1, cache.getMissCount());
+
+		assertEquals("content".length(), cache.get(PATH).getLength());
+		assertEquals(1, cache.getHitCount());
+		assertEquals(1, cache.getMissCount());
+	}
+
+	@Test
+	public void testLargeFileIsNotCached() throws IOException {
+		final FileResourceContentCacheImpl cache = new FileResourceContentCacheImpl(1024, 4);
+
+		assertNull(cache.load(PATH, write("content")));
+		assertNull(cache.get(PATH));
+	}
+
+	@Test
+	public void testInvalidateDropsVariants() throws IOException {
+		final FileResourceContentCacheImpl cache = new FileResourceContentCacheImpl(1024, 1024);
+		final Path file = write("content");
+		final String variantPath = DIRECTORY + "compressed_" + ID;
+
+		cache.load(PATH, file);
+		cache.load(variantPath, file);
+		cache.invalidate(DIRECTORY, ID);
+
+		assertNull(cache.get(PATH));
+		assertNull(cache.get(variantPath));
+	}
+
+	@Test
+	public void testLoadRacingInvalidateIsNotCached() throws Exception {
+		final FileResourceContentCacheImpl cache = new FileResourceContentCacheImpl(1024, 1024);
+		final Path file = write("stale");
+		// invalidated right after the file attributes are read
+		final FileSystemProvider provider = mock(FileSystemProvider.class);
+		final FileSystem fileSystem = mock(FileSystem.class);
+		final Path racingFile = mock(Path.class);
+
+		when(racingFile.getFileSystem()).thenReturn(fileSystem);
+		when(fileSystem.provider()).thenReturn(provider);
+		doAnswer(invocation -> {
+			final BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+
+			cache.invalidate(DIRECTORY, ID);
+
+			return attributes;
+		}).when(provider).readAttributes(eq(racingFile), eq(BasicFileAttributes.class), any());
+		when(provider.newFileChannel(eq(racingFile), anySet()))
+				.thenAnswer(invocation -> FileChannel.open(file, StandardOpenOption.READ));
+
+		final CachedContent loaded = cache.load(PATH, racingFile);
+
+		assertNotNull(loaded);
+		assertEquals("stale".length(), loaded.getLength());
+		assertNull(cache.get(PATH));
+		// the next load caches again
+		assertNotNull(cache.load(PATH, write("fresh content")));
+		assertEquals("fresh content".length(), cache.get(PATH).getLength());
+	}
+
+}
@@ -0,0 +1,97 @@
+/**
+ *
+ */
+package nh.multicados.internal.file.engine;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import multicados.internal.file.domain.FileContent;
+import multicados.internal.file.engine.FileResourceWriter;
+import multicados.internal.file.engine.FileResourceWriter.Batch;
+import multicados.internal.file.engine.FileResourceWriterImpl;
+import multicados.internal.file.engine.storage.LocalStorage;
+import multicados.internal.file.engine.storage.LocalStorage.Durability;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class FileResourceWriterImplTests {
+
+	private static final byte[] CONTENT = "content".getBytes();
+
+	@TempDir
+	Path directory;
+
+	private final FileResourceWriter writer = new FileResourceWriterImpl(new LocalStorage(Durability.NONE));
+
+	@Test
+	public void testRollbackDeletesOnlyItsBatch() throws IOException {
+		final Batch primaryBatch = writer.openBatch();
+		final Batch variantBatch = writer.openBatch();
+		final Path primary = directory.resolve("L_photo.jpg");
+		final Path variant = directory.resolve("M_photo.jpg");
+
+		primaryBatch.write(primary, CONTENT);
+		variantBatch.write(variant, CONTENT);
+		variantBatch.rollback();
+
+		assertArrayEquals(CONTENT, Files.readAllBytes(primary));
+		assertFalse(Files.exists(variant));
+	}
+
+	@Test
+	public void testWritesAfterRollbackAreDiscarded() throws IOException {
+		final Batch batch = writer.openBatch();
+		final Path variant = directory.resolve("S_photo.jpg");
+
+		batch.rollback();
+		batch.write(variant, CONTENT);
+
+		assertFalse(Files.exists(variant));
+	}
+
+	private static byte[] createLargeContent() {
+		// larger than any transfer buffer
+		final byte[] content = new byte[3 * 1024 * 1024 + 7];
+
+		new Random(0).nextBytes(content);
+
+		return content;
+	}
+
+	@Test
+	public void testFileContentIsStreamed() throws IOException {
+		final byte[] content = createLargeContent();
+		final Path upload = Files.write(directory.resolve("upload.tmp"), content);
+		final Path target = directory.resolve("document.pdf");
+
+		writer.write(target, FileContent.of(upload));
+
+		assertArrayEquals(content, Files.readAllBytes(target));
+	}
+
+	@Test
+	public void testMultipartContentIsStreamedInBatch() throws IOException {
+		final byte[] content = createLargeContent();
+		final Batch batch = writer.openBatch();
+		final Path target = directory.resolve("document.pdf");
+
+		batch.write(target, FileContent.of(new MockMultipartFile("file", "document.pdf", null, content)));
+
+		assertArrayEquals(content, Files.readAllBytes(target));
+		batch.rollback();
+		assertFalse(Files.exists(target));
+	}
+
+}
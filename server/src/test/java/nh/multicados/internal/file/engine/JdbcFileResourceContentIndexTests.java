@@ -0,0 +1,88 @@
+/**
+ *
+ */
+package nh.multicados.internal.file.engine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import multicados.internal.file.domain.FileContent;
+import multicados.internal.file.engine.JdbcFileResourceContentIndex;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class JdbcFileResourceContentIndexTests {
+
+	private static final String DIRECTORY = "/user/";
+	private static final String OTHER_DIRECTORY = "/category/";
+
+	private DriverManagerDataSource dataSource;
+	private JdbcFileResourceContentIndex index;
+
+	@BeforeEach
+	public void setUp() {
+		dataSource = new DriverManagerDataSource("jdbc:h2:mem:content_index;MODE=MySQL;DB_CLOSE_DELAY=-1");
+		index = new JdbcFileResourceContentIndex(dataSource);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		new JdbcTemplate(dataSource).execute("DROP TABLE " + JdbcFileResourceContentIndex.TABLE_NAME);
+	}
+
+	@Test
+	public void testDigestIsSha256Hex() throws IOException {
+		// @formatter:off
+		assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+				index.digest(FileContent.of("hello".getBytes())));
+		// @formatter:on
+	}
+
+	@Test
+	public void testFileIsReclaimedByLastUnlink() throws IOException {
+		final String digest = index.digest(FileContent.of("photo".getBytes()));
+
+		assertNull(index.link(DIRECTORY, digest));
+		index.register(DIRECTORY, digest, "a.jpg");
+		// two more resources share the stored file
+		assertEquals("a.jpg", index.link(DIRECTORY, digest));
+		assertEquals("a.jpg", index.link(DIRECTORY, digest));
+
+		assertFalse(index.unlink(DIRECTORY, "a.jpg"));
+		assertFalse(index.unlink(DIRECTORY, "a.jpg"));
+		assertTrue(index.unlink(DIRECTORY, "a.jpg"));
+		// the reclaimed file is no longer linked
+		assertNull(index.link(DIRECTORY, digest));
+		assertFalse(index.unlink(DIRECTORY, "a.jpg"));
+	}
+
+	@Test
+	public void testUnregisteredFileIsNeverReclaimed() {
+		assertFalse(index.unlink(DIRECTORY, "legacy.jpg"));
+	}
+
+	@Test
+	public void testDirectoriesAreIndexedApart() throws IOException {
+		final String digest = index.digest(FileContent.of("photo".getBytes()));
+
+		index.register(DIRECTORY, digest, "a.jpg");
+
+		assertNull(index.link(OTHER_DIRECTORY, digest));
+		index.register(OTHER_DIRECTORY, digest, "b.jpg");
+		assertNotEquals(index.link(DIRECTORY, digest), index.link(OTHER_DIRECTORY, digest));
+	}
+
+}
@@ -0,0 +1,131 @@
+/**
+ *
+ */
+package nh.multicados.internal.file.engine.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.util.Map;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang3.math.Fraction;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.event.spi.SaveOrUpdateEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import multicados.domain.entity.file.UserPhoto;
+import multicados.internal.config.Settings;
+import multicados.internal.file.domain.FileContent;
+import multicados.internal.file.engine.image.IdentifierGeneratingSaveEventListener;
+import multicados.internal.file.engine.image.ManipulationContext;
+import multicados.internal.file.engine.image.Standard;
+import multicados.internal.locale.ZoneContext;
+
+/**
+ * Uploads are decoded from their streams, oversized ones are subsampled on the
+ * fly
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class IdentifierGeneratingSaveEventListenerTests {
+
+	private static final String EXTENSION = "jpg";
+	// @formatter:off
+	private static final Standard STANDARD = new Standard(
+			"L",
+			Fraction.getFraction(4, 3),
+			400,
+			new float[] { .9f, .5f },
+			new float[] { 1f, .5f },
+			new String[] { "L", "M" });
+	// @formatter:on
+
+	@TempDir
+	Path directory;
+
+	private ManipulationContext manipulationContext;
+	private IdentifierGeneratingSaveEventListener listener;
+
+	@BeforeEach
+	public void setUp() {
+		final ConfigurationService configurationService = mock(ConfigurationService.class);
+		final ZoneContext zoneContext = mock(ZoneContext.class);
+
+		manipulationContext = mock(ManipulationContext.class);
+		when(configurationService.getSettings()).thenReturn(Map.of(Settings.FILE_RESOURCE_IDENTIFIER_DELIMITER, "_",
+				Settings.FILE_RESOURCE_IDENTIFIER_LENGTH, "30"));
+		when(zoneContext.getZone()).thenReturn(ZoneOffset.UTC);
+		listener = new IdentifierGeneratingSaveEventListener(configurationService, manipulationContext, zoneContext);
+	}
+
+	private UserPhoto upload(int width, int height) throws Exception {
+		final Path file = directory.resolve("upload." + EXTENSION);
+
+		ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR), EXTENSION, file.toFile());
+
+		final UserPhoto photo = new UserPhoto();
+
+		photo.setExtension(EXTENSION);
+		// as the multipart temporary file would be
+		photo.setContent(FileContent.of(file));
+
+		return photo;
+	}
+
+	private void save(UserPhoto photo) {
+		final SaveOrUpdateEvent event = mock(SaveOrUpdateEvent.class);
+
+		when(event.getObject()).thenReturn(photo);
+		listener.onSaveOrUpdate(event);
+		verify(event).setRequestedId(photo.getId());
+	}
+
+	@Test
+	public void testOversizedUploadIsSubsampled() throws Exception {
+		final UserPhoto photo = upload(4000, 3000);
+
+		when(manipulationContext.resolveStandard(4000, 3000)).thenReturn(STANDARD);
+		save(photo);
+
+		final BufferedImage decoded = photo.getBufferedImage();
+		// every 10th pixel of the source
+		assertEquals(STANDARD.getOriginalWidth(), decoded.getWidth());
+		assertEquals(STANDARD.getOriginalHeight(), decoded.getHeight());
+		assertSame(STANDARD, photo.getStandard());
+	}
+
+	@Test
+	public void testDecodedWidthStaysUnderTwiceTheStandard() throws Exception {
+		final UserPhoto photo = upload(799, 600);
+
+		when(manipulationContext.resolveStandard(799, 600)).thenReturn(STANDARD);
+		save(photo);
+
+		assertEquals(799, photo.getBufferedImage().getWidth());
+	}
+
+	@Test
+	public void testIdentifierCarriesTheStandard() throws Exception {
+		final UserPhoto photo = upload(400, 300);
+
+		when(manipulationContext.resolveStandard(400, 300)).thenReturn(STANDARD);
+		save(photo);
+
+		assertTrue(photo.getId().startsWith("L_"));
+		assertTrue(photo.getId().endsWith("." + EXTENSION));
+		assertEquals(STANDARD.getOriginalWidth(), photo.getBufferedImage().getWidth());
+	}
+
+}
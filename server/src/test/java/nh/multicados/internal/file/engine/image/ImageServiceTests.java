@@ -0,0 +1,264 @@
+/**
+ *
+ */
+package nh.multicados.internal.file.engine.image;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.lang3.math.Fraction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import multicados.domain.entity.file.UserPhoto;
+import multicados.internal.file.engine.image.ImageService;
+import multicados.internal.file.engine.image.ImageService.Adjustment;
+import multicados.internal.file.engine.image.Standard;
+import multicados.internal.file.engine.storage.Storage;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class ImageServiceTests {
+
+	private static final String EXTENSION = "jpg";
+	// @formatter:off
+	private static final Standard STANDARD = new Standard(
+			"L",
+			Fraction.getFraction(4, 3),
+			400,
+			new float[] { .9f, .8f, .7f, .6f },
+			new float[] { 1f, .5f, .25f, .125f },
+			new String[] { "L", "M", "S", "XS" });
+	// @formatter:on
+	private static final Executor DIRECT = Runnable::run;
+	private static final String PRIMARY_PATH = "photo/L.jpg";
+	private static final String VARIANT_PATH = "photo/S.jpg";
+	private static final int VARIANT_INDEX = 2;
+	private static final int CALLERS_AMOUNT = 8;
+
+	@TempDir
+	Path directory;
+
+	private final ImageService imageService = new ImageService(DIRECT, DIRECT, false, null);
+
+	private UserPhoto createPhoto(int width, int height) {
+		final UserPhoto photo = new UserPhoto();
+
+		photo.setExtension(EXTENSION);
+		photo.setBufferedImage(new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR));
+		photo.setStandard(STANDARD);
+
+		return photo;
+	}
+
+	private BufferedImage decode(byte[] content) throws IOException {
+		return ImageIO.read(new ByteArrayInputStream(content));
+	}
+
+	@Test
+	public void testLargeUploadIsAdjustedToStandard() throws Exception {
+		final BufferedImage primary = decode(imageService.adjust(createPhoto(1600, 1200)).getPrimaryContent());
+
+		assertEquals(STANDARD.getOriginalWidth(), primary.getWidth());
+		assertEquals(STANDARD.getOriginalHeight(), primary.getHeight());
+	}
+
+	@Test
+	public void testSmallUploadKeepsItsWidth() throws Exception {
+		final BufferedImage primary = decode(imageService.adjust(createPhoto(200, 100)).getPrimaryContent());
+
+		assertEquals(200, primary.getWidth());
+		assertEquals(STANDARD.maintainHeight(200), primary.getHeight());
+	}
+
+	@Test
+	public void testEveryVariantIsScaledFromPrimary() throws Exception {
+		final Adjustment adjustment = imageService.adjust(createPhoto(1600, 1200));
+		final Map<Integer, byte[]> variants = new ConcurrentHashMap<>();
+
+		imageService.propagate("photo", adjustment, variants::put, () -> {}).join();
+
+		assertEquals(STANDARD.getBatchSize() - 1, variants.size());
+		assertFalse(imageService.isPropagating("photo"));
+
+		for (int i = 1; i < STANDARD.getBatchSize(); i++) {
+			assertNotNull(variants.get(i));
+
+			final BufferedImage variant = decode(variants.get(i));
+			final int width = (int) (STANDARD.getOriginalWidth() * STANDARD.getCompressionFactors()[i]);
+
+			assertEquals(width, variant.getWidth());
+			assertEquals(STANDARD.maintainHeight(width), variant.getHeight());
+		}
+	}
+
+	@Test
+	public void testFailingWriterRollsPropagationBack() throws Exception {
+		final Adjustment adjustment = imageService.adjust(createPhoto(1600, 1200));
+		final Map<Integer, byte[]> variants = new ConcurrentHashMap<>();
+		final AtomicBoolean propagatingOnRollback = new AtomicBoolean();
+		// the smallest variant can not be written
+		final CompletableFuture<Void> propagation = imageService.propagate("photo", adjustment, (index, content) -> {
+			if (index == STANDARD.getBatchSize() - 1) {
+				throw new IOException("Disk is full");
+			}
+
+			variants.put(index, content);
+		}, () -> {
+			propagatingOnRollback.set(imageService.isPropagating("photo"));
+			variants.clear();
+		});
+
+		assertThrows(CompletionException.class, propagation::join);
+		assertTrue(propagatingOnRollback.get());
+		assertTrue(variants.isEmpty());
+		assertFalse(imageService.isPropagating("photo"));
+	}
+
+	@Test
+	public void testPropagationIsReportedUntilEveryVariantIsWritten() throws Exception {
+		final List<Runnable> pending = new ArrayList<>();
+		final ImageService deferringService = new ImageService(DIRECT, pending::add, false, null);
+		final Adjustment adjustment = deferringService.adjust(createPhoto(1600, 1200));
+		final CompletableFuture<Void> propagation = deferringService.propagate("photo", adjustment,
+				(index, content) -> assertTrue(deferringService.isPropagating("photo")), () -> {});
+
+		assertTrue(deferringService.isPropagating("photo"));
+		assertFalse(deferringService.isPropagating("other"));
+		pending.forEach(Runnable::run);
+		propagation.join();
+		assertFalse(deferringService.isPropagating("photo"));
+	}
+
+	private Storage createStorage(Path primaryFile, Map<String, byte[]> files) throws IOException {
+		final Storage storage = mock(Storage.class);
+
+		when(storage.exists(anyString())).thenAnswer(invocation -> files.containsKey(invocation.getArgument(0)));
+		when(storage.locate(PRIMARY_PATH)).thenReturn(primaryFile);
+		doAnswer(invocation -> files.put(invocation.getArgument(0), invocation.getArgument(1))).when(storage)
+				.write(anyString(), any(byte[].class));
+
+		return storage;
+	}
+
+	private Path writePrimary() throws Exception {
+		final Path primaryFile = directory.resolve("L.jpg");
+
+		Files.write(primaryFile, imageService.adjust(createPhoto(1600, 1200)).getPrimaryContent());
+
+		return primaryFile;
+	}
+
+	@Test
+	public void testVariantIsRenderedFromPrimary() throws Exception {
+		final Map<String, byte[]> files = new ConcurrentHashMap<>();
+		final Storage storage = createStorage(writePrimary(), files);
+		final ImageService lazyService = new ImageService(DIRECT, DIRECT, true, storage);
+
+		assertTrue(lazyService.renderVariant(PRIMARY_PATH, VARIANT_PATH, STANDARD, VARIANT_INDEX));
+
+		final BufferedImage variant = decode(files.get(VARIANT_PATH));
+		final int width = (int) (STANDARD.getOriginalWidth() * STANDARD.getCompressionFactors()[VARIANT_INDEX]);
+
+		assertEquals(width, variant.getWidth());
+		assertEquals(STANDARD.maintainHeight(width), variant.getHeight());
+		// rendered once then served from the storage
+		assertTrue(lazyService.renderVariant(PRIMARY_PATH, VARIANT_PATH, STANDARD, VARIANT_INDEX));
+		verify(storage).locate(PRIMARY_PATH);
+	}
+
+	@Test
+	public void testMissingPrimaryRendersNothing() throws Exception {
+		final Storage storage = createStorage(null, new ConcurrentHashMap<>());
+		final ImageService lazyService = new ImageService(DIRECT, DIRECT, true, storage);
+
+		assertFalse(lazyService.renderVariant(PRIMARY_PATH, VARIANT_PATH, STANDARD, VARIANT_INDEX));
+		verify(storage, never()).write(anyString(), any(byte[].class));
+	}
+
+	@Test
+	public void testConcurrentRequestsRenderTheVariantOnce() throws Exception {
+		final Map<String, byte[]> files = new ConcurrentHashMap<>();
+		final Storage storage = createStorage(writePrimary(), files);
+		final AtomicInteger writeCount = new AtomicInteger();
+		final CountDownLatch writing = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		doAnswer(invocation -> {
+			writeCount.incrementAndGet();
+			writing.countDown();
+			release.await();
+
+			return files.put(invocation.getArgument(0), invocation.getArgument(1));
+		}).when(storage).write(anyString(), any(byte[].class));
+
+		final ImageService lazyService = new ImageService(DIRECT, DIRECT, true, storage);
+		final ExecutorService executor = Executors.newFixedThreadPool(CALLERS_AMOUNT);
+
+		try {
+			final List<Future<Boolean>> futures = new ArrayList<>();
+
+			futures.add(executor.submit(
+					() -> lazyService.renderVariant(PRIMARY_PATH, VARIANT_PATH, STANDARD, VARIANT_INDEX)));
+			writing.await();
+
+			final CountDownLatch started = new CountDownLatch(CALLERS_AMOUNT - 1);
+
+			for (int i = 1; i < CALLERS_AMOUNT; i++) {
+				futures.add(executor.submit(() -> {
+					started.countDown();
+
+					return lazyService.renderVariant(PRIMARY_PATH, VARIANT_PATH, STANDARD, VARIANT_INDEX);
+				}));
+			}
+			// the late requests join the ongoing rendering
+			started.await();
+			Thread.sleep(100);
+			release.countDown();
+
+			for (final Future<Boolean> future : futures) {
+				assertTrue(future.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, writeCount.get());
+		verify(storage).locate(PRIMARY_PATH);
+	}
+
+}
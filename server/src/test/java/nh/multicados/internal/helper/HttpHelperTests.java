@@ -0,0 +1,194 @@
+/**
+ *
+ */
+package nh.multicados.internal.helper;
+
+import static multicados.internal.helper.HttpHelper.SENDFILE_END;
+import static multicados.internal.helper.HttpHelper.SENDFILE_FILENAME;
+import static multicados.internal.helper.HttpHelper.SENDFILE_START;
+import static multicados.internal.helper.HttpHelper.SENDFILE_SUPPORT;
+import static multicados.internal.helper.HttpHelper.SENDFILE_THRESHOLD;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import multicados.internal.helper.HttpHelper;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class HttpHelperTests {
+
+	private static final long LARGE_LENGTH = SENDFILE_THRESHOLD + 1000;
+	private static final long LAST_MODIFIED = 1_600_000_000_000L;
+
+	@TempDir
+	Path directory;
+
+	private Path small;
+	private Path large;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		small = write("small.txt", 10);
+		large = write("large.bin", LARGE_LENGTH);
+	}
+
+	private Path write(String filename, long length) throws IOException {
+		final Path path = Files.write(directory.resolve(filename), new byte[(int) length]);
+
+		Files.setLastModifiedTime(path, FileTime.fromMillis(LAST_MODIFIED));
+
+		return path;
+	}
+
+	private static MockHttpServletRequest request(String method, boolean sendfileSupported) {
+		final MockHttpServletRequest request = new MockHttpServletRequest(method, "/file");
+
+		if (sendfileSupported) {
+			request.setAttribute(SENDFILE_SUPPORT, Boolean.TRUE);
+		}
+
+		return request;
+	}
+
+	@Test
+	public void testSmallFilesAreLeftToTheConverters() throws Exception {
+		final MockHttpServletRequest request = request("GET", true);
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+		final ResponseEntity<Resource> entity = HttpHelper.sendFile(small, request, response);
+
+		assertEquals(HttpStatus.OK, entity.getStatusCode());
+		assertEquals(small, entity.getBody().getFile().toPath());
+		assertNull(request.getAttribute(SENDFILE_FILENAME));
+		assertEquals(HttpHelper.createETag(10, LAST_MODIFIED), response.getHeader(HttpHeaders.ETAG));
+	}
+
+	@Test
+	public void testMatchingETagIsNotModified() throws Exception {
+		final MockHttpServletRequest request = request("GET", true);
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, HttpHelper.createETag(LARGE_LENGTH, LAST_MODIFIED));
+
+		assertNull(HttpHelper.sendFile(large, request, response));
+		assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+		assertNull(request.getAttribute(SENDFILE_FILENAME));
+	}
+
+	@Test
+	public void testStaleETagIsSentAgain() throws Exception {
+		final MockHttpServletRequest request = request("GET", false);
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, HttpHelper.createETag(LARGE_LENGTH - 1, LAST_MODIFIED));
+
+		assertEquals(HttpStatus.OK, HttpHelper.sendFile(large, request, response).getStatusCode());
+	}
+
+	@Test
+	public void testFullFileIsHandedToSendfile() throws Exception {
+		final MockHttpServletRequest request = request("GET", true);
+		final ResponseEntity<Resource> entity = HttpHelper.sendFile(large, request, new MockHttpServletResponse());
+
+		assertEquals(HttpStatus.OK, entity.getStatusCode());
+		assertNull(entity.getBody());
+		assertEquals(LARGE_LENGTH, entity.getHeaders().getContentLength());
+		assertEquals("bytes", entity.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+		assertEquals(large.toFile().getCanonicalPath(), request.getAttribute(SENDFILE_FILENAME));
+		assertEquals(0L, request.getAttribute(SENDFILE_START));
+		assertEquals(LARGE_LENGTH, request.getAttribute(SENDFILE_END));
+	}
+
+	@Test
+	public void testRangeIsPartialContent() throws Exception {
+		final MockHttpServletRequest request = request("GET", true);
+
+		request.addHeader(HttpHeaders.RANGE, "bytes=100-199");
+
+		final ResponseEntity<Resource> entity = HttpHelper.sendFile(large, request, new MockHttpServletResponse());
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, entity.getStatusCode());
+		assertEquals(100, entity.getHeaders().getContentLength());
+		assertEquals(String.format("bytes 100-199/%d", LARGE_LENGTH),
+				entity.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals(100L, request.getAttribute(SENDFILE_START));
+		// exclusive
+		assertEquals(200L, request.getAttribute(SENDFILE_END));
+	}
+
+	@Test
+	public void testSuffixRangeIsClampedToTheLength() throws Exception {
+		final MockHttpServletRequest request = request("GET", true);
+
+		request.addHeader(HttpHeaders.RANGE, String.format("bytes=%d-", LARGE_LENGTH - 10));
+
+		final ResponseEntity<Resource> entity = HttpHelper.sendFile(large, request, new MockHttpServletResponse());
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, entity.getStatusCode());
+		assertEquals(10, entity.getHeaders().getContentLength());
+		assertEquals(LARGE_LENGTH, request.getAttribute(SENDFILE_END));
+	}
+
+	@Test
+	public void testUnsatisfiableRange() throws Exception {
+		assertUnsatisfiable(String.format("bytes=%d-", LARGE_LENGTH));
+		assertUnsatisfiable("bytes=200-100");
+		assertUnsatisfiable("pages=1-2");
+	}
+
+	private void assertUnsatisfiable(String range) throws IOException {
+		final MockHttpServletRequest request = request("GET", true);
+
+		request.addHeader(HttpHeaders.RANGE, range);
+
+		final ResponseEntity<Resource> entity = HttpHelper.sendFile(large, request, new MockHttpServletResponse());
+
+		assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, entity.getStatusCode(), range);
+		assertEquals(String.format("bytes */%d", LARGE_LENGTH),
+				entity.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertNull(request.getAttribute(SENDFILE_FILENAME));
+	}
+
+	@Test
+	public void testMultipleRangesAreLeftToTheConverters() throws Exception {
+		final MockHttpServletRequest request = request("GET", true);
+
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-9,20-29");
+
+		final ResponseEntity<Resource> entity = HttpHelper.sendFile(large, request, new MockHttpServletResponse());
+
+		assertEquals(HttpStatus.OK, entity.getStatusCode());
+		assertEquals(large, entity.getBody().getFile().toPath());
+		assertNull(request.getAttribute(SENDFILE_FILENAME));
+	}
+
+	@Test
+	public void testHeadDoesNotSendTheFile() throws Exception {
+		final MockHttpServletRequest request = request("HEAD", true);
+
+		request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+
+		final ResponseEntity<Resource> entity = HttpHelper.sendFile(large, request, new MockHttpServletResponse());
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, entity.getStatusCode());
+		assertEquals(10, entity.getHeaders().getContentLength());
+		assertNull(request.getAttribute(SENDFILE_FILENAME));
+	}
+
+}
@@ -0,0 +1,126 @@
+/**
+ *
+ */
+package nh.multicados.internal.helper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import multicados.internal.helper.SingleFlight;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class SingleFlightTests {
+
+	private static final int CALLERS_AMOUNT = 8;
+
+	private final SingleFlight<String, Object> flights = new SingleFlight<>();
+	private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS_AMOUNT);
+
+	@AfterEach
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Starts the callers while the first load is blocked, then releases it
+	 */
+	private List<Future<Object>> executeConcurrently(String key, AtomicInteger loadCount, Object outcome)
+			throws Exception {
+		final CountDownLatch loading = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		final List<Future<Object>> futures = new ArrayList<>();
+
+		futures.add(executor.submit(() -> flights.execute(key, () -> {
+			loadCount.incrementAndGet();
+			loading.countDown();
+			release.await();
+
+			if (outcome instanceof Exception) {
+				throw (Exception) outcome;
+			}
+
+			return outcome;
+		})));
+		loading.await();
+
+		final CountDownLatch started = new CountDownLatch(CALLERS_AMOUNT - 1);
+
+		for (int i = 1; i < CALLERS_AMOUNT; i++) {
+			futures.add(executor.submit(() -> {
+				started.countDown();
+
+				return flights.execute(key, () -> {
+					loadCount.incrementAndGet();
+					return new Object();
+				});
+			}));
+		}
+		// the late callers join the ongoing load
+		started.await();
+		Thread.sleep(100);
+		release.countDown();
+
+		return futures;
+	}
+
+	@Test
+	public void testConcurrentCallersShareOneLoad() throws Exception {
+		final Object value = new Object();
+		final AtomicInteger loadCount = new AtomicInteger();
+
+		for (final Future<Object> future : executeConcurrently("key", loadCount, value)) {
+			assertSame(value, future.get(5, TimeUnit.SECONDS));
+		}
+
+		assertEquals(1, loadCount.get());
+		assertEquals(0, flights.size());
+	}
+
+	@Test
+	public void testConcurrentCallersShareTheFailure() throws Exception {
+		final IllegalStateException failure = new IllegalStateException();
+		final AtomicInteger loadCount = new AtomicInteger();
+
+		for (final Future<Object> future : executeConcurrently("key", loadCount, failure)) {
+			final Exception thrown = assertThrows(Exception.class, () -> future.get(5, TimeUnit.SECONDS));
+
+			assertSame(failure, thrown.getCause());
+		}
+
+		assertEquals(1, loadCount.get());
+		assertEquals(0, flights.size());
+	}
+
+	@Test
+	public void testNothingIsRetainedAfterTheLoad() throws Exception {
+		final AtomicInteger loadCount = new AtomicInteger();
+
+		flights.execute("key", loadCount::incrementAndGet);
+		flights.execute("key", loadCount::incrementAndGet);
+
+		assertEquals(2, loadCount.get());
+	}
+
+	@Test
+	public void testKeysAreLoadedApart() throws Exception {
+		assertEquals("a", flights.execute("a", () -> "a"));
+		assertEquals("b", flights.execute("b", () -> "b"));
+	}
+
+}
@@ -0,0 +1,100 @@
+/**
+ *
+ */
+package nh.multicados.internal.invalidation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import multicados.internal.invalidation.JdbcPollingInvalidationBus;
+
+/**
+ * The outbox row and the local eviction both wait for the publishing
+ * transaction to commit
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class JdbcPollingInvalidationBusTests {
+
+	private static final String REGION = "region";
+	// polls never run during a test
+	private static final Duration POLL_INTERVAL = Duration.ofHours(1);
+	private static final long TIMEOUT_MILLIS = 5000;
+
+	private JdbcTemplate jdbcTemplate;
+	private JdbcPollingInvalidationBus bus;
+	private final List<String> invalidated = new CopyOnWriteArrayList<>();
+
+	@BeforeEach
+	public void setUp() {
+		final DriverManagerDataSource dataSource = new DriverManagerDataSource(
+				"jdbc:h2:mem:invalidation;MODE=MySQL;DB_CLOSE_DELAY=-1");
+
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		bus = new JdbcPollingInvalidationBus(dataSource, POLL_INTERVAL, POLL_INTERVAL);
+		bus.subscribe(REGION, invalidated::add);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		bus.close();
+		jdbcTemplate.execute("DROP TABLE " + JdbcPollingInvalidationBus.TABLE_NAME);
+	}
+
+	private int countEvents() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + JdbcPollingInvalidationBus.TABLE_NAME,
+				Integer.class);
+	}
+
+	private void awaitEvents(int amount) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+
+		while (countEvents() < amount && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+
+		assertEquals(amount, countEvents());
+	}
+
+	@Test
+	public void testPublishOutsideTransaction() throws InterruptedException {
+		bus.publish(REGION, "a");
+
+		assertEquals(List.of("a"), invalidated);
+		awaitEvents(1);
+	}
+
+	@Test
+	public void testPublishWithinTransactionWaitsForCommit() throws InterruptedException {
+		TransactionSynchronizationManager.initSynchronization();
+		bus.publish(REGION, "a");
+		// give a premature insert the time to happen
+		Thread.sleep(100);
+
+		assertTrue(invalidated.isEmpty());
+		assertEquals(0, countEvents());
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+
+		assertEquals(List.of("a"), invalidated);
+		awaitEvents(1);
+	}
+
+}
@@ -0,0 +1,87 @@
+/**
+ *
+ */
+package nh.multicados.internal.invalidation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import multicados.internal.invalidation.LocalInvalidationBus;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class LocalInvalidationBusTests {
+
+	private static final String REGION = "region";
+
+	private final LocalInvalidationBus bus = new LocalInvalidationBus();
+	private final List<String> invalidated = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	public void testPublishOutsideTransactionDispatchesRightAway() {
+		bus.subscribe(REGION, invalidated::add);
+		bus.subscribe("other", key -> invalidated.add("other:" + key));
+		bus.publish(REGION, "a");
+
+		assertEquals(List.of("a"), invalidated);
+	}
+
+	@Test
+	public void testPublishWithinTransactionDispatchesAfterCommit() {
+		bus.subscribe(REGION, invalidated::add);
+		TransactionSynchronizationManager.initSynchronization();
+		bus.publish(REGION, "a");
+		bus.publish(REGION, "b");
+
+		assertTrue(invalidated.isEmpty());
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+
+		assertEquals(List.of("a", "b"), invalidated);
+	}
+
+	@Test
+	public void testRolledBackInvalidationsAreDropped() {
+		bus.subscribe(REGION, invalidated::add);
+		TransactionSynchronizationManager.initSynchronization();
+		bus.publish(REGION, "a");
+
+		final List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager
+				.getSynchronizations();
+
+		TransactionSynchronizationUtils.invokeAfterCompletion(synchronizations,
+				TransactionSynchronization.STATUS_ROLLED_BACK);
+
+		assertTrue(invalidated.isEmpty());
+	}
+
+	@Test
+	public void testFailingListenerDoesNotKeepOthersStale() {
+		bus.subscribe(REGION, key -> {
+			throw new IllegalStateException();
+		});
+		bus.subscribe(REGION, invalidated::add);
+		bus.publish(REGION, "a");
+
+		assertEquals(List.of("a"), invalidated);
+	}
+
+}
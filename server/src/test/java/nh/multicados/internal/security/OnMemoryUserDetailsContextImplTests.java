@@ -0,0 +1,162 @@
+/**
+ *
+ */
+package nh.multicados.internal.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import multicados.internal.invalidation.LocalInvalidationBus;
+import multicados.internal.security.DomainUserDetails;
+import multicados.internal.security.OnMemoryUserDetailsContext.Statistics;
+import multicados.internal.security.OnMemoryUserDetailsContextImpl;
+import multicados.security.userdetails.UserDetailsServiceImpl.DomainUser;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class OnMemoryUserDetailsContextImplTests {
+
+	private static final String USERNAME = "user";
+	private static final Duration TIME_TO_LIVE = Duration.ofHours(1);
+
+	private final OnMemoryUserDetailsContextImpl context = new OnMemoryUserDetailsContextImpl(
+			OnMemoryUserDetailsContextImpl.DEFAULT_MAX_SIZE, TIME_TO_LIVE, new LocalInvalidationBus());
+
+	@AfterEach
+	public void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	static DomainUserDetails createUser(String username, LocalDateTime version) {
+		return new DomainUser(username, "password", true, true, version, List.of(new SimpleGrantedAuthority("USER")));
+	}
+
+	@Test
+	public void testRemovalOutsideTransaction() {
+		context.put(createUser(USERNAME, LocalDateTime.now()));
+		context.remove(USERNAME);
+
+		assertNull(context.get(USERNAME));
+	}
+
+	@Test
+	public void testOldVersionReadDuringUncommittedResetIsNotCached() throws Exception {
+		final DomainUserDetails committed = createUser(USERNAME, LocalDateTime.now().minusDays(1));
+		// the reset updates the row then removes the entry, both uncommitted
+		TransactionSynchronizationManager.initSynchronization();
+		context.remove(USERNAME);
+		// a concurrent request still reads the committed row and caches it
+		CompletableFuture.runAsync(() -> context.put(committed)).get();
+
+		assertSame(committed, context.get(USERNAME));
+
+		TransactionSynchronizationUtils.triggerAfterCommit();
+
+		assertNull(context.get(USERNAME));
+	}
+
+	@Test
+	public void testStalePutAfterEvictionIsRefused() throws Exception {
+		final DomainUserDetails stale = createUser(USERNAME, LocalDateTime.now().minusDays(1));
+		// read before the reset committed, put once the eviction ran
+		context.remove(USERNAME);
+		context.put(stale);
+
+		assertNull(context.get(USERNAME));
+		// other usernames are not affected
+		context.put(createUser("other", LocalDateTime.now()));
+
+		assertNotNull(context.get("other"));
+
+		Thread.sleep(OnMemoryUserDetailsContextImpl.INVALIDATION_GRACE.toMillis() + 50);
+		context.put(stale);
+
+		assertSame(stale, context.get(USERNAME));
+	}
+
+	/**
+	 * @return usernames which fall in the same segment of a context holding more
+	 *         than 16 entries
+	 */
+	private static List<String> collide(int amount) {
+		final List<String> usernames = new ArrayList<>();
+
+		for (int i = 0; usernames.size() < amount; i++) {
+			final String username = "user" + i;
+			final int hash = username.hashCode();
+
+			if (Math.floorMod(hash ^ (hash >>> 16), 16) == 0) {
+				usernames.add(username);
+			}
+		}
+
+		return usernames;
+	}
+
+	@Test
+	public void testLeastRecentlyUsedEntryIsEvicted() {
+		// 16 segments of 2 entries
+		final OnMemoryUserDetailsContextImpl bounded = new OnMemoryUserDetailsContextImpl(32, TIME_TO_LIVE,
+				new LocalInvalidationBus());
+		final List<String> usernames = collide(3);
+
+		bounded.put(createUser(usernames.get(0), LocalDateTime.now()));
+		bounded.put(createUser(usernames.get(1), LocalDateTime.now()));
+		assertNotNull(bounded.get(usernames.get(0)));
+		bounded.put(createUser(usernames.get(2), LocalDateTime.now()));
+
+		assertNotNull(bounded.get(usernames.get(0)));
+		assertNull(bounded.get(usernames.get(1)));
+		assertNotNull(bounded.get(usernames.get(2)));
+
+		final Statistics statistics = bounded.getStatistics();
+
+		assertEquals(2, statistics.getSize());
+		assertEquals(1, statistics.getEvictionCount());
+		assertEquals(3, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+	}
+
+	@Test
+	public void testEntriesExpire() throws InterruptedException {
+		final OnMemoryUserDetailsContextImpl expiring = new OnMemoryUserDetailsContextImpl(
+				OnMemoryUserDetailsContextImpl.DEFAULT_MAX_SIZE, Duration.ofMillis(50), new LocalInvalidationBus());
+		final DomainUserDetails first = createUser(USERNAME, LocalDateTime.now());
+		final DomainUserDetails second = createUser(USERNAME, LocalDateTime.now());
+
+		expiring.put(first);
+		// a live entry is not replaced
+		expiring.put(second);
+		assertSame(first, expiring.get(USERNAME));
+
+		Thread.sleep(100);
+
+		assertFalse(expiring.contains(USERNAME));
+		assertEquals(1, expiring.getStatistics().getExpirationCount());
+		// an expired entry is
+		expiring.put(first);
+		Thread.sleep(100);
+		expiring.put(second);
+		assertSame(second, expiring.get(USERNAME));
+	}
+
+}
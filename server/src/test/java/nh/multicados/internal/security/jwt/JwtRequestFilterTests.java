@@ -0,0 +1,185 @@
+/**
+ *
+ */
+package nh.multicados.internal.security.jwt;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import multicados.domain.entity.Role;
+import multicados.internal.config.Settings;
+import multicados.internal.invalidation.LocalInvalidationBus;
+import multicados.internal.locale.ZoneContextImpl;
+import multicados.internal.security.OnMemoryUserDetailsContextImpl;
+import multicados.internal.security.jwt.HeaderBasedJwtAdvisor;
+import multicados.internal.security.jwt.JwtRequestFilter;
+import multicados.internal.security.jwt.JwtSecurityContext;
+import multicados.internal.security.jwt.JwtSecurityContextImpl;
+import multicados.security.userdetails.UserDetailsServiceImpl.DomainUser;
+
+/**
+ * Requests bearing the same token are served from the verified token cache,
+ * which must not let through what the full verification rejects
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class JwtRequestFilterTests {
+
+	private static final String USERNAME = "ngochuy.ou";
+	private static final String COOKIE_NAME = "jwt";
+	private static final String SECRET = Base64.getEncoder()
+			.encodeToString("a-test-only-secret-which-is-long-enough-for-the-hs512-algorithm".getBytes());
+	private static final String OTHER_SECRET = Base64.getEncoder()
+			.encodeToString("another-test-only-secret-which-is-long-enough-for-hs512-too".getBytes());
+
+	private MockEnvironment env;
+	private JwtSecurityContext jwtSecurityContext;
+	private OnMemoryUserDetailsContextImpl onMemoryUserDetailsContext;
+	private LocalDateTime version;
+	// what the data source holds
+	private DomainUser persistedUser;
+	private JwtRequestFilter filter;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		// @formatter:off
+		env = new MockEnvironment()
+				.withProperty(Settings.ACTIVE_PROFILES, "DEV")
+				.withProperty(Settings.SECURITY_JWT_COOKIE_NAME, COOKIE_NAME)
+				.withProperty(Settings.SECURITY_JWT_SECRET, SECRET)
+				.withProperty(Settings.SECURITY_JWT_VERIFICATION_CACHE_SIZE, "16");
+		// @formatter:on
+		jwtSecurityContext = new JwtSecurityContextImpl(env, new ZoneContextImpl(env));
+		onMemoryUserDetailsContext = new OnMemoryUserDetailsContextImpl(16, Duration.ofDays(1),
+				new LocalInvalidationBus());
+		version = LocalDateTime.now().withNano(0);
+		persistedUser = createUser(version);
+		onMemoryUserDetailsContext.put(persistedUser);
+		// @formatter:off
+		filter = new JwtRequestFilter(
+				env,
+				jwtSecurityContext,
+				new HeaderBasedJwtAdvisor(jwtSecurityContext),
+				username -> persistedUser,
+				onMemoryUserDetailsContext,
+				new ObjectMapper());
+		// @formatter:on
+	}
+
+	@AfterEach
+	public void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	private DomainUser createUser(LocalDateTime version) {
+		return new DomainUser(USERNAME, "", true, true, version,
+				List.of(new SimpleGrantedAuthority(Role.CUSTOMER.name())));
+	}
+
+	private String createToken(String secret, LocalDateTime version, LocalDateTime expiration) {
+		// @formatter:off
+		return Jwts.builder()
+				.claim(jwtSecurityContext.getVersionKey(), version.toString())
+				.claim(jwtSecurityContext.getExpirationKey(), expiration.toString())
+				.setSubject(USERNAME)
+				.setExpiration(Date.from(expiration.atZone(ZoneId.systemDefault()).toInstant()))
+				.signWith(SignatureAlgorithm.HS512, secret)
+				.compact();
+		// @formatter:on
+	}
+
+	private String createToken() {
+		return createToken(SECRET, version, LocalDateTime.now().plus(jwtSecurityContext.getExpirationDuration()));
+	}
+
+	private MockHttpServletResponse filter(String token) throws Exception {
+		final MockHttpServletRequest request = new MockHttpServletRequest();
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+
+		SecurityContextHolder.clearContext();
+		request.addHeader(HttpHeaders.AUTHORIZATION, "JWTBearer");
+		request.setCookies(new Cookie(COOKIE_NAME, token));
+		filter.doFilter(request, response, (req, res) -> {});
+
+		return response;
+	}
+
+	@Test
+	public void testRepeatedTokenIsAuthenticated() throws Exception {
+		final String token = createToken();
+
+		for (int i = 0; i < 3; i++) {
+			assertEquals(HttpServletResponse.SC_OK, filter(token).getStatus());
+			assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+			assertEquals(USERNAME, SecurityContextHolder.getContext().getAuthentication().getName());
+		}
+	}
+
+	@Test
+	public void testForgedTokenIsRejectedAfterGenuineOneIsCached() throws Exception {
+		filter(createToken());
+		assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+		// same claims, signed with another key
+		final String forged = createToken(OTHER_SECRET, version,
+				LocalDateTime.now().plus(jwtSecurityContext.getExpirationDuration()));
+
+		assertNotEquals(HttpServletResponse.SC_OK, filter(forged).getStatus());
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+	}
+
+	@Test
+	public void testCachedTokenIsStaleOnceVersionChanges() throws Exception {
+		final String token = createToken();
+
+		filter(token);
+		assertNotNull(SecurityContextHolder.getContext().getAuthentication());
+
+		// the evicted user is loaded again from the data source
+		persistedUser = createUser(version.plusSeconds(1));
+		onMemoryUserDetailsContext.remove(USERNAME);
+
+		final MockHttpServletResponse response = filter(token);
+
+		assertNull(SecurityContextHolder.getContext().getAuthentication());
+		// logged out
+		assertNotNull(response.getCookie(COOKIE_NAME));
+	}
+
+	@Test
+	public void testExpiredTokenIsRejected() throws Exception {
+		final String token = createToken(SECRET, version, LocalDateTime.now().minusSeconds(1));
+
+		for (int i = 0; i < 2; i++) {
+			assertNotEquals(HttpServletResponse.SC_OK, filter(token).getStatus());
+			assertNull(SecurityContextHolder.getContext().getAuthentication());
+		}
+	}
+
+}
@@ -0,0 +1,326 @@
+/**
+ *
+ */
+package nh.multicados.internal.service.crud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.io.Serializable;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import javax.persistence.Entity;
+import javax.persistence.EntityManager;
+import javax.persistence.GeneratedValue;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import multicados.internal.domain.DomainResourceContext;
+import multicados.internal.domain.DomainResourceGraph;
+import multicados.internal.domain.IdentifiableResource;
+import multicados.internal.domain.builder.DomainResourceBuilder;
+import multicados.internal.domain.builder.DomainResourceBuilderFactory;
+import multicados.internal.domain.metadata.DomainResourceMetadata;
+import multicados.internal.domain.metadata.IdentifiableResourceMetadata;
+import multicados.internal.domain.repository.GenericRepository;
+import multicados.internal.domain.validation.AbstractDomainResourceValidator;
+import multicados.internal.domain.validation.DomainResourceValidator;
+import multicados.internal.domain.validation.DomainResourceValidatorFactory;
+import multicados.internal.domain.validation.Validation;
+import multicados.internal.service.ServiceResult;
+import multicados.internal.service.crud.AbstractGenericHibernateCUDService;
+
+/**
+ * Every model of a batch gets its own result, the models which fail leave their
+ * rows untouched
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class AbstractGenericHibernateCUDServiceTests {
+
+	private static final String NAME = "name";
+	// the builder throws once it has applied this name
+	private static final String BROKEN_NAME = "broken";
+
+	private SessionFactory sessionFactory;
+	private AbstractGenericHibernateCUDService<?> service;
+
+	@BeforeEach
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public void setUp() throws Exception {
+		// @formatter:off
+		sessionFactory = new Configuration()
+				.addAnnotatedClass(Tag.class)
+				.addAnnotatedClass(Label.class)
+				.setProperty(AvailableSettings.URL, "jdbc:h2:mem:cud;DB_CLOSE_DELAY=-1")
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.buildSessionFactory();
+		// @formatter:on
+		final DomainResourceContext resourceContext = mock(DomainResourceContext.class);
+		final DomainResourceGraph resourceGraph = mock(DomainResourceGraph.class);
+		final DomainResourceMetadata metadata = mock(DomainResourceMetadata.class);
+		final IdentifiableResourceMetadata identifiableMetadata = mock(IdentifiableResourceMetadata.class);
+
+		when(resourceContext.getResourceGraph()).thenReturn(resourceGraph);
+		// no post persist listeners
+		when(resourceGraph.collect(any(DomainResourceGraph.DomainResourceGraphCollector.class)))
+				.thenReturn(new LinkedHashSet<>());
+		when(resourceContext.getMetadata(Tag.class)).thenReturn(metadata);
+		when(metadata.unwrap(IdentifiableResourceMetadata.class)).thenReturn(identifiableMetadata);
+		when(identifiableMetadata.isIdentifierAutoGenerated()).thenReturn(true);
+
+		final DomainResourceBuilder<Tag> builder = mock(DomainResourceBuilder.class);
+
+		when(builder.buildInsertion(any(), any())).thenAnswer(invocation -> build(invocation.getArgument(0)));
+		when(builder.buildUpdate(any(), any(), any())).thenAnswer(invocation -> {
+			final Tag persistence = invocation.getArgument(1);
+
+			persistence.name = ((Tag) invocation.getArgument(0)).name;
+
+			return build(persistence);
+		});
+
+		final DomainResourceValidator<Tag> validator = new AbstractDomainResourceValidator<>() {
+
+			@Override
+			public Validation isSatisfiedBy(EntityManager entityManager, Serializable id, Tag resource) {
+				return resource.name.isBlank() ? Validation.failed().bad(NAME, "Blank name") : Validation.success();
+			}
+
+			@Override
+			public Validation isSatisfiedBy(EntityManager entityManager, Tag resource) {
+				return isSatisfiedBy(entityManager, null, resource);
+			}
+
+		};
+
+		final DomainResourceBuilderFactory builderFactory = mock(DomainResourceBuilderFactory.class);
+		final DomainResourceValidatorFactory validatorFactory = mock(DomainResourceValidatorFactory.class);
+
+		when(builderFactory.getBuilder(Tag.class)).thenReturn(builder);
+		when(validatorFactory.getValidator(Tag.class)).thenReturn(validator);
+		// labels are always built and valid, identifiers are left to the save
+		final DomainResourceBuilder<Label> labelBuilder = mock(DomainResourceBuilder.class);
+
+		when(labelBuilder.buildInsertion(any(), any())).thenAnswer(invocation -> invocation.getArgument(0));
+		when(resourceContext.getMetadata(Label.class)).thenReturn(metadata);
+		when(builderFactory.getBuilder(Label.class)).thenReturn(labelBuilder);
+		when(validatorFactory.getValidator(Label.class)).thenReturn(new AbstractDomainResourceValidator<Label>() {
+
+			@Override
+			public Validation isSatisfiedBy(EntityManager entityManager, Serializable id, Label resource) {
+				return Validation.success();
+			}
+
+			@Override
+			public Validation isSatisfiedBy(EntityManager entityManager, Label resource) {
+				return Validation.success();
+			}
+
+		});
+		// only the write operations are under test
+		service = mock(AbstractGenericHibernateCUDService.class,
+				withSettings()
+						.useConstructor(resourceContext, builderFactory, validatorFactory, mock(GenericRepository.class))
+						.defaultAnswer(CALLS_REAL_METHODS));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	private static Tag build(Tag tag) throws Exception {
+		if (BROKEN_NAME.equals(tag.name)) {
+			throw new IllegalArgumentException("Unable to build");
+		}
+
+		return tag;
+	}
+
+	private Long insert(String name) {
+		try (Session session = sessionFactory.openSession()) {
+			session.beginTransaction();
+
+			final Tag tag = new Tag(null, name);
+
+			session.persist(tag);
+			session.getTransaction().commit();
+
+			return tag.id;
+		}
+	}
+
+	private String findName(Long id) {
+		try (Session session = sessionFactory.openSession()) {
+			return session.find(Tag.class, id).name;
+		}
+	}
+
+	private List<ServiceResult> inTransaction(ServiceCall call) {
+		try (Session session = sessionFactory.openSession()) {
+			session.beginTransaction();
+
+			final List<ServiceResult> results = call.execute(session);
+
+			session.getTransaction().commit();
+
+			return results;
+		}
+	}
+
+	private static void assertSucceeded(ServiceResult result) {
+		assertTrue(result.isOk());
+	}
+
+	private static void assertBad(ServiceResult result) {
+		assertFalse(result.isOk());
+		assertNotNull(result.getValidation());
+	}
+
+	private static void assertFailed(ServiceResult result) {
+		assertFalse(result.isOk());
+		assertNotNull(result.getException());
+	}
+
+	@Test
+	public void testUpdateAllLeavesFailedRowsUnchanged() {
+		final Long validId = insert("a");
+		final Long invalidId = insert("b");
+		final Long brokenId = insert("c");
+		// @formatter:off
+		final List<ServiceResult> results = inTransaction(session -> service.updateAll(Tag.class, List.of(
+				new Tag(validId, "a2"),
+				new Tag(invalidId, " "),
+				new Tag(brokenId, BROKEN_NAME),
+				new Tag(Long.MAX_VALUE, "d")), session, true));
+		// @formatter:on
+		assertEquals(4, results.size());
+		assertSucceeded(results.get(0));
+		assertBad(results.get(1));
+		assertFailed(results.get(2));
+		assertFailed(results.get(3));
+
+		assertEquals("a2", findName(validId));
+		assertEquals("b", findName(invalidId));
+		assertEquals("c", findName(brokenId));
+	}
+
+	@Test
+	public void testCreateAllSavesOnlyValidRows() {
+		// @formatter:off
+		final List<ServiceResult> results = inTransaction(session -> service.createAll(Tag.class, List.of(
+				new Tag(null, "x"),
+				new Tag(null, ""),
+				new Tag(null, BROKEN_NAME)), session, true));
+		// @formatter:on
+		assertEquals(3, results.size());
+		assertSucceeded(results.get(0));
+		assertBad(results.get(1));
+		assertFailed(results.get(2));
+
+		try (Session session = sessionFactory.openSession()) {
+			final List<String> names = session.createQuery("SELECT t.name FROM Tag t", String.class).getResultList();
+
+			assertEquals(List.of("x"), names);
+		}
+	}
+
+	@Test
+	public void testFailedSaveLeavesNoRowBehind() {
+		// the second save of an identifier fails once two labels are saved
+		// @formatter:off
+		final List<ServiceResult> results = inTransaction(session -> service.createAll(Label.class, List.of(
+				new Label("a"),
+				new Label("b"),
+				new Label("a")), session, true));
+		// @formatter:on
+		assertEquals(3, results.size());
+		results.forEach(AbstractGenericHibernateCUDServiceTests::assertFailed);
+
+		try (Session session = sessionFactory.openSession()) {
+			assertEquals(0L, session.createQuery("SELECT COUNT(*) FROM Label", Long.class).getSingleResult());
+		}
+	}
+
+	@Test
+	public void testEmptyBatch() {
+		assertTrue(inTransaction(session -> service.updateAll(Tag.class, List.of(), session, true)).isEmpty());
+		assertTrue(inTransaction(session -> service.createAll(Tag.class, List.of(), session, true)).isEmpty());
+	}
+
+	private interface ServiceCall {
+
+		List<ServiceResult> execute(Session session);
+
+	}
+
+	@Entity(name = "Tag")
+	public static class Tag implements IdentifiableResource<Long> {
+
+		@Id
+		@GeneratedValue
+		private Long id;
+
+		private String name;
+
+		public Tag() {}
+
+		public Tag(Long id, String name) {
+			this.id = id;
+			this.name = name;
+		}
+
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public void setId(Long id) {
+			this.id = id;
+		}
+
+	}
+
+	@Entity(name = "Label")
+	public static class Label implements IdentifiableResource<String> {
+
+		@Id
+		private String id;
+
+		public Label() {}
+
+		public Label(String id) {
+			this.id = id;
+		}
+
+		@Override
+		public String getId() {
+			return id;
+		}
+
+		@Override
+		public void setId(String id) {
+			this.id = id;
+		}
+
+	}
+
+}
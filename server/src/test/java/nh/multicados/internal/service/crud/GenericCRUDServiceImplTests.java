@@ -0,0 +1,486 @@
+/**
+ *
+ */
+package nh.multicados.internal.service.crud;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.ManyToOne;
+import javax.persistence.OneToMany;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.Environment;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import multicados.internal.config.Settings;
+import multicados.internal.domain.DomainResource;
+import multicados.internal.domain.DomainResourceContext;
+import multicados.internal.domain.DomainResourceGraph;
+import multicados.internal.domain.DomainResourceGraph.DomainResourceGraphCollector;
+import multicados.internal.domain.IdentifiableResource;
+import multicados.internal.domain.builder.DomainResourceBuilderFactory;
+import multicados.internal.domain.cache.ResourceCache;
+import multicados.internal.domain.metadata.DomainResourceAttributesMetadata;
+import multicados.internal.domain.repository.GenericRepositoryImpl;
+import multicados.internal.domain.validation.DomainResourceValidatorFactory;
+import multicados.internal.service.crud.GenericCRUDServiceImpl;
+import multicados.internal.service.crud.rest.AbstractRestQuery;
+import multicados.internal.service.crud.rest.ComposedNonBatchingRestQuery;
+import multicados.internal.service.crud.rest.ComposedNonBatchingRestQueryImpl;
+import multicados.internal.service.crud.rest.ComposedRestQuery;
+import multicados.internal.service.crud.rest.ComposedRestQueryImpl;
+import multicados.internal.service.crud.rest.DelegatedPageable;
+import multicados.internal.service.crud.rest.RestQuery;
+import multicados.internal.service.crud.security.read.ReadSecurityManager;
+import multicados.internal.service.crud.security.read.RowFilterParameter;
+
+/**
+ * Rows are owned by principals, a credential only reads the rows of the
+ * principal on whose behalf it reads
+ *
+ * @author Ngoc Huy
+ *
+ */
+public class GenericCRUDServiceImplTests {
+
+	private static final GrantedAuthority USER = new SimpleGrantedAuthority("USER");
+	// reads every row
+	private static final GrantedAuthority ADMIN = new SimpleGrantedAuthority("ADMIN");
+	private static final String ALICE = "alice";
+	private static final String BOB = "bob";
+	private static final String NAME = "name";
+
+	private SessionFactory sessionFactory;
+	private GenericCRUDServiceImpl service;
+	private ResourceCache resourceCache;
+	private ReadSecurityManager readSecurityManager;
+	// the principal of the current request
+	private String principal;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		// @formatter:off
+		sessionFactory = new Configuration()
+				.addAnnotatedClass(Department.class)
+				.addAnnotatedClass(Employee.class)
+				.setProperty(AvailableSettings.URL, "jdbc:h2:mem:crud;DB_CLOSE_DELAY=-1")
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.setProperty(AvailableSettings.USE_SECOND_LEVEL_CACHE, "true")
+				.setProperty(AvailableSettings.USE_QUERY_CACHE, "true")
+				.setProperty(AvailableSettings.CACHE_REGION_FACTORY, "jcache")
+				.setProperty("hibernate.javax.cache.missing_cache_strategy", "create")
+				.setProperty(AvailableSettings.GENERATE_STATISTICS, "true")
+				.buildSessionFactory();
+		// @formatter:on
+		final DomainResourceContext resourceContext = mockResourceContext();
+		readSecurityManager = mock(ReadSecurityManager.class);
+		final RowFilterParameter<String> owner = new RowFilterParameter<>("owner", String.class, () -> principal);
+
+		when(readSecurityManager.check(any(), any(), any()))
+				.thenAnswer(invocation -> new ArrayList<>(invocation.<Collection<String>>getArgument(1)));
+		when(readSecurityManager.translate(any(), anyCollection())).thenAnswer(invocation -> invocation
+				.<Collection<String>>getArgument(1).stream().collect(Collectors.toMap(Function.identity(),
+						Function.identity(), (one, another) -> one, LinkedHashMap::new)));
+		when(readSecurityManager.getRowFilter(Department.class, USER)).thenReturn(ownedBy(owner));
+		when(readSecurityManager.getRowFilter(Employee.class, USER)).thenReturn(ownedBy(owner));
+		when(readSecurityManager.getRowFilterArguments(any(), eq(USER)))
+				.thenAnswer(invocation -> Map.of(owner.getName(), owner.resolve()));
+
+		resourceCache = mock(ResourceCache.class);
+
+		final Environment env = mock(Environment.class);
+		// so that the employees are streamed in two chunks
+		when(env.getProperty(Settings.CRUD_STREAM_FETCH_SIZE)).thenReturn("2");
+		final SessionFactoryImplementor sfi = sessionFactory.unwrap(SessionFactoryImplementor.class);
+		// @formatter:off
+		service = new GenericCRUDServiceImpl(
+				sfi,
+				env,
+				resourceContext,
+				mock(DomainResourceBuilderFactory.class),
+				mock(DomainResourceValidatorFactory.class),
+				readSecurityManager,
+				new GenericRepositoryImpl(sfi, resourceContext),
+				resourceCache);
+		// @formatter:on
+		try (Session session = sessionFactory.openSession()) {
+			session.beginTransaction();
+
+			final Department first = new Department(1L, "d1", ALICE);
+			final Department second = new Department(2L, "d2", BOB);
+
+			session.persist(first);
+			session.persist(second);
+			session.persist(new Employee(1L, "e1", ALICE, first));
+			session.persist(new Employee(2L, "e2", BOB, first));
+			session.persist(new Employee(3L, "e3", ALICE, second));
+			session.getTransaction().commit();
+		}
+	}
+
+	@AfterEach
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	private static <D extends DomainResource> Specification<D> ownedBy(RowFilterParameter<String> owner) {
+		return (root, query, builder) -> builder.equal(root.get("owner"), owner.toExpression(builder));
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static DomainResourceContext mockResourceContext() {
+		final DomainResourceContext resourceContext = mock(DomainResourceContext.class);
+		final DomainResourceGraph resourceGraph = mock(DomainResourceGraph.class);
+		final List<DomainResourceGraph> nodes = new ArrayList<>();
+
+		for (final Class<? extends DomainResource> type : List.of(Department.class, Employee.class)) {
+			final DomainResourceGraph node = mock(DomainResourceGraph.class);
+
+			when(node.getResourceType()).thenReturn(type);
+			nodes.add(node);
+		}
+
+		when(resourceContext.getResourceGraph()).thenReturn(resourceGraph);
+		when(resourceGraph.collect(any(DomainResourceGraphCollector.class))).thenAnswer(invocation -> {
+			final DomainResourceGraphCollector collector = invocation.getArgument(0);
+			final Collection collection = (Collection) collector.getFactory().get();
+
+			nodes.stream().map(collector.getMapper()).forEach(collection::add);
+
+			return collection;
+		});
+
+		final DomainResourceAttributesMetadata departmentMetadata = mockMetadata(List.of(NAME, "owner", "employees"));
+		final DomainResourceAttributesMetadata employeeMetadata = mockMetadata(List.of(NAME, "owner", "department"));
+
+		when(departmentMetadata.isAssociation("employees")).thenReturn(true);
+		when(employeeMetadata.isAssociation("department")).thenReturn(true);
+		when(employeeMetadata.isAssociationOptional("department")).thenReturn(true);
+		doReturn(departmentMetadata).when(resourceContext).getMetadata(Department.class);
+		doReturn(employeeMetadata).when(resourceContext).getMetadata(Employee.class);
+
+		return resourceContext;
+	}
+
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static DomainResourceAttributesMetadata mockMetadata(List<String> attributeNames) {
+		final DomainResourceAttributesMetadata metadata = mock(DomainResourceAttributesMetadata.class);
+
+		when(metadata.unwrap(DomainResourceAttributesMetadata.class)).thenReturn(metadata);
+		when(metadata.getAttributeNames()).thenReturn(attributeNames);
+
+		return metadata;
+	}
+
+	private static <D extends DomainResource> RestQuery<D> query(Class<D> type, String associationName) {
+		return query(type, associationName, List.of(NAME));
+	}
+
+	private static <D extends DomainResource> RestQuery<D> query(Class<D> type, String associationName,
+			List<String> attributes) {
+		final RestQuery<D> query = new AbstractRestQuery<>(type) {};
+
+		query.setAttributes(attributes);
+		query.setAssociationName(associationName);
+
+		return query;
+	}
+
+	private static ComposedRestQuery<Employee> employees(boolean joiningDepartment) {
+		// the department columns follow the name of the employee
+		final List<ComposedNonBatchingRestQuery<?>> nonBatchingQueries = joiningDepartment
+				? List.of(new ComposedNonBatchingRestQueryImpl<>(query(Department.class, "department"), List.of(),
+						List.of(), Map.of(), 1))
+				: List.of();
+
+		return new ComposedRestQueryImpl<>(query(Employee.class, null), nonBatchingQueries, List.of(), Map.of());
+	}
+
+	private List<Map<String, Object>> readAll(String principal, ComposedRestQuery<?> query) throws Exception {
+		return readAll(principal, query, USER);
+	}
+
+	private List<Map<String, Object>> readAll(String principal, ComposedRestQuery<?> query,
+			GrantedAuthority credential) throws Exception {
+		this.principal = principal;
+
+		try (Session session = sessionFactory.openSession()) {
+			return service.readAll(query, credential, session);
+		}
+	}
+
+	private static Map<String, Object> record(Object... entries) {
+		final Map<String, Object> record = new HashMap<>();
+
+		for (int i = 0; i < entries.length; i += 2) {
+			record.put((String) entries[i], entries[i + 1]);
+		}
+
+		return record;
+	}
+
+	@Test
+	public void testRootRowsAreFilteredPerPrincipal() throws Exception {
+		assertEquals(List.of(record(NAME, "e1"), record(NAME, "e3")), readAll(ALICE, employees(false)));
+		// the plan compiled for alice is bound with the values of bob
+		assertEquals(List.of(record(NAME, "e2")), readAll(BOB, employees(false)));
+		assertEquals(1, service.getPlanCacheStatistics().getMissCount());
+		assertEquals(1, service.getPlanCacheStatistics().getHitCount());
+	}
+
+	@Test
+	public void testJoinedAssociationIsFiltered() throws Exception {
+		// @formatter:off
+		assertEquals(List.of(
+				record(NAME, "e1", "department", record(NAME, "d1")),
+				record(NAME, "e3", "department", record(NAME, null))),
+				readAll(ALICE, employees(true)));
+		assertEquals(List.of(
+				record(NAME, "e2", "department", record(NAME, null))),
+				readAll(BOB, employees(true)));
+		// @formatter:on
+	}
+
+	@Test
+	public void testBatchedAssociationIsFiltered() throws Exception {
+		final ComposedRestQuery<Department> departments = new ComposedRestQueryImpl<>(query(Department.class, null),
+				List.of(), List.of(new ComposedRestQueryImpl<>(query(Employee.class, "employees"), List.of(),
+						List.of(), Map.of())),
+				Map.of());
+
+		assertEquals(List.of(record(NAME, "d1", "employees", List.of(record(NAME, "e1")))),
+				readAll(ALICE, departments));
+		assertEquals(List.of(record(NAME, "d2", "employees", List.of())), readAll(BOB, departments));
+	}
+
+	@Test
+	public void testRowsFollowTheTranslatedShape() throws Exception {
+		// department attributes are exposed under other aliases
+		when(readSecurityManager.translate(eq(Department.class), anyCollection())).thenReturn(
+				new LinkedHashMap<>(Map.of(NAME, "title", "owner", "managedBy")));
+		when(readSecurityManager.translate(eq(Employee.class), anyCollection())).thenReturn(
+				new LinkedHashMap<>(Map.of(NAME, NAME, "owner", "owner", "department", "unit")));
+		// the department columns follow both columns of the employee
+		final ComposedRestQuery<Employee> employees = new ComposedRestQueryImpl<>(
+				query(Employee.class, null, List.of(NAME, "owner")),
+				List.of(new ComposedNonBatchingRestQueryImpl<>(
+						query(Department.class, "department", List.of("owner", NAME)), List.of(), List.of(),
+						Map.of(), 2)),
+				List.of(), Map.of());
+		final List<Map<String, Object>> records = readAll(ALICE, employees, ADMIN);
+		// @formatter:off
+		assertEquals(List.of(
+				record(NAME, "e1", "owner", ALICE, "unit", record("managedBy", ALICE, "title", "d1")),
+				record(NAME, "e2", "owner", BOB, "unit", record("managedBy", ALICE, "title", "d1")),
+				record(NAME, "e3", "owner", ALICE, "unit", record("managedBy", BOB, "title", "d2"))),
+				records);
+		// @formatter:on
+		// in the requested order
+		assertEquals(List.of(NAME, "owner", "unit"), List.copyOf(records.get(0).keySet()));
+		assertEquals(List.of("managedBy", "title"),
+				List.copyOf(((Map<?, ?>) records.get(0).get("unit")).keySet()));
+		// translated once for the whole read, not per row
+		verify(readSecurityManager, times(1)).translate(eq(Department.class), anyCollection());
+	}
+
+	private static ComposedRestQuery<Department> departments(RestQuery<Employee> employeeQuery) {
+		return new ComposedRestQueryImpl<>(query(Department.class, null), List.of(),
+				List.of(new ComposedRestQueryImpl<>(employeeQuery, List.of(), List.of(), Map.of())), Map.of());
+	}
+
+	@Test
+	public void testBatchedAssociationCostsOneQuery() throws Exception {
+		// @formatter:off
+		assertEquals(List.of(
+				record(NAME, "d1", "employees", List.of(record(NAME, "e1"), record(NAME, "e2"))),
+				record(NAME, "d2", "employees", List.of(record(NAME, "e3")))),
+				readAll(ALICE, departments(query(Employee.class, "employees")), ADMIN));
+		// @formatter:on
+		// the departments, then the employees of every department at once
+		assertEquals(2, sessionFactory.getStatistics().getQueryExecutionCount());
+	}
+
+	@Test
+	public void testBatchedAssociationIsCappedPerOwner() throws Exception {
+		final RestQuery<Employee> employeeQuery = query(Employee.class, "employees");
+
+		employeeQuery.setPage(new DelegatedPageable(PageRequest.of(0, 1, Sort.by(Sort.Direction.DESC, NAME))));
+		// the first records of each department in the requested order
+		// @formatter:off
+		assertEquals(List.of(
+				record(NAME, "d1", "employees", List.of(record(NAME, "e2"))),
+				record(NAME, "d2", "employees", List.of(record(NAME, "e3")))),
+				readAll(ALICE, departments(employeeQuery), ADMIN));
+		// @formatter:on
+	}
+
+	@Test
+	public void testFilteredResultsAreNeverCached() throws Exception {
+		when(resourceCache.isCached(any())).thenReturn(true);
+
+		readAll(ALICE, employees(true));
+		readAll(BOB, employees(false));
+		assertEquals(0, sessionFactory.getStatistics().getQueryCachePutCount());
+		// the same results for every principal
+		assertEquals(3, readAll(ALICE, employees(false), ADMIN).size());
+		assertEquals(1, sessionFactory.getStatistics().getQueryCachePutCount());
+		assertEquals(3, readAll(BOB, employees(false), ADMIN).size());
+		assertEquals(1, sessionFactory.getStatistics().getQueryCacheHitCount());
+	}
+
+	private List<Map<String, Object>> stream(String principal, ComposedRestQuery<?> query,
+			GrantedAuthority credential) throws Exception {
+		final List<Map<String, Object>> records = new ArrayList<>();
+
+		this.principal = principal;
+
+		try (Session session = sessionFactory.openSession()) {
+			service.stream(query, credential, session, records::add);
+		}
+
+		return records;
+	}
+
+	@Test
+	public void testStreamReadsInChunks() throws Exception {
+		// @formatter:off
+		assertEquals(List.of(
+				record(NAME, "e1", "department", record(NAME, "d1")),
+				record(NAME, "e2", "department", record(NAME, "d1")),
+				record(NAME, "e3", "department", record(NAME, "d2"))),
+				stream(ALICE, employees(true), ADMIN));
+		// @formatter:on
+		// the second chunk is short
+		assertEquals(2, sessionFactory.getStatistics().getQueryExecutionCount());
+		assertEquals(List.of(record(NAME, "e1", "department", record(NAME, "d1")),
+				record(NAME, "e3", "department", record(NAME, null))), stream(ALICE, employees(true), USER));
+	}
+
+	@Test
+	public void testStreamLoadsBatchingAssociationsPerChunk() throws Exception {
+		final ComposedRestQuery<Department> departments = new ComposedRestQueryImpl<>(query(Department.class, null),
+				List.of(), List.of(new ComposedRestQueryImpl<>(query(Employee.class, "employees"), List.of(),
+						List.of(), Map.of())),
+				Map.of());
+		// @formatter:off
+		assertEquals(List.of(
+				record(NAME, "d1", "employees", List.of(record(NAME, "e1"), record(NAME, "e2"))),
+				record(NAME, "d2", "employees", List.of(record(NAME, "e3")))),
+				stream(BOB, departments, ADMIN));
+		// @formatter:on
+		// a full chunk, its batch and an empty chunk
+		assertEquals(3, sessionFactory.getStatistics().getQueryExecutionCount());
+		assertEquals(List.of(record(NAME, "d2", "employees", List.of())), stream(BOB, departments, USER));
+	}
+
+	@Test
+	public void testReadsBySpecificationAreFiltered() throws Exception {
+		principal = BOB;
+
+		try (Session session = sessionFactory.openSession()) {
+			assertEquals(List.of(record(NAME, "e2")), service.readAll(Employee.class, List.of(NAME), USER, session));
+			assertNull(service.readById(Employee.class, 1L, List.of(NAME), USER, session));
+			assertEquals(record(NAME, "e2"), service.readById(Employee.class, 2L, List.of(NAME), USER, session));
+		}
+	}
+
+	@Entity(name = "Department")
+	public static class Department implements IdentifiableResource<Long> {
+
+		@Id
+		private Long id;
+
+		private String name;
+
+		private String owner;
+
+		@OneToMany(mappedBy = "department")
+		private List<Employee> employees;
+
+		public Department() {}
+
+		public Department(Long id, String name, String owner) {
+			this.id = id;
+			this.name = name;
+			this.owner = owner;
+		}
+
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public void setId(Long id) {
+			this.id = id;
+		}
+
+	}
+
+	@Entity(name = "Employee")
+	public static class Employee implements IdentifiableResource<Long> {
+
+		@Id
+		private Long id;
+
+		private String name;
+
+		private String owner;
+
+		@ManyToOne(fetch = FetchType.LAZY)
+		private Department department;
+
+		public Employee() {}
+
+		public Employee(Long id, String name, String owner, Department department) {
+			this.id = id;
+			this.name = name;
+			this.owner = owner;
+			this.department = department;
+		}
+
+		@Override
+		public Long getId() {
+			return id;
+		}
+
+		@Override
+		public void setId(Long id) {
+			this.id = id;
+		}
+
+	}
+
+}
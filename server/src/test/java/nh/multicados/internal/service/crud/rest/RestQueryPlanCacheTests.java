@@ -0,0 +1,71 @@
+/**
+ *
+ */
+package nh.multicados.internal.service.crud.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+
+import multicados.internal.service.crud.rest.RestQueryPlan;
+import multicados.internal.service.crud.rest.RestQueryPlanCache;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class RestQueryPlanCacheTests {
+
+	@Test
+	public void testHitAndMiss() {
+		final RestQueryPlanCache cache = new RestQueryPlanCache(2);
+		final RestQueryPlan plan = mock(RestQueryPlan.class);
+
+		assertNull(cache.get("a"));
+		cache.put("a", plan);
+		assertSame(plan, cache.get("a"));
+
+		final RestQueryPlanCache.Statistics statistics = cache.getStatistics();
+
+		assertEquals(1, statistics.getSize());
+		assertEquals(1, statistics.getHitCount());
+		assertEquals(1, statistics.getMissCount());
+		assertEquals(.5d, statistics.getHitRatio());
+	}
+
+	@Test
+	public void testFirstPutWins() {
+		final RestQueryPlanCache cache = new RestQueryPlanCache(2);
+		final RestQueryPlan first = mock(RestQueryPlan.class);
+
+		cache.put("a", first);
+		cache.put("a", mock(RestQueryPlan.class));
+
+		assertSame(first, cache.get("a"));
+	}
+
+	@Test
+	public void testLeastRecentlyUsedIsEvicted() {
+		final RestQueryPlanCache cache = new RestQueryPlanCache(2);
+
+		cache.put("a", mock(RestQueryPlan.class));
+		cache.put("b", mock(RestQueryPlan.class));
+		// touches a, leaving b the eldest
+		cache.get("a");
+		cache.put("c", mock(RestQueryPlan.class));
+
+		assertNull(cache.get("b"));
+		assertEquals(2, cache.getStatistics().getSize());
+		assertEquals(1, cache.getStatistics().getEvictionCount());
+	}
+
+	@Test
+	public void testNonPositiveSizeIsRejected() {
+		assertThrows(IllegalArgumentException.class, () -> new RestQueryPlanCache(0));
+	}
+
+}
@@ -0,0 +1,101 @@
+/**
+ *
+ */
+package nh.multicados.internal.service.crud.rest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.Parameter;
+
+import org.hibernate.query.ParameterMetadata;
+import org.hibernate.query.Query;
+import org.junit.jupiter.api.Test;
+
+import multicados.internal.service.crud.rest.RestQueryPlan;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class RestQueryPlanTests {
+
+	private static final String QUERY_STRING = "select e.name from Entity e where e.active = :c0 and e.name = :p0 and e.id in (:p1) and e.owner = :rowFilter_owner";
+
+	@SuppressWarnings("unchecked")
+	private RestQueryPlan createPlan() {
+		final Query<Object> compiledQuery = mock(Query.class);
+		final ParameterMetadata parameterMetadata = mock(ParameterMetadata.class);
+
+		when(compiledQuery.unwrap(Query.class)).thenReturn(compiledQuery);
+		when(compiledQuery.getParameterMetadata()).thenReturn(parameterMetadata);
+		when(compiledQuery.getQueryString()).thenReturn(QUERY_STRING);
+		when(compiledQuery.getParameterValue("c0")).thenReturn(Boolean.TRUE);
+		when(parameterMetadata.getNamedParameterNames()).thenReturn(Set.of("c0", "p0", "p1", "rowFilter_owner"));
+
+		final Parameter<?> constant = mock(Parameter.class);
+		// the row filter parameter is left unbound by the compilation
+		doReturn(constant).when(compiledQuery).getParameter("c0");
+		doReturn(mock(Parameter.class)).when(compiledQuery).getParameter("rowFilter_owner");
+		when(compiledQuery.isBound(constant)).thenReturn(true);
+
+		return new RestQueryPlan(compiledQuery, List.of("p0", "p1"), 0, -1, 1);
+	}
+
+	@Test
+	public void testQueryIsRenderedOnce() {
+		final RestQueryPlan plan = createPlan();
+
+		assertEquals(QUERY_STRING, plan.getQueryString());
+		assertEquals(0, plan.getIdentifierPosition());
+		assertEquals(-1, plan.getOwnerIdentifierPosition());
+		assertEquals(1, plan.getKeysetPosition());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testArgumentsAreBoundIntoSlotsAndConstantsAreKept() {
+		final RestQueryPlan plan = createPlan();
+		final Query<Object> query = mock(Query.class);
+		final List<Object> identifiers = new ArrayList<>(List.of(1, 2));
+
+		plan.bind(query, Arrays.asList("name", identifiers));
+
+		verify(query).setParameter("p0", "name");
+		verify(query).setParameterList("p1", identifiers);
+		verify(query).setParameter("c0", Boolean.TRUE);
+		verify(query, never()).setParameter("p1", identifiers);
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testUnboundParametersAreLeftToTheCaller() {
+		final RestQueryPlan plan = createPlan();
+		final Query<Object> query = mock(Query.class);
+
+		plan.bind(query, Arrays.asList("name", List.of(1)));
+
+		verify(query, never()).setParameter(eq("rowFilter_owner"), any());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testArgumentCountMustMatchSlots() {
+		final RestQueryPlan plan = createPlan();
+
+		assertThrows(IllegalArgumentException.class, () -> plan.bind(mock(Query.class), List.of("name")));
+	}
+
+}
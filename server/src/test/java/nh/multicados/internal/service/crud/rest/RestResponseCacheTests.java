@@ -0,0 +1,242 @@
+/**
+ *
+ */
+package nh.multicados.internal.service.crud.rest;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.orm.hibernate5.HibernateTransactionManager;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import multicados.internal.domain.DomainResource;
+import multicados.internal.invalidation.LocalInvalidationBus;
+import multicados.internal.service.crud.rest.ComposedRestQuery;
+import multicados.internal.service.crud.rest.RestResponseCache;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class RestResponseCacheTests {
+
+	private static final GrantedAuthority ADMIN = new SimpleGrantedAuthority("ADMIN");
+	private static final GrantedAuthority USER = new SimpleGrantedAuthority("USER");
+
+	private SessionFactory sessionFactory;
+	private RestResponseCache responseCache;
+
+	private final AtomicInteger readCount = new AtomicInteger();
+
+	@BeforeEach
+	public void setUp() {
+		// @formatter:off
+		sessionFactory = new Configuration()
+				.addAnnotatedClass(Tag.class)
+				.addAnnotatedClass(SpecialTag.class)
+				.addAnnotatedClass(Label.class)
+				.setProperty(AvailableSettings.URL, "jdbc:h2:mem:response;DB_CLOSE_DELAY=-1")
+				.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+				.buildSessionFactory();
+		// @formatter:on
+		final HibernateTransactionManager transactionManager = new HibernateTransactionManager();
+		// the connections are not pooled by a DataSource
+		transactionManager.setAutodetectDataSource(false);
+		transactionManager.setSessionFactory(sessionFactory);
+
+		responseCache = new RestResponseCache(sessionFactory, transactionManager,
+				new ObjectMapper(), new LocalInvalidationBus(), RestResponseCache.DEFAULT_MAX_BYTES,
+				RestResponseCache.DEFAULT_MAX_ENTRY_BYTES);
+	}
+
+	@AfterEach
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <D extends DomainResource> ComposedRestQuery<D> query(Class<D> type) {
+		final ComposedRestQuery<D> query = mock(ComposedRestQuery.class);
+
+		when(query.getResourceType()).thenReturn(type);
+		when(query.getAttributes()).thenReturn(List.of("name"));
+		when(query.getFilters()).thenReturn(Map.of());
+		when(query.getBatchingAssociationQueries()).thenReturn(List.of());
+		when(query.getNonBatchingAssociationQueries()).thenReturn(List.of());
+
+		return query;
+	}
+
+	private ResponseEntity<byte[]> readAll(ComposedRestQuery<?> query, GrantedAuthority credential)
+			throws Exception {
+		return responseCache.readAll(query, credential,
+				() -> List.of(Map.of("name", String.valueOf(readCount.incrementAndGet()))));
+	}
+
+	private void save(Object resource, boolean committing) {
+		try (Session session = sessionFactory.openSession()) {
+			final Transaction transaction = session.beginTransaction();
+
+			session.persist(resource);
+			session.flush();
+
+			if (committing) {
+				transaction.commit();
+				return;
+			}
+
+			transaction.rollback();
+		}
+	}
+
+	@Test
+	public void testCachedResponseKeepsItsETag() throws Exception {
+		final ComposedRestQuery<Tag> query = query(Tag.class);
+		final ResponseEntity<byte[]> first = readAll(query, ADMIN);
+		final ResponseEntity<byte[]> second = readAll(query, ADMIN);
+
+		assertEquals(1, readCount.get());
+		assertArrayEquals(first.getBody(), second.getBody());
+		// strong
+		assertTrue(first.getHeaders().getETag().startsWith("\""));
+		assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+		assertEquals(1, responseCache.getHitCount());
+		assertEquals(1, responseCache.getMissCount());
+	}
+
+	@Test
+	public void testMatchingETagIsNotModified() throws Exception {
+		final String eTag = readAll(query(Tag.class), ADMIN).getHeaders().getETag();
+		final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/rest/tag");
+		final MockHttpServletResponse response = new MockHttpServletResponse();
+
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+		// what the handler does with the returned entity
+		assertTrue(new ServletWebRequest(request, response).checkNotModified(eTag));
+		assertEquals(HttpStatus.NOT_MODIFIED.value(), response.getStatus());
+	}
+
+	@Test
+	public void testCredentialsAreCachedApart() throws Exception {
+		final ComposedRestQuery<Tag> query = query(Tag.class);
+		final String eTag = readAll(query, ADMIN).getHeaders().getETag();
+
+		assertNotEquals(eTag, readAll(query, USER).getHeaders().getETag());
+		assertEquals(2, readCount.get());
+	}
+
+	@Test
+	public void testCommittedWriteInvalidatesResponses() throws Exception {
+		final ComposedRestQuery<Tag> tagQuery = query(Tag.class);
+		final ComposedRestQuery<Label> labelQuery = query(Label.class);
+		final String eTag = readAll(tagQuery, ADMIN).getHeaders().getETag();
+
+		readAll(labelQuery, ADMIN);
+		save(new Tag(1L), true);
+
+		assertNotEquals(eTag, readAll(tagQuery, ADMIN).getHeaders().getETag());
+		assertEquals(3, readCount.get());
+		// other resources are kept
+		readAll(labelQuery, ADMIN);
+		assertEquals(3, readCount.get());
+	}
+
+	@Test
+	public void testRolledBackWriteKeepsResponses() throws Exception {
+		final ComposedRestQuery<Tag> query = query(Tag.class);
+
+		readAll(query, ADMIN);
+		save(new Tag(1L), false);
+		readAll(query, ADMIN);
+
+		assertEquals(1, readCount.get());
+	}
+
+	@Test
+	public void testWrittenSubtypeInvalidatesItsParent() throws Exception {
+		final ComposedRestQuery<Tag> query = query(Tag.class);
+
+		readAll(query, ADMIN);
+		save(new SpecialTag(1L), true);
+		readAll(query, ADMIN);
+
+		assertEquals(2, readCount.get());
+	}
+
+	@Test
+	public void testWriteCommittedWhileReadingIsNotMissed() throws Exception {
+		final ComposedRestQuery<Tag> query = query(Tag.class);
+		// the response is read before the write and cached after it
+		responseCache.readAll(query, ADMIN, () -> {
+			save(new Tag(1L), true);
+
+			return List.of();
+		});
+		readAll(query, ADMIN);
+
+		assertEquals(1, readCount.get());
+		assertEquals(0, responseCache.getHitCount());
+	}
+
+	@Entity(name = "Tag")
+	public static class Tag implements DomainResource {
+
+		@Id
+		private Long id;
+
+		public Tag() {}
+
+		public Tag(Long id) {
+			this.id = id;
+		}
+
+	}
+
+	@Entity(name = "SpecialTag")
+	public static class SpecialTag extends Tag {
+
+		public SpecialTag() {}
+
+		public SpecialTag(Long id) {
+			super(id);
+		}
+
+	}
+
+	@Entity(name = "Label")
+	public static class Label implements DomainResource {
+
+		@Id
+		private Long id;
+
+	}
+
+}
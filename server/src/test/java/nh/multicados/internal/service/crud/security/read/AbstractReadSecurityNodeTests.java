@@ -0,0 +1,192 @@
+/**
+ *
+ */
+package nh.multicados.internal.service.crud.security.read;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import multicados.internal.domain.DomainResource;
+import multicados.internal.domain.metadata.DomainResourceAttributesMetadata;
+import multicados.internal.security.CredentialException;
+import multicados.internal.service.crud.security.read.AbstractReadSecurityNode;
+import multicados.internal.service.crud.security.read.ReadFailureExceptionHandler;
+import multicados.internal.service.crud.security.read.UnknownAttributesException;
+
+/**
+ * @author Ngoc Huy
+ *
+ */
+public class AbstractReadSecurityNodeTests {
+
+	// spans two words of the bitsets
+	private static final int ATTRIBUTES_AMOUNT = 70;
+	private static final GrantedAuthority ADMIN = new SimpleGrantedAuthority("ADMIN");
+	private static final GrantedAuthority USER = new SimpleGrantedAuthority("USER");
+	private static final GrantedAuthority BLOCKED = new SimpleGrantedAuthority("BLOCKED");
+	private static final GrantedAuthority UNKNOWN = new SimpleGrantedAuthority("UNKNOWN");
+
+	private static final ReadFailureExceptionHandler EXCEPTION_HANDLER = new ReadFailureExceptionHandler() {
+
+		@Override
+		public void doOnUnauthorizedCredential(Class<?> resourceType, String credential)
+				throws CredentialException {
+			throw new CredentialException();
+		}
+
+		@Override
+		public void doOnUnauthorizedAttribute(Class<?> resourceType, String credential,
+				List<String> unauthorizedAttributeNames) throws UnknownAttributesException {
+			throw new UnknownAttributesException(unauthorizedAttributeNames);
+		}
+
+	};
+
+	private CompiledNode node;
+
+	private static String name(int ordinal) {
+		return "attribute" + ordinal;
+	}
+
+	@BeforeEach
+	@SuppressWarnings("unchecked")
+	public void setUp() {
+		final DomainResourceAttributesMetadata<DomainResource> metadata = mock(
+				DomainResourceAttributesMetadata.class);
+		final List<String> attributeNames = IntStream.range(0, ATTRIBUTES_AMOUNT)
+				.mapToObj(AbstractReadSecurityNodeTests::name).toList();
+
+		when(metadata.unwrap(DomainResourceAttributesMetadata.class)).thenReturn(metadata);
+		when(metadata.getResourceType()).thenReturn(DomainResource.class);
+		when(metadata.getAttributeNames()).thenReturn(attributeNames);
+		// odd ordinals are lazy
+		when(metadata.getNonLazyAttributeNames())
+				.thenReturn(IntStream.range(0, ATTRIBUTES_AMOUNT).filter(i -> i % 2 == 0).mapToObj(
+						AbstractReadSecurityNodeTests::name).toList());
+
+		final Map<String, Collection<String>> authorizedAttributes = new HashMap<>();
+
+		authorizedAttributes.put(ADMIN.getAuthority(), attributeNames);
+		// both ends of both words
+		authorizedAttributes.put(USER.getAuthority(), List.of(name(0), name(63), name(64), name(69)));
+		authorizedAttributes.put(BLOCKED.getAuthority(), List.of());
+
+		node = new CompiledNode(metadata, authorizedAttributes);
+	}
+
+	@Test
+	public void testMixedMask() throws Exception {
+		assertEquals(List.of(name(69), name(0), name(64), name(63)),
+				node.check(List.of(name(69), name(0), name(64), name(63)), USER));
+		assertEquals(List.of(name(62), name(65)), node.check(List.of(name(62), name(65)), ADMIN));
+	}
+
+	@Test
+	public void testDeniedAttributes() {
+		final UnknownAttributesException denied = assertThrows(UnknownAttributesException.class,
+				() -> node.check(List.of(name(0), name(1), name(65), "unknown"), USER));
+
+		assertEquals(new UnknownAttributesException(List.of(name(1), name(65), "unknown")).getMessage(),
+				denied.getMessage());
+	}
+
+	@Test
+	public void testDefaultAttributesAreTheNonLazyAuthorizedOnes() throws Exception {
+		assertEquals(List.of(name(0), name(64)), node.check(List.of(), USER));
+		assertEquals(ATTRIBUTES_AMOUNT / 2, node.check(null, ADMIN).size());
+	}
+
+	@Test
+	public void testCredentialWithoutAttributesIsUnauthorized() {
+		assertThrows(CredentialException.class, () -> node.check(List.of(name(0)), BLOCKED));
+		assertThrows(CredentialException.class, () -> node.check(List.of(), BLOCKED));
+		assertThrows(CredentialException.class, () -> node.check(List.of(name(0)), UNKNOWN));
+	}
+
+	@Test
+	public void testMemoIsReusedPerCredential() throws Exception {
+		final List<String> requested = List.of(name(0), name(64));
+		final List<String> checked = node.check(requested, USER);
+		// equal lists share the memoized result
+		assertSame(checked, node.check(new ArrayList<>(requested), USER));
+		// other credentials check on their own
+		assertNotSame(checked, node.check(requested, ADMIN));
+		assertEquals(requested, node.check(requested, ADMIN));
+		assertThrows(UnknownAttributesException.class, () -> node.check(List.of(name(0), name(1)), USER));
+		// a denied list is never memoized
+		assertThrows(UnknownAttributesException.class, () -> node.check(List.of(name(0), name(1)), USER));
+	}
+
+	@Test
+	public void testUnorderedRequestsAreNotMemoized() throws Exception {
+		final Set<String> requested = new LinkedHashSet<>(List.of(name(0), name(64)));
+
+		assertEquals(List.of(name(0), name(64)), node.check(requested, USER));
+		assertNotSame(node.check(requested, USER), node.check(requested, USER));
+	}
+
+	@Test
+	public void testFullMemoIsRefilled() throws Exception {
+		final List<String> first = List.of(name(0));
+		final List<String> checked = node.check(first, ADMIN);
+		// fills the memo up
+		for (int i = 1; i < ATTRIBUTES_AMOUNT; i++) {
+			node.check(List.of(name(i)), ADMIN);
+		}
+
+		final List<String> rechecked = node.check(first, ADMIN);
+
+		assertEquals(checked, rechecked);
+		assertNotSame(checked, rechecked);
+		assertSame(rechecked, node.check(first, ADMIN));
+	}
+
+	private static class CompiledNode extends AbstractReadSecurityNode<DomainResource> {
+
+		private final Map<String, AuthorizedAttributes> authorizedAttributes = new HashMap<>();
+
+		public CompiledNode(DomainResourceAttributesMetadata<DomainResource> metadata,
+				Map<String, Collection<String>> authorizedAttributeNames) {
+			super(metadata, EXCEPTION_HANDLER);
+
+			for (final Map.Entry<String, Collection<String>> entry : authorizedAttributeNames.entrySet()) {
+				authorizedAttributes.put(entry.getKey(), compile(entry.getValue()));
+			}
+		}
+
+		@Override
+		public Map<String, String> translate(Collection<String> attributes) {
+			return Map.of();
+		}
+
+		@Override
+		protected int locateOrdinal(String requestedName) {
+			return getOrdinal(requestedName);
+		}
+
+		@Override
+		protected AuthorizedAttributes getAuthorizedAttributes(String credentialValue) {
+			return authorizedAttributes.get(credentialValue);
+		}
+
+	}
+
+}